@@ -1,19 +1,53 @@
 package com.example.aiservice.feign;
 
 import com.example.aiservice.response.ApiResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
+import java.util.Map;
 
 @FeignClient(name = "inventory-service")
 public interface InventoryClient {
 
     /**
-     * Kiểm tra stock tại store cụ thể
+     * Kiểm tra tồn kho của nhiều store cho cả danh sách sản phẩm trong một lần gọi
      */
-    @GetMapping("/api/inventories/stock/check-at-store")
-    ApiResponse<Boolean> checkStockAtStore(
-            @RequestParam("productColorId") String productColorId,
-            @RequestParam("storeId") String storeId,
-            @RequestParam("quantity") Integer quantity);
+    @PostMapping("/api/inventories/stock/check-stores")
+    ApiResponse<List<StoreFulfillment>> checkStoresFulfillment(@RequestBody StoreFulfillmentRequest request);
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class StoreFulfillmentRequest {
+        private List<String> storeIds;
+        private List<Item> items;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class Item {
+        private String productColorId;
+        private Integer quantity;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class StoreFulfillment {
+        private String storeId;
+        private boolean fulfillable;
+        private int fulfilledLines;
+        private int totalLines;
+        private Map<String, Integer> shortages;
+    }
 }
@@ -10,7 +10,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,26 +50,18 @@ public class AIStoreRecommendationService {
             return null;
         }
 
+        Map<String, InventoryClient.StoreFulfillment> fulfillments = checkFulfillment(candidates, request.getOrderItems());
+
         List<GeminiAIService.StoreCandidate> aiCandidates = new ArrayList<>();
 
         for (StoreClient.StoreDistance candidate : candidates) {
-            int availableCount = 0;
-            for (StoreRecommendationRequest.OrderItemDTO item : request.getOrderItems()) {
-                try {
-                    ApiResponse<Boolean> stockCheck = inventoryClient.checkStockAtStore(
-                            item.getProductColorId(),
-                            candidate.getStore().getId(),
-                            item.getQuantity());
-                    if (stockCheck != null && stockCheck.getData() != null && stockCheck.getData()) {
-                        availableCount++;
-                    }
-                } catch (Exception e) {
-                    log.warn("Error checking stock at {}: {}",
-                            candidate.getStore().getId(), e.getMessage());
-                }
-            }
+            InventoryClient.StoreFulfillment fulfillment = fulfillments.get(candidate.getStore().getId());
+            int availableCount = fulfillment != null ? fulfillment.getFulfilledLines() : 0;
+            int totalLines = fulfillment != null && fulfillment.getTotalLines() > 0
+                    ? fulfillment.getTotalLines()
+                    : request.getOrderItems().size();
 
-            double stockAvailability = (double) availableCount / request.getOrderItems().size();
+            double stockAvailability = (double) availableCount / totalLines;
 
             aiCandidates.add(GeminiAIService.StoreCandidate.builder()
                     .storeId(candidate.getStore().getId())
@@ -139,6 +133,31 @@ public class AIStoreRecommendationService {
                 .build();
     }
 
+    /**
+     * Tồn kho của mọi ứng viên cho cả đơn trong một lần gọi inventory-service (storeId -> kết quả)
+     */
+    private Map<String, InventoryClient.StoreFulfillment> checkFulfillment(
+            List<StoreClient.StoreDistance> candidates, List<StoreRecommendationRequest.OrderItemDTO> orderItems) {
+        Map<String, InventoryClient.StoreFulfillment> result = new HashMap<>();
+        try {
+            ApiResponse<List<InventoryClient.StoreFulfillment>> response = inventoryClient.checkStoresFulfillment(
+                    InventoryClient.StoreFulfillmentRequest.builder()
+                            .storeIds(candidates.stream().map(sd -> sd.getStore().getId()).toList())
+                            .items(orderItems.stream()
+                                    .map(item -> new InventoryClient.Item(item.getProductColorId(), item.getQuantity()))
+                                    .toList())
+                            .build());
+            if (response != null && response.getData() != null) {
+                for (InventoryClient.StoreFulfillment fulfillment : response.getData()) {
+                    result.put(fulfillment.getStoreId(), fulfillment);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Error checking stock at {} stores: {}", candidates.size(), e.getMessage());
+        }
+        return result;
+    }
+
     private List<StoreClient.StoreDistance> getNearbyStores(Double lat, Double lon, int limit) {
         try {
             ApiResponse<List<StoreClient.StoreDistance>> response = storeClient.getNearestStores(lat, lon, limit);
@@ -0,0 +1,43 @@
+package com.example.aiservice.service;
+
+import com.example.aiservice.enums.EnumRole;
+
+import java.util.List;
+
+/**
+ * Principal dựng từ claims đã ký trong access token (không cần gọi user-service).
+ */
+public class TokenUserDetails extends CustomUserDetails {
+
+    private final EnumRole role;
+    private final String accountId;
+    private final String userId;
+    private final List<String> storeIds;
+
+    public TokenUserDetails(String email, EnumRole role, String accountId, String userId, List<String> storeIds) {
+        super(email, "", role);
+        this.role = role;
+        this.accountId = accountId;
+        this.userId = userId;
+        this.storeIds = storeIds != null ? storeIds : List.of();
+    }
+
+    public EnumRole getRole() {
+        return role;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Id của User (CUSTOMER) hoặc Employee (nhân viên), lấy từ claim profileId (claim userId là account id).
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    public List<String> getStoreIds() {
+        return storeIds;
+    }
+}
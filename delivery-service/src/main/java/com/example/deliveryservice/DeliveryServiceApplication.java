@@ -3,9 +3,11 @@ package com.example.deliveryservice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients(basePackages = "com.example.deliveryservice.feign")
+@EnableScheduling
 public class DeliveryServiceApplication {
 
 	public static void main(String[] args) {
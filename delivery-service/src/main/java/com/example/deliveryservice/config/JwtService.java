@@ -55,6 +55,10 @@ public class JwtService {
         return claimsJws.getBody().getSubject();
     }
 
+    public Claims extractAllClaims(String token) {
+        return parseToken(token).getBody();
+    }
+
     public Date extractExpiration(String token) {
         Jws<Claims> claimsJws = parseToken(token);
         if (claimsJws == null || claimsJws.getBody() == null) {
@@ -1,9 +1,15 @@
 package com.example.deliveryservice.config;
 
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
@@ -15,12 +21,17 @@ import org.apache.kafka.clients.admin.AdminClientConfig;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Configuration
 public class KafkaConfig {
 
     private final String BOOTSTRAP_SERVERS = "kafka:9092";
 
+    // Số partition cho các topic vòng đời đơn hàng; event được key theo orderId nên thứ tự trong một đơn vẫn giữ
+    @Value("${app.kafka.order-topic-partitions:6}")
+    private int orderTopicPartitions;
+
     @Bean
     public KafkaAdmin kafkaAdmin() {
         Map<String, Object> configs = new HashMap<>();
@@ -31,7 +42,7 @@ public class KafkaConfig {
     @Bean
     public NewTopic deliveryAssignedTopic() {
         return TopicBuilder.name("delivery-assigned-topic")
-                .partitions(1)
+                .partitions(orderTopicPartitions)
                 .replicas(1)
                 .build();
     }
@@ -39,7 +50,7 @@ public class KafkaConfig {
     @Bean
     public NewTopic orderDeliveredTopic() {
         return TopicBuilder.name("order-delivered-topic")
-                .partitions(1)
+                .partitions(orderTopicPartitions)
                 .replicas(1)
                 .build();
     }
@@ -57,4 +68,43 @@ public class KafkaConfig {
     public KafkaTemplate<String, Object> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    // Producer cho Outbox relay: payload đã là JSON, idempotent + nén + linger để gom nhiều event vào một request
+    @Bean
+    public ProducerFactory<String, String> outboxProducerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5); // tối đa 5 để idempotent vẫn giữ thứ tự
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30000);
+        return new DefaultKafkaProducerFactory<>(config);
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> outboxKafkaTemplate() {
+        return new KafkaTemplate<>(outboxProducerFactory());
+    }
+
+    // Thông báo thay đổi nhân viên từ user-service: mỗi instance một group riêng để instance nào cũng làm mới cache
+    @Bean
+    public ConsumerFactory<String, String> rosterConsumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, "delivery-roster-" + UUID.randomUUID());
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), new StringDeserializer());
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> rosterKafkaListenerContainerFactory() {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, String>();
+        factory.setConsumerFactory(rosterConsumerFactory());
+        return factory;
+    }
 }
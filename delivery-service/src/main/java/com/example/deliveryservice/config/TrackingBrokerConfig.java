@@ -0,0 +1,88 @@
+package com.example.deliveryservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Kafka cho fan-out tracking giữa các instance (app.tracking.broker.mode = kafka).
+ * Vị trí chỉ có giá trị vài giây nên topic giữ dữ liệu ngắn, producer không linger, consumer đọc từ latest.
+ */
+@Configuration
+@EnableKafka
+@ConditionalOnProperty(name = "app.tracking.broker.mode", havingValue = "kafka")
+public class TrackingBrokerConfig {
+
+    public static final String TRACKING_TOPIC = "tracking-fanout-topic";
+
+    @Value("${spring.kafka.bootstrap-servers:kafka:9092}")
+    private String bootstrapServers;
+
+    @Value("${app.tracking.broker.partitions:3}")
+    private int partitions;
+
+    @Value("${app.tracking.broker.retention-ms:60000}")
+    private long retentionMs;
+
+    @Bean
+    public NewTopic trackingFanoutTopic() {
+        return TopicBuilder.name(TRACKING_TOPIC)
+                .partitions(partitions)
+                .replicas(1)
+                .config("retention.ms", String.valueOf(retentionMs))
+                .build();
+    }
+
+    @Bean
+    public ProducerFactory<String, String> trackingProducerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.ACKS_CONFIG, "1");
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 5000);
+        config.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 3000);
+        return new DefaultKafkaProducerFactory<>(config);
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> trackingKafkaTemplate() {
+        return new KafkaTemplate<>(trackingProducerFactory());
+    }
+
+    // Mỗi instance một group riêng để nhận toàn bộ message (broadcast); chỉ đọc message mới kể từ lúc khởi động
+    @Bean
+    public ConsumerFactory<String, String> trackingConsumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, "delivery-tracking-" + UUID.randomUUID());
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 10);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1000);
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), new StringDeserializer());
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> trackingKafkaListenerContainerFactory() {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, String>();
+        factory.setConsumerFactory(trackingConsumerFactory());
+        factory.setBatchListener(true);
+        return factory;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.deliveryservice.config;
+
+import com.example.deliveryservice.service.TrackingDispatcher;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gộp frame tracking ngay tại session WebSocket, nơi hàng đợi gửi thực sự dồn lại khi subscriber chậm.
+ * - Frame MESSAGE của /topic/tracking/* giữ một chỗ cho mỗi (destination, subscription): frame mới thay frame
+ *   chưa gửi (drop-oldest), nên subscriber chậm chỉ nhận vị trí mới nhất và bộ nhớ chờ gửi có giới hạn.
+ * - Frame khác (CONNECTED, RECEIPT, ERROR, heartbeat, topic khác) đi theo đúng thứ tự, tối đa maxPendingFrames.
+ * - Ghi xuống socket chạy trên pool riêng; một lần ghi kẹt quá sendTimeLimitMs hoặc hàng đợi tràn thì
+ *   đóng session với SESSION_NOT_RELIABLE để client kết nối lại.
+ */
+@Slf4j
+@Component
+public class TrackingSessionCoalescer implements WebSocketHandlerDecoratorFactory {
+
+    @Value("${app.tracking.ws.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs;
+
+    @Value("${app.tracking.ws.max-pending-frames:256}")
+    private int maxPendingFrames;
+
+    private final ExecutorService sender;
+    private final Map<String, CoalescingSession> sessions = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    public TrackingSessionCoalescer(@Value("${app.tracking.ws.send-threads:8}") int sendThreads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ws-send-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                CoalescingSession coalescing = new CoalescingSession(session);
+                sessions.put(session.getId(), coalescing);
+                super.afterConnectionEstablished(coalescing);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                CoalescingSession coalescing = sessions.remove(session.getId());
+                if (coalescing != null) {
+                    coalescing.discard();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    public Map<String, Object> stats() {
+        int pending = 0;
+        for (CoalescingSession session : sessions.values()) {
+            pending += session.pendingCount();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("pending", pending);
+        stats.put("coalesced", coalesced.sum());
+        stats.put("overflowed", overflowed.sum());
+        return stats;
+    }
+
+    /**
+     * Trả về khoá (destination|subscription) nếu là frame MESSAGE của topic tracking, ngược lại null.
+     */
+    static String trackingKey(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage text)) {
+            return null;
+        }
+        String frame = text.getPayload();
+        if (!frame.startsWith("MESSAGE\n")) {
+            return null;
+        }
+        int headersEnd = frame.indexOf("\n\n");
+        if (headersEnd < 0) {
+            return null;
+        }
+        String destination = header(frame, headersEnd, "\ndestination:");
+        if (destination == null || !destination.startsWith(TrackingDispatcher.TOPIC_PREFIX)) {
+            return null;
+        }
+        return destination + '|' + header(frame, headersEnd, "\nsubscription:");
+    }
+
+    private static String header(String frame, int headersEnd, String prefix) {
+        int start = frame.indexOf(prefix);
+        if (start < 0 || start >= headersEnd) {
+            return null;
+        }
+        start += prefix.length();
+        int end = frame.indexOf('\n', start);
+        return frame.substring(start, end);
+    }
+
+    private final class CoalescingSession extends WebSocketSessionDecorator {
+
+        private final Queue<WebSocketMessage<?>> ordered = new ArrayDeque<>();
+        private final Map<String, WebSocketMessage<?>> latestTracking = new LinkedHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long sendStartedAt;
+        private volatile boolean discarded;
+
+        private CoalescingSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (discarded) {
+                return;
+            }
+            long started = sendStartedAt;
+            if (started > 0 && System.currentTimeMillis() - started > sendTimeLimitMs) {
+                overflowed.increment();
+                throw new SessionLimitExceededException("Send time " + (System.currentTimeMillis() - started)
+                        + " ms exceeded the allowed limit " + sendTimeLimitMs, CloseStatus.SESSION_NOT_RELIABLE);
+            }
+            String key = trackingKey(message);
+            synchronized (this) {
+                if (key != null) {
+                    if (latestTracking.put(key, message) != null) {
+                        coalesced.increment(); // Vị trí cũ chưa kịp gửi, bỏ
+                    }
+                } else {
+                    if (ordered.size() >= maxPendingFrames) {
+                        overflowed.increment();
+                        throw new SessionLimitExceededException("Pending frames exceeded the allowed limit "
+                                + maxPendingFrames, CloseStatus.SESSION_NOT_RELIABLE);
+                    }
+                    ordered.add(message);
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false); // Pool đã dừng khi shutdown
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                WebSocketMessage<?> next;
+                while (!discarded && (next = poll()) != null) {
+                    sendStartedAt = System.currentTimeMillis();
+                    try {
+                        getDelegate().sendMessage(next);
+                    } finally {
+                        sendStartedAt = 0;
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("Failed to send to WebSocket session {}: {}", getId(), e.getMessage());
+                discard();
+            } finally {
+                draining.set(false);
+            }
+            // Frame đến sau lần poll cuối nhưng trước khi nhả cờ draining
+            if (!discarded && pendingCount() > 0) {
+                scheduleDrain();
+            }
+        }
+
+        private synchronized WebSocketMessage<?> poll() {
+            WebSocketMessage<?> next = ordered.poll();
+            if (next != null) {
+                return next;
+            }
+            Iterator<WebSocketMessage<?>> it = latestTracking.values().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            next = it.next();
+            it.remove();
+            return next;
+        }
+
+        private synchronized int pendingCount() {
+            return ordered.size() + latestTracking.size();
+        }
+
+        private synchronized void discard() {
+            discarded = true;
+            ordered.clear();
+            latestTracking.clear();
+        }
+    }
+}
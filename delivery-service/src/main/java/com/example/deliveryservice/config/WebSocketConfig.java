@@ -1,13 +1,21 @@
 package com.example.deliveryservice.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
 
+/**
+ * Mỗi instance dùng simple broker riêng; vị trí tracking được đưa tới mọi instance qua TrackingFanout
+ * (app.tracking.broker.mode), nên subscriber có thể kết nối vào bất kỳ instance nào sau gateway.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final TrackingSessionCoalescer trackingSessionCoalescer;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
@@ -23,8 +31,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Hàng đợi gửi theo session (gộp vị trí tracking, giới hạn thời gian ghi) nằm trong TrackingSessionCoalescer
         registration.setMessageSizeLimit(128 * 1024)
                 .setSendBufferSizeLimit(512 * 1024)
-                .setSendTimeLimit(20000);
+                .setSendTimeLimit(20000)
+                .addDecoratorFactory(trackingSessionCoalescer);
     }
 }
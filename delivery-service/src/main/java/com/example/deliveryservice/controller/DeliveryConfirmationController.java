@@ -17,6 +17,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/delivery-confirmations")
@@ -90,6 +91,18 @@ public class DeliveryConfirmationController {
                                 .build();
         }
 
+        @PostMapping("/orders/batch")
+        @Operation(summary = "Get delivery confirmations by order IDs", description = "Batch lookup used by order-service when building order listings. Orders without a confirmation are omitted from the result map.")
+        @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('STAFF') or hasRole('SERVICE')")
+        public ApiResponse<Map<Long, DeliveryConfirmationResponse>> getDeliveryConfirmationsByOrderIds(
+                        @RequestBody List<Long> orderIds) {
+                return ApiResponse.<Map<Long, DeliveryConfirmationResponse>>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Delivery confirmations retrieved successfully")
+                                .data(deliveryConfirmationService.getDeliveryConfirmationsByOrderIds(orderIds))
+                                .build();
+        }
+
         @GetMapping("/customer/{customerId}")
         @Operation(summary = "Get delivery confirmations by customer ID", description = "Retrieve all delivery confirmations for a specific customer. Only CUSTOMER (themselves) and ADMIN roles can use this API.")
         @ApiResponses(value = {
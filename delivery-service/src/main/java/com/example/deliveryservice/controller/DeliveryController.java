@@ -139,13 +139,13 @@ public class DeliveryController {
         }
 
         @GetMapping("/assignments/store/{storeId}")
-        @Operation(summary = "Get delivery assignments by store", description = "Retrieve all delivery assignments for a specific store. Only STAFF and BRANCH_MANAGER roles can use this API.")
+        @Operation(summary = "Get delivery assignments by store", description = "Retrieve all delivery assignments for a specific store. Only STAFF and BRANCH_MANAGER roles (and internal services) can use this API.")
         @ApiResponses(value = {
                         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Delivery assignments retrieved successfully (may return empty list if no assignments exist)"),
                         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthenticated"),
                         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "403", description = "Access denied - Only STAFF and BRANCH_MANAGER roles are allowed")
         })
-        @PreAuthorize("hasRole('STAFF') or hasRole('BRANCH_MANAGER')")
+        @PreAuthorize("hasRole('STAFF') or hasRole('BRANCH_MANAGER') or hasRole('SERVICE')")
         public ApiResponse<List<DeliveryAssignmentResponse>> getDeliveryAssignmentsByStore(
                         @PathVariable String storeId) {
                 return ApiResponse.<List<DeliveryAssignmentResponse>>builder()
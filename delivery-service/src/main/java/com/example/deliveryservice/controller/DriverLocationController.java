@@ -27,7 +27,7 @@ public class DriverLocationController {
             "This endpoint should be called periodically (e.g., every 3-5 seconds) by the mobile app.")
     public ApiResponse<DriverLocationResponse> updateLocation(
             @Valid @RequestBody UpdateLocationRequest request) {
-        log.info("📍 Received location update for driver: {} on order: {}",
+        log.debug("📍 Received location update for driver: {} on order: {}",
                 request.getDriverId(), request.getOrderId());
 
         DriverLocationResponse response = driverLocationService.updateLocation(request);
@@ -0,0 +1,30 @@
+package com.example.deliveryservice.controller;
+
+import com.example.deliveryservice.response.ApiResponse;
+import com.example.deliveryservice.service.OutboxRelay;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/internal/outbox")
+@RequiredArgsConstructor
+public class InternalOutboxController {
+
+    private final OutboxRelay outboxRelay;
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SERVICE')")
+    public ApiResponse<Map<String, Object>> getOutboxStats() {
+        return ApiResponse.<Map<String, Object>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Outbox stats retrieved successfully")
+                .data(outboxRelay.stats())
+                .build();
+    }
+}
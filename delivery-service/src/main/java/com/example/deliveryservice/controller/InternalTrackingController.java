@@ -0,0 +1,40 @@
+package com.example.deliveryservice.controller;
+
+import com.example.deliveryservice.response.ApiResponse;
+import com.example.deliveryservice.config.TrackingSessionCoalescer;
+import com.example.deliveryservice.service.DriverPositionStore;
+import com.example.deliveryservice.service.RouteTrailService;
+import com.example.deliveryservice.service.TrackingFanout;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/internal/tracking")
+@RequiredArgsConstructor
+public class InternalTrackingController {
+
+    private final DriverPositionStore driverPositionStore;
+    private final RouteTrailService routeTrailService;
+    private final TrackingFanout trackingFanout;
+    private final TrackingSessionCoalescer trackingSessionCoalescer;
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SERVICE')")
+    public ApiResponse<Map<String, Object>> getTrackingStats() {
+        return ApiResponse.<Map<String, Object>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Tracking stats retrieved successfully")
+                .data(Map.of(
+                        "positions", driverPositionStore.stats(),
+                        "trails", routeTrailService.stats(),
+                        "fanout", trackingFanout.stats(),
+                        "outbound", trackingSessionCoalescer.stats()))
+                .build();
+    }
+}
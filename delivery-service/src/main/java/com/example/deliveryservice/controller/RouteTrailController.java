@@ -0,0 +1,38 @@
+package com.example.deliveryservice.controller;
+
+import com.example.deliveryservice.response.ApiResponse;
+import com.example.deliveryservice.response.RouteTrailResponse;
+import com.example.deliveryservice.service.RouteTrailService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/deliveries")
+@Tag(name = "Route Trail Controller", description = "APIs for reading the recorded route of a delivery")
+@SecurityRequirement(name = "bearerAuth")
+@RequiredArgsConstructor
+public class RouteTrailController {
+
+    private final RouteTrailService routeTrailService;
+
+    @GetMapping("/{orderId}/trail")
+    @Operation(summary = "Get delivery route trail", description = "Return the recorded GPS trail of the driver for an order, "
+            + "simplified with Douglas–Peucker. toleranceMeters = 0 returns every recorded point.")
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasAnyRole('ADMIN', 'BRANCH_MANAGER', 'STAFF', 'DELIVERY', 'SERVICE')")
+    public ApiResponse<RouteTrailResponse> getTrail(
+            @Parameter(description = "Order ID", required = true, example = "12345") @PathVariable Long orderId,
+            @Parameter(description = "Simplification tolerance in meters") @RequestParam(required = false) Double toleranceMeters) {
+        return ApiResponse.<RouteTrailResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("Route trail retrieved successfully")
+                .data(routeTrailService.getTrail(orderId, toleranceMeters))
+                .build();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.deliveryservice.entity;
 
 import com.example.deliveryservice.enums.DeliveryStatus;
+import com.example.deliveryservice.listener.DeliveryAssignmentListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -12,8 +13,10 @@ import java.time.LocalDateTime;
     uniqueConstraints = @UniqueConstraint(
         name = "uk_delivery_assignment_order_id",
         columnNames = "order_id"
-    )
+    ),
+    indexes = @Index(name = "idx_delivery_assignment_staff_status", columnList = "delivery_staff_id, status")
 )
+@EntityListeners(DeliveryAssignmentListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
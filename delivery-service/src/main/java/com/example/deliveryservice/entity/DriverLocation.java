@@ -33,8 +33,9 @@ public class DriverLocation {
     private LocalDateTime updatedAt;
 
     @PrePersist
-    @PreUpdate
-    public void preUpdate() {
-        updatedAt = LocalDateTime.now();
+    public void prePersist() {
+        if (updatedAt == null) {
+            updatedAt = LocalDateTime.now();
+        }
     }
 }
@@ -0,0 +1,49 @@
+package com.example.deliveryservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Event chờ gửi lên Kafka, được ghi cùng transaction với thay đổi giao hàng.
+ * OutboxRelay đọc theo thứ tự id và đánh dấu publishedAt khi broker đã ack.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_published_at", columnList = "published_at, id")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    // Key của message (orderId) → mọi event của một đơn vào cùng partition
+    @Column(name = "message_key")
+    private String messageKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    @Column(name = "published_at")
+    private Date publishedAt;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
@@ -0,0 +1,44 @@
+package com.example.deliveryservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Một đoạn lộ trình của shipper cho một đơn: các điểm GPS liên tiếp được mã hoá delta
+ * (xem RouteTrailCodec) trong cột data. Mỗi đoạn tự giải mã được, đọc theo started_at.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "route_trail_segments", indexes = {
+        @Index(name = "idx_route_trail_segments_order", columnList = "order_id, started_at")
+})
+public class RouteTrailSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "driver_id")
+    private String driverId;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    @Column(name = "started_at", nullable = false)
+    private Date startedAt;
+
+    @Column(name = "ended_at", nullable = false)
+    private Date endedAt;
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] data;
+}
@@ -3,20 +3,28 @@ package com.example.deliveryservice.feign;
 import com.example.deliveryservice.enums.EnumProcessOrder;
 import com.example.deliveryservice.response.ApiResponse;
 import com.example.deliveryservice.response.OrderResponse;
+import com.example.deliveryservice.response.OrderSummaryResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+import java.util.Map;
+
 @FeignClient(name = "order-service")
 public interface OrderClient {
 
     @GetMapping("/api/orders/{id}")
     ResponseEntity<ApiResponse<OrderResponse>> getOrderById(@PathVariable("id") Long id);
 
+    @PostMapping("/api/orders/summaries/batch")
+    ApiResponse<Map<Long, OrderSummaryResponse>> getOrderSummariesByIds(@RequestBody List<Long> ids);
+
     @PutMapping("/api/orders/status/{id}")
     ResponseEntity<ApiResponse<OrderResponse>> updateOrderStatus(@PathVariable("id") Long id,
                                                                  @RequestParam("status") EnumProcessOrder status);
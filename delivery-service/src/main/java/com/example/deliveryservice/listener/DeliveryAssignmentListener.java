@@ -0,0 +1,44 @@
+package com.example.deliveryservice.listener;
+
+import com.example.deliveryservice.entity.DeliveryAssignment;
+import com.example.deliveryservice.service.BusyDriverRegistry;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cập nhật tập shipper đang bận mỗi khi một assignment được ghi (đổi trạng thái / gán shipper).
+ * Chỉ chạy sau khi transaction commit để truy vấn kiểm tra thấy dữ liệu mới.
+ */
+@Component
+public class DeliveryAssignmentListener {
+
+    @Lazy
+    @Autowired
+    private BusyDriverRegistry busyDriverRegistry;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onAssignmentChanged(DeliveryAssignment assignment) {
+        String deliveryStaffId = assignment.getDeliveryStaffId();
+        if (deliveryStaffId == null || deliveryStaffId.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    busyDriverRegistry.refreshDriver(deliveryStaffId);
+                }
+            });
+        } else {
+            busyDriverRegistry.refreshDriver(deliveryStaffId);
+        }
+    }
+}
@@ -3,8 +3,11 @@ package com.example.deliveryservice.repository;
 import com.example.deliveryservice.entity.DeliveryAssignment;
 import com.example.deliveryservice.enums.DeliveryStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,4 +28,12 @@ public interface DeliveryAssignmentRepository extends JpaRepository<DeliveryAssi
             DeliveryStatus status);
 
     List<DeliveryAssignment> findByStatusInAndIsDeletedFalse(List<DeliveryStatus> statuses);
+
+    // Chỉ lấy id shipper, không load entity
+    @Query("SELECT DISTINCT a.deliveryStaffId FROM DeliveryAssignment a " +
+            "WHERE a.status IN :statuses AND a.isDeleted = false AND a.deliveryStaffId IS NOT NULL")
+    List<String> findBusyDeliveryStaffIds(@Param("statuses") Collection<DeliveryStatus> statuses);
+
+    boolean existsByDeliveryStaffIdAndStatusInAndIsDeletedFalse(String deliveryStaffId,
+            Collection<DeliveryStatus> statuses);
 }
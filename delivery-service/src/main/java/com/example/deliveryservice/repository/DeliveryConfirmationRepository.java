@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,8 @@ public interface DeliveryConfirmationRepository extends JpaRepository<DeliveryCo
 
     Optional<DeliveryConfirmation> findByOrderIdAndIsDeletedFalse(Long orderId);
 
+    List<DeliveryConfirmation> findByOrderIdInAndIsDeletedFalse(Collection<Long> orderIds);
+
     Optional<DeliveryConfirmation> findByQrCodeAndIsDeletedFalse(String qrCode);
 
     List<DeliveryConfirmation> findByDeliveryStaffIdAndIsDeletedFalse(String deliveryStaffId);
@@ -2,11 +2,26 @@ package com.example.deliveryservice.repository;
 
 import com.example.deliveryservice.entity.DriverLocation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface DriverLocationRepository extends JpaRepository<DriverLocation, Long> {
     Optional<DriverLocation> findByOrderId(Long orderId);
 
     Optional<DriverLocation> findByDriverId(String driverId);
+
+    Optional<DriverLocation> findFirstByOrderIdOrderByIdDesc(Long orderId);
+
+    Optional<DriverLocation> findFirstByDriverIdOrderByUpdatedAtDesc(String driverId);
+
+    /**
+     * [orderId, id] của bản ghi mới nhất mỗi đơn (một đơn có thể có nhiều bản ghi khi giao lại cho shipper khác).
+     */
+    @Query(value = "SELECT DISTINCT ON (order_id) order_id, id FROM driver_locations " +
+                   "WHERE order_id IN (:orderIds) ORDER BY order_id, id DESC", nativeQuery = true)
+    List<Object[]> findLatestRowIdsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
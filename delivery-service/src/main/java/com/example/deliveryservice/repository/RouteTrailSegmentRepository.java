@@ -0,0 +1,11 @@
+package com.example.deliveryservice.repository;
+
+import com.example.deliveryservice.entity.RouteTrailSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface RouteTrailSegmentRepository extends JpaRepository<RouteTrailSegment, Long> {
+
+    List<RouteTrailSegment> findByOrderIdOrderByStartedAtAscIdAsc(Long orderId);
+}
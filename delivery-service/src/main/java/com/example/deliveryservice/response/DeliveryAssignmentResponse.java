@@ -28,5 +28,7 @@ public class DeliveryAssignmentResponse {
     private LocalDateTime rejectedAt;
     private String rejectedBy;
     private OrderResponse order;
+    private String orderStatus;
+    private Integer orderLineCount;
 }
 
@@ -0,0 +1,25 @@
+package com.example.deliveryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+    private Long id;
+    private String storeId;
+    private String userId;
+    private String status; // Giữ dạng String: enum bên order-service có thể có giá trị mới
+    private Double total;
+    private Double depositPrice;
+    private Date orderDate;
+    private String note;
+    private Integer lineCount;
+    private AddressResponse address;
+}
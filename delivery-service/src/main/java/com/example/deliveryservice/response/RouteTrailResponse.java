@@ -0,0 +1,35 @@
+package com.example.deliveryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteTrailResponse {
+    private Long orderId;
+    private String driverId;
+    private Integer rawPointCount;
+    private Integer pointCount;
+    private Double toleranceMeters;
+    private Double distanceMeters;
+    private LocalDateTime startedAt;
+    private LocalDateTime endedAt;
+    private List<TrailPoint> points;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrailPoint {
+        private Double latitude;
+        private Double longitude;
+        private LocalDateTime timestamp;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.deliveryservice.service;
+
+import com.example.deliveryservice.enums.DeliveryStatus;
+import com.example.deliveryservice.repository.DeliveryAssignmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tập id shipper đang có đơn chưa xong (ASSIGNED / PREPARING / READY / IN_TRANSIT).
+ * - Dựng từ truy vấn projection chỉ lấy delivery_staff_id, không load DeliveryAssignment.
+ * - Cập nhật từng shipper sau mỗi lần assignment được ghi (DeliveryAssignmentListener).
+ * - Đối soát định kỳ toàn bộ tập để nhận thay đổi từ instance khác.
+ * Đọc không cần lock; ghi được tuần tự hoá để đối soát không đè mất cập nhật lẻ.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BusyDriverRegistry {
+
+    public static final Set<DeliveryStatus> ACTIVE_STATUSES = EnumSet.of(
+            DeliveryStatus.ASSIGNED,
+            DeliveryStatus.PREPARING,
+            DeliveryStatus.READY,
+            DeliveryStatus.IN_TRANSIT);
+
+    private final DeliveryAssignmentRepository deliveryAssignmentRepository;
+
+    private volatile Set<String> busyDrivers;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${app.delivery.busy-drivers.reconcile-interval-ms:30000}",
+            initialDelayString = "${app.delivery.busy-drivers.reconcile-interval-ms:30000}")
+    public synchronized void reconcile() {
+        Set<String> rebuilt = ConcurrentHashMap.newKeySet();
+        rebuilt.addAll(deliveryAssignmentRepository.findBusyDeliveryStaffIds(ACTIVE_STATUSES));
+        busyDrivers = rebuilt;
+        log.debug("Busy driver set reconciled: {} driver(s)", rebuilt.size());
+    }
+
+    public synchronized void refreshDriver(String deliveryStaffId) {
+        Set<String> current = busyDrivers;
+        if (current == null) {
+            reconcile();
+            return;
+        }
+        if (deliveryAssignmentRepository.existsByDeliveryStaffIdAndStatusInAndIsDeletedFalse(deliveryStaffId, ACTIVE_STATUSES)) {
+            current.add(deliveryStaffId);
+        } else {
+            current.remove(deliveryStaffId);
+        }
+    }
+
+    public boolean isBusy(String deliveryStaffId) {
+        Set<String> current = busyDrivers;
+        if (current == null) {
+            reconcile();
+            current = busyDrivers;
+        }
+        return current.contains(deliveryStaffId);
+    }
+
+    public int size() {
+        Set<String> current = busyDrivers;
+        return current != null ? current.size() : 0;
+    }
+}
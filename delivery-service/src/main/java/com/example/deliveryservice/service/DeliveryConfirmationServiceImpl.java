@@ -26,7 +26,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.http.ResponseEntity;
 import org.springframework.dao.DataIntegrityViolationException;
 
@@ -34,7 +33,9 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,7 +48,7 @@ public class DeliveryConfirmationServiceImpl implements DeliveryConfirmationServ
     private final DeliveryAssignmentRepository deliveryAssignmentRepository;
     private final ObjectMapper objectMapper;
     private final OrderClient orderClient;
-    private final KafkaTemplate<String, Object> genericKafkaTemplate;
+    private final OutboxService outboxService;
 
     @Override
     @Transactional
@@ -136,6 +137,18 @@ public class DeliveryConfirmationServiceImpl implements DeliveryConfirmationServ
         return toDeliveryConfirmationResponse(confirmation);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, DeliveryConfirmationResponse> getDeliveryConfirmationsByOrderIds(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return deliveryConfirmationRepository.findByOrderIdInAndIsDeletedFalse(new HashSet<>(orderIds))
+                .stream()
+                .collect(Collectors.toMap(DeliveryConfirmation::getOrderId, this::toDeliveryConfirmationResponse,
+                        (a, b) -> a));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public DeliveryConfirmationResponse getDeliveryConfirmationByQRCode(String qrCode) {
@@ -382,14 +395,8 @@ public class DeliveryConfirmationServiceImpl implements DeliveryConfirmationServ
                                 .items(items)
                                 .build();
 
-                        genericKafkaTemplate.send("order-delivered-topic", event)
-                                .whenComplete((result, ex) -> {
-                                    if (ex != null) {
-                                        log.error("Failed to send order delivered event: {}", ex.getMessage());
-                                    } else {
-                                        log.info("Sent order delivered event for order: {}", orderId);
-                                    }
-                                });
+                        outboxService.enqueue("order-delivered-topic", orderId, event);
+                        log.info("Queued order delivered event for order: {}", orderId);
                     }
                 }
             }
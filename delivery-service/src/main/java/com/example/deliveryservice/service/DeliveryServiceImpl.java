@@ -21,13 +21,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -42,38 +44,22 @@ public class DeliveryServiceImpl implements DeliveryService {
     private final OrderClient orderClient;
     private final StoreClient storeClient;
     private final InventoryClient inventoryClient;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final com.example.deliveryservice.feign.AuthClient authClient;
+    private final OutboxService outboxService;
+    private final DriverRosterCache driverRosterCache;
+    private final BusyDriverRegistry busyDriverRegistry;
     private final DriverLocationRepository driverLocationRepository;
+    private final StoreCache storeCache;
+
+    private static final int ORDER_SUMMARY_BATCH_SIZE = 200;
 
     @Override
     @Transactional(readOnly = true)
     public List<UserResponse> getFreeDrivers() {
         log.info("Fetching free delivery drivers");
 
-        ApiResponse<List<UserResponse>> response = authClient.getAllDeliveryStaff();
-        if (response == null || response.getData() == null) {
-            log.warn("Failed to fetch delivery staff from user-service");
-            return new ArrayList<>();
-        }
-        List<UserResponse> allDrivers = response.getData();
-
-        List<DeliveryStatus> activeStatuses = List.of(
-                DeliveryStatus.ASSIGNED,
-                DeliveryStatus.PREPARING,
-                DeliveryStatus.READY,
-                DeliveryStatus.IN_TRANSIT);
-
-        List<DeliveryAssignment> activeAssignments = deliveryAssignmentRepository
-                .findByStatusInAndIsDeletedFalse(activeStatuses);
-
-        List<String> busyDriverIds = activeAssignments.stream()
-                .map(DeliveryAssignment::getDeliveryStaffId)
-                .filter(id -> id != null && !id.isEmpty())
-                .collect(Collectors.toList());
-
-        return allDrivers.stream()
-                .filter(driver -> !busyDriverIds.contains(driver.getId()))
+        // Roster lấy từ cache, kiểm tra bận bằng tập id trong bộ nhớ: O(1) mỗi shipper, không load assignment
+        return driverRosterCache.getDrivers().stream()
+                .filter(driver -> !busyDriverRegistry.isBusy(driver.getId()))
                 .collect(Collectors.toList());
     }
 
@@ -237,11 +223,10 @@ public class DeliveryServiceImpl implements DeliveryService {
     public DeliveryProgressResponse getDeliveryProgressByStore(String storeId) {
         log.info("Getting delivery progress for store: {}", storeId);
 
-        ApiResponse<StoreResponse> storeResponse = storeClient.getStoreById(storeId);
-        if (storeResponse == null || storeResponse.getData() == null) {
+        StoreResponse store = storeCache.getStore(storeId);
+        if (store == null) {
             throw new AppException(ErrorCode.STORE_NOT_FOUND);
         }
-        StoreResponse store = storeResponse.getData();
 
         List<DeliveryAssignment> assignments = deliveryAssignmentRepository.findByStoreIdAndIsDeletedFalse(storeId);
 
@@ -261,9 +246,7 @@ public class DeliveryServiceImpl implements DeliveryService {
                 .filter(a -> a.getStatus() == DeliveryStatus.DELIVERED)
                 .count();
 
-        List<DeliveryAssignmentResponse> assignmentResponses = assignments.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        List<DeliveryAssignmentResponse> assignmentResponses = mapToResponses(assignments);
 
         return DeliveryProgressResponse.builder()
                 .storeId(storeId)
@@ -282,9 +265,7 @@ public class DeliveryServiceImpl implements DeliveryService {
     @Transactional(readOnly = true)
     public List<DeliveryAssignmentResponse> getDeliveryAssignmentsByStore(String storeId) {
         List<DeliveryAssignment> assignments = deliveryAssignmentRepository.findByStoreIdAndIsDeletedFalse(storeId);
-        return assignments.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(assignments);
     }
 
     @Override
@@ -292,9 +273,7 @@ public class DeliveryServiceImpl implements DeliveryService {
     public List<DeliveryAssignmentResponse> getDeliveryAssignmentsByStaff(String deliveryStaffId) {
         List<DeliveryAssignment> assignments = deliveryAssignmentRepository
                 .findByDeliveryStaffIdAndIsDeletedFalse(deliveryStaffId);
-        return assignments.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(assignments);
     }
 
     @Override
@@ -380,8 +359,6 @@ public class DeliveryServiceImpl implements DeliveryService {
 
     private DeliveryAssignmentResponse mapToResponse(DeliveryAssignment assignment) {
         OrderResponse order = null;
-        StoreResponse store = null;
-
         try {
             ResponseEntity<ApiResponse<OrderResponse>> orderResponse = orderClient
                     .getOrderById(assignment.getOrderId());
@@ -395,15 +372,70 @@ public class DeliveryServiceImpl implements DeliveryService {
             log.warn("Failed to fetch order {}: {}", assignment.getOrderId(), e.getMessage());
         }
 
-        try {
-            ApiResponse<StoreResponse> storeResponse = storeClient.getStoreById(assignment.getStoreId());
-            if (storeResponse != null && storeResponse.getData() != null) {
-                store = storeResponse.getData();
+        return baseResponse(assignment, storeCache.getStore(assignment.getStoreId()))
+                .order(order)
+                .build();
+    }
+
+    /**
+     * Map danh sách assignment: cửa hàng lấy từ StoreCache, đơn hàng chỉ lấy bản tóm tắt
+     * qua /api/orders/summaries/batch (mỗi ORDER_SUMMARY_BATCH_SIZE đơn một lần gọi),
+     * thay vì gọi chi tiết từng đơn (kéo theo user / product / delivery ở order-service).
+     */
+    private List<DeliveryAssignmentResponse> mapToResponses(List<DeliveryAssignment> assignments) {
+        Map<String, StoreResponse> stores = storeCache.getStores(assignments.stream()
+                .map(DeliveryAssignment::getStoreId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        Map<Long, OrderSummaryResponse> orders = fetchOrderSummaries(assignments.stream()
+                .map(DeliveryAssignment::getOrderId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        return assignments.stream()
+                .map(assignment -> {
+                    OrderSummaryResponse summary = orders.get(assignment.getOrderId());
+                    return baseResponse(assignment, stores.get(assignment.getStoreId()))
+                            .order(summary != null ? toOrderResponse(summary) : null)
+                            .orderStatus(summary != null ? summary.getStatus() : null)
+                            .orderLineCount(summary != null ? summary.getLineCount() : null)
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, OrderSummaryResponse> fetchOrderSummaries(List<Long> orderIds) {
+        Map<Long, OrderSummaryResponse> result = new HashMap<>();
+        for (int from = 0; from < orderIds.size(); from += ORDER_SUMMARY_BATCH_SIZE) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + ORDER_SUMMARY_BATCH_SIZE, orderIds.size()));
+            try {
+                ApiResponse<Map<Long, OrderSummaryResponse>> response = orderClient.getOrderSummariesByIds(chunk);
+                if (response != null && response.getData() != null) {
+                    result.putAll(response.getData());
+                }
+            } catch (Exception e) {
+                log.warn("Failed to batch fetch {} order summaries: {}", chunk.size(), e.getMessage());
             }
-        } catch (Exception e) {
-            log.warn("Failed to fetch store {}: {}", assignment.getStoreId(), e.getMessage());
         }
+        return result;
+    }
 
+    // Dạng OrderResponse rút gọn để client cũ đọc order.address / order.total vẫn chạy
+    private OrderResponse toOrderResponse(OrderSummaryResponse summary) {
+        return OrderResponse.builder()
+                .id(summary.getId())
+                .storeId(summary.getStoreId())
+                .address(summary.getAddress())
+                .total(summary.getTotal())
+                .note(summary.getNote())
+                .orderDate(summary.getOrderDate())
+                .depositPrice(summary.getDepositPrice())
+                .build();
+    }
+
+    private DeliveryAssignmentResponse.DeliveryAssignmentResponseBuilder baseResponse(DeliveryAssignment assignment,
+                                                                                      StoreResponse store) {
         return DeliveryAssignmentResponse.builder()
                 .id(assignment.getId())
                 .storeId(assignment.getStoreId())
@@ -419,9 +451,7 @@ public class DeliveryServiceImpl implements DeliveryService {
                 .productsPreparedAt(assignment.getProductsPreparedAt())
                 .rejectReason(assignment.getRejectReason())
                 .rejectedAt(assignment.getRejectedAt())
-                .rejectedBy(assignment.getRejectedBy())
-                .order(order)
-                .build();
+                .rejectedBy(assignment.getRejectedBy());
     }
 
     private void validatePrerequisites(DeliveryAssignment assignment, Long orderId) {
@@ -577,14 +607,8 @@ public class DeliveryServiceImpl implements DeliveryService {
                     .items(items)
                     .build();
 
-            kafkaTemplate.send("delivery-assigned-topic", event)
-                    .whenComplete((result, ex) -> {
-                        if (ex != null) {
-                            log.error("Failed to send delivery assigned event: {}", ex.getMessage());
-                        } else {
-                            log.info("Sent delivery assigned event for order: {}", assignment.getOrderId());
-                        }
-                    });
+            outboxService.enqueue("delivery-assigned-topic", assignment.getOrderId(), event);
+            log.info("Queued delivery assigned event for order: {}", assignment.getOrderId());
         } catch (Exception e) {
             log.error("Error sending delivery assigned notification for order {}: {}",
                     assignment.getOrderId(), e.getMessage());
@@ -8,11 +8,7 @@ import com.example.deliveryservice.request.UpdateLocationRequest;
 import com.example.deliveryservice.response.DriverLocationResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.time.LocalDateTime;
 
 @Service
 @RequiredArgsConstructor
@@ -20,10 +16,15 @@ import java.time.LocalDateTime;
 public class DriverLocationServiceImpl implements DriverLocationService {
 
         private final DriverLocationRepository driverLocationRepository;
-        private final SimpMessagingTemplate messagingTemplate;
-
+        private final DriverPositionStore driverPositionStore;
+        private final RouteTrailService routeTrailService;
+        private final TrackingFanout trackingFanout;
+
+        /**
+         * Ping GPS chỉ cập nhật bộ nhớ; DriverPositionStore (vị trí mới nhất) và RouteTrailService (lộ trình)
+         * ghi xuống DB theo lô định kỳ.
+         */
         @Override
-        @Transactional
         public DriverLocationResponse updateLocation(UpdateLocationRequest request) {
 
                 if (request.getOrderId() == null ||
@@ -32,69 +33,52 @@ public class DriverLocationServiceImpl implements DriverLocationService {
                         throw new AppException(ErrorCode.INVALID_REQUEST);
                 }
 
-                DriverLocation location = driverLocationRepository
-                                .findByOrderId(request.getOrderId())
-                                .orElse(DriverLocation.builder()
-                                                .orderId(request.getOrderId())
-                                                .driverId(request.getDriverId())
-                                                .build());
-
-                LocalDateTime now = LocalDateTime.now();
-                boolean shouldBroadcast = true;
-
-                if (location.getUpdatedAt() != null) {
-                        boolean timeThresholdMet = location.getUpdatedAt().plusSeconds(2).isBefore(now);
-
-                        double distance = calculateDistanceInMeters(
-                                        location.getLatitude(), location.getLongitude(),
-                                        request.getLat(), request.getLng());
-                        boolean distanceThresholdMet = distance > 5;
-
-                        shouldBroadcast = timeThresholdMet && distanceThresholdMet;
-                }
-
-                location.setLatitude(request.getLat());
-                location.setLongitude(request.getLng());
-                location.setUpdatedAt(now);
-
-                DriverLocation savedLocation = driverLocationRepository.save(location);
+                DriverPositionStore.Update update = driverPositionStore.update(
+                                request.getOrderId(), request.getDriverId(), request.getLat(), request.getLng());
+                routeTrailService.append(request.getOrderId(), request.getDriverId(),
+                                request.getLat(), request.getLng(), update.position().receivedAt());
+                DriverLocationResponse response = mapToResponse(update.position());
 
-                if (shouldBroadcast) {
-                        messagingTemplate.convertAndSend(
-                                        "/topic/tracking/" + savedLocation.getOrderId(),
-                                        mapToResponse(savedLocation));
+                if (update.broadcast()) {
+                        trackingFanout.publish(request.getOrderId(), response);
                 }
 
-                return mapToResponse(savedLocation);
-        }
-
-        private double calculateDistanceInMeters(Double lat1, Double lng1, Double lat2, Double lng2) {
-                if (lat1 == null || lng1 == null || lat2 == null || lng2 == null)
-                        return 0;
-                double earthRadius = 6371000; // meters
-                double dLat = Math.toRadians(lat2 - lat1);
-                double dLng = Math.toRadians(lng2 - lng1);
-                double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                                                Math.sin(dLng / 2) * Math.sin(dLng / 2);
-                double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-                return earthRadius * c;
+                return response;
         }
 
         @Override
         public DriverLocationResponse getLocationByOrderId(Long orderId) {
-                DriverLocation location = driverLocationRepository.findByOrderId(orderId)
+                DriverPositionStore.Position position = driverPositionStore.getByOrderId(orderId);
+                if (position != null) {
+                        return mapToResponse(position);
+                }
+                DriverLocation location = driverLocationRepository.findFirstByOrderIdOrderByIdDesc(orderId)
                                 .orElseThrow(() -> new AppException(ErrorCode.LOCATION_NOT_FOUND));
                 return mapToResponse(location);
         }
 
         @Override
         public DriverLocationResponse getLocationByDriverId(String driverId) {
-                DriverLocation location = driverLocationRepository.findByDriverId(driverId)
+                DriverPositionStore.Position position = driverPositionStore.getByDriverId(driverId);
+                if (position != null) {
+                        return mapToResponse(position);
+                }
+                DriverLocation location = driverLocationRepository.findFirstByDriverIdOrderByUpdatedAtDesc(driverId)
                                 .orElseThrow(() -> new AppException(ErrorCode.LOCATION_NOT_FOUND));
                 return mapToResponse(location);
         }
 
+        private DriverLocationResponse mapToResponse(DriverPositionStore.Position position) {
+                return DriverLocationResponse.builder()
+                                .id(position.rowId())
+                                .driverId(position.driverId())
+                                .orderId(position.orderId())
+                                .latitude(position.latitude())
+                                .longitude(position.longitude())
+                                .updatedAt(position.updatedAt())
+                                .build();
+        }
+
         private DriverLocationResponse mapToResponse(DriverLocation location) {
                 return DriverLocationResponse.builder()
                                 .id(location.getId())
@@ -0,0 +1,354 @@
+package com.example.deliveryservice.service;
+
+import com.example.deliveryservice.repository.DriverLocationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vị trí mới nhất của shipper theo đơn, giữ trong bộ nhớ để ping GPS không phải đụng DB.
+ * - Mỗi đơn là một AtomicReference tới Position bất biến; ping cập nhật bằng CAS, không lock.
+ * - Ngưỡng broadcast (thời gian + quãng đường) so với lần broadcast gần nhất của đơn.
+ * - Đơn có ping mới được đánh dấu dirty; flush định kỳ ghi vị trí cuối cùng của mỗi đơn một lần,
+ *   trong một transaction bằng JDBC batch, nên số lần ghi DB không phụ thuộc tần suất ping.
+ * - Khi có nhiều instance, vị trí chỉ được trả từ bộ nhớ nếu còn mới (local-read-max-age-ms),
+ *   ngược lại đọc từ DB (bản đã được instance nhận ping flush xuống).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverPositionStore {
+
+    private final DriverLocationRepository driverLocationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Chỉ ghi đè khi vị trí mới hơn bản đang có (instance khác có thể đã ghi ping sau hơn)
+    private static final String UPDATE_LOCATION = "UPDATE driver_locations SET driver_id = ?, latitude = ?, longitude = ?, " +
+            "updated_at = ? WHERE id = ? AND (updated_at IS NULL OR updated_at <= ?)";
+    private static final String INSERT_LOCATION = "INSERT INTO driver_locations (order_id, driver_id, latitude, longitude, " +
+            "updated_at) VALUES (?, ?, ?, ?, ?)";
+
+    @Value("${app.tracking.broadcast-min-interval-ms:2000}")
+    private long broadcastMinIntervalMs;
+
+    @Value("${app.tracking.broadcast-min-distance-m:5}")
+    private double broadcastMinDistanceM;
+
+    @Value("${app.tracking.local-read-max-age-ms:10000}")
+    private long localReadMaxAgeMs;
+
+    @Value("${app.tracking.idle-ttl-ms:600000}")
+    private long idleTtlMs;
+
+    @Value("${app.tracking.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Map<Long, AtomicReference<Position>> byOrder = new ConcurrentHashMap<>();
+    private final Map<String, Long> orderByDriver = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyOrders = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder pings = new LongAdder();
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final AtomicLong lastFlushSize = new AtomicLong();
+    private final AtomicLong maxFlushSize = new AtomicLong();
+    private final AtomicLong lastFlushMs = new AtomicLong();
+
+    /**
+     * Vị trí của một đơn. rowId là id bản ghi driver_locations (null khi chưa flush lần nào);
+     * broadcastAt / broadcastLat / broadcastLng là vị trí đã phát gần nhất, dùng cho ngưỡng broadcast.
+     */
+    public record Position(Long rowId, Long orderId, String driverId, double latitude, double longitude,
+                           LocalDateTime updatedAt, long receivedAt,
+                           long broadcastAt, double broadcastLat, double broadcastLng) {
+
+        Position withRowId(Long id) {
+            return new Position(id, orderId, driverId, latitude, longitude, updatedAt, receivedAt,
+                    broadcastAt, broadcastLat, broadcastLng);
+        }
+    }
+
+    /**
+     * Kết quả một ping: vị trí sau cập nhật và có cần broadcast hay không.
+     */
+    public record Update(Position position, boolean broadcast) {
+    }
+
+    public Update update(Long orderId, String driverId, double lat, double lng) {
+        pings.increment();
+        AtomicReference<Position> slot = byOrder.get(orderId);
+        if (slot == null) {
+            AtomicReference<Position> created = new AtomicReference<>();
+            slot = byOrder.putIfAbsent(orderId, created);
+            if (slot == null) {
+                slot = created;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        LocalDateTime updatedAt = LocalDateTime.now();
+        Position previous;
+        Position next;
+        boolean broadcast;
+        do {
+            previous = slot.get();
+            if (previous == null) {
+                broadcast = true;
+                next = new Position(null, orderId, driverId, lat, lng, updatedAt, now, now, lat, lng);
+            } else {
+                broadcast = now - previous.broadcastAt() >= broadcastMinIntervalMs
+                        && distanceInMeters(previous.broadcastLat(), previous.broadcastLng(), lat, lng) > broadcastMinDistanceM;
+                next = broadcast
+                        ? new Position(previous.rowId(), orderId, driverId, lat, lng, updatedAt, now, now, lat, lng)
+                        : new Position(previous.rowId(), orderId, driverId, lat, lng, updatedAt, now,
+                        previous.broadcastAt(), previous.broadcastLat(), previous.broadcastLng());
+            }
+        } while (!slot.compareAndSet(previous, next));
+        if (byOrder.get(orderId) != slot) {
+            byOrder.putIfAbsent(orderId, slot); // Slot vừa bị evictIdle gỡ ra
+        }
+
+        orderByDriver.put(driverId, orderId);
+        dirtyOrders.add(orderId);
+        if (broadcast) {
+            broadcasts.increment();
+        }
+        return new Update(next, broadcast);
+    }
+
+    /**
+     * Vị trí trong bộ nhớ nếu còn mới; null nếu cần đọc từ DB.
+     */
+    public Position getByOrderId(Long orderId) {
+        AtomicReference<Position> slot = byOrder.get(orderId);
+        return slot != null ? fresh(slot.get()) : null;
+    }
+
+    public Position getByDriverId(String driverId) {
+        Long orderId = orderByDriver.get(driverId);
+        if (orderId == null) {
+            return null;
+        }
+        Position position = getByOrderId(orderId);
+        return position != null && driverId.equals(position.driverId()) ? position : null;
+    }
+
+    private Position fresh(Position position) {
+        if (position == null || System.currentTimeMillis() - position.receivedAt() > localReadMaxAgeMs) {
+            return null;
+        }
+        return position;
+    }
+
+    // ----------------- flush --------------------
+
+    @Scheduled(fixedDelayString = "${app.tracking.flush-interval-ms:1000}")
+    public void flush() {
+        try {
+            while (!dirtyOrders.isEmpty()) {
+                if (flushBatch() < flushBatchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.error("Driver position flush failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Ghi một lô đơn dirty xuống DB, trả về số đơn đã lấy ra.
+     * Đơn được bỏ khỏi tập dirty trước khi đọc vị trí; ping đến sau đó sẽ đánh dấu lại cho lần flush sau.
+     */
+    int flushBatch() {
+        List<Position> positions = new ArrayList<>();
+        Iterator<Long> it = dirtyOrders.iterator();
+        while (it.hasNext() && positions.size() < flushBatchSize) {
+            Long orderId = it.next();
+            it.remove();
+            AtomicReference<Position> slot = byOrder.get(orderId);
+            Position position = slot != null ? slot.get() : null;
+            if (position != null) {
+                positions.add(position);
+            }
+        }
+        if (positions.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        Map<Long, Long> rowIds;
+        try {
+            rowIds = transactionTemplate.execute(status -> write(positions));
+        } catch (RuntimeException e) {
+            // Ghi lỗi: đánh dấu dirty lại để lần sau thử tiếp
+            positions.forEach(p -> dirtyOrders.add(p.orderId()));
+            throw e;
+        }
+        if (rowIds != null) {
+            rowIds.forEach((orderId, rowId) -> {
+                AtomicReference<Position> slot = byOrder.get(orderId);
+                if (slot != null) {
+                    slot.updateAndGet(p -> p != null && p.rowId() == null ? p.withRowId(rowId) : p);
+                }
+            });
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        flushes.increment();
+        lastFlushSize.set(positions.size());
+        maxFlushSize.accumulateAndGet(positions.size(), Math::max);
+        lastFlushMs.set(elapsed);
+        log.debug("Flushed {} driver position(s) in {} ms", positions.size(), elapsed);
+        return positions.size();
+    }
+
+    private Map<Long, Long> write(List<Position> positions) {
+        List<Long> orderIds = positions.stream().map(Position::orderId).toList();
+
+        // Mỗi đơn có thể có nhiều bản ghi (giao lại cho shipper khác): ghi vào bản ghi mới nhất
+        Map<Long, Long> rowIds = new HashMap<>();
+        for (Object[] row : driverLocationRepository.findLatestRowIdsByOrderIdIn(orderIds)) {
+            rowIds.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        List<Position> updates = new ArrayList<>();
+        List<Position> inserts = new ArrayList<>();
+        for (Position position : positions) {
+            (rowIds.containsKey(position.orderId()) ? updates : inserts).add(position);
+        }
+
+        // driver_locations dùng IDENTITY nên Hibernate không gom INSERT thành batch: ghi thẳng bằng JDBC batch
+        int written = 0;
+        if (!updates.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_LOCATION, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Position position = updates.get(i);
+                    bindLocation(ps, 1, position);
+                    ps.setLong(5, rowIds.get(position.orderId()));
+                    ps.setTimestamp(6, Timestamp.valueOf(position.updatedAt()), utcCalendar());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return updates.size();
+                }
+            });
+            for (int count : counts) {
+                if (count != 0) {
+                    written++; // 0: instance khác đã ghi vị trí mới hơn
+                }
+            }
+        }
+        if (!inserts.isEmpty()) {
+            GeneratedKeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_LOCATION, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Position position = inserts.get(i);
+                            ps.setLong(1, position.orderId());
+                            bindLocation(ps, 2, position);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return inserts.size();
+                        }
+                    }, keys);
+            List<Map<String, Object>> keyList = keys.getKeyList();
+            for (int i = 0; i < inserts.size(); i++) {
+                rowIds.put(inserts.get(i).orderId(), ((Number) keyList.get(i).get("id")).longValue());
+            }
+            written += inserts.size();
+        }
+        rowsWritten.add(written);
+        return rowIds;
+    }
+
+    /**
+     * driver_id, latitude, longitude, updated_at bắt đầu từ cột index.
+     */
+    private static void bindLocation(PreparedStatement ps, int index, Position position) throws SQLException {
+        ps.setString(index, position.driverId());
+        ps.setDouble(index + 1, position.latitude());
+        ps.setDouble(index + 2, position.longitude());
+        ps.setTimestamp(index + 3, Timestamp.valueOf(position.updatedAt()), utcCalendar());
+    }
+
+    // Ghi updated_at giống Hibernate (hibernate.jdbc.time_zone = UTC) để đọc lại qua JPA đúng thời điểm
+    private static Calendar utcCalendar() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+
+    /**
+     * Bỏ các đơn đã lâu không có ping (và đã flush xong) khỏi bộ nhớ.
+     */
+    @Scheduled(fixedDelayString = "${app.tracking.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTtlMs;
+        int evicted = 0;
+        for (Map.Entry<Long, AtomicReference<Position>> entry : byOrder.entrySet()) {
+            Position position = entry.getValue().get();
+            if (position != null && position.receivedAt() < cutoff && !dirtyOrders.contains(entry.getKey())
+                    && byOrder.remove(entry.getKey(), entry.getValue())) {
+                orderByDriver.remove(position.driverId(), entry.getKey());
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle driver position(s)", evicted);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedOrders", byOrder.size());
+        stats.put("dirtyOrders", dirtyOrders.size());
+        stats.put("pings", pings.sum());
+        stats.put("broadcasts", broadcasts.sum());
+        stats.put("rowsWritten", rowsWritten.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("lastFlushSize", lastFlushSize.get());
+        stats.put("maxFlushSize", maxFlushSize.get());
+        stats.put("lastFlushMs", lastFlushMs.get());
+        return stats;
+    }
+
+    static double distanceInMeters(double lat1, double lng1, double lat2, double lng2) {
+        double earthRadius = 6371000; // meters
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return earthRadius * c;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.deliveryservice.service;
+
+import com.example.deliveryservice.feign.AuthClient;
+import com.example.deliveryservice.response.ApiResponse;
+import com.example.deliveryservice.response.UserResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache danh sách shipper lấy từ user-service.
+ * Làm mới khi user-service báo nhân viên thay đổi (employee-changed-topic), TTL chỉ là lưới an toàn.
+ * Lỗi khi tải lại thì tiếp tục dùng danh sách cũ.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverRosterCache {
+
+    private final AuthClient authClient;
+
+    @Value("${app.delivery.roster.ttl-ms:600000}")
+    private long ttlMillis;
+
+    private volatile List<UserResponse> drivers;
+    private volatile long loadedAt;
+    private volatile boolean stale = true;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    public List<UserResponse> getDrivers() {
+        List<UserResponse> current = drivers;
+        if (current != null && !stale && System.currentTimeMillis() - loadedAt < ttlMillis) {
+            hits.increment();
+            return current;
+        }
+        return reload();
+    }
+
+    private synchronized List<UserResponse> reload() {
+        // Request khác có thể vừa tải xong trong lúc chờ lock
+        if (drivers != null && !stale && System.currentTimeMillis() - loadedAt < ttlMillis) {
+            return drivers;
+        }
+        stale = false;
+        try {
+            ApiResponse<List<UserResponse>> response = authClient.getAllDeliveryStaff();
+            if (response != null && response.getData() != null) {
+                drivers = List.copyOf(response.getData());
+                loadedAt = System.currentTimeMillis();
+                reloads.increment();
+                return drivers;
+            }
+            log.warn("Failed to fetch delivery staff from user-service");
+        } catch (Exception e) {
+            log.warn("Failed to fetch delivery staff from user-service: {}", e.getMessage());
+        }
+        stale = true;
+        return drivers != null ? drivers : List.of();
+    }
+
+    @KafkaListener(topics = "employee-changed-topic", containerFactory = "rosterKafkaListenerContainerFactory")
+    public void onEmployeeChanged(String ignored) {
+        stale = true;
+    }
+
+    public void invalidate() {
+        stale = true;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.deliveryservice.service;
+
+import com.example.deliveryservice.config.TrackingBrokerConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Phát vị trí qua Kafka để mọi instance nhận được:
+ * - Ping ở instance nào cũng gửi lên tracking-fanout-topic (key = orderId).
+ * - Mỗi instance đọc topic bằng consumer group riêng (nhận toàn bộ message) rồi đẩy vào simple broker của mình.
+ * - Trong một lần poll, mỗi đơn chỉ phát vị trí mới nhất; instance bị chậm không dồn backlog cho subscriber.
+ * Gửi Kafka lỗi thì vẫn phát cho subscriber trên instance hiện tại.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.tracking.broker.mode", havingValue = "kafka")
+public class KafkaTrackingFanout implements TrackingFanout {
+
+    private final TrackingDispatcher trackingDispatcher;
+    private final KafkaTemplate<String, String> trackingKafkaTemplate;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder publishFailures = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public KafkaTrackingFanout(TrackingDispatcher trackingDispatcher,
+                               @Qualifier("trackingKafkaTemplate") KafkaTemplate<String, String> trackingKafkaTemplate) {
+        this.trackingDispatcher = trackingDispatcher;
+        this.trackingKafkaTemplate = trackingKafkaTemplate;
+    }
+
+    @Override
+    public void publish(Long orderId, Object payload) {
+        String json = trackingDispatcher.serialize(payload);
+        long publishedAt = System.currentTimeMillis();
+        try {
+            trackingKafkaTemplate.send(TrackingBrokerConfig.TRACKING_TOPIC, String.valueOf(orderId), json)
+                    .whenComplete((result, ex) -> {
+                        if (ex == null) {
+                            published.increment();
+                            return;
+                        }
+                        fallback(orderId, json, publishedAt, ex);
+                    });
+        } catch (Exception e) {
+            fallback(orderId, json, publishedAt, e);
+        }
+    }
+
+    private void fallback(Long orderId, String json, long publishedAt, Throwable cause) {
+        publishFailures.increment();
+        log.warn("Tracking fan-out for order {} failed, delivering locally only: {}", orderId, cause.getMessage());
+        trackingDispatcher.deliver(orderId, json, publishedAt);
+    }
+
+    // Key theo orderId nên mỗi đơn nằm trên một partition: nhiều consumer vẫn giữ thứ tự vị trí trong một đơn
+    @KafkaListener(topics = TrackingBrokerConfig.TRACKING_TOPIC,
+            containerFactory = "trackingKafkaListenerContainerFactory",
+            concurrency = "${app.kafka.concurrency.tracking-fanout:3}")
+    public void onTrackingUpdates(List<ConsumerRecord<String, String>> records) {
+        received.add(records.size());
+        // Giữ bản mới nhất của mỗi đơn trong lô (record sau ghi đè record trước cùng key)
+        Map<String, ConsumerRecord<String, String>> latest = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            if (record.key() != null && record.value() != null) {
+                latest.put(record.key(), record);
+            }
+        }
+        coalesced.add(records.size() - latest.size());
+
+        for (ConsumerRecord<String, String> record : latest.values()) {
+            try {
+                trackingDispatcher.deliver(Long.valueOf(record.key()), record.value(), record.timestamp());
+            } catch (Exception e) {
+                log.warn("Failed to deliver tracking update for order {}: {}", record.key(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", "kafka");
+        stats.put("published", published.sum());
+        stats.put("publishFailures", publishFailures.sum());
+        stats.put("received", received.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("dispatch", trackingDispatcher.stats());
+        return stats;
+    }
+}
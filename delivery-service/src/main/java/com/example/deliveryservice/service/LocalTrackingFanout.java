@@ -0,0 +1,32 @@
+package com.example.deliveryservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Chỉ phát cho subscriber trên instance hiện tại (chạy một instance / môi trường test).
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.tracking.broker.mode", havingValue = "local", matchIfMissing = true)
+public class LocalTrackingFanout implements TrackingFanout {
+
+    private final TrackingDispatcher trackingDispatcher;
+
+    @Override
+    public void publish(Long orderId, Object payload) {
+        trackingDispatcher.deliver(orderId, trackingDispatcher.serialize(payload), System.currentTimeMillis());
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", "local");
+        stats.put("dispatch", trackingDispatcher.stats());
+        return stats;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.deliveryservice.service;
+
+import com.example.deliveryservice.entity.OutboxEvent;
+import com.example.deliveryservice.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đọc outbox theo lô và gửi lên Kafka.
+ * - Cả lô được gửi một lượt rồi mới chờ ack, producer tự gom message theo linger.ms / batch.size.
+ * - Event chỉ được đánh dấu đã gửi sau khi broker ack; crash giữa chừng thì lô được gửi lại
+ *   (at-least-once), consumer cần xử lý idempotent theo orderId.
+ * - Event lỗi của một key chặn các event sau nó cùng key trong lô, để thứ tự theo đơn không bị đảo.
+ * - Relay chạy trên thread riêng (outbox-relay): khi Kafka mất kết nối mỗi lô có thể chờ tới send-timeout-ms,
+ *   không được chiếm scheduler dùng chung của các job @Scheduled khác.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final long RELAY_LOCK_KEY = 0x4F55_5442_4F58L; // "OUTBOX", mỗi service một DB riêng nên dùng chung key được
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, String> outboxKafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.outbox.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${app.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${app.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private final LongAdder publishedTotal = new LongAdder();
+    private final LongAdder failedTotal = new LongAdder();
+    private final LongAdder batchesTotal = new LongAdder();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong lastRelayLagMs = new AtomicLong();
+    private final AtomicLong maxRelayLagMs = new AtomicLong();
+
+    private ScheduledExecutorService relayScheduler;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       @Qualifier("outboxKafkaTemplate") KafkaTemplate<String, String> outboxKafkaTemplate,
+                       TransactionTemplate transactionTemplate) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    void start() {
+        relayScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relayScheduler.scheduleWithFixedDelay(this::relay, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        relayScheduler.shutdownNow();
+    }
+
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed >= batchSize);
+        } catch (Exception e) {
+            log.error("Outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 15 * * * *}")
+    public void cleanupPublished() {
+        Date before = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours));
+        Integer deleted = transactionTemplate.execute(status -> outboxEventRepository.deletePublishedBefore(before));
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} published outbox event(s) older than {}h", deleted, retentionHours);
+        }
+    }
+
+    /**
+     * Gửi một lô, trả về số event đã lấy ra (0 nếu outbox rỗng hoặc instance khác đang relay).
+     */
+    int relayBatch() {
+        Integer size = transactionTemplate.execute(status -> {
+            if (!outboxEventRepository.tryAcquireRelayLock(RELAY_LOCK_KEY)) {
+                return 0;
+            }
+            List<OutboxEvent> batch = outboxEventRepository.findPendingBatch(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            publish(batch);
+            return batch.size();
+        });
+        return size != null ? size : 0;
+    }
+
+    private void publish(List<OutboxEvent> batch) {
+        List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            futures.add(outboxKafkaTemplate.send(event.getTopic(), event.getMessageKey(), event.getPayload()));
+        }
+        outboxKafkaTemplate.flush();
+
+        long deadline = System.currentTimeMillis() + sendTimeoutMs;
+        Set<String> blockedKeys = new HashSet<>();
+        List<Long> publishedIds = new ArrayList<>();
+        List<Long> failedIds = new ArrayList<>();
+        String lastError = null;
+
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            String key = event.getMessageKey();
+            boolean sent = awaitSend(futures.get(i), deadline, event);
+            if (!sent) {
+                lastError = "Send to " + event.getTopic() + " failed or timed out";
+            }
+            if (!sent || (key != null && blockedKeys.contains(key))) {
+                failedIds.add(event.getId());
+                if (key != null) {
+                    blockedKeys.add(key);
+                }
+            } else {
+                publishedIds.add(event.getId());
+            }
+        }
+
+        Date now = new Date();
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.markPublished(publishedIds, now);
+        }
+        if (!failedIds.isEmpty()) {
+            outboxEventRepository.markFailed(failedIds, lastError);
+            log.warn("Outbox relay: {} event(s) will be retried (keys {})", failedIds.size(), blockedKeys);
+        }
+
+        long lag = now.getTime() - batch.get(0).getCreatedAt().getTime();
+        publishedTotal.add(publishedIds.size());
+        failedTotal.add(failedIds.size());
+        batchesTotal.increment();
+        lastBatchSize.set(batch.size());
+        maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+        lastRelayLagMs.set(lag);
+        maxRelayLagMs.accumulateAndGet(lag, Math::max);
+        log.debug("Outbox relay: published {} / {} event(s), lag {} ms", publishedIds.size(), batch.size(), lag);
+    }
+
+    private boolean awaitSend(CompletableFuture<SendResult<String, String>> future, long deadline, OutboxEvent event) {
+        try {
+            future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            if (event.getAttempts() != null && event.getAttempts() >= 10) {
+                log.error("Outbox event {} to {} failed {} times: {}",
+                        event.getId(), event.getTopic(), event.getAttempts() + 1, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Date oldestPending = outboxEventRepository.findOldestPendingCreatedAt();
+        long batches = batchesTotal.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", outboxEventRepository.countByPublishedAtIsNull());
+        stats.put("oldestPendingAgeMs", oldestPending != null ? System.currentTimeMillis() - oldestPending.getTime() : 0);
+        stats.put("publishedTotal", publishedTotal.sum());
+        stats.put("failedTotal", failedTotal.sum());
+        stats.put("batches", batches);
+        stats.put("lastBatchSize", lastBatchSize.get());
+        stats.put("maxBatchSize", maxBatchSize.get());
+        stats.put("avgBatchSize", batches == 0 ? 0.0 : (double) (publishedTotal.sum() + failedTotal.sum()) / batches);
+        stats.put("lastRelayLagMs", lastRelayLagMs.get());
+        stats.put("maxRelayLagMs", maxRelayLagMs.get());
+        return stats;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.deliveryservice.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mã hoá nhị phân cho một đoạn lộ trình.
+ * Mỗi điểm gồm 3 số: lat, lng (độ × 1e6, sai số ~0.1 m) và thời điểm (epoch millis),
+ * ghi dưới dạng hiệu so với điểm trước (điểm đầu so với 0), zigzag rồi varint.
+ * Với ping vài giây một lần, mỗi điểm thường chỉ tốn 5–7 byte.
+ */
+public final class RouteTrailCodec {
+
+    private static final double SCALE = 1e6;
+
+    private RouteTrailCodec() {
+    }
+
+    public record Point(double latitude, double longitude, long timestamp) {
+    }
+
+    /**
+     * Ghi nối tiếp các điểm của một đoạn; không thread-safe.
+     */
+    public static final class Encoder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        private long lastLat;
+        private long lastLng;
+        private long lastTime;
+        private int pointCount;
+
+        /**
+         * Thêm một điểm. Điểm trùng toạ độ với điểm trước vẫn được ghi (delta 0, chỉ tốn ~3 byte)
+         * để giữ mốc thời gian shipper đứng yên; trả về false trong trường hợp đó.
+         */
+        public boolean append(double latitude, double longitude, long timestamp) {
+            long lat = Math.round(latitude * SCALE);
+            long lng = Math.round(longitude * SCALE);
+            boolean moved = pointCount == 0 || lat != lastLat || lng != lastLng;
+            writeVarLong(out, zigzag(lat - lastLat));
+            writeVarLong(out, zigzag(lng - lastLng));
+            writeVarLong(out, zigzag(timestamp - lastTime));
+            lastLat = lat;
+            lastLng = lng;
+            lastTime = timestamp;
+            pointCount++;
+            return moved;
+        }
+
+        public int pointCount() {
+            return pointCount;
+        }
+
+        public int size() {
+            return out.size();
+        }
+
+        public byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    public static List<Point> decode(byte[] data) {
+        List<Point> points = new ArrayList<>(data.length / 5 + 1);
+        long lat = 0;
+        long lng = 0;
+        long time = 0;
+        int[] pos = {0};
+        while (pos[0] < data.length) {
+            lat += unzigzag(readVarLong(data, pos));
+            lng += unzigzag(readVarLong(data, pos));
+            time += unzigzag(readVarLong(data, pos));
+            points.add(new Point(lat / SCALE, lng / SCALE, time));
+        }
+        return points;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] data, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= data.length || shift > 63) {
+                throw new IllegalArgumentException("Corrupted route trail segment");
+            }
+            byte b = data[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+}
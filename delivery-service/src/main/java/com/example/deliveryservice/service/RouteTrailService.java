@@ -0,0 +1,316 @@
+package com.example.deliveryservice.service;
+
+import com.example.deliveryservice.entity.RouteTrailSegment;
+import com.example.deliveryservice.repository.RouteTrailSegmentRepository;
+import com.example.deliveryservice.response.RouteTrailResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lưu lộ trình (breadcrumb) của shipper theo đơn để tra cứu khi có khiếu nại.
+ * - Ping được nối vào buffer của đơn trong bộ nhớ, mã hoá delta bằng RouteTrailCodec.
+ * - Buffer được đóng thành một đoạn (route_trail_segments) khi đủ số điểm, quá tuổi hoặc đổi shipper;
+ *   flush định kỳ ghi các đoạn đã đóng theo lô. Một đoạn thay cho hàng chục bản ghi mỗi ping.
+ * - Khi đọc, các đoạn được giải mã, nối lại và rút gọn bằng Douglas–Peucker.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RouteTrailService {
+
+    private final RouteTrailSegmentRepository routeTrailSegmentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.trail.segment-max-points:512}")
+    private int segmentMaxPoints;
+
+    @Value("${app.trail.segment-max-age-ms:60000}")
+    private long segmentMaxAgeMs;
+
+    @Value("${app.trail.default-tolerance-m:5}")
+    private double defaultToleranceMeters;
+
+    private final Map<Long, Buffer> buffers = new ConcurrentHashMap<>();
+    private final Queue<RouteTrailSegment> sealed = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder pointsAppended = new LongAdder();
+    private final LongAdder stationaryPoints = new LongAdder();
+    private final LongAdder segmentsWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+
+    /**
+     * Buffer của đoạn đang ghi; mọi thao tác giữ lock trên chính buffer.
+     * Buffer đã đóng (closed) không nhận thêm điểm, ping sau sẽ tạo buffer mới.
+     */
+    private static final class Buffer {
+        final Long orderId;
+        final String driverId;
+        final RouteTrailCodec.Encoder encoder = new RouteTrailCodec.Encoder();
+        final long createdAt = System.currentTimeMillis();
+        long startedAt;
+        long endedAt;
+        boolean closed;
+
+        Buffer(Long orderId, String driverId) {
+            this.orderId = orderId;
+            this.driverId = driverId;
+        }
+
+        RouteTrailSegment toSegment() {
+            return RouteTrailSegment.builder()
+                    .orderId(orderId)
+                    .driverId(driverId)
+                    .pointCount(encoder.pointCount())
+                    .startedAt(new Date(startedAt))
+                    .endedAt(new Date(endedAt))
+                    .data(encoder.toByteArray())
+                    .build();
+        }
+    }
+
+    public void append(Long orderId, String driverId, double latitude, double longitude, long timestamp) {
+        while (true) {
+            Buffer buffer = buffers.computeIfAbsent(orderId, id -> new Buffer(id, driverId));
+            synchronized (buffer) {
+                if (buffer.closed) {
+                    continue; // Vừa bị flush đóng lại, lấy buffer mới
+                }
+                if (!Objects.equals(buffer.driverId, driverId)) {
+                    // Đổi shipper: đóng đoạn cũ để mỗi đoạn chỉ thuộc một shipper
+                    close(buffer);
+                    continue;
+                }
+                if (!buffer.encoder.append(latitude, longitude, timestamp)) {
+                    stationaryPoints.increment();
+                }
+                if (buffer.encoder.pointCount() == 1) {
+                    buffer.startedAt = timestamp;
+                }
+                buffer.endedAt = timestamp;
+                pointsAppended.increment();
+                if (buffer.encoder.pointCount() >= segmentMaxPoints) {
+                    close(buffer);
+                }
+                return;
+            }
+        }
+    }
+
+    // Gọi khi đang giữ lock của buffer
+    private void close(Buffer buffer) {
+        buffer.closed = true;
+        buffers.remove(buffer.orderId, buffer);
+        if (buffer.encoder.pointCount() > 0) {
+            sealed.add(buffer.toSegment());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.trail.flush-interval-ms:5000}")
+    public void flush() {
+        flush(false);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush(true);
+    }
+
+    private void flush(boolean all) {
+        long cutoff = System.currentTimeMillis() - segmentMaxAgeMs;
+        for (Buffer buffer : buffers.values()) {
+            synchronized (buffer) {
+                if (!buffer.closed && (all || buffer.createdAt <= cutoff)) {
+                    close(buffer);
+                }
+            }
+        }
+
+        List<RouteTrailSegment> batch = new ArrayList<>();
+        RouteTrailSegment segment;
+        while ((segment = sealed.poll()) != null) {
+            batch.add(segment);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> routeTrailSegmentRepository.saveAll(batch));
+            segmentsWritten.add(batch.size());
+            bytesWritten.add(batch.stream().mapToLong(s -> s.getData().length).sum());
+            log.debug("Flushed {} route trail segment(s)", batch.size());
+        } catch (Exception e) {
+            // Ghi lỗi: đưa lại vào hàng đợi, lần flush sau thử tiếp
+            flushFailures.increment();
+            batch.forEach(s -> s.setId(null));
+            sealed.addAll(batch);
+            log.error("Route trail flush failed for {} segment(s): {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Lộ trình của đơn: các đoạn trong DB, cộng với phần chưa flush trên instance này,
+     * rút gọn với sai số toleranceMeters (null = mặc định, 0 = giữ mọi điểm).
+     */
+    public RouteTrailResponse getTrail(Long orderId, Double toleranceMeters) {
+        double tolerance = toleranceMeters != null ? Math.max(0, toleranceMeters) : defaultToleranceMeters;
+
+        List<RouteTrailSegment> segments = new ArrayList<>(
+                routeTrailSegmentRepository.findByOrderIdOrderByStartedAtAscIdAsc(orderId));
+        for (RouteTrailSegment pending : sealed) {
+            if (orderId.equals(pending.getOrderId()) && pending.getId() == null) {
+                segments.add(pending);
+            }
+        }
+        Buffer buffer = buffers.get(orderId);
+        if (buffer != null) {
+            synchronized (buffer) {
+                if (!buffer.closed && buffer.encoder.pointCount() > 0) {
+                    segments.add(buffer.toSegment());
+                }
+            }
+        }
+
+        List<RouteTrailCodec.Point> points = new ArrayList<>();
+        String driverId = null;
+        for (RouteTrailSegment segment : segments) {
+            points.addAll(RouteTrailCodec.decode(segment.getData()));
+            if (segment.getDriverId() != null) {
+                driverId = segment.getDriverId();
+            }
+        }
+        // Các đoạn có thể đến từ nhiều instance: sắp lại theo thời gian (sort ổn định)
+        points.sort(Comparator.comparingLong(RouteTrailCodec.Point::timestamp));
+
+        List<RouteTrailCodec.Point> simplified = simplify(points, tolerance);
+        return RouteTrailResponse.builder()
+                .orderId(orderId)
+                .driverId(driverId)
+                .rawPointCount(points.size())
+                .pointCount(simplified.size())
+                .toleranceMeters(tolerance)
+                .distanceMeters(length(points))
+                .startedAt(points.isEmpty() ? null : toLocalDateTime(points.get(0).timestamp()))
+                .endedAt(points.isEmpty() ? null : toLocalDateTime(points.get(points.size() - 1).timestamp()))
+                .points(simplified.stream()
+                        .map(p -> RouteTrailResponse.TrailPoint.builder()
+                                .latitude(p.latitude())
+                                .longitude(p.longitude())
+                                .timestamp(toLocalDateTime(p.timestamp()))
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    public Map<String, Object> stats() {
+        long segments = segmentsWritten.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("openBuffers", buffers.size());
+        stats.put("pendingSegments", sealed.size());
+        stats.put("pointsAppended", pointsAppended.sum());
+        stats.put("stationaryPoints", stationaryPoints.sum());
+        stats.put("segmentsWritten", segments);
+        stats.put("bytesWritten", bytesWritten.sum());
+        stats.put("avgSegmentBytes", segments == 0 ? 0.0 : (double) bytesWritten.sum() / segments);
+        stats.put("flushFailures", flushFailures.sum());
+        return stats;
+    }
+
+    // ----------------- Douglas–Peucker --------------------
+
+    /**
+     * Rút gọn polyline: giữ điểm đầu / cuối và các điểm lệch khỏi dây cung quá tolerance (mét).
+     * Dùng stack thay cho đệ quy để lộ trình dài không tràn stack.
+     */
+    static List<RouteTrailCodec.Point> simplify(List<RouteTrailCodec.Point> points, double tolerance) {
+        int n = points.size();
+        if (n <= 2 || tolerance <= 0) {
+            return points;
+        }
+
+        // Chiếu về mặt phẳng (mét) quanh điểm đầu; đủ chính xác cho phạm vi một chuyến giao hàng
+        double lat0 = Math.toRadians(points.get(0).latitude());
+        double metersPerDegLat = 111_320.0;
+        double metersPerDegLng = 111_320.0 * Math.cos(lat0);
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = (points.get(i).longitude() - points.get(0).longitude()) * metersPerDegLng;
+            ys[i] = (points.get(i).latitude() - points.get(0).latitude()) * metersPerDegLat;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        Deque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[]{0, n - 1});
+        double toleranceSq = tolerance * tolerance;
+
+        while (!stack.isEmpty()) {
+            int[] range = stack.pop();
+            int first = range[0];
+            int last = range[1];
+            int farthest = -1;
+            double maxDistSq = toleranceSq;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSq(xs[i], ys[i], xs[first], ys[first], xs[last], ys[last]);
+                if (d > maxDistSq) {
+                    maxDistSq = d;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                stack.push(new int[]{first, farthest});
+                stack.push(new int[]{farthest, last});
+            }
+        }
+
+        List<RouteTrailCodec.Point> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                result.add(points.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+
+    private static double length(List<RouteTrailCodec.Point> points) {
+        double total = 0;
+        for (int i = 1; i < points.size(); i++) {
+            RouteTrailCodec.Point a = points.get(i - 1);
+            RouteTrailCodec.Point b = points.get(i);
+            total += DriverPositionStore.distanceInMeters(a.latitude(), a.longitude(), b.latitude(), b.longitude());
+        }
+        return total;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
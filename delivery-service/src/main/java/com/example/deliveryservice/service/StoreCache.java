@@ -0,0 +1,82 @@
+package com.example.deliveryservice.service;
+
+import com.example.deliveryservice.feign.StoreClient;
+import com.example.deliveryservice.response.ApiResponse;
+import com.example.deliveryservice.response.StoreResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache thông tin cửa hàng (tên, địa chỉ...) dùng cho danh sách giao hàng.
+ * Cửa hàng hầu như không đổi nên giữ theo TTL; phần còn thiếu lấy bằng một lần gọi /api/stores/batch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StoreCache {
+
+    private final StoreClient storeClient;
+
+    @Value("${app.delivery.store-cache.ttl-ms:600000}")
+    private long ttlMillis;
+
+    private record Entry(StoreResponse store, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public StoreResponse getStore(String storeId) {
+        return storeId != null ? getStores(List.of(storeId)).get(storeId) : null;
+    }
+
+    public Map<String, StoreResponse> getStores(Collection<String> storeIds) {
+        long now = System.currentTimeMillis();
+        Map<String, StoreResponse> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String storeId : new LinkedHashSet<>(storeIds)) {
+            if (storeId == null)
+                continue;
+            Entry entry = entries.get(storeId);
+            if (entry != null && entry.expiresAt() > now) {
+                result.put(storeId, entry.store());
+            } else {
+                missing.add(storeId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        try {
+            ApiResponse<Map<String, StoreResponse>> response = storeClient.getStoresByIds(missing);
+            if (response != null && response.getData() != null) {
+                long expiresAt = System.currentTimeMillis() + ttlMillis;
+                response.getData().forEach((id, store) -> {
+                    if (store != null) {
+                        entries.put(id, new Entry(store, expiresAt));
+                        result.put(id, store);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.warn("Failed to batch fetch {} stores: {}", missing.size(), e.getMessage());
+            // Dùng tạm bản đã hết hạn nếu còn
+            for (String storeId : missing) {
+                Entry entry = entries.get(storeId);
+                if (entry != null) {
+                    result.put(storeId, entry.store());
+                }
+            }
+        }
+        return result;
+    }
+
+    public void evict(String storeId) {
+        entries.remove(storeId);
+    }
+}
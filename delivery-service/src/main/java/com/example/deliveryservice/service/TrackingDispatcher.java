@@ -0,0 +1,68 @@
+package com.example.deliveryservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đẩy vị trí (JSON đã serialize sẵn) vào simple broker của instance này.
+ * Payload được serialize một lần ở nơi publish rồi dùng nguyên byte cho mọi subscriber / instance.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrackingDispatcher {
+
+    public static final String TOPIC_PREFIX = "/topic/tracking/";
+
+    private static final Map<String, Object> JSON_HEADERS =
+            Map.of(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder lagTotalMs = new LongAdder();
+    private final AtomicLong maxLagMs = new AtomicLong();
+    private final AtomicLong lastLagMs = new AtomicLong();
+
+    public String serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize tracking payload", e);
+        }
+    }
+
+    /**
+     * publishedAt là thời điểm nhận ping (epoch millis), dùng đo độ trễ ping → broker.
+     */
+    public void deliver(Long orderId, String json, long publishedAt) {
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + orderId,
+                json.getBytes(StandardCharsets.UTF_8), JSON_HEADERS);
+        long lag = Math.max(0, System.currentTimeMillis() - publishedAt);
+        delivered.increment();
+        lagTotalMs.add(lag);
+        lastLagMs.set(lag);
+        maxLagMs.accumulateAndGet(lag, Math::max);
+    }
+
+    public Map<String, Object> stats() {
+        long count = delivered.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("delivered", count);
+        stats.put("avgLagMs", count == 0 ? 0.0 : (double) lagTotalMs.sum() / count);
+        stats.put("lastLagMs", lastLagMs.get());
+        stats.put("maxLagMs", maxLagMs.get());
+        return stats;
+    }
+}
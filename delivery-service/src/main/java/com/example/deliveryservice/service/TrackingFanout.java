@@ -0,0 +1,14 @@
+package com.example.deliveryservice.service;
+
+import java.util.Map;
+
+/**
+ * Phát vị trí lên /topic/tracking/{orderId} tới subscriber trên mọi instance.
+ * Chế độ chọn bằng app.tracking.broker.mode: local (một instance) hoặc kafka (nhiều instance).
+ */
+public interface TrackingFanout {
+
+    void publish(Long orderId, Object payload);
+
+    Map<String, Object> stats();
+}
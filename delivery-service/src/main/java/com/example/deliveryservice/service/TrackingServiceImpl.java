@@ -1,54 +1,68 @@
 package com.example.deliveryservice.service;
 
 import com.example.deliveryservice.entity.DriverLocation;
+import com.example.deliveryservice.enums.ErrorCode;
+import com.example.deliveryservice.exception.AppException;
 import com.example.deliveryservice.repository.DriverLocationRepository;
 import com.example.deliveryservice.request.UpdateLocationRequest;
 import com.example.deliveryservice.service.inteface.TrackingService;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-
 @Service
 @RequiredArgsConstructor
 public class TrackingServiceImpl implements TrackingService {
 
     private final DriverLocationRepository driverLocationRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final DriverPositionStore driverPositionStore;
+    private final RouteTrailService routeTrailService;
+    private final TrackingFanout trackingFanout;
 
+    /**
+     * Không còn ghi một bản ghi mỗi ping: vị trí mới nhất vào DriverPositionStore, lịch sử vào RouteTrailService.
+     */
     @Override
-    @Transactional
     public DriverLocation updateLocation(UpdateLocationRequest request) {
 
-        if (request.getLat() == null || request.getLng() == null) {
-            throw new IllegalArgumentException("Invalid location data");
+        if (request.getOrderId() == null
+                || request.getDriverId() == null || request.getDriverId().isBlank()
+                || request.getLat() == null || request.getLng() == null) {
+            throw new AppException(ErrorCode.INVALID_REQUEST);
         }
 
-        DriverLocation location = DriverLocation.builder()
-                .orderId(request.getOrderId())
-                .driverId(request.getDriverId())
-                .latitude(request.getLat())
-                .longitude(request.getLng())
-                .updatedAt(LocalDateTime.now())
-                .build();
-
-        DriverLocation saved = driverLocationRepository.save(location);
+        DriverPositionStore.Update update = driverPositionStore.update(
+                request.getOrderId(), request.getDriverId(), request.getLat(), request.getLng());
+        routeTrailService.append(request.getOrderId(), request.getDriverId(),
+                request.getLat(), request.getLng(), update.position().receivedAt());
 
-        messagingTemplate.convertAndSend(
-                "/topic/tracking/" + saved.getOrderId(),
-                saved
-        );
+        DriverLocation location = toLocation(update.position());
+        if (update.broadcast()) {
+            trackingFanout.publish(location.getOrderId(), location);
+        }
 
-        return saved;
+        return location;
     }
 
     @Override
     public DriverLocation getLocation(Long orderId) {
-        return driverLocationRepository.findById(orderId)
+        DriverPositionStore.Position position = driverPositionStore.getByOrderId(orderId);
+        if (position != null) {
+            return toLocation(position);
+        }
+        return driverLocationRepository.findFirstByOrderIdOrderByIdDesc(orderId)
                 .orElseThrow(() ->
                         new RuntimeException("Location not found for order " + orderId)
                 );
     }
+
+    private DriverLocation toLocation(DriverPositionStore.Position position) {
+        return DriverLocation.builder()
+                .id(position.rowId())
+                .orderId(position.orderId())
+                .driverId(position.driverId())
+                .latitude(position.latitude())
+                .longitude(position.longitude())
+                .updatedAt(position.updatedAt())
+                .build();
+    }
 }
@@ -6,6 +6,7 @@ import com.example.deliveryservice.request.QRCodeScanRequest;
 import com.example.deliveryservice.response.DeliveryConfirmationResponse;
 
 import java.util.List;
+import java.util.Map;
 
 public interface DeliveryConfirmationService {
 
@@ -13,6 +14,8 @@ public interface DeliveryConfirmationService {
 
     DeliveryConfirmationResponse getDeliveryConfirmationByOrderId(Long orderId);
 
+    Map<Long, DeliveryConfirmationResponse> getDeliveryConfirmationsByOrderIds(List<Long> orderIds);
+
     DeliveryConfirmationResponse getDeliveryConfirmationByQRCode(String qrCode);
 
     DeliveryConfirmationResponse scanQRCode(QRCodeScanRequest request);
@@ -0,0 +1,119 @@
+package com.example.deliveryservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Subscriber chậm: trong lúc một lần ghi đang kẹt, các vị trí tracking dồn lại chỉ còn bản mới nhất,
+ * frame khác giữ nguyên thứ tự.
+ */
+@DisplayName("TrackingSessionCoalescer Tests")
+class TrackingSessionCoalescerTest {
+
+    private TrackingSessionCoalescer coalescer;
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstWriteStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+    private WebSocketSession raw;
+    private WebSocketSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        coalescer = new TrackingSessionCoalescer(1);
+        ReflectionTestUtils.setField(coalescer, "sendTimeLimitMs", 10_000L);
+        ReflectionTestUtils.setField(coalescer, "maxPendingFrames", 2);
+
+        raw = mock(WebSocketSession.class);
+        when(raw.getId()).thenReturn("s-1");
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            if (written.isEmpty()) {
+                firstWriteStarted.countDown();
+                releaseFirstWrite.await(10, TimeUnit.SECONDS);
+            }
+            written.add((String) message.getPayload());
+            return null;
+        }).when(raw).sendMessage(any());
+
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        coalescer.decorate(handler).afterConnectionEstablished(raw);
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+        session = decorated.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstWrite.countDown();
+        coalescer.stop();
+    }
+
+    @Test
+    @DisplayName("Only the newest pending position per subscription is written while the socket is blocked")
+    void coalescesPendingTrackingFrames() throws Exception {
+        session.sendMessage(tracking("1", "sub-0", 0));
+        assertTrue(firstWriteStarted.await(10, TimeUnit.SECONDS));
+
+        for (int seq = 1; seq <= 5; seq++) {
+            session.sendMessage(tracking("1", "sub-0", seq));
+            session.sendMessage(tracking("2", "sub-1", seq));
+        }
+        session.sendMessage(new TextMessage("RECEIPT\nreceipt-id:r-1\n\n\0"));
+        releaseFirstWrite.countDown();
+
+        verify(raw, timeout(5000).times(4)).sendMessage(any());
+        assertEquals(List.of(
+                tracking("1", "sub-0", 0).getPayload(),
+                "RECEIPT\nreceipt-id:r-1\n\n\0",
+                tracking("1", "sub-0", 5).getPayload(),
+                tracking("2", "sub-1", 5).getPayload()), written);
+        assertEquals(8L, coalescer.stats().get("coalesced"));
+    }
+
+    @Test
+    @DisplayName("Too many pending non-tracking frames closes the session as not reliable")
+    void overflowOfOrderedFramesIsRejected() throws Exception {
+        session.sendMessage(tracking("1", "sub-0", 0));
+        assertTrue(firstWriteStarted.await(10, TimeUnit.SECONDS));
+
+        session.sendMessage(new TextMessage("MESSAGE\ndestination:/topic/other\nsubscription:sub-2\n\n{}\0"));
+        session.sendMessage(new TextMessage("MESSAGE\ndestination:/topic/other\nsubscription:sub-2\n\n{}\0"));
+
+        assertThrows(SessionLimitExceededException.class, () ->
+                session.sendMessage(new TextMessage("MESSAGE\ndestination:/topic/other\nsubscription:sub-2\n\n{}\0")));
+    }
+
+    @Test
+    @DisplayName("Only MESSAGE frames on the tracking topic are coalesced")
+    void trackingKeyMatchesTrackingMessagesOnly() {
+        assertEquals("/topic/tracking/7|sub-3", TrackingSessionCoalescer.trackingKey(tracking("7", "sub-3", 1)));
+        assertNull(TrackingSessionCoalescer.trackingKey(
+                new TextMessage("MESSAGE\ndestination:/topic/other\nsubscription:sub-2\n\n{}\0")));
+        assertNull(TrackingSessionCoalescer.trackingKey(new TextMessage("\n")));
+        assertNull(TrackingSessionCoalescer.trackingKey(new TextMessage("CONNECTED\nversion:1.2\n\n\0")));
+    }
+
+    private static TextMessage tracking(String orderId, String subscription, int seq) {
+        return new TextMessage("MESSAGE\ndestination:/topic/tracking/" + orderId
+                + "\ncontent-type:application/json\nsubscription:" + subscription
+                + "\nmessage-id:m-" + seq + "\n\n{\"seq\":" + seq + "}\0");
+    }
+}
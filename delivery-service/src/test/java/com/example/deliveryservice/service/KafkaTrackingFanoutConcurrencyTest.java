@@ -0,0 +1,91 @@
+package com.example.deliveryservice.service;
+
+import com.example.deliveryservice.config.TrackingBrokerConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Listener tracking-fanout-topic chạy với app.kafka.concurrency.tracking-fanout consumer trên Kafka nhúng:
+ * mỗi consumer nhận một partition, và vị trí của một đơn (key = orderId) vẫn được phát theo đúng thứ tự gửi.
+ */
+@DisplayName("KafkaTrackingFanout concurrency Tests")
+@SpringJUnitConfig(classes = {TrackingBrokerConfig.class, KafkaTrackingFanout.class})
+@EmbeddedKafka(topics = TrackingBrokerConfig.TRACKING_TOPIC, partitions = 3)
+@TestPropertySource(properties = {
+        "app.tracking.broker.mode=kafka",
+        "app.tracking.broker.partitions=3",
+        "app.kafka.concurrency.tracking-fanout=3",
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}"
+})
+class KafkaTrackingFanoutConcurrencyTest {
+
+    private static final int ORDERS = 30;
+    private static final int UPDATES_PER_ORDER = 20;
+
+    @MockBean
+    private TrackingDispatcher trackingDispatcher;
+
+    @Autowired
+    private KafkaTrackingFanout kafkaTrackingFanout;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Test
+    @DisplayName("Each consumer takes a partition and per-order updates stay ordered")
+    void concurrentConsumersKeepPerOrderOrdering() throws Exception {
+        MessageListenerContainer container = registry.getListenerContainers().iterator().next();
+        assertEquals(3, ((ConcurrentMessageListenerContainer<?, ?>) container).getConcurrency());
+        ContainerTestUtils.waitForAssignment(container, 3);
+
+        Map<Long, List<Integer>> deliveredPerOrder = new ConcurrentHashMap<>();
+        Set<String> consumerThreads = ConcurrentHashMap.newKeySet();
+        CountDownLatch lastUpdates = new CountDownLatch(ORDERS);
+        when(trackingDispatcher.serialize(any())).thenAnswer(invocation -> String.valueOf(invocation.<Object>getArgument(0)));
+        doAnswer(invocation -> {
+            consumerThreads.add(Thread.currentThread().getName());
+            int sequence = Integer.parseInt(invocation.getArgument(1));
+            deliveredPerOrder.computeIfAbsent(invocation.getArgument(0), key -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(sequence);
+            if (sequence == UPDATES_PER_ORDER - 1) {
+                lastUpdates.countDown();
+            }
+            return null;
+        }).when(trackingDispatcher).deliver(anyLong(), anyString(), anyLong());
+
+        for (int sequence = 0; sequence < UPDATES_PER_ORDER; sequence++) {
+            for (long orderId = 1; orderId <= ORDERS; orderId++) {
+                kafkaTrackingFanout.publish(orderId, sequence);
+            }
+        }
+
+        assertTrue(lastUpdates.await(30, TimeUnit.SECONDS), "Not every order received its latest position");
+        assertEquals(ORDERS, deliveredPerOrder.size());
+        for (Map.Entry<Long, List<Integer>> entry : deliveredPerOrder.entrySet()) {
+            List<Integer> sequences = entry.getValue();
+            // Lô có thể gộp vị trí cũ, nhưng không bao giờ phát vị trí cũ sau vị trí mới hơn
+            for (int i = 1; i < sequences.size(); i++) {
+                assertTrue(sequences.get(i) > sequences.get(i - 1), "Order " + entry.getKey() + " went back: " + sequences);
+            }
+        }
+        assertTrue(consumerThreads.size() > 1, "Updates were consumed by a single thread: " + consumerThreads);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.deliveryservice.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RouteTrailCodec Tests")
+class RouteTrailCodecTest {
+
+    @Test
+    @DisplayName("Encoded points decode back to the same coordinates and timestamps")
+    void roundTrip() {
+        RouteTrailCodec.Encoder encoder = new RouteTrailCodec.Encoder();
+        encoder.append(10.762622, 106.660172, 1_700_000_000_000L);
+        encoder.append(10.762700, 106.660300, 1_700_000_003_000L);
+        encoder.append(10.762100, 106.659900, 1_700_000_006_500L);
+
+        List<RouteTrailCodec.Point> points = RouteTrailCodec.decode(encoder.toByteArray());
+
+        assertEquals(List.of(
+                new RouteTrailCodec.Point(10.762622, 106.660172, 1_700_000_000_000L),
+                new RouteTrailCodec.Point(10.762700, 106.660300, 1_700_000_003_000L),
+                new RouteTrailCodec.Point(10.762100, 106.659900, 1_700_000_006_500L)), points);
+    }
+
+    @Test
+    @DisplayName("Pings at the same coordinates are kept as zero deltas with their timestamps")
+    void stationaryPingsKeepTimestamps() {
+        RouteTrailCodec.Encoder encoder = new RouteTrailCodec.Encoder();
+        assertTrue(encoder.append(10.762622, 106.660172, 1_000L));
+        int sizeAfterFirst = encoder.size();
+        assertFalse(encoder.append(10.762622, 106.660172, 4_000L));
+        assertFalse(encoder.append(10.762622, 106.660172, 7_000L));
+
+        assertEquals(3, encoder.pointCount());
+        // delta lat/lng = 0 (1 byte mỗi số) + delta thời gian 3000 ms (2 byte)
+        assertEquals(sizeAfterFirst + 2 * 4, encoder.size());
+
+        List<RouteTrailCodec.Point> points = RouteTrailCodec.decode(encoder.toByteArray());
+        assertEquals(List.of(1_000L, 4_000L, 7_000L), points.stream().map(RouteTrailCodec.Point::timestamp).toList());
+        assertTrue(points.stream().allMatch(p -> p.latitude() == 10.762622 && p.longitude() == 106.660172));
+    }
+}
@@ -3,13 +3,18 @@ package com.example.inventoryservice.config;
 import com.example.inventoryservice.event.OrderCreatedEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
 import org.springframework.kafka.core.KafkaAdmin;
 import org.apache.kafka.clients.admin.AdminClientConfig;
@@ -33,6 +38,9 @@ public class KafkaConsumerConfig {
 
     private final String GROUP_ID = "notification-group";
 
+    @Value("${app.kafka.order-created.max-poll-records:100}")
+    private int orderCreatedMaxPollRecords;
+
     private Map<String, Object> baseConfigs() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
@@ -45,17 +53,25 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConsumerFactory<String, OrderCreatedEvent> orderCreatedConsumerFactory() {
+        Map<String, Object> props = baseConfigs();
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, orderCreatedMaxPollRecords);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // Bản ghi JSON hỏng thành phần tử null trong lô thay vì làm lỗi cả lần poll
         return new DefaultKafkaConsumerFactory<>(
-                baseConfigs(),
+                props,
                 new StringDeserializer(),
-                new JsonDeserializer<>(OrderCreatedEvent.class, false));
+                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(OrderCreatedEvent.class, false)));
     }
 
+    // Listener nhận cả lô (List<OrderCreatedEvent>), offset commit một lần sau mỗi lô
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, OrderCreatedEvent> orderCreatedKafkaListenerContainerFactory() {
         var factory = new ConcurrentKafkaListenerContainerFactory<String, OrderCreatedEvent>();
 
         factory.setConsumerFactory(orderCreatedConsumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, 3)));
         return factory;
     }
 
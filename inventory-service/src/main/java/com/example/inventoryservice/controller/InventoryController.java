@@ -4,6 +4,8 @@ import com.example.inventoryservice.enums.TransferStatus;
 import com.example.inventoryservice.exception.AppException;
 import com.example.inventoryservice.request.InventoryItemRequest;
 import com.example.inventoryservice.request.InventoryRequest;
+import com.example.inventoryservice.request.ReserveStockItemRequest;
+import com.example.inventoryservice.request.StoreFulfillmentRequest;
 import com.example.inventoryservice.request.TransferStockRequest;
 import com.example.inventoryservice.response.*;
 import com.example.inventoryservice.service.PDFService;
@@ -15,6 +17,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
@@ -123,6 +126,21 @@ public class InventoryController {
                                 .build();
         }
 
+        @Operation(summary = "Giữ hàng cho nhiều sản phẩm của một đơn trong một lần gọi")
+        @PostMapping("/reserve/{orderId}/batch")
+        public ApiResponse<ReserveStockBatchResponse> reserveStockBatch(
+                        @PathVariable Long orderId,
+                        @RequestBody @NotEmpty List<@Valid ReserveStockItemRequest> items) {
+
+                ReserveStockBatchResponse response = inventoryService.reserveStockBatch(orderId, items);
+
+                return ApiResponse.<ReserveStockBatchResponse>builder()
+                                .status(200)
+                                .message("Giữ hàng thành công")
+                                .data(response)
+                                .build();
+        }
+
         @Operation(summary = "Bỏ giữ hàng (Tạo phiếu RELEASE)")
         @PostMapping("/release/{orderId}")
         public ApiResponse<ReserveStockResponse> releaseReservedStock(
@@ -196,7 +214,12 @@ public class InventoryController {
                         @RequestParam @NotBlank String storeId,
                         @RequestParam @Min(1) Integer quantity) {
 
-                boolean hasStock = inventoryService.hasSufficientStock(productColorId, storeId, quantity);
+                boolean hasStock = inventoryService.checkStoresFulfillment(StoreFulfillmentRequest.builder()
+                                .storeIds(List.of(storeId))
+                                .items(List.of(new ReserveStockItemRequest(productColorId, quantity)))
+                                .build())
+                                .getFirst()
+                                .isFulfillable();
 
                 return ApiResponse.<Boolean>builder()
                                 .status(200)
@@ -205,6 +228,18 @@ public class InventoryController {
                                 .build();
         }
 
+        @Operation(summary = "Kiểm tra nhiều store có đủ hàng cho cả đơn hay không (một lần gọi)")
+        @PostMapping("/stock/check-stores")
+        public ApiResponse<List<StoreFulfillmentResponse>> checkStoresFulfillment(
+                        @RequestBody @Valid StoreFulfillmentRequest request) {
+
+                return ApiResponse.<List<StoreFulfillmentResponse>>builder()
+                                .status(200)
+                                .message("Kiểm tra tồn kho nhiều store thành công")
+                                .data(inventoryService.checkStoresFulfillment(request))
+                                .build();
+        }
+
         @Operation(summary = "Lấy tổng tồn kho vật lý")
         @GetMapping("/stock/total-physical")
         public ApiResponse<Integer> getTotalStockByProductColorId(
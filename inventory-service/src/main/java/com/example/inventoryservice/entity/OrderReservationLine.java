@@ -0,0 +1,48 @@
+package com.example.inventoryservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Đánh dấu một dòng (SKU) của đơn đã được giữ hàng, ghi cùng transaction với việc trừ tồn.
+ * Nhờ đó gọi lại reserve cho cùng đơn (retry Kafka, gọi lại API) không giữ hàng lần hai.
+ */
+@Entity
+@Table(name = "order_reservation_lines",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_order_reservation_line",
+           columnNames = {"order_id", "product_color_id"}
+       ))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderReservationLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_color_id", nullable = false)
+    private String productColorId;
+
+    @Column(name = "quantity_needed", nullable = false)
+    private int quantityNeeded;
+
+    @Column(name = "quantity_reserved", nullable = false)
+    private int quantityReserved;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -65,7 +65,8 @@ public enum ErrorCode {
     INVALID_TYPE(1208,"Invalid token ", HttpStatus.CONFLICT),
     INVALID_INPUT(1209,"Invalid Input", HttpStatus.BAD_REQUEST),
     ORDER_NOT_FOUND(1210,"Order not found", HttpStatus.BAD_REQUEST),
-    LOCATION_CAPACITY_EXCEEDED(1211,"Location full", HttpStatus.BAD_REQUEST)
+    LOCATION_CAPACITY_EXCEEDED(1211,"Location full", HttpStatus.BAD_REQUEST),
+    RESERVATION_BUSY(1212,"Stock reservation busy, please retry", HttpStatus.CONFLICT)
     ,
     ;
 
@@ -1,66 +1,64 @@
 package com.example.inventoryservice.listener;
 
-import com.example.inventoryservice.entity.ProcessedMessage;
 import com.example.inventoryservice.event.OrderCreatedEvent;
-import com.example.inventoryservice.repository.ProcessedMessageRepository;
-import com.example.inventoryservice.response.ReserveStockResponse;
-import com.example.inventoryservice.service.inteface.InventoryService;
+import com.example.inventoryservice.service.OrderReservationBatchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Objects;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class OrderCreatedConsumer {
 
-    private final InventoryService inventoryService;
-    private final ProcessedMessageRepository processedMessageRepository;
+    private final OrderReservationBatchService orderReservationBatchService;
 
+    /**
+     * Nhận cả lô event của một lần poll; offset được commit một lần sau khi lô xử lý xong.
+     * Lô lỗi thì xử lý lại từng đơn để tìm đơn hỏng, các đơn trước nó vẫn được ghi nhận.
+     * Bản ghi không đọc được (null) bị bỏ qua, không làm lỗi cả lô.
+     */
     @KafkaListener(
             topics = "order-created-topic",
             groupId = "inventory-group",
-            containerFactory = "orderCreatedKafkaListenerContainerFactory"
+            containerFactory = "orderCreatedKafkaListenerContainerFactory",
+            concurrency = "${app.kafka.concurrency.order-created:3}"
     )
-    public void handleOrderCreated(OrderCreatedEvent event) {
-        Long orderId = event.getOrderId();
-        log.info("📥 Received OrderCreatedEvent for order: {}", orderId);
+    public void handleOrderCreated(List<OrderCreatedEvent> events) {
+        log.info("📥 Received {} OrderCreatedEvent(s)", events.size());
+        long start = System.currentTimeMillis();
 
-        if (processedMessageRepository.existsByOrderId(orderId)) {
-            log.warn("⚠️ Order {} already processed. Skipping.", orderId);
-            return;
+        long malformed = events.stream().filter(Objects::isNull).count();
+        if (malformed > 0) {
+            log.warn("⚠️ Skipping {} OrderCreatedEvent(s) that could not be deserialized", malformed);
         }
 
         try {
-            event.getItems().forEach(item -> {
-                log.info("🔹 Reserving: productColorId={} qty={}",
-                        item.getProductColorId(), item.getQuantity());
-
-                ReserveStockResponse response =
-                        inventoryService.reserveStock(
-                                item.getProductColorId(),
-                                item.getQuantity(),
-                                orderId
-                        );
-
-                log.info("✅ Reserved: {}/{} for productColorId={}",
-                        response.getTotalReserved(),
-                        item.getQuantity(),
-                        item.getProductColorId());
-            });
-
-            processedMessageRepository.save(
-                    ProcessedMessage.builder()
-                            .orderId(orderId)
-                            .build()
-            );
-
-            log.info("✅ Successfully processed order {}", orderId);
-
+            int reserved = orderReservationBatchService.reserveAll(events);
+            log.info("✅ Reserved stock for {} / {} order(s) in {} ms",
+                    reserved, events.size(), System.currentTimeMillis() - start);
+            return;
         } catch (Exception e) {
-            log.error("❌ Failed to process order {}: {}", orderId, e.getMessage(), e);
-            throw e;
+            log.warn("Batch reservation failed ({}), retrying order by order", e.getMessage());
+        }
+
+        for (int i = 0; i < events.size(); i++) {
+            OrderCreatedEvent event = events.get(i);
+            if (event == null || event.getOrderId() == null)
+                continue;
+            try {
+                if (orderReservationBatchService.reserveOne(event)) {
+                    log.info("✅ Successfully processed order {}", event.getOrderId());
+                }
+            } catch (Exception e) {
+                log.error("❌ Failed to process order {}: {}", event.getOrderId(), e.getMessage(), e);
+                throw new BatchListenerFailedException("Failed to reserve stock for order " + event.getOrderId(), e, i);
+            }
         }
     }
 }
@@ -0,0 +1,34 @@
+package com.example.inventoryservice.listener;
+
+import com.example.inventoryservice.service.StockLedger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+
+/**
+ * Làm mới stock ledger khi instance khác ghi tồn kho.
+ * Mỗi instance dùng consumer group riêng (theo instanceId) để instance nào cũng nhận đủ message,
+ * và chỉ đọc message mới: trạng thái trước khi khởi động đã có trong lần nạp toàn bộ.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StockLedgerInvalidationListener {
+
+    private final StockLedger stockLedger;
+
+    @KafkaListener(topics = StockLedger.INVALIDATION_TOPIC,
+            groupId = "inventory-ledger-#{@stockLedger.instanceId}",
+            properties = "auto.offset.reset=latest")
+    public void handleInvalidation(ConsumerRecord<String, String> record) {
+        if (stockLedger.getInstanceId().equals(record.key()) || record.value() == null) {
+            return;
+        }
+        log.debug("Stock ledger invalidation from {}: {}", record.key(), record.value());
+        stockLedger.refresh(Arrays.asList(record.value().split(",")));
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -129,6 +130,31 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     Integer calculateRealAvailableStock(@Param("pId") String pId,
                                         @Param("virtualTypes") List<EnumTypes> virtualTypes);
 
+    // Tổng hợp cho StockLedger: [productColorId, warehouseId, physical, reserved, available]
+    @Query("SELECT i.productColorId, w.id, " +
+            "SUM(i.quantity), " +
+            "SUM(COALESCE(i.reservedQuantity, 0)), " +
+            "SUM(CASE WHEN (i.quantity - i.reservedQuantity) > 0 THEN (i.quantity - i.reservedQuantity) ELSE 0 END) " +
+            "FROM InventoryItem i " +
+            "JOIN i.inventory inv " +
+            "LEFT JOIN inv.warehouse w " +
+            "WHERE inv.type NOT IN :virtualTypes " +
+            "GROUP BY i.productColorId, w.id")
+    List<Object[]> aggregateStockLedger(@Param("virtualTypes") List<EnumTypes> virtualTypes);
+
+    @Query("SELECT i.productColorId, w.id, " +
+            "SUM(i.quantity), " +
+            "SUM(COALESCE(i.reservedQuantity, 0)), " +
+            "SUM(CASE WHEN (i.quantity - i.reservedQuantity) > 0 THEN (i.quantity - i.reservedQuantity) ELSE 0 END) " +
+            "FROM InventoryItem i " +
+            "JOIN i.inventory inv " +
+            "LEFT JOIN inv.warehouse w " +
+            "WHERE i.productColorId IN :productColorIds " +
+            "AND inv.type NOT IN :virtualTypes " +
+            "GROUP BY i.productColorId, w.id")
+    List<Object[]> aggregateStockLedgerByProductColorIds(@Param("productColorIds") Collection<String> productColorIds,
+                                                         @Param("virtualTypes") List<EnumTypes> virtualTypes);
+
 //    @Query("SELECT ii FROM InventoryItem ii JOIN FETCH ii.inventory i JOIN FETCH i.warehouse w WHERE ii.productColorId = :productColorId")
 //    List<InventoryItem> findByProductColorIdWithInventoryAndWarehouse(@Param("productColorId") String productColorId);
 
@@ -155,6 +181,22 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
             @Param("storeId") String storeId
     );
 
+    // Tồn khả dụng theo (store, sản phẩm) cho nhiều store cùng lúc: [storeId, productColorId, available]
+    @Query("SELECT w.storeId, i.productColorId, " +
+            "SUM(CASE WHEN (i.quantity - i.reservedQuantity) > 0 THEN (i.quantity - i.reservedQuantity) ELSE 0 END) " +
+            "FROM InventoryItem i " +
+            "JOIN i.inventory inv " +
+            "JOIN i.locationItem l " +
+            "JOIN l.zone z " +
+            "JOIN z.warehouse w " +
+            "WHERE w.storeId IN :storeIds " +
+            "AND i.productColorId IN :productColorIds " +
+            "AND inv.type NOT IN :virtualTypes " +
+            "GROUP BY w.storeId, i.productColorId")
+    List<Object[]> sumAvailableByStoresAndProducts(@Param("storeIds") Collection<String> storeIds,
+                                                   @Param("productColorIds") Collection<String> productColorIds,
+                                                   @Param("virtualTypes") List<EnumTypes> virtualTypes);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE) // <--- QUAN TRỌNG: Khoá dòng để tránh tranh chấp khi nhiều đơn cùng đặt
     @Query("SELECT i FROM InventoryItem i " +
             "JOIN FETCH i.locationItem l " +       // Fetch Join để lấy luôn Location (tránh lỗi N+1)
@@ -166,6 +208,32 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     List<InventoryItem> findByProductColorIdAndAvailableGreaterThanZero(@Param("productColorId") String productColorId);
 
 
+    // Ứng viên giữ hàng cho ReservationEngine: [inventoryItemId, warehouseId, available] - không load entity
+    @Query("SELECT i.id, w.id, (i.quantity - i.reservedQuantity) " +
+            "FROM InventoryItem i " +
+            "JOIN i.locationItem l " +
+            "JOIN l.zone z " +
+            "JOIN z.warehouse w " +
+            "WHERE i.productColorId = :productColorId " +
+            "AND (i.quantity - i.reservedQuantity) > 0 " +
+            "ORDER BY i.id ASC")
+    List<Object[]> findReservationCandidates(@Param("productColorId") String productColorId);
+
+    // Giữ hàng có điều kiện (Atomic) - chỉ thành công khi dòng còn đủ hàng khả dụng
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE InventoryItem i SET i.reservedQuantity = i.reservedQuantity + :qty " +
+            "WHERE i.id = :id AND (i.quantity - i.reservedQuantity) >= :qty")
+    int tryReserve(@Param("id") Long id, @Param("qty") int qty);
+
+    @Query("SELECT (i.quantity - i.reservedQuantity) FROM InventoryItem i WHERE i.id = :id")
+    Integer findAvailableById(@Param("id") Long id);
+
+    // Nhả hàng đã giữ (Atomic) - không bao giờ làm reservedQuantity âm
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE InventoryItem i SET i.reservedQuantity = i.reservedQuantity - :qty " +
+            "WHERE i.id = :id AND i.reservedQuantity >= :qty")
+    int tryRelease(@Param("id") Long id, @Param("qty") int qty);
+
     // Update trừ số lượng giữ (Atomic Update - Tránh Race Condition)
     @Modifying
     @Query("UPDATE InventoryItem i SET i.reservedQuantity = i.reservedQuantity - :qty " +
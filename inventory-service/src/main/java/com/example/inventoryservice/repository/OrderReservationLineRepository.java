@@ -0,0 +1,22 @@
+package com.example.inventoryservice.repository;
+
+import com.example.inventoryservice.entity.OrderReservationLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OrderReservationLineRepository extends JpaRepository<OrderReservationLine, Long> {
+    List<OrderReservationLine> findByOrderId(Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM OrderReservationLine l WHERE l.orderId = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query("DELETE FROM OrderReservationLine l WHERE l.orderId = :orderId AND l.productColorId = :productColorId")
+    int deleteByOrderIdAndProductColorId(@Param("orderId") Long orderId,
+                                         @Param("productColorId") String productColorId);
+}
@@ -2,12 +2,19 @@ package com.example.inventoryservice.repository;
 
 import com.example.inventoryservice.entity.ProcessedMessage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessage, Long> {
     Optional<ProcessedMessage> findByOrderId(Long orderId);
     boolean existsByOrderId(Long orderId);
+
+    @Query("SELECT p.orderId FROM ProcessedMessage p WHERE p.orderId IN :orderIds")
+    List<Long> findProcessedOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
 
 
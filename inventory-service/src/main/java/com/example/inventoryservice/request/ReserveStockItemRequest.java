@@ -0,0 +1,19 @@
+package com.example.inventoryservice.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReserveStockItemRequest {
+
+    @NotBlank(message = "ProductColorId là bắt buộc")
+    private String productColorId;
+
+    @Min(value = 1, message = "Số lượng phải lớn hơn 0")
+    private int quantity;
+}
@@ -0,0 +1,22 @@
+package com.example.inventoryservice.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoreFulfillmentRequest {
+
+    @NotEmpty(message = "Danh sách store là bắt buộc")
+    private List<@NotBlank String> storeIds;
+
+    @NotEmpty(message = "Danh sách sản phẩm là bắt buộc")
+    private List<@Valid ReserveStockItemRequest> items;
+}
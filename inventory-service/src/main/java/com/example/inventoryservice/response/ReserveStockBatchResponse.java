@@ -0,0 +1,18 @@
+package com.example.inventoryservice.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class ReserveStockBatchResponse {
+
+    private long orderId;
+    private int totalNeeded;
+    private int totalReserved;
+    private List<ReserveStockResponse> reservations;
+    private Map<String, String> warehousePrintContentMap;
+}
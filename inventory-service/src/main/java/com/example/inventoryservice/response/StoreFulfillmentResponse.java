@@ -0,0 +1,22 @@
+package com.example.inventoryservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoreFulfillmentResponse {
+
+    private String storeId;
+    private boolean fulfillable;
+    private int fulfilledLines;
+    private int totalLines;
+    // productColorId -> số lượng còn thiếu tại store
+    private Map<String, Integer> shortages;
+}
@@ -0,0 +1,47 @@
+package com.example.inventoryservice.scheduler;
+
+import com.example.inventoryservice.service.StockLedger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Đối soát định kỳ stock ledger in-memory với DB.
+ * Phát hiện và ghi log các SKU bị lệch, sau đó nạp lại số liệu từ DB.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class StockLedgerReconcileScheduler {
+
+    private final StockLedger stockLedger;
+
+    @Value("${inventory.ledger.reconcile-enabled:true}")
+    private Boolean enabled;
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.reconcile-interval-ms:300000}",
+            initialDelayString = "${inventory.ledger.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!enabled) {
+            log.debug("Stock ledger reconcile is disabled");
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            int drift = stockLedger.reconcile();
+
+            if (drift > 0) {
+                log.warn("[LEDGER] Đối soát xong: {} SKU bị lệch đã được sửa ({} ms)",
+                        drift, System.currentTimeMillis() - start);
+            } else {
+                log.info("[LEDGER] Đối soát xong: không có lệch ({} SKU, {} ms)",
+                        stockLedger.size(), System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            log.error("Lỗi khi đối soát stock ledger: {}", e.getMessage(), e);
+        }
+    }
+}
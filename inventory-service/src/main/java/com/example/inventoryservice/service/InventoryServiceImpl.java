@@ -7,6 +7,8 @@ import com.example.inventoryservice.feign.*;
 import com.example.inventoryservice.repository.*;
 import com.example.inventoryservice.request.InventoryItemRequest;
 import com.example.inventoryservice.request.InventoryRequest;
+import com.example.inventoryservice.request.ReserveStockItemRequest;
+import com.example.inventoryservice.request.StoreFulfillmentRequest;
 import com.example.inventoryservice.request.TransferStockRequest;
 import com.example.inventoryservice.response.*;
 import com.example.inventoryservice.service.inteface.InventoryService;
@@ -39,6 +41,9 @@ public class InventoryServiceImpl implements InventoryService {
     private final StoreClient storeClient;
     private final InventoryReservedWarehouseRepository reservedWarehouseRepository;
     private final PDFService pdfService;
+    private final StockLedger stockLedger;
+    private final ReservationEngine reservationEngine;
+    private final OrderReservationLineRepository orderReservationLineRepository;
 
     @Override
     @Transactional
@@ -116,6 +121,8 @@ public class InventoryServiceImpl implements InventoryService {
 
                 case EXPORT -> {
 
+                    // Lấy lock SKU trước khi đọc reservedQuantity: giữ hàng đồng thời phải chờ phiếu xuất commit
+                    reservationEngine.lockStock(List.of(itemReq.getProductColorId()));
                     List<InventoryItem> itemsInStock = inventoryItemRepository
                             .findItemsForExport(itemReq.getProductColorId(), warehouse.getId());
 
@@ -217,6 +224,10 @@ public class InventoryServiceImpl implements InventoryService {
             }
         }
 
+        stockLedger.refreshAfterCommit(request.getItems().stream()
+                .map(InventoryItemRequest::getProductColorId)
+                .toList());
+
         if (isStockOut && request.getOrderId() != null && request.getOrderId() > 0) {
             try {
                 orderClient.updateOrderStatus(request.getOrderId(), EnumProcessOrder.PACKAGED);
@@ -299,6 +310,7 @@ public class InventoryServiceImpl implements InventoryService {
                 .build();
 
         inventoryItemRepository.save(item);
+        stockLedger.refreshAfterCommit(request.getProductColorId());
         return mapToInventoryItemResponse(item);
     }
 
@@ -323,6 +335,7 @@ public class InventoryServiceImpl implements InventoryService {
                 "Import stock");
 
         createInventoryItem(inventory, request.getLocationItemId(), request.getProductColorId(), request.getQuantity());
+        stockLedger.refreshAfterCommit(request.getProductColorId());
         return mapToInventoryResponse(inventory);
     }
 
@@ -361,6 +374,7 @@ public class InventoryServiceImpl implements InventoryService {
                 EnumPurpose.STOCK_OUT,
                 "Export stock");
 
+        stockLedger.refreshAfterCommit(request.getProductColorId());
         return mapToInventoryResponse(inventory);
     }
 
@@ -422,6 +436,10 @@ public class InventoryServiceImpl implements InventoryService {
             createInventoryItem(importInventory, toLocation.getId(), request.getProductColorId(),
                     request.getQuantity());
         }
+
+        stockLedger.refreshAfterCommit(request.getItems() != null && !request.getItems().isEmpty()
+                ? request.getItems().stream().map(InventoryItemRequest::getProductColorId).toList()
+                : List.of(request.getProductColorId()));
     }
 
     @Override
@@ -508,20 +526,22 @@ public class InventoryServiceImpl implements InventoryService {
 
         List<Warehouse> warehouses = warehouseRepository.findAllOrderByPriority(assignedWarehouseId);
 
+        Map<String, Integer> reservedPerWarehouse = reservationEngine.reserve(
+                productColorId,
+                quantity,
+                warehouses.stream().map(Warehouse::getId).toList());
+
         List<WarehouseReserveInfo> globalList = new ArrayList<>();
         int totalReserved = 0;
 
         for (Warehouse wh : warehouses) {
             boolean isAssigned = wh.getId().equals(assignedWarehouseId);
-            int reservedHere = reserveAtWarehouse(
-                    wh,
-                    productColorId,
-                    quantity - totalReserved,
-                    orderId,
-                    isAssigned);
+            int reservedHere = reservedPerWarehouse.getOrDefault(wh.getId(), 0);
 
             if (reservedHere > 0) {
                 totalReserved += reservedHere;
+                inventoryRepository.save(
+                        buildReserveTicket(wh, orderId, isAssigned, Map.of(productColorId, reservedHere), null));
             }
 
             globalList.add(
@@ -529,7 +549,7 @@ public class InventoryServiceImpl implements InventoryService {
                             .warehouseId(wh.getId())
                             .warehouseName(wh.getWarehouseName())
                             .reservedQuantity(reservedHere)
-                            .isAssignedWarehouse(wh.getId().equals(assignedWarehouseId))
+                            .isAssignedWarehouse(isAssigned)
                             .build());
 
             if (totalReserved >= quantity)
@@ -558,6 +578,8 @@ public class InventoryServiceImpl implements InventoryService {
             printContentByWarehouse.put(info.getWarehouseId(), perWh);
         }
 
+        stockLedger.refreshAfterCommit(productColorId);
+
         return ReserveStockResponse.builder()
                 .orderId(orderId)
                 .productColorId(productColorId)
@@ -568,44 +590,20 @@ public class InventoryServiceImpl implements InventoryService {
                 .build();
     }
 
-    private int reserveAtWarehouse(
+    /**
+     * Gắn số lượng đã giữ vào phiếu RESERVE của đơn tại kho (tạo mới nếu chưa có).
+     * Tồn kho đã được trừ bởi ReservationEngine, ở đây chỉ ghi nhận phiếu.
+     */
+    private Inventory buildReserveTicket(
             Warehouse warehouse,
-            String productColorId,
-            int needQty,
             long orderId,
-            boolean isAssigned) {
-        if (needQty <= 0)
-            return 0;
-
-        List<InventoryItem> items = inventoryItemRepository
-                .findFullByProductColorIdAndWarehouseId(productColorId, warehouse.getId());
-
-        int reservedHere = 0;
-        Map<String, Integer> takenPerColor = new HashMap<>();
-
-        for (InventoryItem item : items) {
-            if (needQty <= 0)
-                break;
-
-            int available = item.getQuantity() - item.getReservedQuantity();
-            if (available <= 0)
-                continue;
+            boolean isAssigned,
+            Map<String, Integer> takenPerColor,
+            Inventory existingTicket) {
 
-            int take = Math.min(available, needQty);
-
-            item.setReservedQuantity(item.getReservedQuantity() + take);
-
-            needQty -= take;
-            reservedHere += take;
-            takenPerColor.merge(productColorId, take, Integer::sum);
-        }
-
-        if (reservedHere <= 0)
-            return 0;
-
-        inventoryItemRepository.saveAll(items);
-
-        Inventory ticket = inventoryRepository.findByOrderIdAndWarehouseId(orderId, warehouse.getId())
+        Inventory ticket = existingTicket != null
+                ? existingTicket
+                : inventoryRepository.findByOrderIdAndWarehouseId(orderId, warehouse.getId())
                 .orElseGet(() -> Inventory.builder()
                         .employeeId("SYSTEM_AUTO")
                         .type(EnumTypes.RESERVE)
@@ -619,6 +617,8 @@ public class InventoryServiceImpl implements InventoryService {
                         .reservedWarehouses(new ArrayList<>())
                         .build());
 
+        int reservedHere = takenPerColor.values().stream().mapToInt(Integer::intValue).sum();
+
         ticket.getReservedWarehouses().add(
                 InventoryReservedWarehouse.builder()
                         .warehouseId(warehouse.getId())
@@ -638,9 +638,160 @@ public class InventoryServiceImpl implements InventoryService {
                             .build());
         }
 
-        inventoryRepository.save(ticket);
+        return ticket;
+    }
 
-        return reservedHere;
+    @Override
+    @Transactional
+    public ReserveStockBatchResponse reserveStockBatch(long orderId, List<ReserveStockItemRequest> items) {
+        return reserveStockBatch(orderId, null, items);
+    }
+
+    @Override
+    @Transactional
+    public ReserveStockBatchResponse reserveStockBatch(long orderId, OrderResponse prefetchedOrder,
+                                                       List<ReserveStockItemRequest> items) {
+        if (items == null || items.isEmpty()) {
+            throw new AppException(ErrorCode.INVALID_REQUEST);
+        }
+
+        // Gộp các dòng trùng SKU; xử lý theo thứ tự productColorId để các đơn luôn khoá dòng cùng thứ tự
+        Map<String, Integer> neededPerColor = new TreeMap<>();
+        for (ReserveStockItemRequest item : items) {
+            neededPerColor.merge(item.getProductColorId(), item.getQuantity(), Integer::sum);
+        }
+
+        // Dòng đã giữ ở lần gọi trước (retry) thì trả lại kết quả cũ, không giữ thêm
+        List<ReserveStockResponse> reservations = new ArrayList<>();
+        int totalNeeded = 0;
+        int totalReserved = 0;
+        for (OrderReservationLine done : orderReservationLineRepository.findByOrderId(orderId)) {
+            if (neededPerColor.remove(done.getProductColorId()) == null)
+                continue;
+            totalNeeded += done.getQuantityNeeded();
+            totalReserved += done.getQuantityReserved();
+            reservations.add(ReserveStockResponse.builder()
+                    .orderId(orderId)
+                    .productColorId(done.getProductColorId())
+                    .totalNeeded(done.getQuantityNeeded())
+                    .totalReserved(done.getQuantityReserved())
+                    .globalReservations(new ArrayList<>())
+                    .build());
+        }
+
+        if (neededPerColor.isEmpty()) {
+            log.info("Order {} already reserved, skipping", orderId);
+            return ReserveStockBatchResponse.builder()
+                    .orderId(orderId)
+                    .totalNeeded(totalNeeded)
+                    .totalReserved(totalReserved)
+                    .reservations(reservations)
+                    .warehousePrintContentMap(new HashMap<>())
+                    .build();
+        }
+
+        // 1 lần gọi order-service cho cả đơn (trước khi lấy lock SKU), trừ khi caller đã lấy sẵn
+        OrderResponse order = prefetchedOrder != null ? prefetchedOrder : getOrder(orderId);
+
+        Warehouse assignedWarehouse = warehouseRepository.findByStoreIdAndIsDeletedFalse(order.getStoreId())
+                .orElseThrow(() -> new AppException(ErrorCode.WAREHOUSE_NOT_FOUND));
+        String assignedWarehouseId = assignedWarehouse.getId();
+
+        List<Warehouse> warehouses = warehouseRepository.findAllOrderByPriority(assignedWarehouseId);
+        List<String> warehousePriority = warehouses.stream().map(Warehouse::getId).toList();
+        Map<String, Warehouse> warehouseById = warehouses.stream()
+                .collect(Collectors.toMap(Warehouse::getId, w -> w));
+
+        Map<String, Map<String, Integer>> takenPerWarehouse = new LinkedHashMap<>();
+        List<OrderReservationLine> reservedLines = new ArrayList<>();
+
+        reservationEngine.lockStock(neededPerColor.keySet());
+
+        for (Map.Entry<String, Integer> line : neededPerColor.entrySet()) {
+            String productColorId = line.getKey();
+            int quantity = line.getValue();
+
+            Map<String, Integer> reservedPerWarehouse = reservationEngine.reserve(
+                    productColorId, quantity, warehousePriority);
+
+            int reservedForLine = 0;
+            List<WarehouseReserveInfo> lineReservations = new ArrayList<>();
+
+            for (Map.Entry<String, Integer> reserved : reservedPerWarehouse.entrySet()) {
+                Warehouse wh = warehouseById.get(reserved.getKey());
+                reservedForLine += reserved.getValue();
+
+                takenPerWarehouse.computeIfAbsent(wh.getId(), k -> new LinkedHashMap<>())
+                        .merge(productColorId, reserved.getValue(), Integer::sum);
+
+                lineReservations.add(WarehouseReserveInfo.builder()
+                        .warehouseId(wh.getId())
+                        .warehouseName(wh.getWarehouseName())
+                        .reservedQuantity(reserved.getValue())
+                        .isAssignedWarehouse(wh.getId().equals(assignedWarehouseId))
+                        .build());
+            }
+
+            totalNeeded += quantity;
+            totalReserved += reservedForLine;
+
+            reservedLines.add(OrderReservationLine.builder()
+                    .orderId(orderId)
+                    .productColorId(productColorId)
+                    .quantityNeeded(quantity)
+                    .quantityReserved(reservedForLine)
+                    .build());
+
+            reservations.add(ReserveStockResponse.builder()
+                    .orderId(orderId)
+                    .productColorId(productColorId)
+                    .totalNeeded(quantity)
+                    .totalReserved(reservedForLine)
+                    .globalReservations(lineReservations)
+                    .build());
+        }
+
+        // 1 phiếu RESERVE cho mỗi kho, tái sử dụng phiếu đã có của đơn nếu có
+        Map<String, Inventory> existingTickets = new HashMap<>();
+        for (Inventory ticket : inventoryRepository.findAllByOrderId(orderId)) {
+            if (ticket.getType() == EnumTypes.RESERVE && ticket.getWarehouse() != null) {
+                existingTickets.putIfAbsent(ticket.getWarehouse().getId(), ticket);
+            }
+        }
+
+        List<Inventory> tickets = new ArrayList<>();
+        Map<String, String> printContentByWarehouse = new HashMap<>();
+
+        for (Map.Entry<String, Map<String, Integer>> entry : takenPerWarehouse.entrySet()) {
+            Warehouse warehouse = warehouseById.get(entry.getKey());
+            boolean isAssigned = warehouse.getId().equals(assignedWarehouseId);
+
+            Inventory ticket = buildReserveTicket(warehouse, orderId, isAssigned, entry.getValue(),
+                    existingTickets.get(warehouse.getId()));
+            tickets.add(ticket);
+
+            StringBuilder perWh = new StringBuilder("PHIẾU GIỮ HÀNG CHO KHO: " + warehouse.getWarehouseName() + "\n"
+                    + "Đơn hàng: " + orderId + "\n");
+            for (Map.Entry<String, Integer> taken : entry.getValue().entrySet()) {
+                perWh.append(String.format("Sản phẩm: %s - Số lượng kho này giữ: %d\n", taken.getKey(), taken.getValue()));
+            }
+            if (isAssigned) {
+                perWh.append("→ Đây là kho được assign, ưu tiên.\n");
+            }
+            printContentByWarehouse.put(warehouse.getId(), perWh.toString());
+        }
+
+        inventoryRepository.saveAll(tickets);
+        orderReservationLineRepository.saveAll(reservedLines);
+        stockLedger.refreshAfterCommit(neededPerColor.keySet());
+
+        return ReserveStockBatchResponse.builder()
+                .orderId(orderId)
+                .totalNeeded(totalNeeded)
+                .totalReserved(totalReserved)
+                .reservations(reservations)
+                .warehousePrintContentMap(printContentByWarehouse)
+                .build();
     }
 
     @Override
@@ -657,7 +808,8 @@ public class InventoryServiceImpl implements InventoryService {
             return null;
         }
 
-        List<InventoryItem> stockToUpdate = new ArrayList<>();
+        reservationEngine.lockStock(List.of(productColorId));
+
         int quantityToRelease = quantity;
         Map<Warehouse, Integer> releasedPerWarehouse = new HashMap<>();
 
@@ -680,8 +832,7 @@ public class InventoryServiceImpl implements InventoryService {
                         .orElse(null);
 
                 if (stockItem != null) {
-                    stockItem.setReservedQuantity(Math.max(0, stockItem.getReservedQuantity() - actualRelease));
-                    stockToUpdate.add(stockItem);
+                    reservationEngine.release(stockItem.getId(), stockItem.getReservedQuantity(), actualRelease);
                     quantityToRelease -= actualRelease;
                     releasedPerWarehouse.merge(ticket.getWarehouse(), actualRelease, Integer::sum);
                 }
@@ -691,8 +842,6 @@ public class InventoryServiceImpl implements InventoryService {
             }
         }
 
-        inventoryItemRepository.saveAll(stockToUpdate);
-
         List<Inventory> releaseTickets = new ArrayList<>();
         for (Map.Entry<Warehouse, Integer> entry : releasedPerWarehouse.entrySet()) {
             Inventory releaseTicket = Inventory.builder()
@@ -709,6 +858,9 @@ public class InventoryServiceImpl implements InventoryService {
             releaseTickets.add(releaseTicket);
         }
         inventoryRepository.saveAll(releaseTickets);
+        // Dòng đã nhả thì cho phép giữ lại sau này
+        orderReservationLineRepository.deleteByOrderIdAndProductColorId(orderId, productColorId);
+        stockLedger.refreshAfterCommit(productColorId);
 
         return ReserveStockResponse.builder()
                 .build();
@@ -720,6 +872,7 @@ public class InventoryServiceImpl implements InventoryService {
         log.info("🔍 Bắt đầu rollback inventory cho order: {}", orderId);
 
         List<Inventory> tickets = inventoryRepository.findAllByOrderId(orderId);
+        orderReservationLineRepository.deleteByOrderId(orderId);
 
         if (tickets == null || tickets.isEmpty()) {
             log.warn(
@@ -732,6 +885,14 @@ public class InventoryServiceImpl implements InventoryService {
 
         log.info("🔍 Bắt đầu rollback {} ticket(s) cho order {}", tickets.size(), orderId);
 
+        Set<String> touchedProductColorIds = new HashSet<>();
+        for (Inventory ticket : tickets) {
+            for (InventoryItem ticketItem : ticket.getInventoryItems()) {
+                touchedProductColorIds.add(ticketItem.getProductColorId());
+            }
+        }
+        reservationEngine.lockStock(touchedProductColorIds);
+
         for (Inventory ticket : tickets) {
 
             if (ticket.getTransferStatus() != TransferStatus.FINISHED) {
@@ -761,21 +922,17 @@ public class InventoryServiceImpl implements InventoryService {
                     if (reserved <= 0)
                         continue;
 
-                    int release = Math.min(reserved, remaining);
-
                     // Fix BUG: Chỉ giảm reserved quantity, KHÔNG cộng lại quantity thực tế
                     // (Vì khi reserve chỉ đánh dấu reserved chứ chưa trừ kho)
-                    stockItem.setReservedQuantity(reserved - release);
+                    int release = reservationEngine.release(stockItem.getId(), reserved, remaining);
 
                     remaining -= release;
 
                     log.info("♻️ Un-reserve {} cho stockItem {} (reserved: {} -> {})",
                             release, stockItem.getId(),
-                            reserved, stockItem.getReservedQuantity());
+                            reserved, reserved - release);
                 }
 
-                inventoryItemRepository.saveAll(stockItems);
-
                 if (remaining > 0) {
                     log.error("❌ Rollback thiếu {} cho productColor {}", remaining, productColorId);
                 } else {
@@ -788,6 +945,7 @@ public class InventoryServiceImpl implements InventoryService {
             log.info("🗑 Đã rollback & xóa ticket {}", ticket.getId());
         }
 
+        stockLedger.refreshAfterCommit(touchedProductColorIds);
         log.info("🎉 Rollback hoàn tất cho order {} - Đã xử lý {} kho", orderId, tickets.size());
     }
 
@@ -807,6 +965,49 @@ public class InventoryServiceImpl implements InventoryService {
         return total >= requiredQty;
     }
 
+    /**
+     * Kiểm tra nhiều store có đáp ứng đủ cả đơn hay không bằng một query GROUP BY (store, sản phẩm),
+     * thay vì gọi kiểm tra từng store × từng dòng hàng. Kết quả giữ thứ tự storeIds truyền vào.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<StoreFulfillmentResponse> checkStoresFulfillment(StoreFulfillmentRequest request) {
+        // Gộp các dòng trùng sản phẩm
+        Map<String, Integer> required = new LinkedHashMap<>();
+        for (ReserveStockItemRequest item : request.getItems()) {
+            required.merge(item.getProductColorId(), item.getQuantity(), Integer::sum);
+        }
+        List<String> storeIds = request.getStoreIds().stream().distinct().toList();
+
+        Map<String, Map<String, Integer>> availableByStore = new HashMap<>();
+        for (Object[] row : inventoryItemRepository.sumAvailableByStoresAndProducts(
+                storeIds, required.keySet(), VIRTUAL_STOCK_TYPES)) {
+            availableByStore.computeIfAbsent((String) row[0], k -> new HashMap<>())
+                    .put((String) row[1], row[2] != null ? ((Number) row[2]).intValue() : 0);
+        }
+
+        List<StoreFulfillmentResponse> result = new ArrayList<>(storeIds.size());
+        for (String storeId : storeIds) {
+            Map<String, Integer> available = availableByStore.getOrDefault(storeId, Map.of());
+            Map<String, Integer> shortages = new LinkedHashMap<>();
+            required.forEach((productColorId, quantity) -> {
+                int missing = quantity - available.getOrDefault(productColorId, 0);
+                if (missing > 0) {
+                    shortages.put(productColorId, missing);
+                }
+            });
+
+            result.add(StoreFulfillmentResponse.builder()
+                    .storeId(storeId)
+                    .fulfillable(shortages.isEmpty())
+                    .fulfilledLines(required.size() - shortages.size())
+                    .totalLines(required.size())
+                    .shortages(shortages)
+                    .build());
+        }
+        return result;
+    }
+
     private static final List<EnumTypes> EXCLUDED_TYPES = List.of(
             EnumTypes.RESERVE,
             EnumTypes.EXPORT,
@@ -819,6 +1020,9 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     public int getTotalStockByProductColorId(String productColorId) {
+        if (stockLedger.isReady()) {
+            return stockLedger.getPhysical(productColorId);
+        }
         return Objects.requireNonNullElse(
                 inventoryItemRepository.calculateTotalPhysicalStock(productColorId, VIRTUAL_STOCK_TYPES),
                 0);
@@ -826,6 +1030,9 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     public int getAvailableStockByProductColorId(String productColorId) {
+        if (stockLedger.isReady()) {
+            return Math.max(0, stockLedger.getAvailable(productColorId));
+        }
         Integer rawStock = inventoryItemRepository.calculateRealAvailableStock(productColorId, VIRTUAL_STOCK_TYPES);
         return (rawStock == null) ? 0 : Math.max(0, rawStock);
     }
@@ -1242,6 +1449,12 @@ public class InventoryServiceImpl implements InventoryService {
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
 
+        // Token mới mang sẵn id nhân viên → không cần gọi user-service
+        if (authentication.getPrincipal() instanceof TokenUserDetails principal
+                && principal.getUserId() != null && !EnumRole.CUSTOMER.equals(principal.getRole())) {
+            return principal.getUserId();
+        }
+
         String username = authentication.getName();
         ApiResponse<AuthResponse> response = authClient.getUserByUsername(username);
 
@@ -1329,6 +1542,9 @@ public class InventoryServiceImpl implements InventoryService {
         }
 
         inventoryRepository.delete(ticket);
+        stockLedger.refreshAfterCommit(ticket.getInventoryItems().stream()
+                .map(InventoryItem::getProductColorId)
+                .toList());
         log.info("🗑 Đã xóa ticket {}", ticket.getId());
     }
 
@@ -0,0 +1,118 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.entity.ProcessedMessage;
+import com.example.inventoryservice.enums.ErrorCode;
+import com.example.inventoryservice.event.OrderCreatedEvent;
+import com.example.inventoryservice.exception.AppException;
+import com.example.inventoryservice.feign.OrderClient;
+import com.example.inventoryservice.repository.ProcessedMessageRepository;
+import com.example.inventoryservice.request.ReserveStockItemRequest;
+import com.example.inventoryservice.response.ApiResponse;
+import com.example.inventoryservice.response.OrderResponse;
+import com.example.inventoryservice.service.inteface.InventoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Giữ hàng cho một lô OrderCreatedEvent lấy từ Kafka:
+ * loại đơn đã xử lý bằng một câu IN, giữ hàng và ghi ProcessedMessage cho cả lô trong một transaction.
+ * Đơn được lấy từ order-service trước khi mở transaction: transaction chỉ làm việc với DB,
+ * không giữ lock SKU (và connection) trong lúc chờ Feign.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderReservationBatchService {
+
+    private final InventoryService inventoryService;
+    private final ProcessedMessageRepository processedMessageRepository;
+    private final ReservationEngine reservationEngine;
+    private final OrderClient orderClient;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @return số đơn thực sự được giữ hàng (không tính đơn trùng / đã xử lý)
+     */
+    public int reserveAll(List<OrderCreatedEvent> events) {
+        Map<Long, OrderCreatedEvent> byOrderId = new LinkedHashMap<>();
+        for (OrderCreatedEvent event : events) {
+            if (event != null && event.getOrderId() != null) {
+                byOrderId.putIfAbsent(event.getOrderId(), event);
+            }
+        }
+        if (byOrderId.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> alreadyProcessed = processedMessageRepository.findProcessedOrderIds(byOrderId.keySet());
+        if (!alreadyProcessed.isEmpty()) {
+            log.info("Skipping {} already processed order(s): {}", alreadyProcessed.size(), alreadyProcessed);
+            alreadyProcessed.forEach(byOrderId::remove);
+        }
+        if (byOrderId.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, OrderResponse> orders = new HashMap<>();
+        Set<String> productColorIds = new TreeSet<>();
+        for (OrderCreatedEvent event : byOrderId.values()) {
+            orders.put(event.getOrderId(), getOrder(event.getOrderId()));
+            toItems(event).forEach(item -> productColorIds.add(item.getProductColorId()));
+        }
+
+        return transactionTemplate.execute(status -> {
+            // Lấy lock của mọi SKU trong lô một lần, theo thứ tự stripe: các đơn trong lô không khoá xen kẽ
+            // với lô khác theo thứ tự ngược nhau
+            reservationEngine.lockStock(productColorIds);
+
+            List<ProcessedMessage> processed = new ArrayList<>(byOrderId.size());
+            for (OrderCreatedEvent event : byOrderId.values()) {
+                inventoryService.reserveStockBatch(event.getOrderId(), orders.get(event.getOrderId()), toItems(event));
+                processed.add(ProcessedMessage.builder().orderId(event.getOrderId()).build());
+            }
+            processedMessageRepository.saveAll(processed);
+            return processed.size();
+        });
+    }
+
+    /**
+     * Giữ hàng cho một đơn trong transaction riêng, dùng khi cả lô thất bại để cô lập đơn lỗi.
+     */
+    public boolean reserveOne(OrderCreatedEvent event) {
+        Long orderId = event.getOrderId();
+        if (processedMessageRepository.existsByOrderId(orderId)) {
+            log.warn("⚠️ Order {} already processed. Skipping.", orderId);
+            return false;
+        }
+        OrderResponse order = getOrder(orderId);
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryService.reserveStockBatch(orderId, order, toItems(event));
+            processedMessageRepository.save(ProcessedMessage.builder().orderId(orderId).build());
+        });
+        return true;
+    }
+
+    private OrderResponse getOrder(Long orderId) {
+        ApiResponse<OrderResponse> response = orderClient.getOderById(orderId);
+        if (response == null || response.getData() == null) {
+            throw new AppException(ErrorCode.ORDER_NOT_FOUND);
+        }
+        return response.getData();
+    }
+
+    private static List<ReserveStockItemRequest> toItems(OrderCreatedEvent event) {
+        if (event.getItems() == null) {
+            return List.of();
+        }
+        return event.getItems().stream()
+                .map(item -> ReserveStockItemRequest.builder()
+                        .productColorId(item.getProductColorId())
+                        .quantity(item.getQuantity())
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.enums.ErrorCode;
+import com.example.inventoryservice.exception.AppException;
+import com.example.inventoryservice.repository.InventoryItemRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Engine giữ hàng không tranh chấp:
+ * - Các yêu cầu giữ / nhả hàng cùng productColorId được xếp hàng qua lock phân dải (striped lock) trong tiến trình,
+ *   không chờ khoá dòng ở DB. Lock giữ tới khi transaction kết thúc, nên trong một node không transaction nào
+ *   phải chờ khoá dòng của transaction khác cùng SKU (chưa commit) ở DB.
+ * - Các stripe của một nghiệp vụ được lấy theo thứ tự index tăng dần; lấy thêm stripe sau đó có thời hạn
+ *   (lock-timeout-ms), quá hạn thì rollback để caller retry thay vì treo.
+ * - Trừ tồn bằng UPDATE có điều kiện (quantity - reserved_quantity >= :qty) thay vì load entity rồi save,
+ *   nên không thể oversell kể cả khi nhiều node cùng giữ hàng.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationEngine {
+
+    private static final int MAX_RETRY_PER_ROW = 3;
+
+    private final InventoryItemRepository inventoryItemRepository;
+
+    @Value("${inventory.reservation.lock-stripes:64}")
+    private int lockStripes;
+
+    @Value("${inventory.reservation.lock-timeout-ms:10000}")
+    private long lockTimeoutMs;
+
+    private ReentrantLock[] stripes;
+
+    @PostConstruct
+    void initStripes() {
+        int size = Integer.highestOneBit(Math.max(1, lockStripes - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+    }
+
+    /**
+     * Lấy lock của những SKU này cho tới khi transaction hiện tại kết thúc.
+     * Gọi một lần với toàn bộ SKU của nghiệp vụ trước khi giữ / nhả; gọi lại với SKU đã khoá thì không phải chờ.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockStock(Collection<String> productColorIds) {
+        if (productColorIds == null || productColorIds.isEmpty()) {
+            return;
+        }
+        SortedSet<Integer> wanted = new TreeSet<>();
+        for (String productColorId : productColorIds) {
+            wanted.add(stripeFor(productColorId));
+        }
+        Set<Integer> held = heldStripes();
+        wanted.removeAll(held);
+        for (int index : wanted) {
+            acquire(index);
+            held.add(index);
+        }
+    }
+
+    /**
+     * Giữ tối đa {@code quantity} cho một SKU, ưu tiên theo thứ tự kho truyền vào.
+     * Phải được gọi trong transaction của nghiệp vụ giữ hàng.
+     *
+     * @return số lượng đã giữ theo từng warehouseId (theo thứ tự ưu tiên)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, Integer> reserve(String productColorId, int quantity, List<String> warehousePriority) {
+        Map<String, Integer> reservedPerWarehouse = new LinkedHashMap<>();
+        if (quantity <= 0 || warehousePriority == null || warehousePriority.isEmpty()) {
+            return reservedPerWarehouse;
+        }
+
+        Map<String, Integer> priority = new HashMap<>();
+        for (int i = 0; i < warehousePriority.size(); i++) {
+            priority.putIfAbsent(warehousePriority.get(i), i);
+        }
+
+        lockStock(List.of(productColorId));
+
+        // row: [inventoryItemId, warehouseId, available]
+        List<Object[]> candidates = new ArrayList<>(
+                inventoryItemRepository.findReservationCandidates(productColorId));
+        candidates.removeIf(row -> !priority.containsKey((String) row[1]));
+        candidates.sort(Comparator.comparingInt(row -> priority.get((String) row[1])));
+
+        int remaining = quantity;
+        for (Object[] row : candidates) {
+            if (remaining <= 0)
+                break;
+
+            Long itemId = (Long) row[0];
+            String warehouseId = (String) row[1];
+            int available = ((Number) row[2]).intValue();
+
+            int taken = reserveRow(itemId, available, remaining);
+            if (taken > 0) {
+                remaining -= taken;
+                reservedPerWarehouse.merge(warehouseId, taken, Integer::sum);
+            }
+        }
+
+        return reservedPerWarehouse;
+    }
+
+    /**
+     * Nhả tối đa {@code quantity} đã giữ trên một dòng tồn.
+     *
+     * @return số lượng thực sự được nhả
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int release(Long inventoryItemId, int reservedNow, int quantity) {
+        int release = Math.min(reservedNow, quantity);
+        if (release <= 0) {
+            return 0;
+        }
+        if (inventoryItemRepository.tryRelease(inventoryItemId, release) == 1) {
+            return release;
+        }
+        log.warn("Conditional release of {} on inventoryItem {} was rejected", release, inventoryItemId);
+        return 0;
+    }
+
+    private int reserveRow(Long itemId, int available, int needQty) {
+        for (int attempt = 0; attempt < MAX_RETRY_PER_ROW; attempt++) {
+            int take = Math.min(available, needQty);
+            if (take <= 0)
+                return 0;
+
+            if (inventoryItemRepository.tryReserve(itemId, take) == 1) {
+                return take;
+            }
+
+            // Dòng bị node khác giữ mất một phần → đọc lại số khả dụng và thử lại với số nhỏ hơn
+            Integer fresh = inventoryItemRepository.findAvailableById(itemId);
+            available = fresh == null ? 0 : fresh;
+            log.debug("Reserve conflict on inventoryItem {} (attempt {}), available now {}", itemId, attempt + 1, available);
+        }
+        return 0;
+    }
+
+    private void acquire(int index) {
+        try {
+            if (!stripes[index].tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out after {} ms waiting for reservation stripe {}", lockTimeoutMs, index);
+                throw new AppException(ErrorCode.RESERVATION_BUSY);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.RESERVATION_BUSY);
+        }
+    }
+
+    /**
+     * Các stripe transaction hiện tại đang giữ; lần đầu gọi thì đăng ký nhả toàn bộ khi transaction kết thúc.
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Integer> heldStripes() {
+        Set<Integer> held = (Set<Integer>) TransactionSynchronizationManager.getResource(this);
+        if (held != null) {
+            return held;
+        }
+        Set<Integer> registered = new TreeSet<>();
+        TransactionSynchronizationManager.bindResource(this, registered);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReservationEngine.this);
+                for (int index : registered) {
+                    stripes[index].unlock();
+                }
+            }
+        });
+        return registered;
+    }
+
+    private int stripeFor(String productColorId) {
+        int h = productColorId == null ? 0 : productColorId.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.enums.EnumTypes;
+import com.example.inventoryservice.repository.InventoryItemRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sổ cái tồn kho in-memory theo productColorId và theo kho.
+ * Đọc O(1), không round trip DB. Được nạp khi khởi động, làm mới theo SKU
+ * sau mỗi lần ghi (sau commit) và đối soát định kỳ bởi StockLedgerReconcileScheduler.
+ * - Sau commit, SKU bị ghi được phát lên INVALIDATION_TOPIC để các instance khác cũng làm mới.
+ * - SKU được làm mới trong lúc đang nạp toàn bộ (warm-up / đối soát) được gom lại và làm mới lần nữa
+ *   sau khi nạp xong, để snapshot chụp trước commit không ghi đè số liệu mới hơn.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedger {
+
+    // Giống VIRTUAL_STOCK_TYPES trong InventoryServiceImpl: các phiếu này không phải tồn vật lý
+    public static final List<EnumTypes> VIRTUAL_STOCK_TYPES = List.of(
+            EnumTypes.RESERVE,
+            EnumTypes.EXPORT,
+            EnumTypes.TRANSFER);
+
+    public static final String INVALIDATION_TOPIC = "stock-ledger-invalidated-topic";
+
+    private final InventoryItemRepository inventoryItemRepository;
+    private final KafkaTemplate<String, String> stringKafkaTemplate;
+
+    // Khoá của message invalidation: instance bỏ qua message do chính mình gửi
+    @Getter
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, Entry> totals = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Entry>> byWarehouse = new ConcurrentHashMap<>();
+    private final Set<String> changedDuringLoad = ConcurrentHashMap.newKeySet();
+    private final Object loadLock = new Object();
+
+    private volatile boolean ready = false;
+    private volatile boolean loading = false;
+
+    @Getter
+    public static final class Entry {
+        public static final Entry EMPTY = new Entry(0, 0, 0);
+
+        private final int physical;
+        private final int reserved;
+        private final int available;
+
+        Entry(int physical, int reserved, int available) {
+            this.physical = physical;
+            this.reserved = reserved;
+            this.available = available;
+        }
+
+        Entry plus(Entry other) {
+            return new Entry(physical + other.physical, reserved + other.reserved, available + other.available);
+        }
+
+        boolean sameAs(Entry other) {
+            return physical == other.physical && reserved == other.reserved && available == other.available;
+        }
+
+        @Override
+        public String toString() {
+            return "physical=" + physical + ", reserved=" + reserved + ", available=" + available;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            long start = System.currentTimeMillis();
+            loadAll();
+            log.info("📒 Stock ledger warmed: {} SKU(s) in {} ms", totals.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("❌ Không thể nạp stock ledger, fallback về DB: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Entry get(String productColorId) {
+        return totals.getOrDefault(productColorId, Entry.EMPTY);
+    }
+
+    public Entry get(String productColorId, String warehouseId) {
+        Map<String, Entry> perWarehouse = byWarehouse.get(productColorId);
+        if (perWarehouse == null || warehouseId == null) {
+            return Entry.EMPTY;
+        }
+        return perWarehouse.getOrDefault(warehouseId, Entry.EMPTY);
+    }
+
+    public int getAvailable(String productColorId) {
+        return get(productColorId).getAvailable();
+    }
+
+    public int getPhysical(String productColorId) {
+        return get(productColorId).getPhysical();
+    }
+
+    public Map<String, Entry> getWarehouses(String productColorId) {
+        return Collections.unmodifiableMap(byWarehouse.getOrDefault(productColorId, Collections.emptyMap()));
+    }
+
+    /**
+     * Làm mới các SKU bị ảnh hưởng sau khi transaction hiện tại commit.
+     * Nếu không có transaction thì làm mới ngay.
+     */
+    public void refreshAfterCommit(Collection<String> productColorIds) {
+        if (productColorIds == null || productColorIds.isEmpty()) {
+            return;
+        }
+        Set<String> skus = new HashSet<>(productColorIds);
+        skus.remove(null);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(skus);
+                    publish(skus);
+                }
+            });
+        } else {
+            refresh(skus);
+            publish(skus);
+        }
+    }
+
+    public void refreshAfterCommit(String productColorId) {
+        refreshAfterCommit(Collections.singleton(productColorId));
+    }
+
+    public void refresh(Collection<String> productColorIds) {
+        if (productColorIds == null || productColorIds.isEmpty()) {
+            return;
+        }
+        if (loading) {
+            changedDuringLoad.addAll(productColorIds);
+        }
+        if (!ready) {
+            return;
+        }
+        try {
+            Snapshot snapshot = load(inventoryItemRepository.aggregateStockLedgerByProductColorIds(
+                    productColorIds, VIRTUAL_STOCK_TYPES));
+            for (String sku : productColorIds) {
+                apply(sku, snapshot.totals.get(sku), snapshot.byWarehouse.get(sku));
+            }
+        } catch (Exception e) {
+            // Lỗi refresh không được làm hỏng nghiệp vụ, job đối soát sẽ sửa lại
+            log.warn("⚠️ Refresh stock ledger thất bại cho {}: {}", productColorIds, e.getMessage());
+        }
+    }
+
+    /**
+     * So sánh ledger với DB, ghi log các SKU bị lệch và thay thế bằng số liệu DB.
+     *
+     * @return số SKU bị lệch
+     */
+    public int reconcile() {
+        return loadAll();
+    }
+
+    public int size() {
+        return totals.size();
+    }
+
+    /**
+     * Nạp toàn bộ ledger từ DB thay cho số liệu hiện có; khi ledger đã sẵn sàng thì ghi log các SKU bị lệch.
+     * SKU được ghi trong lúc truy vấn không tính là lệch và được làm mới lại sau khi thay thế.
+     *
+     * @return số SKU bị lệch
+     */
+    private int loadAll() {
+        synchronized (loadLock) {
+            changedDuringLoad.clear();
+            loading = true;
+            try {
+                Snapshot snapshot = load(inventoryItemRepository.aggregateStockLedger(VIRTUAL_STOCK_TYPES));
+                int drift = ready ? countDrift(snapshot) : 0;
+                replaceAll(snapshot);
+                ready = true;
+                return drift;
+            } finally {
+                loading = false;
+                List<String> changed = new ArrayList<>(changedDuringLoad);
+                changedDuringLoad.removeAll(changed);
+                refresh(changed);
+            }
+        }
+    }
+
+    private int countDrift(Snapshot snapshot) {
+        Set<String> skus = new HashSet<>(totals.keySet());
+        skus.addAll(snapshot.totals.keySet());
+        skus.removeAll(changedDuringLoad);
+
+        int drift = 0;
+        for (String sku : skus) {
+            Entry cached = get(sku);
+            Entry actual = snapshot.totals.getOrDefault(sku, Entry.EMPTY);
+            if (!cached.sameAs(actual)) {
+                drift++;
+                log.warn("[LEDGER DRIFT] productColorId={} ledger=({}) db=({})", sku, cached, actual);
+            }
+        }
+        return drift;
+    }
+
+    private void publish(Set<String> skus) {
+        try {
+            stringKafkaTemplate.send(INVALIDATION_TOPIC, instanceId, String.join(",", skus));
+        } catch (Exception e) {
+            // Instance khác sẽ được sửa ở lần đối soát kế tiếp
+            log.warn("⚠️ Không gửi được invalidation stock ledger cho {}: {}", skus, e.getMessage());
+        }
+    }
+
+    private void apply(String sku, Entry total, Map<String, Entry> perWarehouse) {
+        if (total == null) {
+            totals.remove(sku);
+            byWarehouse.remove(sku);
+            return;
+        }
+        totals.put(sku, total);
+        byWarehouse.put(sku, perWarehouse != null ? perWarehouse : Collections.emptyMap());
+    }
+
+    private void replaceAll(Snapshot snapshot) {
+        totals.keySet().retainAll(snapshot.totals.keySet());
+        byWarehouse.keySet().retainAll(snapshot.byWarehouse.keySet());
+        totals.putAll(snapshot.totals);
+        byWarehouse.putAll(snapshot.byWarehouse);
+    }
+
+    // row: [productColorId, warehouseId, physical, reserved, available]
+    private Snapshot load(List<Object[]> rows) {
+        Snapshot snapshot = new Snapshot();
+        for (Object[] row : rows) {
+            String sku = (String) row[0];
+            String warehouseId = (String) row[1];
+            Entry entry = new Entry(toInt(row[2]), toInt(row[3]), toInt(row[4]));
+
+            snapshot.totals.merge(sku, entry, Entry::plus);
+            if (warehouseId != null) {
+                snapshot.byWarehouse.computeIfAbsent(sku, k -> new HashMap<>()).merge(warehouseId, entry, Entry::plus);
+            }
+        }
+        return snapshot;
+    }
+
+    private static int toInt(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Entry> totals = new HashMap<>();
+        private final Map<String, Map<String, Entry>> byWarehouse = new HashMap<>();
+    }
+}
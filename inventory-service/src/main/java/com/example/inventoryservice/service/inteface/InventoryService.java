@@ -3,6 +3,8 @@ package com.example.inventoryservice.service.inteface;
 import com.example.inventoryservice.enums.TransferStatus;
 import com.example.inventoryservice.request.InventoryItemRequest;
 import com.example.inventoryservice.request.InventoryRequest;
+import com.example.inventoryservice.request.ReserveStockItemRequest;
+import com.example.inventoryservice.request.StoreFulfillmentRequest;
 import com.example.inventoryservice.request.TransferStockRequest;
 import com.example.inventoryservice.response.*;
 
@@ -22,10 +24,17 @@ public interface InventoryService {
 
     ReserveStockResponse reserveStock(String productColorId, int quantity, long orderId);
 
+    ReserveStockBatchResponse reserveStockBatch(long orderId, List<ReserveStockItemRequest> items);
+
+    // Giữ hàng với đơn đã lấy sẵn từ order-service: không gọi Feign trong transaction giữ hàng
+    ReserveStockBatchResponse reserveStockBatch(long orderId, OrderResponse order, List<ReserveStockItemRequest> items);
+
     ReserveStockResponse releaseReservedStock(String productColorId, int quantity, Long orderId);
 
     boolean hasSufficientStock(String productColorId, String warehouseId, int requiredQty);
 
+    List<StoreFulfillmentResponse> checkStoresFulfillment(StoreFulfillmentRequest request);
+
     boolean hasSufficientGlobalStock(String productColorId, int requiredQty);
 
     int getTotalStockByProductColorId(String productColorId);
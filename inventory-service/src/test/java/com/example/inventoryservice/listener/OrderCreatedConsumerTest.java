@@ -0,0 +1,108 @@
+package com.example.inventoryservice.listener;
+
+import com.example.inventoryservice.config.KafkaConsumerConfig;
+import com.example.inventoryservice.event.OrderCreatedEvent;
+import com.example.inventoryservice.service.OrderReservationBatchService;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Một bản ghi hỏng không được làm hỏng cả lô order-created:
+ * - JSON không đọc được thành null và bị bỏ qua;
+ * - lô lỗi được xử lý lại từng đơn, đơn lỗi được báo bằng index để error handler commit các đơn trước nó
+ *   và chỉ retry / bỏ qua đúng bản ghi đó.
+ * Chỉ kiểm tra hành vi; đo throughput theo kích thước lô chưa làm (chưa có Kafka / benchmark harness).
+ */
+@DisplayName("OrderCreatedConsumer Tests")
+class OrderCreatedConsumerTest {
+
+    private OrderReservationBatchService orderReservationBatchService;
+    private OrderCreatedConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        orderReservationBatchService = mock(OrderReservationBatchService.class);
+        consumer = new OrderCreatedConsumer(orderReservationBatchService);
+    }
+
+    @Test
+    @DisplayName("A healthy batch is reserved in one call")
+    void healthyBatchReservedTogether() {
+        List<OrderCreatedEvent> events = List.of(event(1L), event(2L));
+        when(orderReservationBatchService.reserveAll(events)).thenReturn(2);
+
+        consumer.handleOrderCreated(events);
+
+        verify(orderReservationBatchService).reserveAll(events);
+        verify(orderReservationBatchService, never()).reserveOne(any());
+    }
+
+    @Test
+    @DisplayName("A failing order is reported by index and earlier orders are still reserved")
+    void failingOrderReportedByIndex() {
+        OrderCreatedEvent first = event(1L);
+        OrderCreatedEvent bad = event(2L);
+        OrderCreatedEvent last = event(3L);
+        when(orderReservationBatchService.reserveAll(anyList())).thenThrow(new IllegalStateException("batch failed"));
+        when(orderReservationBatchService.reserveOne(first)).thenReturn(true);
+        when(orderReservationBatchService.reserveOne(bad)).thenThrow(new IllegalStateException("out of stock"));
+
+        BatchListenerFailedException failure = assertThrows(BatchListenerFailedException.class,
+                () -> consumer.handleOrderCreated(List.of(first, bad, last)));
+
+        assertEquals(1, failure.getIndex());
+        verify(orderReservationBatchService).reserveOne(first);
+        // Đơn sau đơn lỗi được giao lại sau khi error handler xử lý xong đơn lỗi
+        verify(orderReservationBatchService, never()).reserveOne(last);
+    }
+
+    @Test
+    @DisplayName("Undeserializable and id-less records are skipped without failing the batch")
+    void malformedRecordsSkipped() {
+        OrderCreatedEvent first = event(1L);
+        OrderCreatedEvent last = event(3L);
+        List<OrderCreatedEvent> events = Arrays.asList(first, null, new OrderCreatedEvent(), last);
+        when(orderReservationBatchService.reserveAll(anyList())).thenThrow(new IllegalStateException("batch failed"));
+        when(orderReservationBatchService.reserveOne(any())).thenReturn(true);
+
+        assertDoesNotThrow(() -> consumer.handleOrderCreated(events));
+
+        verify(orderReservationBatchService).reserveOne(first);
+        verify(orderReservationBatchService).reserveOne(last);
+        verify(orderReservationBatchService, times(2)).reserveOne(any());
+    }
+
+    @Test
+    @DisplayName("The order-created consumer turns malformed JSON into a null record instead of throwing")
+    void malformedJsonBecomesNull() {
+        KafkaConsumerConfig config = new KafkaConsumerConfig();
+        ReflectionTestUtils.setField(config, "orderCreatedMaxPollRecords", 100);
+        Deserializer<OrderCreatedEvent> deserializer = config.orderCreatedConsumerFactory().getValueDeserializer();
+
+        OrderCreatedEvent valid = deserializer.deserialize("order-created-topic", new RecordHeaders(),
+                "{\"orderId\":7,\"items\":[]}".getBytes(StandardCharsets.UTF_8));
+        OrderCreatedEvent malformed = assertDoesNotThrow(() -> deserializer.deserialize("order-created-topic",
+                new RecordHeaders(), "{not json".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(7L, valid.getOrderId());
+        assertNull(malformed);
+    }
+
+    private static OrderCreatedEvent event(Long orderId) {
+        return OrderCreatedEvent.builder().orderId(orderId).items(List.of()).build();
+    }
+}
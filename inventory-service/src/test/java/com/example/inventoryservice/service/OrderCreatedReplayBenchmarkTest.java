@@ -0,0 +1,199 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.entity.*;
+import com.example.inventoryservice.enums.*;
+import com.example.inventoryservice.event.OrderCreatedEvent;
+import com.example.inventoryservice.feign.*;
+import com.example.inventoryservice.repository.*;
+import com.example.inventoryservice.response.ApiResponse;
+import com.example.inventoryservice.response.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replay N OrderCreatedEvent tổng hợp (mặc định 100k) qua đường giữ hàng thật trên H2:
+ * một lần theo lô max-poll-records (reserveAll), một lần từng đơn (reserveOne, như listener cũ), rồi in event/s.
+ * Chạy thủ công: mvn test -Dbenchmark=true [-Dbenchmark.events=100000] -Dtest=OrderCreatedReplayBenchmarkTest.
+ * Số đo trên H2 in-memory chỉ để so sánh hai chế độ, không phải throughput trên PostgreSQL / Kafka thật.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replay;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderCreatedReplayBenchmarkTest {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int SKUS = 50;
+    private static final String STORE_ID = "store-replay";
+
+    @Configuration
+    @EntityScan(basePackageClasses = InventoryItem.class)
+    @EnableJpaRepositories(basePackageClasses = InventoryItemRepository.class)
+    @Import({InventoryServiceImpl.class, ReservationEngine.class, OrderReservationBatchService.class})
+    static class Config {
+    }
+
+    @MockBean
+    private AuthClient authClient;
+    @MockBean
+    private UserClient userClient;
+    @MockBean
+    private OrderClient orderClient;
+    @MockBean
+    private ProductServiceClient productServiceClient;
+    @MockBean
+    private DeliveryClient deliveryClient;
+    @MockBean
+    private StoreClient storeClient;
+    @MockBean
+    private PDFService pdfService;
+    @MockBean
+    private StockLedger stockLedger;
+
+    @Autowired
+    private OrderReservationBatchService orderReservationBatchService;
+    @Autowired
+    private ProcessedMessageRepository processedMessageRepository;
+    @Autowired
+    private OrderReservationLineRepository orderReservationLineRepository;
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+    @Autowired
+    private ZoneRepository zoneRepository;
+    @Autowired
+    private LocationItemRepository locationItemRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final int events = Integer.getInteger("benchmark.events", 100_000);
+    private final List<String> skus = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(orderClient.getOderById(anyLong())).thenAnswer(invocation -> ApiResponse.<OrderResponse>builder()
+                .data(OrderResponse.builder().id(invocation.getArgument(0)).storeId(STORE_ID).build())
+                .build());
+        if (warehouseRepository.findByStoreIdAndIsDeletedFalse(STORE_ID).isEmpty()) {
+            seedStock();
+        }
+        for (int i = 0; i < SKUS; i++) {
+            skus.add("PC-REPLAY-" + i);
+        }
+    }
+
+    @Test
+    void replaySyntheticOrderEvents() {
+        Random random = new Random(42);
+        List<OrderCreatedEvent> batchEvents = syntheticEvents(1, events, random);
+        List<OrderCreatedEvent> singleEvents = syntheticEvents(events + 1L, events, random);
+
+        long startedAt = System.nanoTime();
+        int reserved = 0;
+        for (int from = 0; from < batchEvents.size(); from += BATCH_SIZE) {
+            List<OrderCreatedEvent> poll = batchEvents.subList(from, Math.min(from + BATCH_SIZE, batchEvents.size()));
+            reserved += orderReservationBatchService.reserveAll(poll);
+        }
+        double batchSeconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        assertEquals(events, reserved);
+
+        // Redelivery cả lô: bị loại bằng một câu IN, không giữ thêm
+        assertEquals(0, orderReservationBatchService.reserveAll(batchEvents.subList(0, BATCH_SIZE)));
+
+        startedAt = System.nanoTime();
+        for (OrderCreatedEvent event : singleEvents) {
+            assertTrue(orderReservationBatchService.reserveOne(event));
+        }
+        double singleSeconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        assertEquals(2L * events, processedMessageRepository.count());
+        assertEquals(2L * events, orderReservationLineRepository.count());
+
+        System.out.printf("Replayed %d order-created events: batch of %d %.0f/s, one by one %.0f/s%n",
+                events, BATCH_SIZE, events / batchSeconds, events / singleSeconds);
+    }
+
+    private List<OrderCreatedEvent> syntheticEvents(long firstOrderId, int count, Random random) {
+        List<OrderCreatedEvent> generated = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            generated.add(OrderCreatedEvent.builder()
+                    .orderId(firstOrderId + i)
+                    .storeId(STORE_ID)
+                    .items(List.of(OrderCreatedEvent.OrderItem.builder()
+                            .productColorId(skus.get(random.nextInt(SKUS)))
+                            .quantity(1)
+                            .build()))
+                    .build());
+        }
+        return generated;
+    }
+
+    private void seedStock() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                    .warehouseName("WH-REPLAY")
+                    .storeId(STORE_ID)
+                    .status(WarehouseStatus.ACTIVE)
+                    .build());
+            Zone zone = zoneRepository.save(Zone.builder()
+                    .zoneName("Zone A")
+                    .status(ZoneStatus.ACTIVE)
+                    .zoneCode(EnumZone.A)
+                    .quantity(1)
+                    .warehouse(warehouse)
+                    .build());
+            Inventory inventory = inventoryRepository.save(Inventory.builder()
+                    .employeeId("replay-benchmark")
+                    .type(EnumTypes.IMPORT)
+                    .purpose(EnumPurpose.STOCK_IN)
+                    .date(LocalDate.now())
+                    .warehouse(warehouse)
+                    .build());
+            LocationItem location = locationItemRepository.save(LocationItem.builder()
+                    .rowLabel(1)
+                    .columnNumber(1)
+                    .zone(zone)
+                    .build());
+            for (int i = 0; i < SKUS; i++) {
+                inventoryItemRepository.save(InventoryItem.builder()
+                        .quantity(2 * events)
+                        .productColorId("PC-REPLAY-" + i)
+                        .locationItem(location)
+                        .inventory(inventory)
+                        .build());
+            }
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.event.OrderCreatedEvent;
+import com.example.inventoryservice.exception.AppException;
+import com.example.inventoryservice.feign.OrderClient;
+import com.example.inventoryservice.repository.ProcessedMessageRepository;
+import com.example.inventoryservice.response.ApiResponse;
+import com.example.inventoryservice.response.OrderResponse;
+import com.example.inventoryservice.service.inteface.InventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Giữ hàng theo lô: đơn được lấy từ order-service trước khi mở transaction và lấy lock SKU,
+ * đơn đã xử lý bị loại bằng một câu IN, và đơn không lấy được thì không mở transaction nào.
+ */
+@DisplayName("OrderReservationBatchService Tests")
+class OrderReservationBatchServiceTest {
+
+    private InventoryService inventoryService;
+    private ProcessedMessageRepository processedMessageRepository;
+    private ReservationEngine reservationEngine;
+    private OrderClient orderClient;
+    private TransactionTemplate transactionTemplate;
+    private OrderReservationBatchService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        inventoryService = mock(InventoryService.class);
+        processedMessageRepository = mock(ProcessedMessageRepository.class);
+        reservationEngine = mock(ReservationEngine.class);
+        orderClient = mock(OrderClient.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(orderClient.getOderById(anyLong())).thenAnswer(invocation -> ApiResponse.<OrderResponse>builder()
+                .data(OrderResponse.builder().id(invocation.getArgument(0)).storeId("store-1").build())
+                .build());
+
+        service = new OrderReservationBatchService(inventoryService, processedMessageRepository,
+                reservationEngine, orderClient, transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("Orders are fetched before the transaction and the SKU locks are taken")
+    void ordersFetchedBeforeLocking() {
+        int reserved = service.reserveAll(List.of(event(1L, "color-b"), event(2L, "color-a"), event(1L, "color-b")));
+
+        assertEquals(2, reserved);
+        InOrder inOrder = inOrder(orderClient, transactionTemplate, reservationEngine, inventoryService);
+        inOrder.verify(orderClient).getOderById(1L);
+        inOrder.verify(orderClient).getOderById(2L);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(reservationEngine).lockStock(Set.of("color-a", "color-b"));
+        inOrder.verify(inventoryService).reserveStockBatch(eq(1L), argThat(order -> order.getId() == 1L), anyList());
+        inOrder.verify(inventoryService).reserveStockBatch(eq(2L), argThat(order -> order.getId() == 2L), anyList());
+        verify(processedMessageRepository).saveAll(argThat(rows -> ((List<?>) rows).size() == 2));
+    }
+
+    @Test
+    @DisplayName("Already processed orders are skipped without calling order-service")
+    void processedOrdersSkipped() {
+        when(processedMessageRepository.findProcessedOrderIds(any())).thenReturn(List.of(1L, 2L));
+
+        assertEquals(0, service.reserveAll(List.of(event(1L, "color-a"), event(2L, "color-b"))));
+
+        verifyNoInteractions(orderClient, transactionTemplate, reservationEngine, inventoryService);
+    }
+
+    @Test
+    @DisplayName("A missing order fails the batch before any transaction is opened")
+    void missingOrderFailsBeforeTransaction() {
+        when(orderClient.getOderById(2L)).thenReturn(ApiResponse.<OrderResponse>builder().build());
+
+        assertThrows(AppException.class, () -> service.reserveAll(List.of(event(1L, "color-a"), event(2L, "color-b"))));
+
+        verifyNoInteractions(transactionTemplate, reservationEngine, inventoryService);
+    }
+
+    @Test
+    @DisplayName("Reserving a single order also fetches it outside the transaction")
+    void reserveOneFetchesFirst() {
+        assertTrue(service.reserveOne(event(3L, "color-a")));
+
+        InOrder inOrder = inOrder(orderClient, transactionTemplate, inventoryService);
+        inOrder.verify(orderClient).getOderById(3L);
+        inOrder.verify(transactionTemplate).executeWithoutResult(any());
+        inOrder.verify(inventoryService).reserveStockBatch(eq(3L), any(OrderResponse.class), anyList());
+    }
+
+    private static OrderCreatedEvent event(long orderId, String productColorId) {
+        return OrderCreatedEvent.builder()
+                .orderId(orderId)
+                .items(List.of(OrderCreatedEvent.OrderItem.builder().productColorId(productColorId).quantity(1).build()))
+                .build();
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.entity.*;
+import com.example.inventoryservice.enums.*;
+import com.example.inventoryservice.repository.*;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Nhiều luồng cùng giữ hàng vượt tồn trên cùng các SKU: tổng đã giữ không bao giờ vượt tồn,
+ * không dòng nào có reserved > quantity, và các transaction khoá nhiều SKU không deadlock.
+ * Throughput giữ hàng trên một SKU nóng ở 1/8/64 luồng được ghi lại và in ra sau khi chạy (H2 in-memory,
+ * chỉ để so sánh giữa các mức song song, không phải số đo trên PostgreSQL).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservation;MODE=PostgreSQL;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=16",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationEngineStressTest {
+
+    private static final int ROWS_PER_WAREHOUSE = 3;
+    private static final int QUANTITY_PER_ROW = 10;
+    private static final int ORDERS_PER_THREAD = 20;
+    private static final int HOT_SKU_ORDERS = 640;
+
+    private static final Map<Integer, Double> hotSkuThroughput = new ConcurrentSkipListMap<>();
+
+    @Configuration
+    @EntityScan(basePackageClasses = InventoryItem.class)
+    @EnableJpaRepositories(basePackageClasses = InventoryItemRepository.class)
+    @Import(ReservationEngine.class)
+    static class Config {
+    }
+
+    @Autowired
+    private ReservationEngine reservationEngine;
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+    @Autowired
+    private ZoneRepository zoneRepository;
+    @Autowired
+    private LocationItemRepository locationItemRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8, 64})
+    void concurrentReservationsNeverOversell(int threads) throws Exception {
+        String suffix = UUID.randomUUID().toString();
+        List<String> skus = List.of("PC-A-" + suffix, "PC-B-" + suffix);
+        List<String> warehouseIds = List.of(seedWarehouse(skus), seedWarehouse(skus));
+        int stockPerSku = warehouseIds.size() * ROWS_PER_WAREHOUSE * QUANTITY_PER_ROW;
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Map<String, AtomicInteger> reservedPerSku = new ConcurrentHashMap<>();
+        skus.forEach(sku -> reservedPerSku.put(sku, new AtomicInteger()));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                Random random = new Random(seed);
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    // Mỗi đơn giữ cả hai SKU, thứ tự SKU và kho đảo ngẫu nhiên giữa các đơn
+                    List<String> orderSkus = new ArrayList<>(skus);
+                    Collections.shuffle(orderSkus, random);
+                    List<String> priority = new ArrayList<>(warehouseIds);
+                    Collections.shuffle(priority, random);
+                    int quantity = 1 + random.nextInt(5);
+
+                    Map<String, Integer> taken = tx.execute(status -> {
+                        reservationEngine.lockStock(orderSkus);
+                        Map<String, Integer> perSku = new HashMap<>();
+                        for (String sku : orderSkus) {
+                            int total = reservationEngine.reserve(sku, quantity, priority).values().stream()
+                                    .mapToInt(Integer::intValue).sum();
+                            perSku.put(sku, total);
+                        }
+                        return perSku;
+                    });
+                    taken.forEach((sku, qty) -> reservedPerSku.get(sku).addAndGet(qty));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        for (String sku : skus) {
+            List<InventoryItem> rows = inventoryItemRepository.findAll().stream()
+                    .filter(item -> sku.equals(item.getProductColorId()))
+                    .toList();
+            int reservedInDb = 0;
+            for (InventoryItem row : rows) {
+                assertTrue(row.getReservedQuantity() <= row.getQuantity(),
+                        "Row " + row.getId() + " oversold: " + row.getReservedQuantity() + "/" + row.getQuantity());
+                reservedInDb += row.getReservedQuantity();
+            }
+            assertEquals(reservedPerSku.get(sku).get(), reservedInDb);
+            assertTrue(reservedInDb <= stockPerSku);
+
+            // Mỗi đơn giữ ít nhất 1: khi nhu cầu tối thiểu vượt tồn thì phải giữ hết tồn, không bỏ sót dòng nào
+            if (threads * ORDERS_PER_THREAD >= stockPerSku) {
+                assertEquals(stockPerSku, reservedInDb);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8, 64})
+    void hotSkuThroughput(int threads) throws Exception {
+        String sku = "PC-HOT-" + UUID.randomUUID();
+        List<String> warehouseIds = List.of(
+                seedWarehouse(List.of(sku), HOT_SKU_ORDERS), seedWarehouse(List.of(sku), HOT_SKU_ORDERS));
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int orders = HOT_SKU_ORDERS / threads;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < orders; i++) {
+                    Integer taken = tx.execute(status -> reservationEngine.reserve(sku, 1, warehouseIds)
+                            .values().stream().mapToInt(Integer::intValue).sum());
+                    reserved.addAndGet(taken);
+                }
+                return null;
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        pool.shutdown();
+
+        int orders = (HOT_SKU_ORDERS / threads) * threads;
+        assertEquals(orders, reserved.get());
+        int reservedInDb = 0;
+        for (InventoryItem row : inventoryItemRepository.findAll()) {
+            if (sku.equals(row.getProductColorId())) {
+                assertTrue(row.getReservedQuantity() <= row.getQuantity());
+                reservedInDb += row.getReservedQuantity();
+            }
+        }
+        assertEquals(orders, reservedInDb);
+
+        hotSkuThroughput.put(threads, orders / (elapsedNanos / 1_000_000_000.0));
+    }
+
+    @AfterAll
+    static void printThroughput() {
+        hotSkuThroughput.forEach((threads, perSecond) ->
+                System.out.printf("Hot SKU reservations with %d thread(s): %.0f/s%n", threads, perSecond));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8, 64})
+    void concurrentReleasesNeverGoNegative(int threads) throws Exception {
+        String sku = "PC-R-" + UUID.randomUUID();
+        String warehouseId = seedWarehouse(List.of(sku));
+        int stock = ROWS_PER_WAREHOUSE * QUANTITY_PER_ROW;
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> reservationEngine.reserve(sku, stock, List.of(warehouseId)));
+
+        AtomicInteger released = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    Integer amount = tx.execute(status -> {
+                        reservationEngine.lockStock(List.of(sku));
+                        int total = 0;
+                        for (InventoryItem row : inventoryItemRepository.findAll()) {
+                            if (sku.equals(row.getProductColorId())) {
+                                total += reservationEngine.release(row.getId(), row.getReservedQuantity(), 2);
+                            }
+                        }
+                        return total;
+                    });
+                    released.addAndGet(amount);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        int reservedLeft = 0;
+        for (InventoryItem row : inventoryItemRepository.findAll()) {
+            if (sku.equals(row.getProductColorId())) {
+                assertTrue(row.getReservedQuantity() >= 0);
+                reservedLeft += row.getReservedQuantity();
+            }
+        }
+        assertEquals(stock, reservedLeft + released.get());
+    }
+
+    private String seedWarehouse(List<String> skus) {
+        return seedWarehouse(skus, QUANTITY_PER_ROW);
+    }
+
+    private String seedWarehouse(List<String> skus, int quantityPerRow) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return tx.execute(status -> {
+            Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                    .warehouseName("WH-" + UUID.randomUUID())
+                    .status(WarehouseStatus.ACTIVE)
+                    .build());
+            Zone zone = zoneRepository.save(Zone.builder()
+                    .zoneName("Zone A")
+                    .status(ZoneStatus.ACTIVE)
+                    .zoneCode(EnumZone.A)
+                    .quantity(ROWS_PER_WAREHOUSE)
+                    .warehouse(warehouse)
+                    .build());
+            Inventory inventory = inventoryRepository.save(Inventory.builder()
+                    .employeeId("stress-test")
+                    .type(EnumTypes.IMPORT)
+                    .purpose(EnumPurpose.STOCK_IN)
+                    .date(LocalDate.now())
+                    .warehouse(warehouse)
+                    .build());
+            for (int r = 0; r < ROWS_PER_WAREHOUSE; r++) {
+                LocationItem location = locationItemRepository.save(LocationItem.builder()
+                        .rowLabel(r + 1)
+                        .columnNumber(1)
+                        .zone(zone)
+                        .build());
+                for (String sku : skus) {
+                    inventoryItemRepository.save(InventoryItem.builder()
+                            .quantity(quantityPerRow)
+                            .productColorId(sku)
+                            .locationItem(location)
+                            .inventory(inventory)
+                            .build());
+                }
+            }
+            return warehouse.getId();
+        });
+    }
+}
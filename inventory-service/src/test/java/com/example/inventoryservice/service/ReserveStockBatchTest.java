@@ -0,0 +1,189 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.entity.Inventory;
+import com.example.inventoryservice.entity.OrderReservationLine;
+import com.example.inventoryservice.entity.Warehouse;
+import com.example.inventoryservice.exception.AppException;
+import com.example.inventoryservice.feign.AuthClient;
+import com.example.inventoryservice.feign.DeliveryClient;
+import com.example.inventoryservice.feign.OrderClient;
+import com.example.inventoryservice.feign.StoreClient;
+import com.example.inventoryservice.feign.UserClient;
+import com.example.inventoryservice.repository.InventoryItemRepository;
+import com.example.inventoryservice.repository.InventoryRepository;
+import com.example.inventoryservice.repository.InventoryReservedWarehouseRepository;
+import com.example.inventoryservice.repository.LocationItemRepository;
+import com.example.inventoryservice.repository.OrderReservationLineRepository;
+import com.example.inventoryservice.repository.WarehouseRepository;
+import com.example.inventoryservice.repository.ZoneRepository;
+import com.example.inventoryservice.request.ReserveStockItemRequest;
+import com.example.inventoryservice.response.ApiResponse;
+import com.example.inventoryservice.response.OrderResponse;
+import com.example.inventoryservice.response.ReserveStockBatchResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Giữ hàng theo lô cho cả đơn: gộp dòng trùng SKU, một lần gọi order-service, một phiếu RESERVE mỗi kho,
+ * và retry không giữ thêm cho dòng đã giữ.
+ * Chỉ kiểm tra hành vi; đo độ trễ giữ hàng theo số dòng của đơn chưa làm (cần PostgreSQL thật).
+ */
+@DisplayName("InventoryServiceImpl reserveStockBatch Tests")
+class ReserveStockBatchTest {
+
+    private static final long ORDER_ID = 42L;
+
+    private InventoryRepository inventoryRepository;
+    private WarehouseRepository warehouseRepository;
+    private OrderClient orderClient;
+    private StockLedger stockLedger;
+    private ReservationEngine reservationEngine;
+    private OrderReservationLineRepository orderReservationLineRepository;
+    private InventoryServiceImpl inventoryService;
+
+    private final Warehouse assigned = Warehouse.builder().id("wh-1").warehouseName("Kho 1").storeId("store-1").build();
+    private final Warehouse other = Warehouse.builder().id("wh-2").warehouseName("Kho 2").storeId("store-2").build();
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository = mock(InventoryRepository.class);
+        warehouseRepository = mock(WarehouseRepository.class);
+        orderClient = mock(OrderClient.class);
+        stockLedger = mock(StockLedger.class);
+        reservationEngine = mock(ReservationEngine.class);
+        orderReservationLineRepository = mock(OrderReservationLineRepository.class);
+
+        inventoryService = new InventoryServiceImpl(
+                inventoryRepository,
+                mock(InventoryItemRepository.class),
+                warehouseRepository,
+                mock(LocationItemRepository.class),
+                mock(ZoneRepository.class),
+                mock(AuthClient.class),
+                mock(UserClient.class),
+                orderClient,
+                mock(ProductServiceClient.class),
+                mock(DeliveryClient.class),
+                mock(StoreClient.class),
+                mock(InventoryReservedWarehouseRepository.class),
+                mock(PDFService.class),
+                stockLedger,
+                reservationEngine,
+                orderReservationLineRepository);
+
+        when(orderClient.getOderById(ORDER_ID)).thenReturn(ApiResponse.<OrderResponse>builder()
+                .data(OrderResponse.builder().id(ORDER_ID).storeId("store-1").build())
+                .build());
+        when(warehouseRepository.findByStoreIdAndIsDeletedFalse("store-1")).thenReturn(Optional.of(assigned));
+        when(warehouseRepository.findAllOrderByPriority("wh-1")).thenReturn(List.of(assigned, other));
+    }
+
+    @Test
+    @DisplayName("Duplicate SKU lines are merged and each warehouse gets one ticket")
+    void mergesLinesAndWritesOneTicketPerWarehouse() {
+        when(reservationEngine.reserve(eq("color-a"), eq(5), anyList())).thenReturn(taken("wh-1", 3, "wh-2", 2));
+        when(reservationEngine.reserve(eq("color-b"), eq(1), anyList())).thenReturn(taken("wh-1", 1));
+
+        ReserveStockBatchResponse response = inventoryService.reserveStockBatch(ORDER_ID, List.of(
+                item("color-b", 1), item("color-a", 2), item("color-a", 3)));
+
+        assertEquals(6, response.getTotalNeeded());
+        assertEquals(6, response.getTotalReserved());
+        assertEquals(Set.of("wh-1", "wh-2"), response.getWarehousePrintContentMap().keySet());
+
+        verify(orderClient, times(1)).getOderById(ORDER_ID);
+        verify(reservationEngine).lockStock(Set.of("color-a", "color-b"));
+        verify(reservationEngine).reserve("color-a", 5, List.of("wh-1", "wh-2"));
+        verify(reservationEngine).reserve("color-b", 1, List.of("wh-1", "wh-2"));
+
+        List<Inventory> tickets = savedTickets();
+        assertEquals(2, tickets.size());
+        Inventory first = tickets.stream().filter(t -> t.getWarehouse() == assigned).findFirst().orElseThrow();
+        assertEquals(2, first.getInventoryItems().size());
+        assertTrue(first.getReservedWarehouses().get(0).getIsAssignedWarehouse());
+
+        ArgumentCaptor<List<OrderReservationLine>> lines = ArgumentCaptor.forClass(List.class);
+        verify(orderReservationLineRepository).saveAll(lines.capture());
+        assertEquals(2, lines.getValue().size());
+        verify(stockLedger).refreshAfterCommit(Set.of("color-a", "color-b"));
+    }
+
+    @Test
+    @DisplayName("A retry of a fully reserved order returns the stored result without reserving")
+    void retryReturnsStoredLines() {
+        when(orderReservationLineRepository.findByOrderId(ORDER_ID)).thenReturn(List.of(
+                line("color-a", 5, 4), line("color-b", 1, 1)));
+
+        ReserveStockBatchResponse response = inventoryService.reserveStockBatch(ORDER_ID, List.of(
+                item("color-a", 5), item("color-b", 1)));
+
+        assertEquals(6, response.getTotalNeeded());
+        assertEquals(5, response.getTotalReserved());
+        assertEquals(2, response.getReservations().size());
+        verifyNoInteractions(orderClient, reservationEngine, inventoryRepository);
+        verify(orderReservationLineRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("A partial retry only reserves the lines that are still missing")
+    void partialRetryReservesMissingLines() {
+        when(orderReservationLineRepository.findByOrderId(ORDER_ID)).thenReturn(List.of(line("color-a", 5, 5)));
+        when(reservationEngine.reserve(eq("color-b"), eq(2), anyList())).thenReturn(taken("wh-2", 2));
+
+        ReserveStockBatchResponse response = inventoryService.reserveStockBatch(ORDER_ID, List.of(
+                item("color-a", 5), item("color-b", 2)));
+
+        assertEquals(7, response.getTotalNeeded());
+        assertEquals(7, response.getTotalReserved());
+        verify(reservationEngine).lockStock(Set.of("color-b"));
+        verify(reservationEngine, never()).reserve(eq("color-a"), anyInt(), anyList());
+        assertEquals(1, savedTickets().size());
+    }
+
+    @Test
+    @DisplayName("An empty request is rejected")
+    void emptyRequestRejected() {
+        assertThrows(AppException.class, () -> inventoryService.reserveStockBatch(ORDER_ID, List.of()));
+        verifyNoInteractions(orderReservationLineRepository, reservationEngine);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Inventory> savedTickets() {
+        ArgumentCaptor<List<Inventory>> tickets = ArgumentCaptor.forClass(List.class);
+        verify(inventoryRepository).saveAll(tickets.capture());
+        return tickets.getValue();
+    }
+
+    private static ReserveStockItemRequest item(String productColorId, int quantity) {
+        return ReserveStockItemRequest.builder().productColorId(productColorId).quantity(quantity).build();
+    }
+
+    private static OrderReservationLine line(String productColorId, int needed, int reserved) {
+        return OrderReservationLine.builder()
+                .orderId(ORDER_ID)
+                .productColorId(productColorId)
+                .quantityNeeded(needed)
+                .quantityReserved(reserved)
+                .build();
+    }
+
+    private static Map<String, Integer> taken(Object... warehouseAndQuantity) {
+        Map<String, Integer> taken = new LinkedHashMap<>();
+        for (int i = 0; i < warehouseAndQuantity.length; i += 2) {
+            taken.put((String) warehouseAndQuantity[i], (Integer) warehouseAndQuantity[i + 1]);
+        }
+        return taken;
+    }
+}
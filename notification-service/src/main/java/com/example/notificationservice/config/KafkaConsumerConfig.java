@@ -7,12 +7,14 @@ import com.example.notificationservice.event.OrderCreatedEvent;
 import com.example.notificationservice.event.DeliveryAssignedEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
@@ -37,6 +39,19 @@ public class KafkaConsumerConfig {
 
     private final String GROUP_ID = "notification-group";
 
+    // Listener chủ yếu chờ I/O (gửi mail, gọi Feign) nên chạy trên virtual thread
+    @Value("${app.kafka.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    private <T> ConcurrentKafkaListenerContainerFactory<String, T> listenerFactory(ConsumerFactory<String, T> consumerFactory) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, T>();
+        factory.setConsumerFactory(consumerFactory);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("notification-kafka-");
+        executor.setVirtualThreads(virtualThreads);
+        factory.getContainerProperties().setListenerTaskExecutor(executor);
+        return factory;
+    }
+
     private Map<String, Object> baseConfigs() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
@@ -65,18 +80,12 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, AccountPlaceEvent> accountKafkaListenerContainerFactory() {
-        var factory = new ConcurrentKafkaListenerContainerFactory<String, AccountPlaceEvent>();
-
-        factory.setConsumerFactory(accountConsumerFactory());
-        return factory;
+        return listenerFactory(accountConsumerFactory());
     }
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, OrderCreatedEvent> orderCreatedKafkaListenerContainerFactory() {
-        var factory = new ConcurrentKafkaListenerContainerFactory<String, OrderCreatedEvent>();
-
-        factory.setConsumerFactory(orderCreatedConsumerFactory());
-        return factory;
+        return listenerFactory(orderCreatedConsumerFactory());
     }
 
     @Bean
@@ -89,9 +98,7 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, OrderCancelledEvent> orderCancelledKafkaListenerContainerFactory() {
-        var factory = new ConcurrentKafkaListenerContainerFactory<String, OrderCancelledEvent>();
-        factory.setConsumerFactory(orderCancelledConsumerFactory());
-        return factory;
+        return listenerFactory(orderCancelledConsumerFactory());
     }
 
     @Bean
@@ -104,9 +111,7 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, OrderDeliveredEvent> orderDeliveredKafkaListenerContainerFactory() {
-        var factory = new ConcurrentKafkaListenerContainerFactory<String, OrderDeliveredEvent>();
-        factory.setConsumerFactory(orderDeliveredConsumerFactory());
-        return factory;
+        return listenerFactory(orderDeliveredConsumerFactory());
     }
 
     @Bean
@@ -119,8 +124,6 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, DeliveryAssignedEvent> deliveryAssignedKafkaListenerContainerFactory() {
-        var factory = new ConcurrentKafkaListenerContainerFactory<String, DeliveryAssignedEvent>();
-        factory.setConsumerFactory(deliveryAssignedConsumerFactory());
-        return factory;
+        return listenerFactory(deliveryAssignedConsumerFactory());
     }
 }
@@ -23,7 +23,7 @@ public class OrderEventListener {
     private final EmailOrderService orderService;
     private final OrderClient orderClient;
 
-    @KafkaListener(topics = "order-created-topic", groupId = "notification-group", containerFactory = "orderCreatedKafkaListenerContainerFactory")
+    @KafkaListener(topics = "order-created-topic", groupId = "notification-group", concurrency = "${app.kafka.concurrency.order-created:3}", containerFactory = "orderCreatedKafkaListenerContainerFactory")
     public void handleOrderCreated(OrderCreatedEvent event) {
         log.info("📦 Received OrderCreatedEvent for order: {}", event.getOrderId());
 
@@ -40,13 +40,13 @@ public class OrderEventListener {
         }
     }
 
-    @KafkaListener(topics = "order-cancelled-topic", groupId = "notification-group", containerFactory = "orderCancelledKafkaListenerContainerFactory")
+    @KafkaListener(topics = "order-cancelled-topic", groupId = "notification-group", concurrency = "${app.kafka.concurrency.order-cancelled:3}", containerFactory = "orderCancelledKafkaListenerContainerFactory")
     public void handleCancelOrderCreated(OrderCancelledEvent event) {
         log.info("📦 Received OrderCancelledEvent for order: {}", event.getOrderId());
         orderService.sendMailToCancelOrder(event);
     }
 
-    @KafkaListener(topics = "store-assigned-topic", groupId = "notification-group", containerFactory = "orderCreatedKafkaListenerContainerFactory")
+    @KafkaListener(topics = "store-assigned-topic", groupId = "notification-group", concurrency = "${app.kafka.concurrency.store-assigned:3}", containerFactory = "orderCreatedKafkaListenerContainerFactory")
     public void handleAssignedOrderCreated(OrderCreatedEvent event) {
         OrderResponse order = getOrderResponse(event.getOrderId());
 
@@ -61,13 +61,13 @@ public class OrderEventListener {
         }
     }
 
-    @KafkaListener(topics = "order-delivered-topic", groupId = "notification-group", containerFactory = "orderDeliveredKafkaListenerContainerFactory")
+    @KafkaListener(topics = "order-delivered-topic", groupId = "notification-group", concurrency = "${app.kafka.concurrency.order-delivered:3}", containerFactory = "orderDeliveredKafkaListenerContainerFactory")
     public void handleOrderDelivered(OrderDeliveredEvent event) {
         log.info("📦 Received OrderDeliveredEvent for order: {}", event.getOrderId());
         orderService.sendMailToOrderDelivered(event);
     }
 
-    @KafkaListener(topics = "delivery-assigned-topic", groupId = "notification-group", containerFactory = "deliveryAssignedKafkaListenerContainerFactory")
+    @KafkaListener(topics = "delivery-assigned-topic", groupId = "notification-group", concurrency = "${app.kafka.concurrency.delivery-assigned:3}", containerFactory = "deliveryAssignedKafkaListenerContainerFactory")
     public void handleDeliveryAssigned(DeliveryAssignedEvent event) {
         log.info("🚚 Received DeliveryAssignedEvent for order: {}", event.getOrderId());
         orderService.sendMailToDeliveryAssigned(event);
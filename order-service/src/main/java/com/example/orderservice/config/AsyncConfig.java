@@ -0,0 +1,61 @@
+package com.example.orderservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Bean(name = "orderLookupExecutor")
+    public Executor orderLookupExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(32);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("order-lookup-");
+        // Mang request hiện tại sang worker để FeignClientInterceptor vẫn forward được Authorization
+        executor.setTaskDecorator(task -> {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            return () -> {
+                RequestContextHolder.setRequestAttributes(attributes);
+                try {
+                    task.run();
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            };
+        });
+        executor.initialize();
+        return executor;
+    }
+
+    // Tile dashboard có thể chạy trong refresh nền (không có request) và snapshot dùng chung giữa các user,
+    // nên không mang RequestAttributes: các lời gọi Feign chỉ có X-Service-Token (ROLE_SERVICE),
+    // endpoint mà tile gọi tới phải cho phép ROLE_SERVICE
+    @Bean(name = "dashboardExecutor")
+    public Executor dashboardExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(32);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("dashboard-tile-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "dashboardRefreshExecutor")
+    public Executor dashboardRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("dashboard-refresh-");
+        executor.initialize();
+        return executor;
+    }
+}
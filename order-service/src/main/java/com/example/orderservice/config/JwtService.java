@@ -51,6 +51,10 @@ public class JwtService {
         return parseToken(token).getBody().getSubject();
     }
 
+    public Claims extractAllClaims(String token) {
+        return parseToken(token).getBody();
+    }
+
     public Date extractExpiration(String token) {
         return parseToken(token).getBody().getExpiration();
     }
@@ -6,6 +6,7 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
@@ -26,6 +27,10 @@ import org.springframework.kafka.core.KafkaAdmin;
 public class KafkaConfig {
     private final String BOOTSTRAP_SERVERS = "kafka:9092";
 
+    // Số partition cho các topic vòng đời đơn hàng; event được key theo orderId nên thứ tự trong một đơn vẫn giữ
+    @Value("${app.kafka.order-topic-partitions:6}")
+    private int orderTopicPartitions;
+
     @Bean
     public KafkaAdmin kafkaAdmin() {
         Map<String, Object> configs = new HashMap<>();
@@ -36,7 +41,7 @@ public class KafkaConfig {
     @Bean
     public NewTopic orderCreatedTopic() {
         return TopicBuilder.name("order-created-topic")
-                .partitions(1)
+                .partitions(orderTopicPartitions)
                 .replicas(1)
                 .build();
     }
@@ -44,7 +49,7 @@ public class KafkaConfig {
     @Bean
     public NewTopic storeAssignedTopic() {
         return TopicBuilder.name("store-assigned-topic")
-                .partitions(1)
+                .partitions(orderTopicPartitions)
                 .replicas(1)
                 .build();
     }
@@ -52,7 +57,7 @@ public class KafkaConfig {
     @Bean
     public NewTopic orderCancelledTopic() {
         return TopicBuilder.name("order-cancelled-topic")
-                .partitions(1)
+                .partitions(orderTopicPartitions)
                 .replicas(1)
                 .build();
     }
@@ -101,6 +106,29 @@ public class KafkaConfig {
         return new KafkaTemplate<>(stringProducerFactory());
     }
 
+    // ----------------- PRODUCER cho Outbox relay --------------------
+    // Payload đã là JSON nên gửi dạng String; idempotent + nén + linger để gom nhiều event vào một request
+    @Bean
+    public ProducerFactory<String, String> outboxProducerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5); // tối đa 5 để idempotent vẫn giữ thứ tự
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 20);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30000);
+        return new DefaultKafkaProducerFactory<>(config);
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> outboxKafkaTemplate() {
+        return new KafkaTemplate<>(outboxProducerFactory());
+    }
+
     // ----------------- CONSUMER --------------------
 
     private Map<String, Object> baseConfigs() {
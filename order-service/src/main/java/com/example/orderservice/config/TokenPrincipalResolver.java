@@ -0,0 +1,130 @@
+package com.example.orderservice.config;
+
+import com.example.orderservice.enums.EnumRole;
+import com.example.orderservice.service.TokenUserDetails;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dựng principal từ access token đã xác thực chữ ký:
+ * - Token có claim pv (TokenClaimsProvider ở user-service) → dựng trực tiếp từ claims, không gọi user-service.
+ * - Token cũ (chưa có pv, hoặc pv = 1 khi id hồ sơ còn nằm trong userId) → fallback loadUserByUsername (Feign).
+ * Claim userId luôn là account id; id User (CUSTOMER) / Employee (nhân viên) nằm trong claim profileId.
+ * Kết quả được cache ngắn hạn theo hash của token (không quá thời điểm token hết hạn).
+ * Mỗi service giữ một bản riêng như JwtService / JwtAuthFilter (repo không có module dùng chung):
+ * sửa một bản thì sửa cả sáu, và giữ PRINCIPAL_VERSION khớp với user-service.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenPrincipalResolver {
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+
+    @Value("${jwt.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    private static final String CLAIM_PRINCIPAL_VERSION = "pv";
+    private static final int PRINCIPAL_VERSION = 2;
+
+    private final Map<String, CachedPrincipal> cache = new ConcurrentHashMap<>();
+
+    private record CachedPrincipal(UserDetails principal, long expiresAt) {
+    }
+
+    public UserDetails resolve(String jwt) {
+        String key = hash(jwt);
+        long now = System.currentTimeMillis();
+
+        CachedPrincipal cached = cache.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return cached.principal();
+            }
+            cache.remove(key, cached);
+        }
+
+        // Xác thực chữ ký + hạn dùng, ném JwtException nếu không hợp lệ
+        Claims claims = jwtService.extractAllClaims(jwt);
+
+        UserDetails principal = fromClaims(claims);
+        if (principal == null) {
+            principal = userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+
+        long tokenExpiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        if (cache.size() >= maxSize) {
+            cache.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (cache.size() >= maxSize) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedPrincipal(principal, Math.min(now + ttlSeconds * 1000, tokenExpiresAt)));
+        return principal;
+    }
+
+    private UserDetails fromClaims(Claims claims) {
+        if (!(claims.get(CLAIM_PRINCIPAL_VERSION) instanceof Number version) || version.intValue() < PRINCIPAL_VERSION) {
+            return null;
+        }
+        String role = claims.get("role", String.class);
+        if (role == null || claims.getSubject() == null) {
+            return null;
+        }
+
+        EnumRole enumRole;
+        try {
+            enumRole = EnumRole.valueOf(role);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown role claim {} for {}", role, claims.getSubject());
+            return null;
+        }
+
+        List<String> storeIds = new ArrayList<>();
+        Object rawStoreIds = claims.get("storeIds");
+        if (rawStoreIds instanceof List<?> list) {
+            list.forEach(id -> {
+                if (id != null) storeIds.add(id.toString());
+            });
+        } else {
+            String storeId = claims.get("storeId") instanceof String s ? s : null;
+            if (storeId != null && !storeId.isEmpty()) {
+                storeIds.add(storeId);
+            }
+        }
+
+        return new TokenUserDetails(
+                claims.getSubject(),
+                enumRole,
+                claims.get("accountId", String.class),
+                claims.get("profileId", String.class),
+                storeIds);
+    }
+
+    private static String hash(String jwt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jwt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
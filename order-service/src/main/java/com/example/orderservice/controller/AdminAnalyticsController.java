@@ -2,6 +2,7 @@ package com.example.orderservice.controller;
 
 import com.example.orderservice.response.*;
 import com.example.orderservice.service.AdminAnalyticsService;
+import com.example.orderservice.service.SalesRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -23,6 +25,7 @@ import java.util.List;
 public class AdminAnalyticsController {
 
     private final AdminAnalyticsService adminAnalyticsService;
+    private final SalesRollupService salesRollupService;
 
     @GetMapping("/stats/overview")
     @Operation(
@@ -88,5 +91,20 @@ public class AdminAnalyticsController {
                 .data(data)
                 .build();
     }
-}
 
+    @PostMapping("/analytics/rollup/rebuild")
+    @Operation(
+            summary = "Rebuild sales rollup",
+            description = "Rebuilds the pre-aggregated sales rollup tables from order history in the background"
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<Boolean> rebuildSalesRollup() {
+        boolean started = salesRollupService.startRebuild();
+
+        return ApiResponse.<Boolean>builder()
+                .status(HttpStatus.ACCEPTED.value())
+                .message(started ? "Sales rollup rebuild started" : "Sales rollup rebuild is already running")
+                .data(started)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.orderservice.controller;
 
+import com.example.orderservice.enums.EnumRole;
 import com.example.orderservice.enums.ErrorCode;
 import com.example.orderservice.exception.AppException;
 import com.example.orderservice.feign.AuthClient;
@@ -11,6 +12,7 @@ import com.example.orderservice.response.ManagerDashboardResponse;
 import com.example.orderservice.response.StaffDashboardResponse;
 import com.example.orderservice.response.UserResponse;
 import com.example.orderservice.service.DashboardService;
+import com.example.orderservice.service.TokenUserDetails;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -83,6 +85,12 @@ public class DashboardController {
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
 
+        // Token mới mang sẵn id nhân viên → không cần gọi user-service
+        if (authentication.getPrincipal() instanceof TokenUserDetails principal
+                && principal.getUserId() != null && !EnumRole.CUSTOMER.equals(principal.getRole())) {
+            return principal.getUserId();
+        }
+
         String username = authentication.getName();
         ApiResponse<AuthResponse> authResponse = authClient.getUserByUsername(username);
 
@@ -0,0 +1,36 @@
+package com.example.orderservice.controller;
+
+import com.example.orderservice.response.ApiResponse;
+import com.example.orderservice.service.DashboardService;
+import com.example.orderservice.service.ProductServiceClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/internal/cache")
+@RequiredArgsConstructor
+public class InternalCacheController {
+
+    private final ProductServiceClient productServiceClient;
+    private final DashboardService dashboardService;
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SERVICE')")
+    public ApiResponse<Map<String, Map<String, Object>>> getCacheStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>(productServiceClient.getCacheStats());
+        stats.putAll(dashboardService.getCacheStats());
+
+        return ApiResponse.<Map<String, Map<String, Object>>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Cache stats retrieved successfully")
+                .data(stats)
+                .build();
+    }
+}
@@ -19,6 +19,7 @@ import com.example.orderservice.repository.OrderRepository;
 import com.example.orderservice.response.*;
 import com.example.orderservice.service.VNPayService;
 import com.example.orderservice.service.ManagerWorkflowService;
+import com.example.orderservice.service.OrderSummaryService;
 import com.example.orderservice.service.inteface.AssignOrderService;
 import com.example.orderservice.service.inteface.CartService;
 import com.example.orderservice.service.inteface.OrderService;
@@ -55,6 +56,7 @@ public class OrderController {
         private final ManagerWorkflowService managerWorkflowService;
         private final VoucherRepository voucherRepository;
         private final PaymentRepository paymentRepository;
+        private final OrderSummaryService orderSummaryService;
 
         @Transactional
         @PostMapping("/checkout")
@@ -256,6 +258,28 @@ public class OrderController {
                                 .build();
         }
 
+        @GetMapping("/{id}/summary")
+        @Operation(summary = "Thông tin gọn của đơn (không kèm chi tiết sản phẩm / payment / user)")
+        @PreAuthorize("hasRole('SERVICE') or hasRole('ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('STAFF') or hasRole('DELIVERY')")
+        public ApiResponse<OrderSummaryResponse> getOrderSummary(@PathVariable Long id) {
+                return ApiResponse.<OrderSummaryResponse>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Lấy thông tin đơn hàng thành công")
+                                .data(orderSummaryService.getSummary(id))
+                                .build();
+        }
+
+        @PostMapping("/summaries/batch")
+        @Operation(summary = "Thông tin gọn của nhiều đơn trong một lần gọi (orderId -> summary)")
+        @PreAuthorize("hasRole('SERVICE') or hasRole('ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('STAFF') or hasRole('DELIVERY')")
+        public ApiResponse<Map<Long, OrderSummaryResponse>> getOrderSummaries(@RequestBody List<Long> ids) {
+                return ApiResponse.<Map<Long, OrderSummaryResponse>>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Lấy thông tin đơn hàng thành công")
+                                .data(orderSummaryService.getSummaries(ids))
+                                .build();
+        }
+
         @GetMapping("/{id}/status-history")
         public ApiResponse<List<ProcessOrderResponse>> getOrderStatusHistory(@PathVariable Long id) {
                 return ApiResponse.<List<ProcessOrderResponse>>builder()
@@ -3,6 +3,7 @@ package com.example.orderservice.controller;
 import com.example.orderservice.entity.Order;
 import com.example.orderservice.entity.Warranty;
 import com.example.orderservice.entity.WarrantyClaim;
+import com.example.orderservice.enums.EnumRole;
 import com.example.orderservice.enums.ErrorCode;
 import com.example.orderservice.enums.WarrantyClaimStatus;
 import com.example.orderservice.exception.AppException;
@@ -20,6 +21,7 @@ import com.example.orderservice.response.UserResponse;
 import com.example.orderservice.response.WarrantyClaimResponse;
 import com.example.orderservice.response.WarrantyReportResponse;
 import com.example.orderservice.response.WarrantyResponse;
+import com.example.orderservice.service.TokenUserDetails;
 import com.example.orderservice.service.inteface.WarrantyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -286,6 +288,12 @@ public class WarrantyController {
                         throw new AppException(ErrorCode.UNAUTHENTICATED);
                 }
 
+                // Token mới mang sẵn userId → không cần gọi user-service
+                if (authentication.getPrincipal() instanceof TokenUserDetails principal
+                                && principal.getUserId() != null && EnumRole.CUSTOMER.equals(principal.getRole())) {
+                        return principal.getUserId();
+                }
+
                 String username = authentication.getName();
                 ApiResponse<AuthResponse> response = authClient.getUserByUsername(username);
 
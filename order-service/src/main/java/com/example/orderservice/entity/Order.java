@@ -3,6 +3,7 @@ package com.example.orderservice.entity;
 import com.example.orderservice.enums.ComplaintStatus;
 import com.example.orderservice.enums.EnumProcessOrder;
 import com.example.orderservice.enums.OrderType;
+import com.example.orderservice.listener.OrderRollupListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -14,9 +15,10 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_updated_at", columnList = "updated_at"))
 @ToString
 @Builder
+@EntityListeners(OrderRollupListener.class)
 public class Order extends AbstractEntity {
 
     @Id
@@ -0,0 +1,28 @@
+package com.example.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Đơn đã thay đổi nhưng chưa được áp dụng vào rollup.
+ * Lưu trong DB để restart / deploy không làm mất đánh dấu; job rollup xoá dòng trong cùng transaction áp dụng.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "order_rollup_dirty")
+public class OrderRollupDirty {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "marked_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date markedAt;
+}
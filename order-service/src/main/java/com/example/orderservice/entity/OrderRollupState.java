@@ -0,0 +1,37 @@
+package com.example.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Phần đóng góp hiện tại của một đơn vào các bảng rollup.
+ * So sánh với trạng thái mới của đơn để biết cần trừ / cộng ở đâu, nên áp dụng lại nhiều lần vẫn đúng.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "order_rollup_state")
+public class OrderRollupState {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "bucket_hour", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date bucketHour;
+
+    @Column(name = "store_id", nullable = false)
+    private String storeId;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(nullable = false)
+    private Double total;
+}
@@ -0,0 +1,45 @@
+package com.example.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Số đơn và doanh thu theo (giờ đặt hàng, cửa hàng, trạng thái hiện tại).
+ * Mỗi đơn nằm đúng ở một dòng; chuyển trạng thái thì trừ ở dòng cũ, cộng ở dòng mới.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "sales_rollup_hourly",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_sales_rollup_hourly",
+                columnNames = {"bucket_hour", "store_id", "status"}),
+        indexes = @Index(name = "idx_sales_rollup_hourly_store", columnList = "store_id, bucket_hour"))
+public class SalesRollupHourly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_hour", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date bucketHour;
+
+    // "" với đơn chưa được gán cửa hàng
+    @Column(name = "store_id", nullable = false)
+    private String storeId;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false)
+    private Double revenue;
+}
@@ -0,0 +1,46 @@
+package com.example.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Số lượng và doanh thu theo (ngày đặt hàng, cửa hàng, trạng thái hiện tại của đơn, product color).
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "sales_rollup_product_daily",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_sales_rollup_product_daily",
+                columnNames = {"bucket_day", "store_id", "status", "product_color_id"}),
+        indexes = @Index(name = "idx_sales_rollup_product_daily_store", columnList = "store_id, status"))
+public class SalesRollupProductDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_day", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date bucketDay;
+
+    @Column(name = "store_id", nullable = false)
+    private String storeId;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(name = "product_color_id", nullable = false)
+    private String productColorId;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    @Column(nullable = false)
+    private Double revenue;
+}
@@ -7,9 +7,11 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
+import java.util.Map;
 
 @FeignClient(name = "delivery-service")
 public interface DeliveryClient {
@@ -23,6 +25,9 @@ public interface DeliveryClient {
     @GetMapping("/api/delivery-confirmations/order/{orderId}")
     ApiResponse<DeliveryConfirmationResponse> getDeliveryConfirmation(@PathVariable Long orderId);
 
+    @PostMapping("/api/delivery-confirmations/orders/batch")
+    ApiResponse<Map<Long, DeliveryConfirmationResponse>> getDeliveryConfirmationsByOrderIds(@RequestBody List<Long> orderIds);
+
     @PostMapping("/api/delivery/assignments/create")
     ApiResponse<DeliveryAssignmentResponse> createAssignment(
             @RequestParam("orderId") Long orderId,
@@ -3,6 +3,7 @@ package com.example.orderservice.feign;
 import com.example.orderservice.response.ApiResponse;
 import com.example.orderservice.response.InventoryResponse;
 import com.example.orderservice.response.LowStockProductResponse;
+import com.example.orderservice.response.StoreFulfillmentResponse;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import com.example.orderservice.request.InventoryReservationRequest;
+import com.example.orderservice.request.StoreFulfillmentRequest;
 
 @FeignClient(name = "inventory-service")
 public interface InventoryClient {
@@ -50,9 +52,6 @@ public interface InventoryClient {
         @PostMapping("/api/inventories/release")
         ApiResponse<Void> releaseInventory(@RequestParam Long orderId);
 
-        @GetMapping("/api/inventories/stock/check-at-store")
-        ApiResponse<Boolean> checkStockAtStore(
-                        @RequestParam("productColorId") String productColorId,
-                        @RequestParam("storeId") String storeId,
-                        @RequestParam("quantity") Integer quantity);
+        @PostMapping("/api/inventories/stock/check-stores")
+        ApiResponse<List<StoreFulfillmentResponse>> checkStoresFulfillment(@RequestBody StoreFulfillmentRequest request);
 }
@@ -6,6 +6,11 @@ import com.example.orderservice.response.ProductResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
+import java.util.Map;
 
 @FeignClient(name = "product-service",  contextId = "productClient")
 public interface ProductClient {
@@ -15,4 +20,7 @@ public interface ProductClient {
 
     @GetMapping("/api/product-colors/{id}")
      ApiResponse<ProductColorResponse> getProductColor(@PathVariable String id);
+
+    @PostMapping("/api/product-colors/batch")
+    ApiResponse<Map<String, ProductColorResponse>> getProductColorsByIds(@RequestBody List<String> ids);
 }
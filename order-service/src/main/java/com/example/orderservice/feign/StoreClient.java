@@ -6,9 +6,12 @@ import com.example.orderservice.response.StoreResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
+import java.util.Map;
 
 
 @FeignClient(name = "user-service", contextId = "storeClient")
@@ -17,6 +20,9 @@ public interface StoreClient {
     @GetMapping("/api/stores/{id}")
     ApiResponse<StoreResponse> getStoreById(@PathVariable("id") String id);
 
+    @PostMapping("/api/stores/batch")
+    ApiResponse<Map<String, StoreResponse>> getStoresByIds(@RequestBody List<String> ids);
+
     @GetMapping("/api/stores/nearest/list")
      ApiResponse<List<StoreDistance>> getNearestStores(
             @RequestParam double lat,
@@ -9,17 +9,27 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+import java.util.Map;
+
 @FeignClient(name = "user-service", configuration = FeignClientInterceptor.class)
 public interface UserClient {
 
         @GetMapping("/api/addresses/{id}")
         ApiResponse<AddressResponse> getAddressById(@PathVariable Long id);
 
+        @PostMapping("/api/addresses/batch")
+        ApiResponse<Map<Long, AddressResponse>> getAddressesByIds(@RequestBody List<Long> ids);
+
         @GetMapping("/api/users/{id}")
         ApiResponse<UserResponse> getUserById(@PathVariable String id);
 
+        @PostMapping("/api/users/batch")
+        ApiResponse<Map<String, UserResponse>> getUsersByIds(@RequestBody List<String> ids);
+
         @GetMapping("/api/users/account/{accountId}")
         ApiResponse<UserResponse> getUserByAccountId(@PathVariable String accountId);
 
@@ -0,0 +1,44 @@
+package com.example.orderservice.listener;
+
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.service.SalesRollupService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Đánh dấu đơn cần cập nhật rollup mỗi khi Order được ghi.
+ * Chỉ đánh dấu sau khi transaction commit để job rollup đọc được dữ liệu mới.
+ */
+@Component
+public class OrderRollupListener {
+
+    @Lazy
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onOrderChanged(Order order) {
+        Long orderId = order.getId();
+        if (orderId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    salesRollupService.markDirty(orderId);
+                }
+            });
+        } else {
+            salesRollupService.markDirty(orderId);
+        }
+    }
+}
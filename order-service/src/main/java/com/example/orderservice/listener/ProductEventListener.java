@@ -1,43 +1,49 @@
 package com.example.orderservice.listener;
 
 import com.example.orderservice.event.ProductUpdatedEvent;
+import com.example.orderservice.service.ProductServiceClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.CacheManager;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
-import java.util.Objects;
-
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ProductEventListener {
 
-    private final CacheManager cacheManager;
+    private final ProductServiceClient productServiceClient;
 
+    // Mỗi instance một group riêng để mọi node đều nhận event và xoá L1 của mình
     @KafkaListener(
-            topics = "product-updated-topic", 
-            groupId = "order-service-group",
+            topics = "product-updated-topic",
+            groupId = "order-service-product-cache-${random.uuid}",
+            properties = {"auto.offset.reset=latest"},
             containerFactory = "productUpdatedKafkaListenerContainerFactory"
     )
     public void handleProductUpdate(ProductUpdatedEvent event) {
-        log.info("Received product update event for id: {}", event.getProductId());
+        log.info("Received product update event for id: {}, action: {}, productColorIds: {}",
+                event.getProductId(), event.getAction(), event.getProductColorIds());
 
         if (event.getProductId() != null) {
             try {
-                Objects.requireNonNull(cacheManager.getCache("products")).evict(event.getProductId());
-                log.info("Evicted product cache for id: {}", event.getProductId());
+                productServiceClient.evictProduct(event.getProductId());
             } catch (Exception e) {
                 log.warn("Failed to evict products cache: {}", e.getMessage());
             }
         }
 
         try {
-            Objects.requireNonNull(cacheManager.getCache("product-colors")).clear();
-            log.info("Cleared all product-colors cache");
+            if (event.getProductColorIds() != null) {
+                event.getProductColorIds().forEach(productServiceClient::evictProductColor);
+                log.info("Evicted {} product color(s) from cache", event.getProductColorIds().size());
+            } else {
+                // Event cũ không mang productColorIds → không biết màu nào bị ảnh hưởng
+                productServiceClient.clearProductColors();
+                log.info("Cleared all product-colors cache");
+            }
         } catch (Exception e) {
-            log.warn("Failed to clear product-colors cache: {}", e.getMessage());
+            log.warn("Failed to evict product-colors cache: {}", e.getMessage());
         }
     }
 }
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.Lock;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,6 +41,18 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                         @Param("status") com.example.orderservice.enums.EnumProcessOrder status,
                         Pageable pageable);
 
+        // 🔍 Lấy orders theo storeId và nhiều status trong một câu, sắp xếp theo thời gian tạo
+        // (mới nhất trước)
+        @Query("""
+                            SELECT o FROM Order o
+                            WHERE o.isDeleted = false AND o.storeId = :storeId AND o.status IN :statuses
+                            ORDER BY o.createdAt DESC
+                        """)
+        Page<Order> findByStoreIdAndStatusInAndIsDeletedFalse(
+                        @Param("storeId") String storeId,
+                        @Param("statuses") Collection<com.example.orderservice.enums.EnumProcessOrder> statuses,
+                        Pageable pageable);
+
         // 🔍 Lấy tất cả orders của store (không filter status), sắp xếp theo thời gian
         // tạo (mới nhất trước)
         @Query("""
@@ -188,6 +201,24 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                         """)
         Long countByStatus(@Param("status") com.example.orderservice.enums.EnumProcessOrder status);
 
+        @Query("""
+                            SELECT new com.example.orderservice.response.OrderStatusCount(o.status, COUNT(o))
+                            FROM Order o
+                            WHERE o.isDeleted = false
+                            GROUP BY o.status
+                        """)
+        List<com.example.orderservice.response.OrderStatusCount> countGroupedByStatus();
+
+        @Query("""
+                            SELECT new com.example.orderservice.response.OrderStatusCount(o.status, COUNT(o))
+                            FROM Order o
+                            WHERE o.isDeleted = false
+                              AND o.storeId = :storeId
+                            GROUP BY o.status
+                        """)
+        List<com.example.orderservice.response.OrderStatusCount> countByStoreGroupedByStatus(
+                        @Param("storeId") String storeId);
+
         @Query("""
                             SELECT COUNT(o)
                             FROM Order o
@@ -377,4 +408,31 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             @Param("statuses") List<com.example.orderservice.enums.EnumProcessOrder> statuses,
             @Param("startDate") java.util.Date startDate,
             @Param("endDate") java.util.Date endDate);
+
+        // Rollup analytics
+        @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderDetails WHERE o.id IN :ids")
+        List<Order> findAllWithDetailsByIdIn(@Param("ids") java.util.Collection<Long> ids);
+
+        // row: [storeId, refundedAmount]
+        @Query("""
+            SELECT o.storeId, COALESCE(SUM(p.total), 0)
+            FROM Payment p
+            JOIN p.order o
+            WHERE o.isDeleted = false
+              AND o.status IN :statuses
+              AND p.paymentStatus = 'REFUNDED'
+            GROUP BY o.storeId
+        """)
+        List<Object[]> getRefundedAmountGroupedByStore(
+            @Param("statuses") List<com.example.orderservice.enums.EnumProcessOrder> statuses);
+
+        // Projection gọn cho danh sách giao hàng: không load orderDetails / payment / processOrders
+        // [id, storeId, userId, addressId, status, total, depositPrice, orderDate, note, lineCount]
+        @Query("""
+            SELECT o.id, o.storeId, o.userId, o.addressId, o.status, o.total, o.depositPrice, o.orderDate, o.note,
+                   (SELECT COUNT(d) FROM OrderDetail d WHERE d.order = o)
+            FROM Order o
+            WHERE o.id IN :ids AND o.isDeleted = false
+        """)
+        List<Object[]> findSummariesByIds(@Param("ids") Collection<Long> ids);
 }
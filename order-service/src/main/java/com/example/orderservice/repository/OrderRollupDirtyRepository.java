@@ -0,0 +1,48 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.OrderRollupDirty;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface OrderRollupDirtyRepository extends JpaRepository<OrderRollupDirty, Long> {
+
+    // Gọi từ afterCommit của transaction ghi đơn nên cần transaction riêng.
+    // DO UPDATE (không phải DO NOTHING): nếu job đang giữ dòng này bằng FOR UPDATE thì chờ job commit rồi chèn lại,
+    // nên thay đổi đến sau lúc job đọc đơn không bị xoá mất
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = """
+            INSERT INTO order_rollup_dirty (order_id, marked_at) VALUES (:orderId, now())
+            ON CONFLICT (order_id) DO UPDATE SET marked_at = EXCLUDED.marked_at
+            """, nativeQuery = true)
+    void mark(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO order_rollup_dirty (order_id, marked_at)
+            SELECT o.id, now() FROM orders o WHERE o.updated_at >= :since
+            ON CONFLICT (order_id) DO UPDATE SET marked_at = EXCLUDED.marked_at
+            """, nativeQuery = true)
+    int markUpdatedSince(@Param("since") Date since);
+
+    @Query(value = """
+            SELECT order_id FROM order_rollup_dirty
+            ORDER BY order_id
+            LIMIT :limit
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<Long> lockBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_rollup_dirty WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int deleteByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
@@ -0,0 +1,23 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.OrderRollupState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OrderRollupStateRepository extends JpaRepository<OrderRollupState, Long> {
+
+    // Chỉ một instance cập nhật rollup tại một thời điểm
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    boolean tryAcquireRollupLock(@Param("lockKey") long lockKey);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_rollup_state (order_id, bucket_hour, store_id, status, total)
+            SELECT o.id, date_trunc('hour', o.order_date), COALESCE(o.store_id, ''), o.status, COALESCE(o.total, 0)
+            FROM orders o
+            WHERE o.is_deleted = false AND o.status IS NOT NULL AND o.order_date IS NOT NULL
+            """, nativeQuery = true)
+    int rebuildFromOrders();
+}
@@ -3,9 +3,12 @@ package com.example.orderservice.repository;
 import com.example.orderservice.entity.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByOrderId(Long orderId);
+
+    List<Payment> findByOrderIdIn(Collection<Long> orderIds);
 }
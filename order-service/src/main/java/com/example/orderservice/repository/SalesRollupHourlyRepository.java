@@ -0,0 +1,110 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.SalesRollupHourly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface SalesRollupHourlyRepository extends JpaRepository<SalesRollupHourly, Long> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO sales_rollup_hourly (bucket_hour, store_id, status, order_count, revenue)
+            VALUES (:bucketHour, :storeId, :status, :orderCount, :revenue)
+            ON CONFLICT (bucket_hour, store_id, status) DO UPDATE
+            SET order_count = sales_rollup_hourly.order_count + EXCLUDED.order_count,
+                revenue = sales_rollup_hourly.revenue + EXCLUDED.revenue
+            """, nativeQuery = true)
+    void increment(@Param("bucketHour") Date bucketHour,
+                   @Param("storeId") String storeId,
+                   @Param("status") String status,
+                   @Param("orderCount") long orderCount,
+                   @Param("revenue") double revenue);
+
+    // Dựng lại từ orders bằng một câu lệnh; cùng quy tắc với SalesRollupService.snapshot
+    @Modifying
+    @Query(value = """
+            INSERT INTO sales_rollup_hourly (bucket_hour, store_id, status, order_count, revenue)
+            SELECT date_trunc('hour', o.order_date), COALESCE(o.store_id, ''), o.status,
+                   COUNT(*), COALESCE(SUM(o.total), 0)
+            FROM orders o
+            WHERE o.is_deleted = false AND o.status IS NOT NULL AND o.order_date IS NOT NULL
+            GROUP BY date_trunc('hour', o.order_date), COALESCE(o.store_id, ''), o.status
+            """, nativeQuery = true)
+    int rebuildFromOrders();
+
+    @Query(value = """
+            SELECT COALESCE(SUM(revenue), 0) FROM sales_rollup_hourly
+            WHERE status IN (:statuses) AND bucket_hour >= :from AND bucket_hour < :to
+            """, nativeQuery = true)
+    Double sumRevenue(@Param("statuses") Collection<String> statuses,
+                      @Param("from") Date from,
+                      @Param("to") Date to);
+
+    @Query(value = """
+            SELECT COALESCE(SUM(revenue), 0) FROM sales_rollup_hourly
+            WHERE store_id = :storeId AND status IN (:statuses) AND bucket_hour >= :from AND bucket_hour < :to
+            """, nativeQuery = true)
+    Double sumRevenueByStore(@Param("storeId") String storeId,
+                             @Param("statuses") Collection<String> statuses,
+                             @Param("from") Date from,
+                             @Param("to") Date to);
+
+    @Query(value = """
+            SELECT COALESCE(SUM(order_count), 0) FROM sales_rollup_hourly
+            WHERE store_id = :storeId AND bucket_hour >= :from AND bucket_hour < :to
+            """, nativeQuery = true)
+    Long sumOrderCountByStore(@Param("storeId") String storeId,
+                              @Param("from") Date from,
+                              @Param("to") Date to);
+
+    @Query(value = """
+            SELECT COALESCE(SUM(order_count), 0) FROM sales_rollup_hourly
+            WHERE store_id = :storeId AND status IN (:statuses) AND bucket_hour >= :from AND bucket_hour < :to
+            """, nativeQuery = true)
+    Long sumOrderCountByStoreAndStatuses(@Param("storeId") String storeId,
+                                         @Param("statuses") Collection<String> statuses,
+                                         @Param("from") Date from,
+                                         @Param("to") Date to);
+
+    // row: [day, revenue, orderCount]
+    @Query(value = """
+            SELECT CAST(bucket_hour AS date) AS day, COALESCE(SUM(revenue), 0), COALESCE(SUM(order_count), 0)
+            FROM sales_rollup_hourly
+            WHERE status IN (:statuses) AND bucket_hour >= :from AND bucket_hour < :to
+            GROUP BY CAST(bucket_hour AS date)
+            ORDER BY day ASC
+            """, nativeQuery = true)
+    List<Object[]> dailySeries(@Param("statuses") Collection<String> statuses,
+                               @Param("from") Date from,
+                               @Param("to") Date to);
+
+    // row: [day, revenue, orderCount]
+    @Query(value = """
+            SELECT CAST(bucket_hour AS date) AS day, COALESCE(SUM(revenue), 0), COALESCE(SUM(order_count), 0)
+            FROM sales_rollup_hourly
+            WHERE store_id = :storeId AND status IN (:statuses) AND bucket_hour >= :from AND bucket_hour < :to
+            GROUP BY CAST(bucket_hour AS date)
+            ORDER BY day ASC
+            """, nativeQuery = true)
+    List<Object[]> dailySeriesByStore(@Param("storeId") String storeId,
+                                      @Param("statuses") Collection<String> statuses,
+                                      @Param("from") Date from,
+                                      @Param("to") Date to);
+
+    // row: [storeId, revenue (chỉ các status truyền vào), orderCount (mọi status)]
+    @Query(value = """
+            SELECT store_id,
+                   COALESCE(SUM(CASE WHEN status IN (:statuses) THEN revenue ELSE 0 END), 0),
+                   COALESCE(SUM(order_count), 0)
+            FROM sales_rollup_hourly
+            WHERE store_id <> ''
+            GROUP BY store_id
+            """, nativeQuery = true)
+    List<Object[]> totalsByStore(@Param("statuses") Collection<String> statuses);
+}
@@ -0,0 +1,70 @@
+package com.example.orderservice.repository;
+
+import com.example.orderservice.entity.SalesRollupProductDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface SalesRollupProductDailyRepository extends JpaRepository<SalesRollupProductDaily, Long> {
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO sales_rollup_product_daily (bucket_day, store_id, status, product_color_id, quantity, revenue)
+            VALUES (:bucketDay, :storeId, :status, :productColorId, :quantity, :revenue)
+            ON CONFLICT (bucket_day, store_id, status, product_color_id) DO UPDATE
+            SET quantity = sales_rollup_product_daily.quantity + EXCLUDED.quantity,
+                revenue = sales_rollup_product_daily.revenue + EXCLUDED.revenue
+            """, nativeQuery = true)
+    void increment(@Param("bucketDay") Date bucketDay,
+                   @Param("storeId") String storeId,
+                   @Param("status") String status,
+                   @Param("productColorId") String productColorId,
+                   @Param("quantity") long quantity,
+                   @Param("revenue") double revenue);
+
+    // Dựng lại từ orders / order_detail bằng một câu lệnh; cùng quy tắc với SalesRollupService.contribute
+    @Modifying
+    @Query(value = """
+            INSERT INTO sales_rollup_product_daily (bucket_day, store_id, status, product_color_id, quantity, revenue)
+            SELECT date_trunc('day', o.order_date), COALESCE(o.store_id, ''), o.status, d.product_color_id,
+                   COALESCE(SUM(d.quantity), 0), COALESCE(SUM(d.quantity * d.price), 0)
+            FROM orders o
+            JOIN order_detail d ON d.order_id = o.id
+            WHERE o.is_deleted = false AND o.status IS NOT NULL AND o.order_date IS NOT NULL
+              AND d.is_deleted = false AND d.product_color_id IS NOT NULL
+            GROUP BY date_trunc('day', o.order_date), COALESCE(o.store_id, ''), o.status, d.product_color_id
+            """, nativeQuery = true)
+    int rebuildFromOrders();
+
+    // row: [productColorId, totalQuantity, totalRevenue]
+    @Query(value = """
+            SELECT product_color_id, SUM(quantity) AS total_quantity, SUM(revenue)
+            FROM sales_rollup_product_daily
+            WHERE status IN (:statuses)
+            GROUP BY product_color_id
+            HAVING SUM(quantity) > 0
+            ORDER BY total_quantity DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> topProducts(@Param("statuses") Collection<String> statuses,
+                               @Param("limit") int limit);
+
+    // row: [productColorId, totalQuantity, totalRevenue]
+    @Query(value = """
+            SELECT product_color_id, SUM(quantity) AS total_quantity, SUM(revenue)
+            FROM sales_rollup_product_daily
+            WHERE store_id = :storeId AND status IN (:statuses)
+            GROUP BY product_color_id
+            HAVING SUM(quantity) > 0
+            ORDER BY total_quantity DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Object[]> topProductsByStore(@Param("storeId") String storeId,
+                                      @Param("statuses") Collection<String> statuses,
+                                      @Param("limit") int limit);
+}
@@ -0,0 +1,26 @@
+package com.example.orderservice.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StoreFulfillmentRequest {
+    private List<String> storeIds;
+    private List<Item> items;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class Item {
+        private String productColorId;
+        private int quantity;
+    }
+}
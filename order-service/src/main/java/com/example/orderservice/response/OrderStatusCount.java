@@ -0,0 +1,37 @@
+package com.example.orderservice.response;
+
+import com.example.orderservice.enums.EnumProcessOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Một dòng kết quả của các query đếm đơn GROUP BY status.
+ */
+@Data
+@AllArgsConstructor
+public class OrderStatusCount {
+    private EnumProcessOrder status;
+    private Long count;
+
+    public static Map<EnumProcessOrder, Long> toMap(List<OrderStatusCount> rows) {
+        Map<EnumProcessOrder, Long> counts = new EnumMap<>(EnumProcessOrder.class);
+        for (OrderStatusCount row : rows) {
+            if (row.getStatus() != null) {
+                counts.put(row.getStatus(), row.getCount() != null ? row.getCount() : 0L);
+            }
+        }
+        return counts;
+    }
+
+    public static long sum(Map<EnumProcessOrder, Long> counts, List<EnumProcessOrder> statuses) {
+        long total = 0;
+        for (EnumProcessOrder status : statuses) {
+            total += counts.getOrDefault(status, 0L);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.orderservice.response;
+
+import com.example.orderservice.enums.EnumProcessOrder;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Thông tin gọn của đơn cho các danh sách ở service khác (giao hàng...):
+ * không kèm chi tiết sản phẩm, payment hay user nên không phải gọi sang service khác theo từng dòng.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+    private Long id;
+    private String storeId;
+    private String userId;
+    private EnumProcessOrder status;
+    private Double total;
+    private Double depositPrice;
+    private Date orderDate;
+    private String note;
+    private Integer lineCount;
+    private AddressResponse address;
+}
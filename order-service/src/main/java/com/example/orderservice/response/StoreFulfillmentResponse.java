@@ -0,0 +1,20 @@
+package com.example.orderservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoreFulfillmentResponse {
+    private String storeId;
+    private boolean fulfillable;
+    private int fulfilledLines;
+    private int totalLines;
+    private Map<String, Integer> shortages;
+}
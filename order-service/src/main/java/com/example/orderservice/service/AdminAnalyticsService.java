@@ -4,7 +4,6 @@ import com.example.orderservice.enums.EnumProcessOrder;
 import com.example.orderservice.feign.ProductClient;
 import com.example.orderservice.feign.StoreClient;
 import com.example.orderservice.feign.UserClient;
-import com.example.orderservice.repository.OrderDetailRepository;
 import com.example.orderservice.repository.OrderRepository;
 import com.example.orderservice.response.*;
 import lombok.RequiredArgsConstructor;
@@ -21,10 +20,10 @@ import java.util.stream.Collectors;
 public class AdminAnalyticsService {
 
     private final OrderRepository orderRepository;
-    private final OrderDetailRepository orderDetailRepository;
     private final StoreClient storeClient;
     private final UserClient userClient;
     private final ProductClient productClient;
+    private final SalesRollupService salesRollupService;
 
     private static final List<EnumProcessOrder> COMPLETED_STATUSES = Arrays.asList(
             EnumProcessOrder.DELIVERED,
@@ -36,8 +35,7 @@ public class AdminAnalyticsService {
         log.info("Getting overview statistics");
 
         // 1. Total Revenue (Net Revenue = Gross Revenue - Refunded Amount)
-        Double grossRevenue = orderRepository.getTotalRevenueByStatuses(COMPLETED_STATUSES);
-        if (grossRevenue == null) grossRevenue = 0.0;
+        Double grossRevenue = salesRollupService.getRevenue(COMPLETED_STATUSES);
         
         Double totalRefunded = orderRepository.getTotalRefundedAmountByStatuses(COMPLETED_STATUSES);
         if (totalRefunded == null) totalRefunded = 0.0;
@@ -88,22 +86,27 @@ public class AdminAnalyticsService {
             // Get all stores
             ApiResponse<List<StoreResponse>> storesResponse = storeClient.getAllStores();
             if (storesResponse != null && storesResponse.getData() != null) {
+                // Doanh thu + số đơn của mọi chi nhánh lấy từ rollup, hoàn tiền gom theo store: 2 query cho tất cả
+                Map<String, Object[]> totalsByStore = new HashMap<>();
+                for (Object[] row : salesRollupService.getTotalsByStore(COMPLETED_STATUSES)) {
+                    totalsByStore.put((String) row[0], row);
+                }
+                Map<String, Double> refundedByStore = new HashMap<>();
+                for (Object[] row : orderRepository.getRefundedAmountGroupedByStore(COMPLETED_STATUSES)) {
+                    refundedByStore.put((String) row[0], row[1] != null ? ((Number) row[1]).doubleValue() : 0.0);
+                }
+
                 for (StoreResponse store : storesResponse.getData()) {
-                    // Get revenue for this store (Net Revenue = Gross Revenue - Refunded Amount)
-                    Double grossRevenue = orderRepository.getTotalRevenueByStoreAndStatuses(
-                            store.getId(), COMPLETED_STATUSES);
-                    if (grossRevenue == null) grossRevenue = 0.0;
-                    
-                    Double totalRefunded = orderRepository.getTotalRefundedAmountByStoreAndStatuses(
-                            store.getId(), COMPLETED_STATUSES);
-                    if (totalRefunded == null) totalRefunded = 0.0;
-                    
+                    Object[] totals = totalsByStore.get(store.getId());
+
+                    // Net Revenue = Gross Revenue - Refunded Amount
+                    Double grossRevenue = totals != null ? ((Number) totals[1]).doubleValue() : 0.0;
+                    Double totalRefunded = refundedByStore.getOrDefault(store.getId(), 0.0);
+
                     Double revenue = grossRevenue - totalRefunded;
                     if (revenue < 0) revenue = 0.0; // Ensure non-negative
 
-                    // Get order count for this store
-                    Long orderCount = orderRepository.countByStoreId(store.getId());
-                    if (orderCount == null) orderCount = 0L;
+                    Long orderCount = totals != null ? ((Number) totals[2]).longValue() : 0L;
 
                     branchRevenues.add(RevenueByBranchResponse.BranchRevenueData.builder()
                             .branchId(store.getId())
@@ -130,10 +133,9 @@ public class AdminAnalyticsService {
         log.info("Getting top {} products", limit);
 
         try {
-            List<Object[]> results = orderDetailRepository.getTopProductsBySales(COMPLETED_STATUSES);
+            List<Object[]> results = salesRollupService.getTopProducts(COMPLETED_STATUSES, limit);
 
             return results.stream()
-                    .limit(limit)
                     .map(result -> {
                         String productColorId = (String) result[0];
                         Long totalQuantity = ((Number) result[1]).longValue();
@@ -190,11 +192,11 @@ public class AdminAnalyticsService {
         List<DeliveryPerformanceResponse.DeliveryStatusData> statusDataList = new ArrayList<>();
         long totalDeliveries = 0;
 
-        // Get counts for each delivery status
-        Map<EnumProcessOrder, Long> statusCounts = new HashMap<>();
+        // Get counts for each delivery status (1 query GROUP BY)
+        Map<EnumProcessOrder, Long> statusCounts = new EnumMap<>(EnumProcessOrder.class);
+        Map<EnumProcessOrder, Long> counts = OrderStatusCount.toMap(orderRepository.countGroupedByStatus());
         for (EnumProcessOrder status : EnumProcessOrder.values()) {
-            Long count = orderRepository.countByStatus(status);
-            if (count == null) count = 0L;
+            Long count = counts.getOrDefault(status, 0L);
             statusCounts.put(status, count);
             totalDeliveries += count;
         }
@@ -19,11 +19,11 @@ import com.example.orderservice.feign.UserClient;
 import com.example.orderservice.repository.OrderRepository;
 import com.example.orderservice.repository.PaymentRepository;
 import com.example.orderservice.repository.ProcessOrderRepository;
+import com.example.orderservice.request.StoreFulfillmentRequest;
 import com.example.orderservice.response.*;
 import com.example.orderservice.service.inteface.AssignOrderService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -40,7 +40,7 @@ public class AssignOrderServiceImpl implements AssignOrderService {
     private final ProcessOrderRepository processOrderRepository;
     private final QRCodeService qrCodeService;
     private final PaymentRepository paymentRepository;
-    private final KafkaTemplate<String, OrderCreatedEvent> kafkaTemplate;
+    private final OutboxService outboxService;
     private final ProductClient productClient;
     private final AIClient aiClient;
     private final DeliveryClient deliveryClient;
@@ -100,18 +100,8 @@ public class AssignOrderServiceImpl implements AssignOrderService {
                 .items(orderItems)
                 .build();
 
-        try {
-            kafkaTemplate.send("store-assigned-topic", event)
-                    .whenComplete((result, ex) -> {
-                        if (ex != null) {
-                            log.error("Kafka send failed: {}", ex.getMessage());
-                        } else {
-                            log.info("Successfully sent order creation event for: {}", event.getOrderId());
-                        }
-                    });
-        } catch (Exception e) {
-            log.error("Failed to send Kafka event {}, error: {}", event.getFullName(), e.getMessage());
-        }
+        outboxService.enqueue("store-assigned-topic", event.getOrderId(), event);
+        log.info("Queued store assigned event for: {}", event.getOrderId());
         processOrderRepository.save(process);
         orderRepository.save(order);
 
@@ -194,18 +184,8 @@ public class AssignOrderServiceImpl implements AssignOrderService {
                     .items(eventItems)
                     .build();
 
-            try {
-                kafkaTemplate.send("order-created-topic", event)
-                        .whenComplete((result, ex) -> {
-                            if (ex != null) {
-                                log.error("Kafka send failed: {}", ex.getMessage());
-                            } else {
-                                log.info("Successfully sent order creation event for orderId: {}", event.getOrderId());
-                            }
-                        });
-            } catch (Exception e) {
-                log.error("Failed to send Kafka event for user {}, error: {}", userData.getFullName(), e.getMessage());
-            }
+            outboxService.enqueue("order-created-topic", event.getOrderId(), event);
+            log.info("Queued order creation event for orderId: {}", event.getOrderId());
 
             orderRepository.save(order);
         }
@@ -384,23 +364,37 @@ public class AssignOrderServiceImpl implements AssignOrderService {
                 .filter(sd -> !sd.getStore().getId().equals(order.getLastRejectedStoreId()))
                 .toList();
 
-        for (StoreDistance candidate : candidates) {
-            String storeId = candidate.getStore().getId();
+        if (candidates.isEmpty()) {
+            return null;
+        }
 
-            boolean hasAllProducts = order.getOrderDetails().stream().allMatch(detail -> {
-                try {
-                    ApiResponse<Boolean> stockCheck = inventoryClient.checkStockAtStore(
-                            detail.getProductColorId(),
-                            storeId,
-                            detail.getQuantity());
-                    return stockCheck != null && stockCheck.getData() != null && stockCheck.getData();
-                } catch (Exception e) {
-                    log.warn("Error checking stock: {}", e.getMessage());
-                    return false;
+        // Kiểm tra tồn kho của tất cả ứng viên cho cả đơn trong một lần gọi
+        Set<String> fulfillableStoreIds = new HashSet<>();
+        try {
+            ApiResponse<List<StoreFulfillmentResponse>> stockCheck = inventoryClient.checkStoresFulfillment(
+                    StoreFulfillmentRequest.builder()
+                            .storeIds(candidates.stream().map(sd -> sd.getStore().getId()).toList())
+                            .items(order.getOrderDetails().stream()
+                                    .map(detail -> new StoreFulfillmentRequest.Item(
+                                            detail.getProductColorId(), detail.getQuantity()))
+                                    .toList())
+                            .build());
+            if (stockCheck != null && stockCheck.getData() != null) {
+                for (StoreFulfillmentResponse fulfillment : stockCheck.getData()) {
+                    if (fulfillment.isFulfillable()) {
+                        fulfillableStoreIds.add(fulfillment.getStoreId());
+                    }
                 }
-            });
+            }
+        } catch (Exception e) {
+            log.warn("Error checking stock: {}", e.getMessage());
+            return null;
+        }
 
-            if (hasAllProducts) {
+        // Ứng viên đã sắp theo khoảng cách: chọn store gần nhất có đủ hàng
+        for (StoreDistance candidate : candidates) {
+            String storeId = candidate.getStore().getId();
+            if (fulfillableStoreIds.contains(storeId)) {
                 log.info("✅ Tìm thấy store {} có đủ hàng (distance: {}km)",
                         storeId, candidate.getDistance());
                 return storeId;
@@ -3,7 +3,6 @@ package com.example.orderservice.service;
 import com.example.orderservice.enums.EnumProcessOrder;
 import com.example.orderservice.feign.InventoryClient;
 import com.example.orderservice.feign.ProductClient;
-import com.example.orderservice.repository.OrderDetailRepository;
 import com.example.orderservice.repository.OrderRepository;
 import com.example.orderservice.response.*;
 import lombok.RequiredArgsConstructor;
@@ -21,15 +20,23 @@ import java.util.stream.Collectors;
 public class BranchAnalyticsService {
 
     private final OrderRepository orderRepository;
-    private final OrderDetailRepository orderDetailRepository;
     private final InventoryClient inventoryClient;
     private final ProductClient productClient;
+    private final SalesRollupService salesRollupService;
 
     private static final List<EnumProcessOrder> COMPLETED_STATUSES = Arrays.asList(
             EnumProcessOrder.DELIVERED,
             EnumProcessOrder.FINISHED
     );
 
+    private static final List<EnumProcessOrder> PROCESSING_STATUSES = Arrays.asList(
+            EnumProcessOrder.SHIPPING,
+            EnumProcessOrder.PACKAGED,
+            EnumProcessOrder.CONFIRMED,
+            EnumProcessOrder.MANAGER_ACCEPT,
+            EnumProcessOrder.READY_FOR_INVOICE
+    );
+
     @Transactional(readOnly = true)
     public BranchDailyStatsResponse getDailyStats(String storeId) {
         log.info("Getting daily stats for store: {}", storeId);
@@ -46,42 +53,23 @@ public class BranchAnalyticsService {
         Date endOfDay = cal.getTime();
 
         // Total orders today
-        Long totalOrdersToday = orderRepository.countByStoreIdAndDateRange(storeId, startOfDay, endOfDay);
-        if (totalOrdersToday == null) totalOrdersToday = 0L;
+        Long totalOrdersToday = salesRollupService.countStoreOrders(storeId, startOfDay, endOfDay);
+
+        // Số đơn hiện tại theo trạng thái của cửa hàng (1 query GROUP BY)
+        Map<EnumProcessOrder, Long> statusCounts = OrderStatusCount.toMap(
+                orderRepository.countByStoreGroupedByStatus(storeId));
 
         // Pending orders
-        Long pendingOrders = orderRepository.countOrdersByStoreAndStatus(storeId, EnumProcessOrder.ASSIGN_ORDER_STORE);
-        if (pendingOrders == null) pendingOrders = 0L;
+        Long pendingOrders = statusCounts.getOrDefault(EnumProcessOrder.ASSIGN_ORDER_STORE, 0L);
 
         // Processing orders (SHIPPING, PACKAGED, CONFIRMED)
-        Long processingOrders = 0L;
-        for (EnumProcessOrder status : Arrays.asList(
-                EnumProcessOrder.SHIPPING,
-                EnumProcessOrder.PACKAGED,
-                EnumProcessOrder.CONFIRMED,
-                EnumProcessOrder.MANAGER_ACCEPT,
-                EnumProcessOrder.READY_FOR_INVOICE
-        )) {
-            Long count = orderRepository.countOrdersByStoreAndStatus(storeId, status);
-            if (count != null) {
-                processingOrders += count;
-            }
-        }
+        Long processingOrders = OrderStatusCount.sum(statusCounts, PROCESSING_STATUSES);
 
         // Completed orders today
-        Long completedOrders = 0L;
-        for (EnumProcessOrder status : COMPLETED_STATUSES) {
-            Long count = orderRepository.countOrdersByStoreAndStatusAndDateRange(
-                    storeId, status, startOfDay, endOfDay);
-            if (count != null) {
-                completedOrders += count;
-            }
-        }
+        Long completedOrders = salesRollupService.countStoreOrders(storeId, COMPLETED_STATUSES, startOfDay, endOfDay);
 
         // Revenue today (Net Revenue = Gross Revenue - Refunded Amount)
-        Double grossRevenue = orderRepository.getTotalRevenueByStoreAndStatusesAndDateRange(
-                storeId, COMPLETED_STATUSES, startOfDay, endOfDay);
-        if (grossRevenue == null) grossRevenue = 0.0;
+        Double grossRevenue = salesRollupService.getStoreRevenue(storeId, COMPLETED_STATUSES, startOfDay, endOfDay);
         
         Double totalRefunded = orderRepository.getTotalRefundedAmountByStoreAndStatusesAndDateRange(
                 storeId, COMPLETED_STATUSES, startOfDay, endOfDay);
@@ -179,7 +167,7 @@ public class BranchAnalyticsService {
 
         try {
             // Get gross revenue chart data
-            List<Object[]> revenueResults = orderRepository.getRevenueChartDataByStore(
+            List<Object[]> revenueResults = salesRollupService.getStoreDailyRevenue(
                     storeId, COMPLETED_STATUSES, startDate, endDate);
             
             // Get refunded amount chart data
@@ -233,10 +221,11 @@ public class BranchAnalyticsService {
         List<OrderStatusBreakdownResponse.StatusCount> statusCounts = new ArrayList<>();
         long totalOrders = 0;
 
-        // Get counts for each status
+        // Get counts for each status (1 query GROUP BY)
+        Map<EnumProcessOrder, Long> counts = OrderStatusCount.toMap(
+                orderRepository.countByStoreGroupedByStatus(storeId));
         for (EnumProcessOrder status : EnumProcessOrder.values()) {
-            Long count = orderRepository.countOrdersByStoreAndStatus(storeId, status);
-            if (count == null) count = 0L;
+            Long count = counts.getOrDefault(status, 0L);
             totalOrders += count;
 
             statusCounts.add(OrderStatusBreakdownResponse.StatusCount.builder()
@@ -265,11 +254,9 @@ public class BranchAnalyticsService {
         log.info("Getting top {} products for store: {}", limit, storeId);
 
         try {
-            List<Object[]> results = orderDetailRepository.getTopProductsBySalesAndStore(
-                    storeId, COMPLETED_STATUSES);
+            List<Object[]> results = salesRollupService.getStoreTopProducts(storeId, COMPLETED_STATUSES, limit);
 
             return results.stream()
-                    .limit(limit)
                     .map(result -> {
                         String productColorId = (String) result[0];
                         Long totalQuantity = ((Number) result[1]).longValue();
@@ -2,6 +2,7 @@ package com.example.orderservice.service;
 
 import com.example.orderservice.entity.Cart;
 import com.example.orderservice.entity.CartItem;
+import com.example.orderservice.enums.EnumRole;
 import com.example.orderservice.enums.ErrorCode;
 import com.example.orderservice.exception.AppException;
 import com.example.orderservice.feign.*;
@@ -286,6 +287,12 @@ public class CartServiceImpl implements CartService {
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
 
+        // Token mới mang sẵn userId → không cần gọi user-service
+        if (authentication.getPrincipal() instanceof TokenUserDetails principal
+                && principal.getUserId() != null && EnumRole.CUSTOMER.equals(principal.getRole())) {
+            return principal.getUserId();
+        }
+
         String username = authentication.getName();
         ApiResponse<AuthResponse> response = authClient.getUserByUsername(username);
 
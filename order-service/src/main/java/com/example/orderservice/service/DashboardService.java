@@ -3,35 +3,64 @@ package com.example.orderservice.service;
 import com.example.orderservice.enums.EnumProcessOrder;
 import com.example.orderservice.feign.DeliveryClient;
 import com.example.orderservice.feign.InventoryClient;
-import com.example.orderservice.feign.ProductClient;
 import com.example.orderservice.feign.StoreClient;
 import com.example.orderservice.feign.UserClient;
-import com.example.orderservice.repository.OrderDetailRepository;
 import com.example.orderservice.repository.OrderRepository;
 import com.example.orderservice.response.*;
 import com.example.orderservice.response.StaffDashboardResponse;
-import lombok.RequiredArgsConstructor;
+import com.example.orderservice.service.DashboardSnapshotCache.Snapshot;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Dữ liệu dashboard admin / manager / staff.
+ * Mỗi dashboard được cache theo role + store (staff: theo staffId) và làm mới nền khi hết hạn,
+ * các tile gọi song song trên dashboardExecutor, tile nào lỗi / quá timeout thì dùng giá trị mặc định.
+ * Tile lấy số liệu từ service khác mặc định null (không phải 0 / danh sách rỗng) để client phân biệt "không lấy được".
+ * Refresh nền chạy trên pool riêng để không chiếm thread của các tile mà nó đang chờ.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class DashboardService {
 
     private final OrderRepository orderRepository;
-    private final OrderDetailRepository orderDetailRepository;
     private final StoreClient storeClient;
     private final UserClient userClient;
-    private final ProductClient productClient;
+    private final ProductServiceClient productServiceClient;
     private final InventoryClient inventoryClient;
     private final DeliveryClient deliveryClient;
     private final AdminAnalyticsService adminAnalyticsService;
+    private final SalesRollupService salesRollupService;
+    private final Executor executor;
+    private final Executor refreshExecutor;
+
+    @Value("${app.dashboard.cache.fresh-seconds:30}")
+    private long freshSeconds;
+
+    @Value("${app.dashboard.cache.max-stale-seconds:600}")
+    private long maxStaleSeconds;
+
+    @Value("${app.dashboard.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${app.dashboard.tile-timeout-ms:2000}")
+    private long tileTimeoutMs;
+
+    private DashboardSnapshotCache<AdminDashboardResponse> adminCache;
+    private DashboardSnapshotCache<ManagerDashboardResponse> managerCache;
+    private DashboardSnapshotCache<StaffDashboardResponse> staffCache;
 
     // Statuses that count as completed/revenue-generating orders
     private static final List<EnumProcessOrder> COMPLETED_STATUSES = Arrays.asList(
@@ -39,314 +68,337 @@ public class DashboardService {
             EnumProcessOrder.FINISHED
     );
 
-    @Transactional(readOnly = true)
+    public DashboardService(OrderRepository orderRepository,
+                            StoreClient storeClient,
+                            UserClient userClient,
+                            ProductServiceClient productServiceClient,
+                            InventoryClient inventoryClient,
+                            DeliveryClient deliveryClient,
+                            AdminAnalyticsService adminAnalyticsService,
+                            SalesRollupService salesRollupService,
+                            @Qualifier("dashboardExecutor") Executor executor,
+                            @Qualifier("dashboardRefreshExecutor") Executor refreshExecutor) {
+        this.orderRepository = orderRepository;
+        this.storeClient = storeClient;
+        this.userClient = userClient;
+        this.productServiceClient = productServiceClient;
+        this.inventoryClient = inventoryClient;
+        this.deliveryClient = deliveryClient;
+        this.adminAnalyticsService = adminAnalyticsService;
+        this.salesRollupService = salesRollupService;
+        this.executor = executor;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @PostConstruct
+    void initCaches() {
+        long freshMillis = TimeUnit.SECONDS.toMillis(freshSeconds);
+        long maxStaleMillis = TimeUnit.SECONDS.toMillis(maxStaleSeconds);
+        adminCache = new DashboardSnapshotCache<>("admin-dashboard", freshMillis, maxStaleMillis, 1, refreshExecutor);
+        managerCache = new DashboardSnapshotCache<>("manager-dashboard", freshMillis, maxStaleMillis, maxEntries, refreshExecutor);
+        staffCache = new DashboardSnapshotCache<>("staff-dashboard", freshMillis, maxStaleMillis, maxEntries, refreshExecutor);
+    }
+
     public AdminDashboardResponse getAdminDashboard() {
+        return adminCache.get("ADMIN", this::loadAdminDashboard);
+    }
+
+    public ManagerDashboardResponse getManagerDashboard(String storeId) {
+        return managerCache.get("BRANCH_MANAGER:" + storeId, () -> loadManagerDashboard(storeId));
+    }
+
+    public StaffDashboardResponse getStaffDashboard(String staffId) {
+        return staffCache.get("STAFF:" + staffId, () -> loadStaffDashboard(staffId));
+    }
+
+    public Map<String, Map<String, Object>> getCacheStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put(adminCache.getName(), adminCache.stats());
+        stats.put(managerCache.getName(), managerCache.stats());
+        stats.put(staffCache.getName(), staffCache.stats());
+        return stats;
+    }
+
+    private Snapshot<AdminDashboardResponse> loadAdminDashboard() {
         log.info("Getting admin dashboard data");
+        Tiles tiles = new Tiles();
 
         // 1. Total Revenue (Net Revenue = Gross Revenue - Refunded Amount)
-        Double grossRevenue = orderRepository.getTotalRevenueByStatuses(COMPLETED_STATUSES);
-        if (grossRevenue == null) grossRevenue = 0.0;
-        
-        Double totalRefunded = orderRepository.getTotalRefundedAmountByStatuses(COMPLETED_STATUSES);
-        if (totalRefunded == null) totalRefunded = 0.0;
-        
-        Double totalRevenue = grossRevenue - totalRefunded;
-        if (totalRevenue < 0) totalRevenue = 0.0; // Ensure non-negative
+        CompletableFuture<Double> totalRevenue = tiles.submit("totalRevenue", () -> {
+            Double grossRevenue = salesRollupService.getRevenue(COMPLETED_STATUSES);
+
+            Double totalRefunded = orderRepository.getTotalRefundedAmountByStatuses(COMPLETED_STATUSES);
+            if (totalRefunded == null) totalRefunded = 0.0;
+
+            Double revenue = grossRevenue - totalRefunded;
+            return revenue < 0 ? 0.0 : revenue; // Ensure non-negative
+        }, 0.0);
 
         // 2. Total Active Stores
-        Long totalActiveStores = 0L;
-        try {
+        CompletableFuture<Long> totalActiveStores = tiles.submit("totalActiveStores", () -> {
             ApiResponse<Long> storesResponse = storeClient.getActiveStoresCount();
-            if (storesResponse != null && storesResponse.getData() != null) {
-                totalActiveStores = storesResponse.getData();
-            }
-        } catch (Exception e) {
-            log.warn("Error fetching active stores count: {}", e.getMessage());
-        }
+            return requireData(storesResponse, "active stores count");
+        }, null);
 
         // 3. Total Users
-        Long totalUsers = 0L;
-        try {
+        CompletableFuture<Long> totalUsers = tiles.submit("totalUsers", () -> {
             ApiResponse<Long> usersResponse = userClient.getTotalUsersCount();
-            if (usersResponse != null && usersResponse.getData() != null) {
-                totalUsers = usersResponse.getData();
-            }
-        } catch (Exception e) {
-            log.warn("Error fetching users count: {}", e.getMessage());
-        }
+            return requireData(usersResponse, "users count");
+        }, null);
 
         // 4. Top Products
-        List<TopProductResponse> topProducts = getTopProducts(10);
+        CompletableFuture<List<TopProductResponse>> topProducts = tiles.submit("topProducts",
+                () -> getTopProducts(10), Collections.emptyList());
 
         // 5. Revenue Chart (last 30 days)
-        List<RevenueChartData> revenueChart = getRevenueChart(30);
+        CompletableFuture<List<RevenueChartData>> revenueChart = tiles.submit("revenueChart",
+                () -> getRevenueChart(30), Collections.emptyList());
 
         // 6. Revenue by Branch
-        RevenueByBranchResponse revenueByBranch = adminAnalyticsService.getRevenueByBranch();
+        CompletableFuture<RevenueByBranchResponse> revenueByBranch = tiles.submit("revenueByBranch",
+                adminAnalyticsService::getRevenueByBranch,
+                RevenueByBranchResponse.builder().branches(Collections.emptyList()).build());
 
         // 7. Delivery Performance
-        DeliveryPerformanceResponse deliveryPerformance = adminAnalyticsService.getDeliveryPerformance();
-
-        return AdminDashboardResponse.builder()
-                .totalRevenue(totalRevenue)
-                .totalActiveStores(totalActiveStores)
-                .totalUsers(totalUsers)
-                .topProducts(topProducts)
-                .revenueChart(revenueChart)
-                .revenueByBranch(revenueByBranch)
-                .deliveryPerformance(deliveryPerformance)
+        CompletableFuture<DeliveryPerformanceResponse> deliveryPerformance = tiles.submit("deliveryPerformance",
+                adminAnalyticsService::getDeliveryPerformance,
+                DeliveryPerformanceResponse.builder().statuses(Collections.emptyList()).build());
+
+        AdminDashboardResponse response = AdminDashboardResponse.builder()
+                .totalRevenue(totalRevenue.join())
+                .totalActiveStores(totalActiveStores.join())
+                .totalUsers(totalUsers.join())
+                .topProducts(topProducts.join())
+                .revenueChart(revenueChart.join())
+                .revenueByBranch(revenueByBranch.join())
+                .deliveryPerformance(deliveryPerformance.join())
                 .build();
+        return new Snapshot<>(response, tiles.isComplete());
     }
 
-    @Transactional(readOnly = true)
-    public ManagerDashboardResponse getManagerDashboard(String storeId) {
+    private Snapshot<ManagerDashboardResponse> loadManagerDashboard(String storeId) {
         log.info("Getting manager dashboard data for store: {}", storeId);
+        Tiles tiles = new Tiles();
 
         // 1. Branch Revenue (Net Revenue = Gross Revenue - Refunded Amount)
-        Double grossRevenue = orderRepository.getTotalRevenueByStoreAndStatuses(storeId, COMPLETED_STATUSES);
-        if (grossRevenue == null) grossRevenue = 0.0;
-        
-        Double totalRefunded = orderRepository.getTotalRefundedAmountByStoreAndStatuses(storeId, COMPLETED_STATUSES);
-        if (totalRefunded == null) totalRefunded = 0.0;
-        
-        Double branchRevenue = grossRevenue - totalRefunded;
-        if (branchRevenue < 0) branchRevenue = 0.0; // Ensure non-negative
+        CompletableFuture<Double> branchRevenue = tiles.submit("branchRevenue", () -> {
+            Double grossRevenue = salesRollupService.getStoreRevenue(storeId, COMPLETED_STATUSES);
+
+            Double totalRefunded = orderRepository.getTotalRefundedAmountByStoreAndStatuses(storeId, COMPLETED_STATUSES);
+            if (totalRefunded == null) totalRefunded = 0.0;
 
-        // 2. Pending Orders Count
-        Long pendingOrdersCount = orderRepository.countOrdersByStoreAndStatus(storeId, EnumProcessOrder.PAYMENT);
+            Double revenue = grossRevenue - totalRefunded;
+            return revenue < 0 ? 0.0 : revenue; // Ensure non-negative
+        }, 0.0);
 
-        // 3. Shipping Orders Count
-        Long shippingOrdersCount = orderRepository.countOrdersByStoreAndStatus(storeId, EnumProcessOrder.SHIPPING);
+        // 2, 3. Pending / Shipping Orders Count
+        CompletableFuture<Map<EnumProcessOrder, Long>> statusCounts = tiles.submit("statusCounts",
+                () -> OrderStatusCount.toMap(orderRepository.countByStoreGroupedByStatus(storeId)),
+                Collections.emptyMap());
 
         // 4. Low Stock Products
-        List<LowStockProductResponse> lowStockProducts = getLowStockProducts(storeId, 10);
+        CompletableFuture<List<LowStockProductResponse>> lowStockProducts = tiles.submit("lowStockProducts",
+                () -> getLowStockProducts(storeId, 10), null);
 
         // 5. Orders for Shipper
-        List<OrderForShipperResponse> ordersForShipper = getOrdersForShipper(storeId);
-
-        return ManagerDashboardResponse.builder()
-                .branchRevenue(branchRevenue)
-                .pendingOrdersCount(pendingOrdersCount)
-                .shippingOrdersCount(shippingOrdersCount)
-                .lowStockProducts(lowStockProducts)
-                .ordersForShipper(ordersForShipper)
+        CompletableFuture<List<OrderForShipperResponse>> ordersForShipper = tiles.submit("ordersForShipper",
+                () -> getOrdersForShipper(storeId), null);
+
+        Map<EnumProcessOrder, Long> counts = statusCounts.join();
+        ManagerDashboardResponse response = ManagerDashboardResponse.builder()
+                .branchRevenue(branchRevenue.join())
+                .pendingOrdersCount(counts.getOrDefault(EnumProcessOrder.PAYMENT, 0L))
+                .shippingOrdersCount(counts.getOrDefault(EnumProcessOrder.SHIPPING, 0L))
+                .lowStockProducts(lowStockProducts.join())
+                .ordersForShipper(ordersForShipper.join())
                 .build();
+        return new Snapshot<>(response, tiles.isComplete());
     }
 
     private List<TopProductResponse> getTopProducts(int limit) {
-        try {
-            List<Object[]> results = orderDetailRepository.getTopProductsBySales(COMPLETED_STATUSES);
-            
-            return results.stream()
-                    .limit(limit)
-                    .map(result -> {
-                        String productColorId = (String) result[0];
-                        Long totalQuantity = ((Number) result[1]).longValue();
-                        Double totalRevenue = ((Number) result[2]).doubleValue();
-
-                        // Get product details
-                        String productName = "N/A";
-                        String colorName = "N/A";
-                        try {
-                            ApiResponse<ProductColorResponse> productResponse = productClient.getProductColor(productColorId);
-                            if (productResponse != null && productResponse.getData() != null) {
-                                ProductColorResponse productColor = productResponse.getData();
-                                if (productColor.getProduct() != null) {
-                                    productName = productColor.getProduct().getName();
-                                }
-                                if (productColor.getColor() != null) {
-                                    colorName = productColor.getColor().getColorName();
-                                }
-                            }
-                        } catch (Exception e) {
-                            log.warn("Error fetching product details for {}: {}", productColorId, e.getMessage());
+        List<Object[]> results = salesRollupService.getTopProducts(COMPLETED_STATUSES, limit);
+
+        // Get product details (một lần gọi batch qua cache product color)
+        List<String> productColorIds = results.stream().map(result -> (String) result[0]).toList();
+        Map<String, ProductColorResponse> productColors = productServiceClient.getProductColors(productColorIds);
+
+        return results.stream()
+                .map(result -> {
+                    String productColorId = (String) result[0];
+                    Long totalQuantity = ((Number) result[1]).longValue();
+                    Double totalRevenue = ((Number) result[2]).doubleValue();
+
+                    String productName = "N/A";
+                    String colorName = "N/A";
+                    ProductColorResponse productColor = productColors.get(productColorId);
+                    if (productColor != null) {
+                        if (productColor.getProduct() != null) {
+                            productName = productColor.getProduct().getName();
+                        }
+                        if (productColor.getColor() != null) {
+                            colorName = productColor.getColor().getColorName();
                         }
+                    }
 
-                        return TopProductResponse.builder()
-                                .productColorId(productColorId)
-                                .productName(productName)
-                                .colorName(colorName)
-                                .totalQuantitySold(totalQuantity)
-                                .totalRevenue(totalRevenue)
-                                .build();
-                    })
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.error("Error getting top products: {}", e.getMessage(), e);
-            return Collections.emptyList();
-        }
+                    return TopProductResponse.builder()
+                            .productColorId(productColorId)
+                            .productName(productName)
+                            .colorName(colorName)
+                            .totalQuantitySold(totalQuantity)
+                            .totalRevenue(totalRevenue)
+                            .build();
+                })
+                .collect(Collectors.toList());
     }
 
     private List<RevenueChartData> getRevenueChart(int days) {
-        try {
-            Calendar cal = Calendar.getInstance();
-            Date endDate = cal.getTime();
-            cal.add(Calendar.DAY_OF_MONTH, -days);
-            Date startDate = cal.getTime();
-
-            // Get gross revenue chart data
-            List<Object[]> revenueResults = orderRepository.getRevenueChartData(COMPLETED_STATUSES, startDate, endDate);
-            
-            // Get refunded amount chart data
-            List<Object[]> refundResults = orderRepository.getRefundedAmountChartData(COMPLETED_STATUSES, startDate, endDate);
-            
-            // Create a map of date -> refunded amount for quick lookup
-            Map<String, Double> refundMap = new HashMap<>();
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-            for (Object[] refund : refundResults) {
-                Date date = (Date) refund[0];
-                Double refundedAmount = ((Number) refund[1]).doubleValue();
-                refundMap.put(dateFormat.format(date), refundedAmount);
-            }
+        Calendar cal = Calendar.getInstance();
+        Date endDate = cal.getTime();
+        cal.add(Calendar.DAY_OF_MONTH, -days);
+        Date startDate = cal.getTime();
 
-            // Calculate net revenue (gross revenue - refunded amount) for each date
-            return revenueResults.stream()
-                    .map(result -> {
-                        Date date = (Date) result[0];
-                        Double grossRevenue = ((Number) result[1]).doubleValue();
-                        Long orderCount = ((Number) result[2]).longValue();
-                        
-                        String dateKey = dateFormat.format(date);
-                        Double refundedAmount = refundMap.getOrDefault(dateKey, 0.0);
-                        Double netRevenue = grossRevenue - refundedAmount;
-                        if (netRevenue < 0) netRevenue = 0.0; // Ensure non-negative
-
-                        return RevenueChartData.builder()
-                                .date(dateKey)
-                                .revenue(netRevenue)
-                                .orderCount(orderCount)
-                                .build();
-                    })
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.error("Error getting revenue chart data: {}", e.getMessage(), e);
-            return Collections.emptyList();
+        // Get gross revenue chart data
+        List<Object[]> revenueResults = salesRollupService.getDailyRevenue(COMPLETED_STATUSES, startDate, endDate);
+        
+        // Get refunded amount chart data
+        List<Object[]> refundResults = orderRepository.getRefundedAmountChartData(COMPLETED_STATUSES, startDate, endDate);
+        
+        // Create a map of date -> refunded amount for quick lookup
+        Map<String, Double> refundMap = new HashMap<>();
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        for (Object[] refund : refundResults) {
+            Date date = (Date) refund[0];
+            Double refundedAmount = ((Number) refund[1]).doubleValue();
+            refundMap.put(dateFormat.format(date), refundedAmount);
         }
+
+        // Calculate net revenue (gross revenue - refunded amount) for each date
+        return revenueResults.stream()
+                .map(result -> {
+                    Date date = (Date) result[0];
+                    Double grossRevenue = ((Number) result[1]).doubleValue();
+                    Long orderCount = ((Number) result[2]).longValue();
+                    
+                    String dateKey = dateFormat.format(date);
+                    Double refundedAmount = refundMap.getOrDefault(dateKey, 0.0);
+                    Double netRevenue = grossRevenue - refundedAmount;
+                    if (netRevenue < 0) netRevenue = 0.0; // Ensure non-negative
+
+                    return RevenueChartData.builder()
+                            .date(dateKey)
+                            .revenue(netRevenue)
+                            .orderCount(orderCount)
+                            .build();
+                })
+                .collect(Collectors.toList());
     }
 
     private List<LowStockProductResponse> getLowStockProducts(String storeId, int threshold) {
-        try {
-            ApiResponse<List<LowStockProductResponse>> response = inventoryClient.getLowStockProducts(storeId, threshold);
-            if (response != null && response.getData() != null) {
-                return response.getData();
-            }
-        } catch (Exception e) {
-            log.warn("Error fetching low stock products: {}", e.getMessage());
-        }
-        return Collections.emptyList();
+        return requireData(inventoryClient.getLowStockProducts(storeId, threshold),
+                "low stock products of store " + storeId);
     }
 
     private List<OrderForShipperResponse> getOrdersForShipper(String storeId) {
-        try {
-            // Get orders that are ready for shipping (MANAGER_ACCEPT, READY_FOR_INVOICE, CONFIRMED, PACKAGED)
-            List<EnumProcessOrder> readyForShippingStatuses = Arrays.asList(
-                    EnumProcessOrder.MANAGER_ACCEPT,
-                    EnumProcessOrder.READY_FOR_INVOICE,
-                    EnumProcessOrder.CONFIRMED,
-                    EnumProcessOrder.PACKAGED
-            );
-
-            // Get delivery assignments for this store
-            ApiResponse<List<DeliveryAssignmentResponse>> deliveryResponse = deliveryClient.getDeliveryAssignmentsByStore(storeId);
-            Map<Long, DeliveryAssignmentResponse> deliveryMap = new HashMap<>();
-            if (deliveryResponse != null && deliveryResponse.getData() != null) {
-                deliveryResponse.getData().forEach(da -> {
-                    if (da.getOrderId() != null) {
-                        deliveryMap.put(da.getOrderId(), da);
-                    }
-                });
+        // Get orders that are ready for shipping (MANAGER_ACCEPT, READY_FOR_INVOICE, CONFIRMED, PACKAGED)
+        List<EnumProcessOrder> readyForShippingStatuses = Arrays.asList(
+                EnumProcessOrder.MANAGER_ACCEPT,
+                EnumProcessOrder.READY_FOR_INVOICE,
+                EnumProcessOrder.CONFIRMED,
+                EnumProcessOrder.PACKAGED
+        );
+
+        // Get delivery assignments for this store
+        List<DeliveryAssignmentResponse> assignments = requireData(
+                deliveryClient.getDeliveryAssignmentsByStore(storeId), "delivery assignments of store " + storeId);
+        Map<Long, DeliveryAssignmentResponse> deliveryMap = new HashMap<>();
+        assignments.forEach(da -> {
+            if (da.getOrderId() != null) {
+                deliveryMap.put(da.getOrderId(), da);
             }
+        });
+
+        // Lấy đơn của mọi trạng thái chờ giao trong một câu IN (tối đa 50 đơn mỗi trạng thái như trước)
+        List<com.example.orderservice.entity.Order> orders = orderRepository.findByStoreIdAndStatusInAndIsDeletedFalse(
+                storeId, readyForShippingStatuses,
+                org.springframework.data.domain.PageRequest.of(0, 50 * readyForShippingStatuses.size())).getContent();
+
+        // Gom id khách hàng, shipper, địa chỉ để tra cứu theo lô thay vì gọi từng đơn
+        Set<String> userIds = new HashSet<>();
+        Set<Long> addressIds = new HashSet<>();
+        for (com.example.orderservice.entity.Order order : orders) {
+            if (order.getUserId() != null) userIds.add(order.getUserId());
+            if (order.getAddressId() != null) addressIds.add(order.getAddressId());
+            DeliveryAssignmentResponse da = deliveryMap.get(order.getId());
+            if (da != null && da.getDeliveryStaffId() != null) userIds.add(da.getDeliveryStaffId());
+        }
 
-            // Get orders by store and status - fetch actual orders
-            List<OrderForShipperResponse> ordersForShipper = new ArrayList<>();
-            for (EnumProcessOrder status : readyForShippingStatuses) {
-                org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 50);
-                org.springframework.data.domain.Page<com.example.orderservice.entity.Order> ordersPage = 
-                    orderRepository.findByStoreIdAndStatusAndIsDeletedFalse(storeId, status, pageable);
-                
-                for (com.example.orderservice.entity.Order order : ordersPage.getContent()) {
-                    DeliveryAssignmentResponse deliveryAssignment = deliveryMap.get(order.getId());
-                    
-                    // Get customer info
-                    String customerName = "N/A";
-                    String customerPhone = "N/A";
-                    AddressResponse deliveryAddress = null;
-                    try {
-                        ApiResponse<UserResponse> userResponse = userClient.getUserById(order.getUserId());
-                        if (userResponse != null && userResponse.getData() != null) {
-                            UserResponse user = userResponse.getData();
-                            customerName = user.getFullName() != null ? user.getFullName() : "N/A";
-                            customerPhone = user.getPhone() != null ? user.getPhone() : "N/A";
-                        }
-                        
-                        ApiResponse<AddressResponse> addressResponse = userClient.getAddressById(order.getAddressId());
-                        if (addressResponse != null && addressResponse.getData() != null) {
-                            deliveryAddress = addressResponse.getData();
-                        }
-                    } catch (Exception e) {
-                        log.warn("Error fetching user/address for order {}: {}", order.getId(), e.getMessage());
-                    }
-                    
-                    // Get shipper info if assigned
-                    String assignedShipperId = null;
-                    String assignedShipperName = null;
-                    if (deliveryAssignment != null) {
-                        assignedShipperId = deliveryAssignment.getDeliveryStaffId();
-                        if (assignedShipperId != null) {
-                            try {
-                                ApiResponse<UserResponse> shipperResponse = userClient.getUserById(assignedShipperId);
-                                if (shipperResponse != null && shipperResponse.getData() != null) {
-                                    assignedShipperName = shipperResponse.getData().getFullName();
-                                }
-                            } catch (Exception e) {
-                                log.warn("Error fetching shipper info: {}", e.getMessage());
-                            }
-                        }
-                    }
-                    
-                    ordersForShipper.add(OrderForShipperResponse.builder()
-                            .orderId(order.getId())
-                            .customerName(customerName)
-                            .customerPhone(customerPhone)
-                            .deliveryAddress(deliveryAddress)
-                            .total(order.getTotal())
-                            .orderDate(order.getOrderDate())
-                            .status(order.getStatus())
-                            .deliveryStatus(deliveryAssignment != null ? deliveryAssignment.getStatus() : null)
-                            .assignedShipperId(assignedShipperId)
-                            .assignedShipperName(assignedShipperName)
-                            .estimatedDeliveryDate(deliveryAssignment != null && deliveryAssignment.getEstimatedDeliveryDate() != null 
-                                ? java.sql.Timestamp.valueOf(deliveryAssignment.getEstimatedDeliveryDate()) : null)
-                            .build());
+        Map<String, UserResponse> users = Collections.emptyMap();
+        Map<Long, AddressResponse> addresses = Collections.emptyMap();
+        try {
+            if (!userIds.isEmpty()) {
+                ApiResponse<Map<String, UserResponse>> usersResponse = userClient.getUsersByIds(new ArrayList<>(userIds));
+                if (usersResponse != null && usersResponse.getData() != null) {
+                    users = usersResponse.getData();
+                }
+            }
+            if (!addressIds.isEmpty()) {
+                ApiResponse<Map<Long, AddressResponse>> addressesResponse = userClient.getAddressesByIds(new ArrayList<>(addressIds));
+                if (addressesResponse != null && addressesResponse.getData() != null) {
+                    addresses = addressesResponse.getData();
                 }
             }
-
-            return ordersForShipper;
         } catch (Exception e) {
-            log.error("Error getting orders for shipper: {}", e.getMessage(), e);
-            return Collections.emptyList();
+            log.warn("Error batch fetching users/addresses for store {}: {}", storeId, e.getMessage());
         }
-    }
-    public StaffDashboardResponse getStaffDashboard(String staffId) {
-        log.info("Getting staff dashboard data for staff: {}", staffId);
 
-        // Get staff info to find storeId
-        String storeId = null;
-        try {
-            // Assuming userClient has a way to get user info by ID or username (staffId is username/id)
-            // If staffId is username, use getUserByUsername, if ID use getUserById
-            // Here assuming staffId is ID as per other methods
-            ApiResponse<UserResponse> userResponse = userClient.getUserById(staffId);
-            if (userResponse != null && userResponse.getData() != null) {
-                UserResponse user = userResponse.getData();
-                if (user.getStoreIds() != null && !user.getStoreIds().isEmpty()) {
-                    storeId = user.getStoreIds().get(0);
+        List<OrderForShipperResponse> ordersForShipper = new ArrayList<>();
+        for (com.example.orderservice.entity.Order order : orders) {
+            DeliveryAssignmentResponse deliveryAssignment = deliveryMap.get(order.getId());
+            
+            // Get customer info
+            String customerName = "N/A";
+            String customerPhone = "N/A";
+            UserResponse user = order.getUserId() != null ? users.get(order.getUserId()) : null;
+            if (user != null) {
+                customerName = user.getFullName() != null ? user.getFullName() : "N/A";
+                customerPhone = user.getPhone() != null ? user.getPhone() : "N/A";
+            }
+            AddressResponse deliveryAddress = order.getAddressId() != null ? addresses.get(order.getAddressId()) : null;
+            
+            // Get shipper info if assigned
+            String assignedShipperId = null;
+            String assignedShipperName = null;
+            if (deliveryAssignment != null) {
+                assignedShipperId = deliveryAssignment.getDeliveryStaffId();
+                UserResponse shipper = assignedShipperId != null ? users.get(assignedShipperId) : null;
+                if (shipper != null) {
+                    assignedShipperName = shipper.getFullName();
                 }
             }
-        } catch (Exception e) {
-            log.warn("Error fetching staff info: {}", e.getMessage());
+            
+            ordersForShipper.add(OrderForShipperResponse.builder()
+                    .orderId(order.getId())
+                    .customerName(customerName)
+                    .customerPhone(customerPhone)
+                    .deliveryAddress(deliveryAddress)
+                    .total(order.getTotal())
+                    .orderDate(order.getOrderDate())
+                    .status(order.getStatus())
+                    .deliveryStatus(deliveryAssignment != null ? deliveryAssignment.getStatus() : null)
+                    .assignedShipperId(assignedShipperId)
+                    .assignedShipperName(assignedShipperName)
+                    .estimatedDeliveryDate(deliveryAssignment != null && deliveryAssignment.getEstimatedDeliveryDate() != null 
+                        ? java.sql.Timestamp.valueOf(deliveryAssignment.getEstimatedDeliveryDate()) : null)
+                    .build());
         }
 
+        return ordersForShipper;
+    }
+
+    private Snapshot<StaffDashboardResponse> loadStaffDashboard(String staffId) {
+        log.info("Getting staff dashboard data for staff: {}", staffId);
+        Tiles tiles = new Tiles();
+
         // Date range: Today
         Calendar cal = Calendar.getInstance();
         cal.set(Calendar.HOUR_OF_DAY, 0);
@@ -354,39 +406,83 @@ public class DashboardService {
         cal.set(Calendar.SECOND, 0);
         cal.set(Calendar.MILLISECOND, 0);
         Date startDate = cal.getTime();
-        
+
         cal.set(Calendar.HOUR_OF_DAY, 23);
         cal.set(Calendar.MINUTE, 59);
         cal.set(Calendar.SECOND, 59);
         Date endDate = cal.getTime();
 
         // 1. Personal Revenue (Today) - Net Revenue = Gross Revenue - Refunded Amount
-        Double grossRevenue = orderRepository.getTotalRevenueByCreatedByAndDateRange(staffId, COMPLETED_STATUSES, startDate, endDate);
-        if (grossRevenue == null) grossRevenue = 0.0;
-        
-        Double totalRefunded = orderRepository.getTotalRefundedAmountByCreatedByAndDateRange(staffId, COMPLETED_STATUSES, startDate, endDate);
-        if (totalRefunded == null) totalRefunded = 0.0;
-        
-        Double personalRevenue = grossRevenue - totalRefunded;
-        if (personalRevenue < 0) personalRevenue = 0.0; // Ensure non-negative
+        CompletableFuture<Double> personalRevenue = tiles.submit("personalRevenue", () -> {
+            Double grossRevenue = orderRepository.getTotalRevenueByCreatedByAndDateRange(staffId, COMPLETED_STATUSES, startDate, endDate);
+            if (grossRevenue == null) grossRevenue = 0.0;
+
+            Double totalRefunded = orderRepository.getTotalRefundedAmountByCreatedByAndDateRange(staffId, COMPLETED_STATUSES, startDate, endDate);
+            if (totalRefunded == null) totalRefunded = 0.0;
+
+            Double revenue = grossRevenue - totalRefunded;
+            return revenue < 0 ? 0.0 : revenue; // Ensure non-negative
+        }, 0.0);
 
         // 2. Created Orders Count (Today)
-        Long createdOrdersCount = orderRepository.countByCreatedByAndDateRange(staffId, startDate, endDate);
+        CompletableFuture<Long> createdOrdersCount = tiles.submit("createdOrdersCount",
+                () -> orderRepository.countByCreatedByAndDateRange(staffId, startDate, endDate), 0L);
 
         // 3. Pending Orders at Store (Total backlog, not just today)
-        Long pendingStoreOrdersCount = 0L;
-        if (storeId != null) {
-            pendingStoreOrdersCount = orderRepository.countOrdersByStoreAndStatus(storeId, EnumProcessOrder.PENDING); // Or PAYMENT/CONFIRMED depending on workflow
-            // "Chờ xử lý" usually means PENDING or MANAGER_ACCEPT
-            // Let's assume PENDING for now or MANAGER_ACCEPT
-             pendingStoreOrdersCount = orderRepository.countOrdersByStoreAndStatus(storeId, EnumProcessOrder.MANAGER_ACCEPT);
+        // Get staff info to find storeId, then count MANAGER_ACCEPT orders ("Chờ xử lý") of that store
+        CompletableFuture<Long> pendingStoreOrdersCount = tiles.submit("pendingStoreOrdersCount", () -> {
+            UserResponse user = requireData(userClient.getUserById(staffId), "staff " + staffId);
+            if (user.getStoreIds() == null || user.getStoreIds().isEmpty()) {
+                return 0L;
+            }
+            String storeId = user.getStoreIds().get(0);
+            return OrderStatusCount.toMap(orderRepository.countByStoreGroupedByStatus(storeId))
+                    .getOrDefault(EnumProcessOrder.MANAGER_ACCEPT, 0L);
+        }, null);
+
+        StaffDashboardResponse response = StaffDashboardResponse.builder()
+                .personalRevenue(personalRevenue.join())
+                .createdOrdersCount(createdOrdersCount.join())
+                .pendingStoreOrdersCount(pendingStoreOrdersCount.join())
+                .build();
+        return new Snapshot<>(response, tiles.isComplete());
+    }
+
+    // Response rỗng từ service khác là lỗi của tile, không được hiển thị thành 0
+    private static <T> T requireData(ApiResponse<T> response, String what) {
+        if (response == null || response.getData() == null) {
+            throw new IllegalStateException("Empty response for " + what);
+        }
+        return response.getData();
+    }
+
+    /**
+     * Các tile của một lần load dashboard: chạy song song, mỗi tile có timeout riêng.
+     * Tile lỗi hoặc quá hạn trả giá trị mặc định và đánh dấu snapshot chưa đầy đủ.
+     */
+    private class Tiles {
+        private final AtomicBoolean complete = new AtomicBoolean(true);
+
+        <T> CompletableFuture<T> submit(String name, Supplier<T> supplier, T fallback) {
+            try {
+                return CompletableFuture.supplyAsync(supplier, executor)
+                        .orTimeout(tileTimeoutMs, TimeUnit.MILLISECONDS)
+                        .exceptionally(e -> {
+                            complete.set(false);
+                            log.warn("Dashboard tile {} failed or timed out after {} ms: {}", name, tileTimeoutMs,
+                                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                            return fallback;
+                        });
+            } catch (RuntimeException e) {
+                // Executor từ chối (quá tải): dùng giá trị mặc định cho tile
+                complete.set(false);
+                log.warn("Dashboard tile {} rejected: {}", name, e.getMessage());
+                return CompletableFuture.completedFuture(fallback);
+            }
         }
 
-        return StaffDashboardResponse.builder()
-                .personalRevenue(personalRevenue)
-                .createdOrdersCount(createdOrdersCount)
-                .pendingStoreOrdersCount(pendingStoreOrdersCount)
-                .build();
+        boolean isComplete() {
+            return complete.get();
+        }
     }
 }
-
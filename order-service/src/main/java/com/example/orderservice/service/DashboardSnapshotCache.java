@@ -0,0 +1,155 @@
+package com.example.orderservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache snapshot dashboard theo key (role + store / staff), kiểu stale-while-revalidate:
+ * - Còn trong cửa sổ fresh: trả ngay.
+ * - Hết fresh nhưng chưa quá max-stale: trả bản cũ, đồng thời refresh nền (mỗi key chỉ một lần refresh).
+ * - Chưa có hoặc quá max-stale: load đồng bộ; nhiều request cùng key chỉ load một lần.
+ * Snapshot thiếu tile (tile lỗi / timeout) được coi là stale ngay để lần sau refresh lại.
+ */
+@Slf4j
+public class DashboardSnapshotCache<V> {
+
+    /**
+     * Kết quả một lần load; complete = false nếu có tile phải dùng giá trị mặc định.
+     */
+    public record Snapshot<V>(V value, boolean complete) {
+    }
+
+    private record Entry<V>(V value, long freshUntil, long staleUntil) {
+    }
+
+    private final String name;
+    private final long freshMillis;
+    private final long maxStaleMillis;
+    private final int maxEntries;
+    private final Executor refreshExecutor;
+
+    private final LinkedHashMap<String, Entry<V>> entries;
+    private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder freshHits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder backgroundRefreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public DashboardSnapshotCache(String name, long freshMillis, long maxStaleMillis, int maxEntries,
+                                  Executor refreshExecutor) {
+        this.name = name;
+        this.freshMillis = freshMillis;
+        this.maxStaleMillis = Math.max(freshMillis, maxStaleMillis);
+        this.maxEntries = Math.max(1, maxEntries);
+        this.refreshExecutor = refreshExecutor;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > DashboardSnapshotCache.this.maxEntries;
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V get(String key, Supplier<Snapshot<V>> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null && entry.freshUntil() > now) {
+            freshHits.increment();
+            return entry.value();
+        }
+        if (entry != null && entry.staleUntil() > now) {
+            staleHits.increment();
+            refreshInBackground(key, loader);
+            return entry.value();
+        }
+
+        misses.increment();
+        return load(key, loader);
+    }
+
+    public Map<String, Object> stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("freshHits", freshHits.sum());
+        stats.put("staleHits", staleHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("backgroundRefreshes", backgroundRefreshes.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        return stats;
+    }
+
+    private V load(String key, Supplier<Snapshot<V>> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            V value = loadAndStore(key, loader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void refreshInBackground(String key, Supplier<Snapshot<V>> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, mine) != null) {
+            return; // Đã có refresh đang chạy cho key này
+        }
+        backgroundRefreshes.increment();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    mine.complete(loadAndStore(key, loader));
+                } catch (RuntimeException e) {
+                    refreshFailures.increment();
+                    log.warn("[{}] Background refresh failed for {}: {}", name, key, e.getMessage());
+                    mine.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor đầy: bỏ qua lần refresh này, request sau sẽ thử lại
+            refreshFailures.increment();
+            inFlight.remove(key, mine);
+            mine.cancel(false);
+        }
+    }
+
+    private V loadAndStore(String key, Supplier<Snapshot<V>> loader) {
+        Snapshot<V> snapshot = loader.get();
+        long now = System.currentTimeMillis();
+        long freshUntil = snapshot.complete() ? now + freshMillis : now;
+        synchronized (entries) {
+            entries.put(key, new Entry<>(snapshot.value(), freshUntil, now + maxStaleMillis));
+        }
+        return snapshot.value();
+    }
+}
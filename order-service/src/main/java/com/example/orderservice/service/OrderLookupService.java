@@ -0,0 +1,180 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.entity.OrderDetail;
+import com.example.orderservice.entity.Payment;
+import com.example.orderservice.feign.DeliveryClient;
+import com.example.orderservice.feign.UserClient;
+import com.example.orderservice.repository.PaymentRepository;
+import com.example.orderservice.response.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Gom dữ liệu phụ trợ cho một trang đơn hàng: mỗi loại (user, address, product color,
+ * delivery confirmation) chỉ một lần gọi batch, chạy song song; payment lấy bằng một câu IN.
+ * Loại nào gọi batch thất bại sẽ được đánh dấu để OrderServiceImpl fallback gọi lẻ.
+ * User / address batch chỉ mở cho service và nhân viên, nên gọi bằng service token (không forward JWT của khách):
+ * quyền xem các đơn trong trang đã được kiểm tra ở order-service.
+ */
+@Slf4j
+@Service
+public class OrderLookupService {
+
+    private final UserClient userClient;
+    private final DeliveryClient deliveryClient;
+    private final ProductServiceClient productServiceClient;
+    private final PaymentRepository paymentRepository;
+    private final Executor executor;
+
+    public OrderLookupService(UserClient userClient,
+                              DeliveryClient deliveryClient,
+                              ProductServiceClient productServiceClient,
+                              PaymentRepository paymentRepository,
+                              @Qualifier("orderLookupExecutor") Executor executor) {
+        this.userClient = userClient;
+        this.deliveryClient = deliveryClient;
+        this.productServiceClient = productServiceClient;
+        this.paymentRepository = paymentRepository;
+        this.executor = executor;
+    }
+
+    public Lookups load(List<Order> orders) {
+        Set<String> userIds = new HashSet<>();
+        Set<Long> addressIds = new HashSet<>();
+        Set<String> productColorIds = new HashSet<>();
+        Set<Long> orderIds = new HashSet<>();
+
+        for (Order order : orders) {
+            if (order.getId() != null)
+                orderIds.add(order.getId());
+            if (order.getUserId() != null)
+                userIds.add(order.getUserId());
+            if (order.getAddressId() != null)
+                addressIds.add(order.getAddressId());
+            if (order.getOrderDetails() != null) {
+                for (OrderDetail detail : order.getOrderDetails()) {
+                    if (detail.getProductColorId() != null)
+                        productColorIds.add(detail.getProductColorId());
+                }
+            }
+        }
+
+        long start = System.currentTimeMillis();
+
+        CompletableFuture<Map<String, UserResponse>> users = fetch("users", userIds,
+                asService(() -> unwrap(userClient.getUsersByIds(new ArrayList<>(userIds)))));
+        CompletableFuture<Map<Long, AddressResponse>> addresses = fetch("addresses", addressIds,
+                asService(() -> unwrap(userClient.getAddressesByIds(new ArrayList<>(addressIds)))));
+        CompletableFuture<Map<String, ProductColorResponse>> productColors = fetch("product colors", productColorIds,
+                () -> productServiceClient.getProductColors(productColorIds));
+        CompletableFuture<Map<Long, DeliveryConfirmationResponse>> confirmations = fetch("delivery confirmations", orderIds,
+                () -> unwrap(deliveryClient.getDeliveryConfirmationsByOrderIds(new ArrayList<>(orderIds))));
+
+        // Payment nằm cùng DB nên chạy trên thread hiện tại trong lúc chờ các service khác
+        Map<Long, Payment> payments = new HashMap<>();
+        if (!orderIds.isEmpty()) {
+            for (Payment payment : paymentRepository.findByOrderIdIn(orderIds)) {
+                if (payment.getOrder() != null) {
+                    payments.putIfAbsent(payment.getOrder().getId(), payment);
+                }
+            }
+        }
+
+        Lookups lookups = new Lookups(payments, users.join(), addresses.join(), productColors.join(), confirmations.join());
+        log.debug("Resolved lookups for {} order(s) in {} ms", orders.size(), System.currentTimeMillis() - start);
+        return lookups;
+    }
+
+    private <K, V> CompletableFuture<Map<K, V>> fetch(String name, Collection<K> ids, Supplier<Map<K, V>> call) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        return CompletableFuture.supplyAsync(call, executor)
+                .exceptionally(e -> {
+                    log.warn("Batch fetch {} ({} id) failed, fallback to single lookups: {}", name, ids.size(), e.getMessage());
+                    return null;
+                });
+    }
+
+    // Chạy lời gọi không kèm request hiện tại: FeignClientInterceptor chỉ gửi X-Service-Token
+    private static <T> Supplier<T> asService(Supplier<T> call) {
+        return () -> {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            RequestContextHolder.resetRequestAttributes();
+            try {
+                return call.get();
+            } finally {
+                RequestContextHolder.setRequestAttributes(attributes);
+            }
+        };
+    }
+
+    private static <K, V> Map<K, V> unwrap(ApiResponse<Map<K, V>> response) {
+        if (response == null || response.getData() == null) {
+            return new HashMap<>();
+        }
+        return response.getData();
+    }
+
+    /**
+     * Kết quả tra cứu cho một trang đơn. Map = null nghĩa là gọi batch thất bại.
+     */
+    public static final class Lookups {
+        private final Map<Long, Payment> payments;
+        private final Map<String, UserResponse> users;
+        private final Map<Long, AddressResponse> addresses;
+        private final Map<String, ProductColorResponse> productColors;
+        private final Map<Long, DeliveryConfirmationResponse> deliveryConfirmations;
+
+        Lookups(Map<Long, Payment> payments,
+                Map<String, UserResponse> users,
+                Map<Long, AddressResponse> addresses,
+                Map<String, ProductColorResponse> productColors,
+                Map<Long, DeliveryConfirmationResponse> deliveryConfirmations) {
+            this.payments = payments;
+            this.users = users;
+            this.addresses = addresses;
+            this.productColors = productColors;
+            this.deliveryConfirmations = deliveryConfirmations;
+        }
+
+        public Payment getPayment(Long orderId) {
+            return payments.get(orderId);
+        }
+
+        public UserResponse getUser(String userId, Function<String, UserResponse> fallback) {
+            return resolve(users, userId, fallback);
+        }
+
+        public AddressResponse getAddress(Long addressId, Function<Long, AddressResponse> fallback) {
+            return resolve(addresses, addressId, fallback);
+        }
+
+        public ProductColorResponse getProductColor(String productColorId, Function<String, ProductColorResponse> fallback) {
+            return resolve(productColors, productColorId, fallback);
+        }
+
+        public DeliveryConfirmationResponse getDeliveryConfirmation(Long orderId,
+                                                                    Function<Long, DeliveryConfirmationResponse> fallback) {
+            return resolve(deliveryConfirmations, orderId, fallback);
+        }
+
+        private static <K, V> V resolve(Map<K, V> source, K key, Function<K, V> fallback) {
+            if (key == null)
+                return null;
+            if (source == null)
+                return fallback.apply(key);
+            return source.get(key);
+        }
+    }
+}
@@ -26,7 +26,6 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -55,8 +54,7 @@ public class OrderServiceImpl implements OrderService {
     private final UserClient userClient;
     private final AuthClient authClient;
     private final StoreClient storeClient;
-    private final KafkaTemplate<String, OrderCreatedEvent> kafkaTemplate;
-    private final KafkaTemplate<String, Object> genericKafkaTemplate;
+    private final OutboxService outboxService;
     private final AssignOrderServiceImpl assignOrderService;
     private final PDFService pdfService;
     private final QRCodeService qrCodeService;
@@ -69,6 +67,7 @@ public class OrderServiceImpl implements OrderService {
     @SuppressWarnings("unused")
     private final VoucherRepository voucherRepository;
     private final ObjectMapper objectMapper;
+    private final OrderLookupService orderLookupService;
 
     @Override
     @Transactional
@@ -290,18 +289,8 @@ public class OrderServiceImpl implements OrderService {
             log.error("Không thể tạo delivery assignment cho order {}: {}", order.getId(), e.getMessage());
         }
 
-        try {
-            kafkaTemplate.send("order-created-topic", event)
-                    .whenComplete((result, ex) -> {
-                        if (ex != null) {
-                            log.error("Kafka send failed: {}", ex.getMessage());
-                        } else {
-                            log.info("Successfully sent order creation event for orderId: {}", event.getOrderId());
-                        }
-                    });
-        } catch (Exception e) {
-            log.error("Failed to send Kafka event for user {}, error: {}", userData.getFullName(), e.getMessage());
-        }
+        outboxService.enqueue("order-created-topic", event.getOrderId(), event);
+        log.info("Queued order creation event for orderId: {}", event.getOrderId());
 
         return mapToResponse(savedOrder);
     }
@@ -386,14 +375,8 @@ public class OrderServiceImpl implements OrderService {
                         .cancelledAt(new Date())
                         .build();
 
-                genericKafkaTemplate.send("order-cancelled-topic", event)
-                        .whenComplete((result, ex) -> {
-                            if (ex != null) {
-                                log.error("Kafka send failed for cancellation: {}", ex.getMessage());
-                            } else {
-                                log.info("Successfully sent order cancelled event for orderId: {}", order.getId());
-                            }
-                        });
+                outboxService.enqueue("order-cancelled-topic", order.getId(), event);
+                log.info("Queued order cancelled event for orderId: {}", order.getId());
             } else {
                 log.warn("Could not fetch user details for order cancellation email. OrderId: {}", order.getId());
             }
@@ -524,18 +507,8 @@ public class OrderServiceImpl implements OrderService {
                     .items(orderItems)
                     .build();
 
-            try {
-                kafkaTemplate.send("order-created-topic", event)
-                        .whenComplete((result, ex) -> {
-                            if (ex != null) {
-                                log.error("Kafka send failed: {}", ex.getMessage());
-                            } else {
-                                log.info("Successfully sent order creation event for: {}", event.getOrderId());
-                            }
-                        });
-            } catch (Exception e) {
-                log.error("Failed to send Kafka event {}, error: {}", event.getFullName(), e.getMessage());
-            }
+            outboxService.enqueue("order-created-topic", event.getOrderId(), event);
+            log.info("Queued order creation event for: {}", event.getOrderId());
 
         }
 
@@ -566,10 +539,7 @@ public class OrderServiceImpl implements OrderService {
 
         Page<Order> orders = orderRepository.searchByUserIdAndKeyword(userId, request, pageable);
 
-        List<OrderResponse> responses = orders.getContent()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        List<OrderResponse> responses = mapToResponses(orders.getContent());
 
         return new PageResponse<>(
                 responses,
@@ -595,10 +565,7 @@ public class OrderServiceImpl implements OrderService {
 
         Page<Order> orders = orderRepository.searchByKeywordNative(request, pageable);
 
-        List<OrderResponse> responses = orders.getContent()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        List<OrderResponse> responses = mapToResponses(orders.getContent());
 
         return new PageResponse<>(
                 responses,
@@ -617,10 +584,7 @@ public class OrderServiceImpl implements OrderService {
 
         Page<Order> orders = orderRepository.searchByStoreIdAndKeyword(id, request, pageable);
 
-        List<OrderResponse> responses = orders.getContent()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        List<OrderResponse> responses = mapToResponses(orders.getContent());
 
         return new PageResponse<>(
                 responses,
@@ -637,10 +601,7 @@ public class OrderServiceImpl implements OrderService {
         Pageable pageable = PageRequest.of(page, size);
         Page<Order> orders = orderRepository.findByStatusAndIsDeletedFalse(status, pageable);
 
-        List<OrderResponse> responses = orders.getContent()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        List<OrderResponse> responses = mapToResponses(orders.getContent());
 
         return new PageResponse<>(
                 responses,
@@ -665,10 +626,7 @@ public class OrderServiceImpl implements OrderService {
             orders = orderRepository.findByStoreIdAndIsDeletedFalse(validatedStoreId, pageable);
         }
 
-        List<OrderResponse> responses = orders.getContent()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        List<OrderResponse> responses = mapToResponses(orders.getContent());
 
         return new PageResponse<>(
                 responses,
@@ -713,10 +671,11 @@ public class OrderServiceImpl implements OrderService {
 
         Page<Order> orders = orderRepository.findByStoreIdWithInvoice(validatedStoreId, pageable);
 
+        OrderLookupService.Lookups lookups = orderLookupService.load(orders.getContent());
         List<OrderResponse> responses = orders.getContent()
                 .stream()
                 .map(order -> {
-                    OrderResponse response = mapToResponse(order);
+                    OrderResponse response = mapToResponse(order, lookups);
                     boolean hasPdfFile = false;
                     if (order.getPdfFilePath() != null && !order.getPdfFilePath().isEmpty()) {
                         try {
@@ -759,7 +718,27 @@ public class OrderServiceImpl implements OrderService {
     }
 
     private OrderResponse mapToResponse(Order order) {
-        Payment payment = paymentRepository.findByOrderId(order.getId()).orElse(null);
+        return mapToResponse(order, null);
+    }
+
+    /**
+     * Map cả trang đơn: user/address/product color/delivery confirmation được lấy theo lô
+     * (một lần gọi mỗi loại, chạy song song), payment lấy bằng một câu IN.
+     */
+    private List<OrderResponse> mapToResponses(List<Order> orders) {
+        if (orders == null || orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+        OrderLookupService.Lookups lookups = orderLookupService.load(orders);
+        return orders.stream()
+                .map(order -> mapToResponse(order, lookups))
+                .collect(Collectors.toList());
+    }
+
+    private OrderResponse mapToResponse(Order order, OrderLookupService.Lookups lookups) {
+        Payment payment = lookups != null
+                ? lookups.getPayment(order.getId())
+                : paymentRepository.findByOrderId(order.getId()).orElse(null);
 
         PaymentResponse paymentResponse = null;
         if (payment != null) {
@@ -795,10 +774,20 @@ public class OrderServiceImpl implements OrderService {
             }
         }
 
+        UserResponse user = lookups != null
+                ? lookups.getUser(order.getUserId(), this::safeGetUser)
+                : safeGetUser(order.getUserId());
+        AddressResponse address = lookups != null
+                ? lookups.getAddress(order.getAddressId(), this::safeGetAddress)
+                : safeGetAddress(order.getAddressId());
+        DeliveryConfirmationResponse deliveryConfirmation = lookups != null
+                ? lookups.getDeliveryConfirmation(order.getId(), this::getDeliveryConfirmationResponse)
+                : getDeliveryConfirmationResponse(order.getId());
+
         return OrderResponse.builder()
                 .id(order.getId())
-                .user(safeGetUser(order.getUserId()) != null ? safeGetUser(order.getUserId()) : null)
-                .address(safeGetAddress(order.getAddressId()))
+                .user(user)
+                .address(address)
                 .total(order.getTotal())
                 .note(order.getNote())
                 .status(order.getStatus())
@@ -810,7 +799,10 @@ public class OrderServiceImpl implements OrderService {
                                         .map(detail -> {
                                             ProductColorResponse productColor = null;
                                             try {
-                                                productColor = getProductColorResponse(detail.getProductColorId());
+                                                productColor = lookups != null
+                                                        ? lookups.getProductColor(detail.getProductColorId(),
+                                                                this::getProductColorResponse)
+                                                        : getProductColorResponse(detail.getProductColorId());
                                             } catch (Exception e) {
                                                 log.warn("Failed to get product color for {}: {}",
                                                         detail.getProductColorId(), e.getMessage());
@@ -850,7 +842,7 @@ public class OrderServiceImpl implements OrderService {
                 .qrCode(order.getQrCode())
                 .qrCodeGeneratedAt(order.getQrCodeGeneratedAt())
                 .pdfFilePath(order.getPdfFilePath())
-                .deliveryConfirmationResponse(getDeliveryConfirmationResponse(order.getId()))
+                .deliveryConfirmationResponse(deliveryConfirmation)
                 .hasPdfFile(hasPdfFile)
                 .depositPrice(order.getDepositPrice())
                 .orderType(order.getOrderType())
@@ -905,6 +897,12 @@ public class OrderServiceImpl implements OrderService {
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
 
+        // Token mới mang sẵn userId → không cần gọi user-service
+        if (authentication.getPrincipal() instanceof TokenUserDetails principal
+                && principal.getUserId() != null && EnumRole.CUSTOMER.equals(principal.getRole())) {
+            return principal.getUserId();
+        }
+
         String username = authentication.getName();
         ApiResponse<AuthResponse> response = authClient.getUserByUsername(username);
 
@@ -0,0 +1,100 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.enums.EnumProcessOrder;
+import com.example.orderservice.enums.ErrorCode;
+import com.example.orderservice.exception.AppException;
+import com.example.orderservice.feign.UserClient;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.response.AddressResponse;
+import com.example.orderservice.response.ApiResponse;
+import com.example.orderservice.response.OrderSummaryResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Tóm tắt đơn hàng cho service khác: một câu projection cho cả lô đơn
+ * và một lần gọi batch địa chỉ sang user-service.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderSummaryService {
+
+    private final OrderRepository orderRepository;
+    private final UserClient userClient;
+
+    @Value("${app.order-summary.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Transactional(readOnly = true)
+    public OrderSummaryResponse getSummary(Long id) {
+        OrderSummaryResponse summary = getSummaries(List.of(id)).get(id);
+        if (summary == null) {
+            throw new AppException(ErrorCode.ORDER_NOT_FOUND);
+        }
+        return summary;
+    }
+
+    /**
+     * orderId -> tóm tắt; id không tồn tại (hoặc đã xoá) không có trong kết quả.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, OrderSummaryResponse> getSummaries(Collection<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        if (uniqueIds.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        if (uniqueIds.size() > maxBatchSize) {
+            throw new AppException(ErrorCode.INVALID_REQUEST);
+        }
+
+        List<Object[]> rows = orderRepository.findSummariesByIds(uniqueIds);
+
+        Set<Long> addressIds = new HashSet<>();
+        for (Object[] row : rows) {
+            if (row[3] != null) {
+                addressIds.add((Long) row[3]);
+            }
+        }
+        Map<Long, AddressResponse> addresses = loadAddresses(addressIds);
+
+        Map<Long, OrderSummaryResponse> result = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            result.put(id, OrderSummaryResponse.builder()
+                    .id(id)
+                    .storeId((String) row[1])
+                    .userId((String) row[2])
+                    .address(row[3] != null ? addresses.get((Long) row[3]) : null)
+                    .status((EnumProcessOrder) row[4])
+                    .total((Double) row[5])
+                    .depositPrice((Double) row[6])
+                    .orderDate((Date) row[7])
+                    .note((String) row[8])
+                    .lineCount(row[9] != null ? ((Number) row[9]).intValue() : 0)
+                    .build());
+        }
+        return result;
+    }
+
+    private Map<Long, AddressResponse> loadAddresses(Set<Long> addressIds) {
+        if (addressIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            ApiResponse<Map<Long, AddressResponse>> response = userClient.getAddressesByIds(new ArrayList<>(addressIds));
+            if (response != null && response.getData() != null) {
+                return response.getData();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to batch fetch {} addresses for order summaries: {}", addressIds.size(), e.getMessage());
+        }
+        return new HashMap<>();
+    }
+}
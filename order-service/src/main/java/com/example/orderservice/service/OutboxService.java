@@ -0,0 +1,47 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.entity.OutboxEvent;
+import com.example.orderservice.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+/**
+ * Ghi event vào bảng outbox thay vì gửi Kafka trực tiếp.
+ * Event chỉ được OutboxRelay gửi đi khi transaction nghiệp vụ đã commit,
+ * rollback thì event cũng biến mất theo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    // Cùng cấu hình với JsonSerializer của Kafka → consumer nhận đúng định dạng như trước
+    private static final ObjectMapper OBJECT_MAPPER = JacksonUtils.enhancedObjectMapper();
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Transactional
+    public void enqueue(String topic, Object key, Object event) {
+        String payload;
+        try {
+            payload = OBJECT_MAPPER.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize event for topic " + topic, e);
+        }
+
+        OutboxEvent outboxEvent = outboxEventRepository.save(OutboxEvent.builder()
+                .topic(topic)
+                .messageKey(key != null ? key.toString() : null)
+                .payload(payload)
+                .createdAt(new Date())
+                .build());
+        log.debug("Queued outbox event {} for topic {} (key {})", outboxEvent.getId(), topic, key);
+    }
+}
@@ -4,20 +4,87 @@ import com.example.orderservice.feign.ProductClient;
 import com.example.orderservice.response.ApiResponse;
 import com.example.orderservice.response.ProductColorResponse;
 import com.example.orderservice.response.ProductResponse;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
+import java.util.*;
+
+/**
+ * Truy cập product-service qua cache 2 tầng (L1 in-process + L2 Redis).
+ * Cache được invalidate theo từng product / product color bởi ProductEventListener.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductServiceClient {
 
+    public static final String PRODUCT_COLORS_CACHE = "product-colors-v2";
+    public static final String PRODUCTS_CACHE = "products-v2";
+
     private final ProductClient productClient;
+    private final CacheManager cacheManager;
+
+    @Value("${app.product-cache.l1-max-size:5000}")
+    private int l1MaxSize;
+
+    @Value("${app.product-cache.l1-ttl-seconds:300}")
+    private long l1TtlSeconds;
+
+    private TwoLevelCache<ProductColorResponse> productColorCache;
+    private TwoLevelCache<ProductResponse> productCache;
+
+    @PostConstruct
+    void initCaches() {
+        long ttlMillis = l1TtlSeconds * 1000;
+        productColorCache = new TwoLevelCache<>(PRODUCT_COLORS_CACHE, ProductColorResponse.class,
+                cacheManager.getCache(PRODUCT_COLORS_CACHE), l1MaxSize, ttlMillis);
+        productCache = new TwoLevelCache<>(PRODUCTS_CACHE, ProductResponse.class,
+                cacheManager.getCache(PRODUCTS_CACHE), l1MaxSize, ttlMillis);
+    }
 
-    @Cacheable(value = "product-colors-v2", key = "#id")
     public ProductColorResponse getProductColor(String id) {
+        return productColorCache.get(id, this::loadProductColor);
+    }
+
+    /**
+     * Lấy nhiều product color một lần: đọc L1/L2 trước,
+     * phần còn thiếu lấy bằng một lần gọi batch.
+     */
+    public Map<String, ProductColorResponse> getProductColors(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return productColorCache.getAll(ids, this::loadProductColors);
+    }
+
+    public ProductResponse getProductById(String id) {
+        return productCache.get(id, this::loadProduct);
+    }
+
+    public void evictProduct(String productId) {
+        productCache.evict(productId);
+    }
+
+    public void evictProductColor(String productColorId) {
+        productColorCache.evict(productColorId);
+    }
+
+    public void clearProductColors() {
+        productColorCache.clear();
+    }
+
+    public Map<String, Map<String, Object>> getCacheStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put(productColorCache.getName(), productColorCache.stats());
+        stats.put(productCache.getName(), productCache.stats());
+        return stats;
+    }
+
+    private ProductColorResponse loadProductColor(String id) {
         try {
             ApiResponse<ProductColorResponse> response = productClient.getProductColor(id);
             if (response != null && response.getData() != null) {
@@ -29,8 +96,29 @@ public class ProductServiceClient {
         return null;
     }
 
-    @Cacheable(value = "products-v2", key = "#id")
-    public ProductResponse getProductById(String id) {
+    private Map<String, ProductColorResponse> loadProductColors(List<String> ids) {
+        try {
+            ApiResponse<Map<String, ProductColorResponse>> response = productClient.getProductColorsByIds(ids);
+            if (response != null && response.getData() != null) {
+                return response.getData();
+            }
+            return new HashMap<>();
+        } catch (Exception e) {
+            log.warn("Error batch fetching {} product colors from Product Service: {}", ids.size(), e.getMessage());
+        }
+
+        // Fallback gọi lẻ từng id (vẫn gộp các miss trùng nhau)
+        Map<String, ProductColorResponse> result = new HashMap<>();
+        for (String id : ids) {
+            ProductColorResponse productColor = productColorCache.get(id, this::loadProductColor);
+            if (productColor != null) {
+                result.put(id, productColor);
+            }
+        }
+        return result;
+    }
+
+    private ProductResponse loadProduct(String id) {
         try {
             ApiResponse<ProductResponse> response = productClient.getProductById(id);
             if (response != null && response.getData() != null) {
@@ -0,0 +1,372 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.entity.OrderDetail;
+import com.example.orderservice.entity.OrderRollupState;
+import com.example.orderservice.enums.EnumProcessOrder;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.repository.OrderRollupDirtyRepository;
+import com.example.orderservice.repository.OrderRollupStateRepository;
+import com.example.orderservice.repository.SalesRollupHourlyRepository;
+import com.example.orderservice.repository.SalesRollupProductDailyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Duy trì các bảng rollup cho dashboard (sales_rollup_hourly, sales_rollup_product_daily).
+ * - Mỗi lần ghi Order, đơn được đánh dấu vào bảng order_rollup_dirty sau khi transaction commit;
+ *   job định kỳ gom các đơn dirty và áp dụng chênh lệch so với order_rollup_state.
+ * - Job reconcile đánh dấu lại các đơn vừa cập nhật để bù trường hợp ghi không qua entity (bulk update)
+ *   hoặc instance chết giữa lúc commit và lúc đánh dấu.
+ * - rebuild() dựng lại toàn bộ từ bảng orders trong một transaction: dashboard vẫn đọc số cũ cho tới khi commit.
+ * Dashboard đọc rollup theo (cửa hàng × thời gian) thay vì quét orders/order_detail.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private static final long ROLLUP_LOCK_KEY = 0x524F_4C4C_5550L; // "ROLLUP"
+    private static final String UNASSIGNED_STORE = "";
+    private static final Date MIN_DATE = new Date(0);
+    private static final Date MAX_DATE = new Date(Long.MAX_VALUE / 2);
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final OrderRepository orderRepository;
+    private final OrderRollupStateRepository orderRollupStateRepository;
+    private final OrderRollupDirtyRepository orderRollupDirtyRepository;
+    private final SalesRollupHourlyRepository salesRollupHourlyRepository;
+    private final SalesRollupProductDailyRepository salesRollupProductDailyRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.analytics.rollup.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.analytics.rollup.reconcile-window-minutes:120}")
+    private long reconcileWindowMinutes;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    private record HourKey(Date bucketHour, String storeId, String status) {
+    }
+
+    private record ProductKey(Date bucketDay, String storeId, String status, String productColorId) {
+    }
+
+    // ----------------- Ghi --------------------
+
+    public void markDirty(Long orderId) {
+        if (orderId == null) {
+            return;
+        }
+        try {
+            orderRollupDirtyRepository.mark(orderId);
+        } catch (Exception e) {
+            // Đơn đã commit; job reconcile sẽ đánh dấu lại theo updated_at
+            log.warn("Failed to mark order {} for rollup: {}", orderId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.rollup.flush-interval-ms:5000}")
+    public void flushDirty() {
+        int applied;
+        do {
+            applied = applyDirtyBatch();
+        } while (applied >= chunkSize);
+    }
+
+    @Scheduled(cron = "${app.analytics.rollup.reconcile-cron:0 */30 * * * *}")
+    public void reconcileRecent() {
+        Date since = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(reconcileWindowMinutes));
+        int marked = orderRollupDirtyRepository.markUpdatedSince(since);
+        if (marked > 0) {
+            log.debug("Rollup reconcile: {} order(s) updated since {}", marked, since);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (orderRollupStateRepository.count() == 0 && orderRepository.count() > 0) {
+            log.info("Rollup tables are empty, rebuilding from order history");
+            startRebuild();
+        }
+    }
+
+    /**
+     * Chạy rebuild nền; trả về false nếu đang có một lần rebuild khác.
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("Rollup rebuild failed: {}", e.getMessage(), e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * Xoá và dựng lại cả ba bảng bằng INSERT ... SELECT trong cùng một transaction REPEATABLE READ:
+     * - người đọc thấy số cũ cho tới khi commit, không bao giờ thấy bảng rỗng hay tổng dở dang;
+     * - rollup và order_rollup_state cùng lấy từ một snapshot, nên đơn commit sau snapshot
+     *   (đã nằm trong order_rollup_dirty) được job flush áp dụng đúng chênh lệch sau khi rebuild xong.
+     * Job flush không lấy được advisory lock trong lúc rebuild nên chỉ bỏ qua lượt, không mất đánh dấu.
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate snapshot = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        while (true) {
+            Integer rebuilt = snapshot.execute(status -> {
+                if (!orderRollupStateRepository.tryAcquireRollupLock(ROLLUP_LOCK_KEY)) {
+                    return null;
+                }
+                salesRollupHourlyRepository.deleteAllInBatch();
+                salesRollupProductDailyRepository.deleteAllInBatch();
+                orderRollupStateRepository.deleteAllInBatch();
+                salesRollupHourlyRepository.rebuildFromOrders();
+                salesRollupProductDailyRepository.rebuildFromOrders();
+                return orderRollupStateRepository.rebuildFromOrders();
+            });
+            if (rebuilt != null) {
+                log.info("Rollup rebuilt from {} order(s) in {} ms", rebuilt, System.currentTimeMillis() - start);
+                return;
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for rollup lock", e);
+            }
+        }
+    }
+
+    /**
+     * Áp dụng một lô đơn dirty; dòng dirty chỉ bị xoá khi áp dụng thành công (cùng transaction).
+     * Trả về số đơn đã áp dụng, 0 nếu instance khác đang giữ lock hoặc có lỗi.
+     */
+    private int applyDirtyBatch() {
+        try {
+            Integer applied = transactionTemplate.execute(status -> {
+                if (!orderRollupStateRepository.tryAcquireRollupLock(ROLLUP_LOCK_KEY)) {
+                    return 0;
+                }
+                List<Long> orderIds = orderRollupDirtyRepository.lockBatch(chunkSize);
+                if (orderIds.isEmpty()) {
+                    return 0;
+                }
+                applyOrders(orderIds);
+                orderRollupDirtyRepository.deleteByOrderIds(orderIds);
+                return orderIds.size();
+            });
+            return applied != null ? applied : 0;
+        } catch (Exception e) {
+            log.error("Failed to update rollup: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * So sánh đóng góp đã ghi của từng đơn với trạng thái hiện tại rồi ghi phần chênh lệch.
+     * Gọi lại với cùng dữ liệu không làm thay đổi gì.
+     */
+    private void applyOrders(Collection<Long> orderIds) {
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order order : orderRepository.findAllWithDetailsByIdIn(orderIds)) {
+            orders.put(order.getId(), order);
+        }
+        Map<Long, OrderRollupState> states = new HashMap<>();
+        for (OrderRollupState state : orderRollupStateRepository.findAllById(orderIds)) {
+            states.put(state.getOrderId(), state);
+        }
+
+        Map<HourKey, double[]> hourDeltas = new HashMap<>();
+        Map<ProductKey, double[]> productDeltas = new HashMap<>();
+        List<OrderRollupState> toSave = new ArrayList<>();
+        List<Long> toDelete = new ArrayList<>();
+
+        for (Long orderId : orderIds) {
+            Order order = orders.get(orderId);
+            OrderRollupState previous = states.get(orderId);
+            OrderRollupState current = snapshot(order);
+            if (sameContribution(previous, current)) {
+                continue;
+            }
+
+            List<OrderDetail> details = order != null && order.getOrderDetails() != null
+                    ? order.getOrderDetails() : List.of();
+            if (previous != null) {
+                contribute(previous, details, -1, hourDeltas, productDeltas);
+            }
+            if (current != null) {
+                contribute(current, details, 1, hourDeltas, productDeltas);
+                toSave.add(current);
+            } else if (previous != null) {
+                toDelete.add(orderId);
+            }
+        }
+
+        hourDeltas.forEach((key, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                salesRollupHourlyRepository.increment(key.bucketHour(), key.storeId(), key.status(),
+                        (long) delta[0], delta[1]);
+            }
+        });
+        productDeltas.forEach((key, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                salesRollupProductDailyRepository.increment(key.bucketDay(), key.storeId(), key.status(),
+                        key.productColorId(), (long) delta[0], delta[1]);
+            }
+        });
+        if (!toSave.isEmpty()) {
+            orderRollupStateRepository.saveAll(toSave);
+        }
+        if (!toDelete.isEmpty()) {
+            orderRollupStateRepository.deleteAllById(toDelete);
+        }
+    }
+
+    private static OrderRollupState snapshot(Order order) {
+        if (order == null || Boolean.TRUE.equals(order.getIsDeleted()) || order.getStatus() == null
+                || order.getOrderDate() == null) {
+            return null;
+        }
+        return OrderRollupState.builder()
+                .orderId(order.getId())
+                .bucketHour(truncate(order.getOrderDate(), Calendar.HOUR_OF_DAY))
+                .storeId(order.getStoreId() != null ? order.getStoreId() : UNASSIGNED_STORE)
+                .status(order.getStatus().name())
+                .total(order.getTotal() != null ? order.getTotal() : 0.0)
+                .build();
+    }
+
+    private static boolean sameContribution(OrderRollupState a, OrderRollupState b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getBucketHour().getTime() == b.getBucketHour().getTime()
+                && a.getStoreId().equals(b.getStoreId())
+                && a.getStatus().equals(b.getStatus())
+                && Double.compare(a.getTotal(), b.getTotal()) == 0;
+    }
+
+    private static void contribute(OrderRollupState state, List<OrderDetail> details, int sign,
+                                   Map<HourKey, double[]> hourDeltas, Map<ProductKey, double[]> productDeltas) {
+        double[] hour = hourDeltas.computeIfAbsent(
+                new HourKey(state.getBucketHour(), state.getStoreId(), state.getStatus()), k -> new double[2]);
+        hour[0] += sign;
+        hour[1] += sign * state.getTotal();
+
+        Date bucketDay = truncate(state.getBucketHour(), Calendar.DAY_OF_MONTH);
+        for (OrderDetail detail : details) {
+            if (Boolean.TRUE.equals(detail.getIsDeleted()) || detail.getProductColorId() == null) {
+                continue;
+            }
+            int quantity = detail.getQuantity() != null ? detail.getQuantity() : 0;
+            double price = detail.getPrice() != null ? detail.getPrice() : 0.0;
+            double[] product = productDeltas.computeIfAbsent(
+                    new ProductKey(bucketDay, state.getStoreId(), state.getStatus(), detail.getProductColorId()),
+                    k -> new double[2]);
+            product[0] += sign * quantity;
+            product[1] += sign * quantity * price;
+        }
+    }
+
+    // Cắt theo UTC như date_trunc trong rebuild (order_date lưu UTC, hibernate.jdbc.time_zone: UTC),
+    // không theo timezone mặc định của JVM: nếu không, đơn ghi tăng dần và đơn rebuild rơi vào bucket khác nhau
+    static Date truncate(Date date, int field) {
+        Calendar cal = Calendar.getInstance(UTC);
+        cal.setTime(date);
+        if (field == Calendar.DAY_OF_MONTH) {
+            cal.set(Calendar.HOUR_OF_DAY, 0);
+        }
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        return cal.getTime();
+    }
+
+    // ----------------- Đọc --------------------
+
+    public double getRevenue(List<EnumProcessOrder> statuses) {
+        return nz(salesRollupHourlyRepository.sumRevenue(names(statuses), MIN_DATE, MAX_DATE));
+    }
+
+    public double getStoreRevenue(String storeId, List<EnumProcessOrder> statuses) {
+        return getStoreRevenue(storeId, statuses, MIN_DATE, MAX_DATE);
+    }
+
+    public double getStoreRevenue(String storeId, List<EnumProcessOrder> statuses, Date from, Date to) {
+        return nz(salesRollupHourlyRepository.sumRevenueByStore(storeId, names(statuses), from, to));
+    }
+
+    public long countStoreOrders(String storeId, Date from, Date to) {
+        Long count = salesRollupHourlyRepository.sumOrderCountByStore(storeId, from, to);
+        return count != null ? count : 0L;
+    }
+
+    public long countStoreOrders(String storeId, List<EnumProcessOrder> statuses, Date from, Date to) {
+        Long count = salesRollupHourlyRepository.sumOrderCountByStoreAndStatuses(storeId, names(statuses), from, to);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * row: [java.sql.Date day, revenue, orderCount], cùng định dạng với OrderRepository.getRevenueChartData.
+     */
+    public List<Object[]> getDailyRevenue(List<EnumProcessOrder> statuses, Date from, Date to) {
+        return salesRollupHourlyRepository.dailySeries(names(statuses), from, to);
+    }
+
+    public List<Object[]> getStoreDailyRevenue(String storeId, List<EnumProcessOrder> statuses, Date from, Date to) {
+        return salesRollupHourlyRepository.dailySeriesByStore(storeId, names(statuses), from, to);
+    }
+
+    /**
+     * row: [storeId, revenue theo statuses, tổng số đơn mọi trạng thái]
+     */
+    public List<Object[]> getTotalsByStore(List<EnumProcessOrder> revenueStatuses) {
+        return salesRollupHourlyRepository.totalsByStore(names(revenueStatuses));
+    }
+
+    /**
+     * row: [productColorId, totalQuantity, totalRevenue], cùng định dạng với OrderDetailRepository.getTopProductsBySales.
+     */
+    public List<Object[]> getTopProducts(List<EnumProcessOrder> statuses, int limit) {
+        return salesRollupProductDailyRepository.topProducts(names(statuses), limit);
+    }
+
+    public List<Object[]> getStoreTopProducts(String storeId, List<EnumProcessOrder> statuses, int limit) {
+        return salesRollupProductDailyRepository.topProductsByStore(storeId, names(statuses), limit);
+    }
+
+    private static List<String> names(List<EnumProcessOrder> statuses) {
+        return statuses.stream().map(Enum::name).toList();
+    }
+
+    private static double nz(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.orderservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache 2 tầng: L1 in-process (LRU giới hạn số phần tử + TTL ngắn) đứng trước L2 (Redis).
+ * - Không cache giá trị null.
+ * - Nhiều request cùng miss một key chỉ gây ra một lần load (single-flight).
+ * - Evict theo key xoá cả L1 và L2; load đang chạy bắt đầu trước lần evict sẽ không ghi đè lại giá trị cũ.
+ */
+@Slf4j
+public class TwoLevelCache<V> {
+
+    private final String name;
+    private final Class<V> type;
+    private final Cache l2;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, Entry<V>> l1;
+    private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    // Tăng mỗi lần evict/clear, dùng để bỏ qua kết quả của các load đã lỗi thời
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    public TwoLevelCache(String name, Class<V> type, Cache l2, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.type = type;
+        this.l2 = l2;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        this.l1 = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                if (size() > TwoLevelCache.this.maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V get(String key, Function<String, V> loader) {
+        if (key == null) {
+            return null;
+        }
+
+        V cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            collapsed.increment();
+            return existing.join();
+        }
+
+        misses.increment();
+        long epoch = invalidationEpoch.get();
+        try {
+            V loaded = loader.apply(key);
+            if (loaded != null && epoch == invalidationEpoch.get()) {
+                put(key, loaded);
+            }
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Lấy nhiều key: phần có trong L1/L2 trả ngay, phần còn thiếu load một lần bằng bulkLoader.
+     */
+    public Map<String, V> getAll(Collection<String> keys, Function<List<String>, Map<String, V>> bulkLoader) {
+        Map<String, V> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            if (key == null)
+                continue;
+            V cached = lookup(key);
+            if (cached != null) {
+                result.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        misses.add(missing.size());
+        long epoch = invalidationEpoch.get();
+        Map<String, V> loaded = bulkLoader.apply(missing);
+        if (loaded != null) {
+            boolean stale = epoch != invalidationEpoch.get();
+            loaded.forEach((key, value) -> {
+                if (value == null)
+                    return;
+                result.put(key, value);
+                if (!stale) {
+                    put(key, value);
+                }
+            });
+        }
+        return result;
+    }
+
+    public void put(String key, V value) {
+        if (key == null || value == null) {
+            return;
+        }
+        putL1(key, value);
+        if (l2 != null) {
+            try {
+                l2.put(key, value);
+            } catch (Exception e) {
+                log.warn("[{}] L2 put failed for {}: {}", name, key, e.getMessage());
+            }
+        }
+    }
+
+    public void evict(String key) {
+        if (key == null) {
+            return;
+        }
+        invalidationEpoch.incrementAndGet();
+        invalidations.increment();
+        synchronized (l1) {
+            l1.remove(key);
+        }
+        if (l2 != null) {
+            try {
+                l2.evict(key);
+            } catch (Exception e) {
+                log.warn("[{}] L2 evict failed for {}: {}", name, key, e.getMessage());
+            }
+        }
+    }
+
+    public void clear() {
+        invalidationEpoch.incrementAndGet();
+        invalidations.increment();
+        synchronized (l1) {
+            l1.clear();
+        }
+        if (l2 != null) {
+            try {
+                l2.clear();
+            } catch (Exception e) {
+                log.warn("[{}] L2 clear failed: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        int size;
+        synchronized (l1) {
+            size = l1.size();
+        }
+        long hitCount = l1Hits.sum() + l2Hits.sum();
+        long requestCount = hitCount + misses.sum() + collapsed.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("l1Size", size);
+        stats.put("l1MaxSize", maxSize);
+        stats.put("l1Hits", l1Hits.sum());
+        stats.put("l2Hits", l2Hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("collapsedLoads", collapsed.sum());
+        stats.put("sizeEvictions", sizeEvictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("hitRate", requestCount == 0 ? 0.0 : (double) hitCount / requestCount);
+        return stats;
+    }
+
+    private V lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (l1) {
+            Entry<V> entry = l1.get(key);
+            if (entry != null) {
+                if (entry.expiresAt() > now) {
+                    l1Hits.increment();
+                    return entry.value();
+                }
+                l1.remove(key);
+                expirations.increment();
+            }
+        }
+
+        if (l2 != null) {
+            try {
+                V value = l2.get(key, type);
+                if (value != null) {
+                    l2Hits.increment();
+                    putL1(key, value);
+                    return value;
+                }
+            } catch (Exception e) {
+                // Redis lỗi thì coi như miss, không làm hỏng request
+                log.warn("[{}] L2 get failed for {}: {}", name, key, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void putL1(String key, V value) {
+        synchronized (l1) {
+            l1.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+}
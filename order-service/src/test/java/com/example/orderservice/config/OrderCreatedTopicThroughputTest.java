@@ -0,0 +1,136 @@
+package com.example.orderservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * order-created-topic trên Kafka nhúng với 1/4/12 partition:
+ * - producer là outboxProducerFactory thật (idempotent, acks=all), key = orderId như OutboxService;
+ * - consumer chạy concurrency = số partition, mỗi record giả lập một lần gọi I/O;
+ * - mọi event của một đơn phải đến đúng thứ tự gửi, orders/second của từng mức partition được in ra sau khi chạy.
+ */
+@DisplayName("order-created-topic embedded Kafka Tests")
+@EmbeddedKafka(count = 1)
+class OrderCreatedTopicThroughputTest {
+
+    private static final int ORDERS = 300;
+    private static final int EVENTS_PER_ORDER = 3;
+    private static final long WORK_PER_RECORD_MS = 2;
+
+    private static final Map<Integer, Double> ordersPerSecond = new ConcurrentSkipListMap<>();
+
+    @Test
+    @DisplayName("Order lifecycle topics use the configured partition count")
+    void topicsUseConfiguredPartitions() {
+        KafkaConfig kafkaConfig = kafkaConfig(12);
+        for (NewTopic topic : List.of(kafkaConfig.orderCreatedTopic(), kafkaConfig.storeAssignedTopic(),
+                kafkaConfig.orderCancelledTopic())) {
+            assertEquals(12, topic.numPartitions(), topic.name());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 12})
+    @DisplayName("Keyed events stay ordered per order while partitions are consumed concurrently")
+    void keyedEventsStayOrdered(int partitions, EmbeddedKafkaBroker broker) throws Exception {
+        KafkaConfig kafkaConfig = kafkaConfig(partitions);
+        String topic = kafkaConfig.orderCreatedTopic().name() + "-" + partitions;
+        broker.addTopics(new NewTopic(topic, partitions, (short) 1));
+
+        Map<String, List<Integer>> receivedPerOrder = new ConcurrentHashMap<>();
+        Set<String> consumerThreads = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(ORDERS * EVENTS_PER_ORDER);
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("order-created-" + partitions, "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setMessageListener((MessageListener<String, String>) record -> {
+            consumerThreads.add(Thread.currentThread().getName());
+            receivedPerOrder.computeIfAbsent(record.key(), key -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(Integer.valueOf(record.value()));
+            sleep(WORK_PER_RECORD_MS);
+            done.countDown();
+        });
+        var container = new ConcurrentMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps, new StringDeserializer(), new StringDeserializer()),
+                containerProperties);
+        container.setConcurrency(partitions);
+        container.start();
+        ContainerTestUtils.waitForAssignment(container, partitions);
+
+        DefaultKafkaProducerFactory<String, String> producerFactory =
+                (DefaultKafkaProducerFactory<String, String>) kafkaConfig.outboxProducerFactory();
+        producerFactory.updateConfigs(Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()));
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory);
+
+        long startedAt = System.nanoTime();
+        try {
+            // Gửi xen kẽ giữa các đơn như outbox relay: event thứ i của mọi đơn rồi mới tới event i + 1
+            for (int sequence = 0; sequence < EVENTS_PER_ORDER; sequence++) {
+                for (long orderId = 1; orderId <= ORDERS; orderId++) {
+                    template.send(topic, String.valueOf(orderId), String.valueOf(sequence));
+                }
+            }
+            template.flush();
+            assertTrue(done.await(60, TimeUnit.SECONDS), "Not every event was consumed");
+        } finally {
+            container.stop();
+            producerFactory.destroy();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        assertEquals(ORDERS, receivedPerOrder.size());
+        for (Map.Entry<String, List<Integer>> entry : receivedPerOrder.entrySet()) {
+            assertEquals(List.of(0, 1, 2), entry.getValue(), "Order " + entry.getKey() + " received out of order");
+        }
+        assertEquals(partitions, consumerThreads.size());
+
+        ordersPerSecond.put(partitions, ORDERS / seconds);
+    }
+
+    @AfterAll
+    static void printThroughput() {
+        ordersPerSecond.forEach((partitions, perSecond) ->
+                System.out.printf("order-created-topic with %d partition(s): %.0f orders/s%n", partitions, perSecond));
+    }
+
+    private static KafkaConfig kafkaConfig(int partitions) {
+        KafkaConfig kafkaConfig = new KafkaConfig();
+        ReflectionTestUtils.setField(kafkaConfig, "orderTopicPartitions", partitions);
+        return kafkaConfig;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
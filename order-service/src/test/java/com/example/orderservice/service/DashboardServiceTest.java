@@ -0,0 +1,116 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.enums.EnumProcessOrder;
+import com.example.orderservice.feign.DeliveryClient;
+import com.example.orderservice.feign.InventoryClient;
+import com.example.orderservice.feign.StoreClient;
+import com.example.orderservice.feign.UserClient;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.response.ApiResponse;
+import com.example.orderservice.response.LowStockProductResponse;
+import com.example.orderservice.response.ManagerDashboardResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Dashboard manager: tile lỗi đi tới giá trị mặc định của Tiles và đánh dấu snapshot chưa đầy đủ
+ * (request sau load lại thay vì giữ kết quả rỗng trong cache), đơn chờ giao lấy bằng một câu status IN.
+ */
+@DisplayName("DashboardService Tests")
+class DashboardServiceTest {
+
+    private static final String STORE_ID = "store-1";
+    private static final List<EnumProcessOrder> READY_FOR_SHIPPING = List.of(EnumProcessOrder.MANAGER_ACCEPT,
+            EnumProcessOrder.READY_FOR_INVOICE, EnumProcessOrder.CONFIRMED, EnumProcessOrder.PACKAGED);
+
+    private OrderRepository orderRepository;
+    private InventoryClient inventoryClient;
+    private DeliveryClient deliveryClient;
+    private SalesRollupService salesRollupService;
+    private DashboardService dashboardService;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        inventoryClient = mock(InventoryClient.class);
+        deliveryClient = mock(DeliveryClient.class);
+        salesRollupService = mock(SalesRollupService.class);
+        when(deliveryClient.getDeliveryAssignmentsByStore(STORE_ID))
+                .thenReturn(ApiResponse.<List<com.example.orderservice.response.DeliveryAssignmentResponse>>builder()
+                        .data(List.of())
+                        .build());
+        when(orderRepository.findByStoreIdAndStatusInAndIsDeletedFalse(eq(STORE_ID), anyCollection(), any()))
+                .thenReturn(new PageImpl<>(List.of(
+                        Order.builder().id(1L).storeId(STORE_ID).status(EnumProcessOrder.PACKAGED).build(),
+                        Order.builder().id(2L).storeId(STORE_ID).status(EnumProcessOrder.CONFIRMED).build())));
+
+        // Chạy tile và refresh ngay trên thread gọi để kết quả xác định
+        Executor direct = Runnable::run;
+        dashboardService = new DashboardService(orderRepository, mock(StoreClient.class), mock(UserClient.class),
+                mock(ProductServiceClient.class), inventoryClient, deliveryClient, mock(AdminAnalyticsService.class),
+                salesRollupService, direct, direct);
+        ReflectionTestUtils.setField(dashboardService, "freshSeconds", 30L);
+        ReflectionTestUtils.setField(dashboardService, "maxStaleSeconds", 600L);
+        ReflectionTestUtils.setField(dashboardService, "maxEntries", 100);
+        ReflectionTestUtils.setField(dashboardService, "tileTimeoutMs", 2000L);
+        dashboardService.initCaches();
+    }
+
+    @Test
+    @DisplayName("A failing low stock tile falls back to null and is reloaded on the next request")
+    void failingTileMarksSnapshotIncomplete() {
+        when(inventoryClient.getLowStockProducts(STORE_ID, 10))
+                .thenThrow(new IllegalStateException("inventory-service down"))
+                .thenReturn(ApiResponse.<List<LowStockProductResponse>>builder()
+                        .data(List.of(LowStockProductResponse.builder().build()))
+                        .build());
+
+        ManagerDashboardResponse first = dashboardService.getManagerDashboard(STORE_ID);
+        assertNull(first.getLowStockProducts());
+
+        // Snapshot thiếu tile là stale ngay: request sau trả bản cũ và refresh nền (chạy đồng bộ ở đây)
+        dashboardService.getManagerDashboard(STORE_ID);
+        ManagerDashboardResponse refreshed = dashboardService.getManagerDashboard(STORE_ID);
+        assertEquals(1, refreshed.getLowStockProducts().size());
+        verify(inventoryClient, times(2)).getLowStockProducts(STORE_ID, 10);
+    }
+
+    @Test
+    @DisplayName("A complete snapshot is served from cache")
+    void completeSnapshotIsCached() {
+        when(inventoryClient.getLowStockProducts(STORE_ID, 10))
+                .thenReturn(ApiResponse.<List<LowStockProductResponse>>builder().data(List.of()).build());
+
+        dashboardService.getManagerDashboard(STORE_ID);
+        dashboardService.getManagerDashboard(STORE_ID);
+
+        verify(inventoryClient, times(1)).getLowStockProducts(STORE_ID, 10);
+    }
+
+    @Test
+    @DisplayName("Orders for shipper are loaded with a single status IN query")
+    void ordersForShipperUseSingleQuery() {
+        when(inventoryClient.getLowStockProducts(STORE_ID, 10))
+                .thenReturn(ApiResponse.<List<LowStockProductResponse>>builder().data(List.of()).build());
+
+        ManagerDashboardResponse response = dashboardService.getManagerDashboard(STORE_ID);
+
+        assertEquals(2, response.getOrdersForShipper().size());
+        verify(orderRepository, times(1)).findByStoreIdAndStatusInAndIsDeletedFalse(eq(STORE_ID),
+                argThat(statuses -> statuses.containsAll(READY_FOR_SHIPPING) && statuses.size() == READY_FOR_SHIPPING.size()),
+                argThat((Pageable pageable) -> pageable.getPageSize() == 50 * READY_FOR_SHIPPING.size()));
+        verify(orderRepository, never()).findByStoreIdAndStatusAndIsDeletedFalse(anyString(), any(), any());
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.entity.OrderDetail;
+import com.example.orderservice.entity.Payment;
+import com.example.orderservice.feign.DeliveryClient;
+import com.example.orderservice.feign.UserClient;
+import com.example.orderservice.repository.PaymentRepository;
+import com.example.orderservice.response.AddressResponse;
+import com.example.orderservice.response.ApiResponse;
+import com.example.orderservice.response.DeliveryConfirmationResponse;
+import com.example.orderservice.response.ProductColorResponse;
+import com.example.orderservice.response.UserResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Một trang đơn: mỗi loại dữ liệu phụ trợ chỉ một lần gọi batch với id đã gộp trùng, payment một câu IN,
+ * loại nào gọi batch lỗi thì chỉ loại đó fallback gọi lẻ. User / address gọi bằng service token (không kèm request).
+ * Chỉ kiểm tra số lần gọi và kết quả; đo độ trễ trang so với gọi lẻ chưa làm (chưa có integration / benchmark harness).
+ */
+@DisplayName("OrderLookupService Tests")
+class OrderLookupServiceTest {
+
+    private UserClient userClient;
+    private DeliveryClient deliveryClient;
+    private ProductServiceClient productServiceClient;
+    private PaymentRepository paymentRepository;
+    private OrderLookupService orderLookupService;
+
+    private List<Order> orders;
+    private Order first;
+    private Order second;
+
+    @BeforeEach
+    void setUp() {
+        userClient = mock(UserClient.class);
+        deliveryClient = mock(DeliveryClient.class);
+        productServiceClient = mock(ProductServiceClient.class);
+        paymentRepository = mock(PaymentRepository.class);
+        orderLookupService = new OrderLookupService(userClient, deliveryClient, productServiceClient,
+                paymentRepository, Runnable::run);
+
+        // Hai đơn cùng khách, cùng địa chỉ và có chung một SKU
+        first = order(1L, "user-1", 10L, "pc-1", "pc-2");
+        second = order(2L, "user-1", 10L, "pc-2");
+        orders = List.of(first, second);
+
+        when(userClient.getUsersByIds(anyList())).thenReturn(
+                data(Map.of("user-1", UserResponse.builder().id("user-1").build())));
+        when(userClient.getAddressesByIds(anyList())).thenReturn(
+                data(Map.of(10L, AddressResponse.builder().id(10L).build())));
+        when(productServiceClient.getProductColors(anyCollection())).thenReturn(Map.of(
+                "pc-1", ProductColorResponse.builder().id("pc-1").build(),
+                "pc-2", ProductColorResponse.builder().id("pc-2").build()));
+        when(deliveryClient.getDeliveryConfirmationsByOrderIds(anyList())).thenReturn(
+                data(Map.of(2L, DeliveryConfirmationResponse.builder().build())));
+        when(paymentRepository.findByOrderIdIn(anyCollection())).thenReturn(List.of(
+                Payment.builder().id(100L).order(first).build(),
+                Payment.builder().id(101L).order(first).build(),
+                Payment.builder().id(200L).order(second).build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Each lookup type is fetched once per page with de-duplicated ids")
+    void oneBatchCallPerType() {
+        OrderLookupService.Lookups lookups = orderLookupService.load(orders);
+
+        verify(userClient).getUsersByIds(List.of("user-1"));
+        verify(userClient).getAddressesByIds(List.of(10L));
+        verify(productServiceClient).getProductColors(Set.of("pc-1", "pc-2"));
+        verify(deliveryClient).getDeliveryConfirmationsByOrderIds(argThat(ids -> new HashSet<>(ids).equals(Set.of(1L, 2L))));
+        verify(paymentRepository).findByOrderIdIn(Set.of(1L, 2L));
+
+        assertEquals("user-1", lookups.getUser("user-1", this::unexpected).getId());
+        assertEquals(10L, lookups.getAddress(10L, this::unexpected).getId());
+        assertEquals("pc-2", lookups.getProductColor("pc-2", this::unexpected).getId());
+        assertNotNull(lookups.getDeliveryConfirmation(2L, this::unexpected));
+        // Có trong batch nhưng không có dữ liệu: null, không gọi lẻ
+        assertNull(lookups.getDeliveryConfirmation(1L, this::unexpected));
+        // Nhiều payment cho một đơn: giữ bản đầu tiên như findByOrderId cũ
+        assertEquals(100L, lookups.getPayment(1L).getId());
+        assertEquals(200L, lookups.getPayment(2L).getId());
+    }
+
+    @Test
+    @DisplayName("A failed batch falls back to single lookups for that type only")
+    void failedBatchFallsBackPerType() {
+        when(userClient.getUsersByIds(anyList())).thenThrow(new IllegalStateException("user-service down"));
+
+        OrderLookupService.Lookups lookups = orderLookupService.load(orders);
+
+        List<String> fallbackCalls = new ArrayList<>();
+        UserResponse user = lookups.getUser("user-1", id -> {
+            fallbackCalls.add(id);
+            return UserResponse.builder().id(id).build();
+        });
+        assertEquals("user-1", user.getId());
+        assertEquals(List.of("user-1"), fallbackCalls);
+        assertEquals(10L, lookups.getAddress(10L, this::unexpected).getId());
+        assertEquals("pc-1", lookups.getProductColor("pc-1", this::unexpected).getId());
+    }
+
+    @Test
+    @DisplayName("An empty page makes no remote calls")
+    void emptyPageMakesNoCalls() {
+        OrderLookupService.Lookups lookups = orderLookupService.load(List.of());
+
+        verifyNoInteractions(userClient, deliveryClient, productServiceClient, paymentRepository);
+        assertNull(lookups.getPayment(1L));
+        assertNull(lookups.getUser("user-1", this::unexpected));
+    }
+
+    @Test
+    @DisplayName("User and address batches run without the caller's request and restore it afterwards")
+    void userBatchesRunAsService() {
+        RequestAttributes request = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(request);
+        AtomicReference<RequestAttributes> seenByUserCall = new AtomicReference<>(request);
+        when(userClient.getUsersByIds(anyList())).thenAnswer(invocation -> {
+            seenByUserCall.set(RequestContextHolder.getRequestAttributes());
+            return data(Map.of());
+        });
+
+        orderLookupService.load(orders);
+
+        assertNull(seenByUserCall.get());
+        assertSame(request, RequestContextHolder.getRequestAttributes());
+    }
+
+    private <K, T> T unexpected(K key) {
+        throw new AssertionError("Unexpected single lookup for " + key);
+    }
+
+    private static <T> ApiResponse<T> data(T data) {
+        return ApiResponse.<T>builder().data(data).build();
+    }
+
+    private static Order order(Long id, String userId, Long addressId, String... productColorIds) {
+        List<OrderDetail> details = new ArrayList<>();
+        for (String productColorId : productColorIds) {
+            details.add(OrderDetail.builder().productColorId(productColorId).build());
+        }
+        return Order.builder().id(id).userId(userId).addressId(addressId).orderDetails(details).build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.enums.EnumProcessOrder;
+import com.example.orderservice.feign.InventoryClient;
+import com.example.orderservice.feign.ProductClient;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.response.OrderStatusBreakdownResponse;
+import com.example.orderservice.response.OrderStatusCount;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Đếm đơn theo trạng thái từ một query GROUP BY: trạng thái không có dòng nào được tính là 0,
+ * và kết quả phải giống hệt cách đếm cũ (một query COUNT cho mỗi trạng thái).
+ * Chỉ kiểm tra kết quả; đo số query / thời gian trên DB thật chưa làm (module chưa có Testcontainers).
+ */
+@DisplayName("Order status aggregation Tests")
+class OrderStatusAggregationTest {
+
+    private static final String STORE_ID = "store-1";
+
+    @Test
+    @DisplayName("toMap keeps grouped counts and skips null statuses")
+    void toMapKeepsGroupedCounts() {
+        Map<EnumProcessOrder, Long> counts = OrderStatusCount.toMap(List.of(
+                new OrderStatusCount(EnumProcessOrder.PENDING, 4L),
+                new OrderStatusCount(EnumProcessOrder.SHIPPING, 2L),
+                new OrderStatusCount(EnumProcessOrder.CANCELLED, null),
+                new OrderStatusCount(null, 9L)));
+
+        assertEquals(Map.of(EnumProcessOrder.PENDING, 4L, EnumProcessOrder.SHIPPING, 2L,
+                EnumProcessOrder.CANCELLED, 0L), counts);
+        assertTrue(OrderStatusCount.toMap(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("sum adds the requested statuses and treats missing ones as zero")
+    void sumTreatsMissingAsZero() {
+        Map<EnumProcessOrder, Long> counts = OrderStatusCount.toMap(List.of(
+                new OrderStatusCount(EnumProcessOrder.SHIPPING, 3L),
+                new OrderStatusCount(EnumProcessOrder.CONFIRMED, 5L),
+                new OrderStatusCount(EnumProcessOrder.DELIVERED, 7L)));
+
+        assertEquals(8L, OrderStatusCount.sum(counts, List.of(EnumProcessOrder.SHIPPING, EnumProcessOrder.CONFIRMED,
+                EnumProcessOrder.PACKAGED)));
+        assertEquals(0L, OrderStatusCount.sum(counts, List.of(EnumProcessOrder.RETURNED)));
+    }
+
+    @Test
+    @DisplayName("Status breakdown from one grouped query matches per-status counts")
+    void breakdownMatchesPerStatusCounts() {
+        // Đơn giả của cửa hàng: trạng thái lặp lại, nhiều trạng thái không có đơn nào
+        List<EnumProcessOrder> orders = new ArrayList<>();
+        addOrders(orders, EnumProcessOrder.PENDING, 6);
+        addOrders(orders, EnumProcessOrder.ASSIGN_ORDER_STORE, 3);
+        addOrders(orders, EnumProcessOrder.SHIPPING, 1);
+        addOrders(orders, EnumProcessOrder.FINISHED, 10);
+
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.countByStoreGroupedByStatus(STORE_ID)).thenReturn(grouped(orders));
+        BranchAnalyticsService service = new BranchAnalyticsService(orderRepository, mock(InventoryClient.class),
+                mock(ProductClient.class), mock(SalesRollupService.class));
+
+        OrderStatusBreakdownResponse response = service.getOrderStatusBreakdown(STORE_ID);
+
+        assertEquals(orders.size(), response.getTotalOrders());
+        assertEquals(EnumProcessOrder.values().length, response.getStatusCounts().size());
+        for (OrderStatusBreakdownResponse.StatusCount statusCount : response.getStatusCounts()) {
+            EnumProcessOrder status = EnumProcessOrder.valueOf(statusCount.getStatus());
+            long expected = orders.stream().filter(status::equals).count();
+            assertEquals(expected, statusCount.getCount(), status.name());
+            assertEquals(expected * 100.0 / orders.size(), statusCount.getPercentage(), 1e-9, status.name());
+        }
+        verify(orderRepository, times(1)).countByStoreGroupedByStatus(STORE_ID);
+    }
+
+    @Test
+    @DisplayName("Status breakdown of a store without orders is all zero")
+    void breakdownWithoutOrders() {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.countByStoreGroupedByStatus(STORE_ID)).thenReturn(List.of());
+        BranchAnalyticsService service = new BranchAnalyticsService(orderRepository, mock(InventoryClient.class),
+                mock(ProductClient.class), mock(SalesRollupService.class));
+
+        OrderStatusBreakdownResponse response = service.getOrderStatusBreakdown(STORE_ID);
+
+        assertEquals(0L, response.getTotalOrders());
+        assertTrue(response.getStatusCounts().stream()
+                .allMatch(statusCount -> statusCount.getCount() == 0L && statusCount.getPercentage() == 0.0));
+    }
+
+    private static void addOrders(List<EnumProcessOrder> orders, EnumProcessOrder status, int count) {
+        for (int i = 0; i < count; i++) {
+            orders.add(status);
+        }
+    }
+
+    // Giống kết quả SELECT status, COUNT(*) ... GROUP BY status: chỉ có dòng cho trạng thái có đơn
+    private static List<OrderStatusCount> grouped(List<EnumProcessOrder> orders) {
+        return Arrays.stream(EnumProcessOrder.values())
+                .map(status -> new OrderStatusCount(status, orders.stream().filter(status::equals).count()))
+                .filter(row -> row.getCount() > 0)
+                .toList();
+    }
+}
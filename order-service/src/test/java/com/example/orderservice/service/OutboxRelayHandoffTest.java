@@ -0,0 +1,149 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.entity.OutboxEvent;
+import com.example.orderservice.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Relay chết giữa lô: transaction rollback nhả advisory lock, không event nào bị đánh dấu đã gửi,
+ * và instance khác lấy lock rồi gửi lại cả lô (at-least-once).
+ * DB giả mô phỏng pg_try_advisory_xact_lock (giữ tới hết transaction) và cập nhật chỉ có hiệu lực khi commit.
+ */
+@DisplayName("OutboxRelay crash handoff Tests")
+class OutboxRelayHandoffTest {
+
+    private static final int EVENT_COUNT = 5;
+
+    private final Map<Long, OutboxEvent> events = new ConcurrentSkipListMap<>();
+    private final AtomicReference<Object> lockHolder = new AtomicReference<>();
+
+    @BeforeEach
+    void seed() {
+        for (long id = 1; id <= EVENT_COUNT; id++) {
+            events.put(id, OutboxEvent.builder()
+                    .id(id)
+                    .topic("order-created-topic")
+                    .messageKey(String.valueOf(id))
+                    .payload("{\"orderId\":" + id + "}")
+                    .createdAt(new Date())
+                    .build());
+        }
+    }
+
+    @Test
+    @DisplayName("Another instance takes over the advisory lock and republishes after a relay dies mid-batch")
+    void relayCrashHandsOffToAnotherInstance() throws Exception {
+        CountDownLatch crashingMidBatch = new CountDownLatch(1);
+        CountDownLatch crash = new CountDownLatch(1);
+        AtomicInteger crashingSends = new AtomicInteger();
+        KafkaTemplate<String, String> crashingKafka = kafka(() -> {
+            if (crashingSends.incrementAndGet() == 3) {
+                crashingMidBatch.countDown();
+                crash.await(10, TimeUnit.SECONDS);
+                throw new IllegalStateException("relay process died");
+            }
+        });
+        AtomicInteger healthySends = new AtomicInteger();
+        KafkaTemplate<String, String> healthyKafka = kafka(healthySends::incrementAndGet);
+
+        OutboxRelay crashing = relay(crashingKafka);
+        OutboxRelay healthy = relay(healthyKafka);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<Integer> crashed = pool.submit(crashing::relayBatch);
+        assertTrue(crashingMidBatch.await(10, TimeUnit.SECONDS));
+
+        // Relay đầu còn giữ lock: instance khác bỏ qua lượt này
+        assertEquals(0, healthy.relayBatch());
+        assertEquals(0, healthySends.get());
+
+        crash.countDown();
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> crashed.get(10, TimeUnit.SECONDS));
+        assertTrue(failure.getCause().getMessage().contains("relay process died"));
+        pool.shutdown();
+
+        assertNull(lockHolder.get(), "Advisory lock must be released when the transaction rolls back");
+        assertTrue(events.values().stream().allMatch(event -> event.getPublishedAt() == null),
+                "Nothing may be marked published by the relay that died");
+
+        assertEquals(EVENT_COUNT, healthy.relayBatch());
+        assertEquals(EVENT_COUNT, healthySends.get());
+        assertTrue(events.values().stream().allMatch(event -> event.getPublishedAt() != null));
+        assertEquals(0, healthy.relayBatch());
+    }
+
+    private interface SendHook {
+        void onSend() throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private KafkaTemplate<String, String> kafka(SendHook hook) {
+        KafkaTemplate<String, String> template = mock(KafkaTemplate.class);
+        when(template.send(anyString(), any(), anyString())).thenAnswer(invocation -> {
+            hook.onSend();
+            return CompletableFuture.<SendResult<String, String>>completedFuture(null);
+        });
+        return template;
+    }
+
+    private OutboxRelay relay(KafkaTemplate<String, String> kafka) {
+        Object node = new Object();
+        ThreadLocal<List<Runnable>> onCommit = new ThreadLocal<>();
+        OutboxEventRepository repository = mock(OutboxEventRepository.class);
+
+        when(repository.tryAcquireRelayLock(anyLong())).thenAnswer(invocation ->
+                lockHolder.compareAndSet(null, node) || lockHolder.get() == node);
+        when(repository.findPendingBatch(anyInt())).thenAnswer(invocation -> events.values().stream()
+                .filter(event -> event.getPublishedAt() == null)
+                .limit(invocation.<Integer>getArgument(0))
+                .toList());
+        when(repository.markPublished(anyCollection(), any(Date.class))).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            Date publishedAt = invocation.getArgument(1);
+            onCommit.get().add(() -> ids.forEach(id -> events.get(id).setPublishedAt(publishedAt)));
+            return ids.size();
+        });
+        when(repository.markFailed(anyCollection(), any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            onCommit.get().add(() -> ids.forEach(id -> events.get(id).setAttempts(events.get(id).getAttempts() + 1)));
+            return ids.size();
+        });
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                onCommit.set(new ArrayList<>());
+                try {
+                    T result = action.doInTransaction(null);
+                    onCommit.get().forEach(Runnable::run);
+                    return result;
+                } finally {
+                    // pg_try_advisory_xact_lock: nhả khi transaction kết thúc, kể cả rollback
+                    lockHolder.compareAndSet(node, null);
+                    onCommit.remove();
+                }
+            }
+        };
+
+        OutboxRelay relay = new OutboxRelay(repository, kafka, transactionTemplate);
+        ReflectionTestUtils.setField(relay, "batchSize", 200);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 1000L);
+        return relay;
+    }
+}
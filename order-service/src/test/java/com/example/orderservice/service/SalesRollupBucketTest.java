@@ -0,0 +1,45 @@
+package com.example.orderservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bucket giờ / ngày của đường ghi tăng dần phải trùng với date_trunc của rebuild trên order_date lưu UTC,
+ * kể cả khi JVM chạy với timezone mặc định khác UTC (Asia/Ho_Chi_Minh, hoặc lệch nửa giờ như Asia/Kolkata).
+ */
+@DisplayName("Sales rollup bucket Tests")
+class SalesRollupBucketTest {
+
+    private final TimeZone originalDefault = TimeZone.getDefault();
+
+    @AfterEach
+    void restoreDefaultZone() {
+        TimeZone.setDefault(originalDefault);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Asia/Ho_Chi_Minh", "Asia/Kolkata", "America/New_York"})
+    @DisplayName("Hour and day buckets are truncated in UTC whatever the JVM default zone")
+    void bucketsTruncatedInUtc(String defaultZone) {
+        TimeZone.setDefault(TimeZone.getTimeZone(defaultZone));
+        // 17:30 UTC ngày 10 là 00:30 ngày 11 ở Việt Nam, 23:00 ở Kolkata, 13:30 ở New York
+        Instant orderDate = Instant.parse("2024-03-10T17:30:45.123Z");
+
+        Date hour = SalesRollupService.truncate(Date.from(orderDate), Calendar.HOUR_OF_DAY);
+        Date day = SalesRollupService.truncate(hour, Calendar.DAY_OF_MONTH);
+
+        assertEquals(orderDate.truncatedTo(ChronoUnit.HOURS), hour.toInstant());
+        assertEquals(Instant.parse("2024-03-10T00:00:00Z"), day.toInstant());
+        assertEquals(orderDate.truncatedTo(ChronoUnit.DAYS), day.toInstant());
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/product-colors")
@@ -92,6 +93,17 @@ public class ProductColorController {
                 .build();
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Lấy nhiều ProductColor theo danh sách ID")
+    @ResponseStatus(HttpStatus.OK)
+    public ApiResponse<Map<String, ProductColorResponse>> getProductColorsByIds(@RequestBody List<String> ids) {
+        return ApiResponse.<Map<String, ProductColorResponse>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Lấy danh sách ProductColor thành công")
+                .data(productColorService.getProductColorsByIds(ids))
+                .build();
+    }
+
 //    // ✅ Tìm kiếm ProductColor có phân trang
 //    @GetMapping("/search")
 //    @Operation(summary = "Tìm kiếm ProductColor theo nhiều tiêu chí")
@@ -2,7 +2,11 @@ package com.example.productservice.repository;
 
 import com.example.productservice.entity.ProductColor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductColorRepository extends JpaRepository<ProductColor, String> {
@@ -10,4 +14,10 @@ public interface ProductColorRepository extends JpaRepository<ProductColor, Stri
     boolean existsByProductIdAndColorId(String productId, String colorId);
     boolean existsByProductIdAndColorIdAndIdNot(String productId, String colorId, String id);
 
+    @Query("SELECT pc FROM ProductColor pc JOIN FETCH pc.product JOIN FETCH pc.color WHERE pc.id IN :ids")
+    List<ProductColor> findAllByIdInWithProductAndColor(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT pc.id FROM ProductColor pc WHERE pc.product.id = :productId")
+    List<String> findIdsByProductId(@Param("productId") String productId);
+
 }
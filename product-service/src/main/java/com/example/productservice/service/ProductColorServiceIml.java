@@ -8,14 +8,19 @@ import com.example.productservice.repository.*;
 import com.example.productservice.request.ProductColorRequest;
 import com.example.productservice.response.*;
 import com.example.productservice.service.inteface.ProductColorService;
+import com.example.productservice.event.ProductUpdatedEvent;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class ProductColorServiceIml implements ProductColorService {
     private final ProductColorRepository productColorRepository;
@@ -23,6 +28,7 @@ public class ProductColorServiceIml implements ProductColorService {
     private final ColorRepository colorRepository;
     private final ProductModel3DRepository productModel3DRepository;
     private final ProductImageRepository productImageRepository;
+    private final ProductEventPublisher productEventPublisher;
 
     @Override
     @Transactional
@@ -133,6 +139,7 @@ public class ProductColorServiceIml implements ProductColorService {
         }
 
         ProductColor saved = productColorRepository.save(existing);
+        publishProductColorChanged(saved, "UPDATE");
         return mapToResponse(saved);
     }
 
@@ -141,6 +148,7 @@ public class ProductColorServiceIml implements ProductColorService {
         ProductColor productColor = productColorRepository.findById(productColorId)
                 .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_COLOR_NOT_FOUND));
         productColorRepository.delete(productColor);
+        publishProductColorChanged(productColor, "DELETE");
     }
 
     @Override
@@ -153,6 +161,22 @@ public class ProductColorServiceIml implements ProductColorService {
         productColor.setStatus(EnumStatus.INACTIVE);
         }
         productColorRepository.save(productColor);
+        publishProductColorChanged(productColor, "DISABLE");
+    }
+
+    // Báo cho các service đang cache product color (order-service) xoá đúng màu này, sau khi commit
+    private void publishProductColorChanged(ProductColor productColor, String action) {
+        try {
+            String productId = productColor.getProduct() != null ? productColor.getProduct().getId() : null;
+            ProductUpdatedEvent event = ProductUpdatedEvent.builder()
+                    .productId(productId)
+                    .action(action)
+                    .productColorIds(List.of(productColor.getId()))
+                    .build();
+            productEventPublisher.publishUpdated(productId != null ? productId : productColor.getId(), event);
+        } catch (Exception e) {
+            log.error("Failed to send product color {} event: {}", action.toLowerCase(), e.getMessage());
+        }
     }
 
     @Override
@@ -169,6 +193,15 @@ public class ProductColorServiceIml implements ProductColorService {
         return mapToResponse(productColor);
     }
 
+    @Override
+    public Map<String, ProductColorResponse> getProductColorsByIds(List<String> productColorIds) {
+        if (productColorIds == null || productColorIds.isEmpty()) {
+            return Map.of();
+        }
+        return productColorRepository.findAllByIdInWithProductAndColor(new HashSet<>(productColorIds)).stream()
+                .collect(Collectors.toMap(ProductColor::getId, this::mapToResponse, (a, b) -> a));
+    }
+
     private ProductColorResponse mapToResponse(ProductColor entity) {
         return ProductColorResponse.builder()
                 .id(entity.getId())
@@ -0,0 +1,45 @@
+package com.example.productservice.service;
+
+import com.example.productservice.event.ProductUpdatedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Gửi product-updated-topic sau khi transaction hiện tại commit: consumer (cache product color ở order-service)
+ * xoá cache rồi đọc lại ngay, nếu gửi trước commit sẽ nạp lại đúng bản cũ. Transaction rollback thì không gửi.
+ * Không có transaction thì gửi ngay (dữ liệu đã được save / commit trước đó).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductEventPublisher {
+
+    public static final String PRODUCT_UPDATED_TOPIC = "product-updated-topic";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public void publishUpdated(String key, ProductUpdatedEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(key, event);
+                }
+            });
+        } else {
+            send(key, event);
+        }
+    }
+
+    private void send(String key, ProductUpdatedEvent event) {
+        try {
+            kafkaTemplate.send(PRODUCT_UPDATED_TOPIC, key, event);
+        } catch (Exception e) {
+            log.error("Failed to send product {} event for {}: {}", event.getAction(), key, e.getMessage());
+        }
+    }
+}
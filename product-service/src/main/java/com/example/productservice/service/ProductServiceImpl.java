@@ -27,9 +27,11 @@ public class ProductServiceImpl implements ProductService {
         private final ProductRepository productRepository;
         private final CategoryRepository categoryRepository;
         private final MaterialRepository materialRepository;
+        private final ProductColorRepository productColorRepository;
 
         private final org.springframework.kafka.core.KafkaTemplate<String, Object> kafkaTemplate;
         private final com.example.productservice.feign.InventoryClient inventoryClient;
+        private final ProductEventPublisher productEventPublisher;
 
         @Override
         @Transactional
@@ -134,8 +136,9 @@ public class ProductServiceImpl implements ProductService {
                         ProductUpdatedEvent event = ProductUpdatedEvent.builder()
                                         .productId(product.getId())
                                         .action("UPDATE")
+                                        .productColorIds(productColorRepository.findIdsByProductId(product.getId()))
                                         .build();
-                        kafkaTemplate.send("product-updated-topic", event);
+                        productEventPublisher.publishUpdated(product.getId(), event);
                 } catch (Exception e) {
                         log.error("Failed to send product updated event: {}", e.getMessage());
                 }
@@ -154,8 +157,9 @@ public class ProductServiceImpl implements ProductService {
                         ProductUpdatedEvent event = ProductUpdatedEvent.builder()
                                         .productId(product.getId())
                                         .action("DELETE")
+                                        .productColorIds(productColorRepository.findIdsByProductId(product.getId()))
                                         .build();
-                        kafkaTemplate.send("product-updated-topic", event);
+                        productEventPublisher.publishUpdated(product.getId(), event);
                 } catch (Exception e) {
                         log.error("Failed to send product delete event: {}", e.getMessage());
                 }
@@ -174,8 +178,9 @@ public class ProductServiceImpl implements ProductService {
                         ProductUpdatedEvent event = ProductUpdatedEvent.builder()
                                         .productId(product.getId())
                                         .action("DISABLE")
+                                        .productColorIds(productColorRepository.findIdsByProductId(product.getId()))
                                         .build();
-                        kafkaTemplate.send("product-updated-topic", event);
+                        productEventPublisher.publishUpdated(product.getId(), event);
                 } catch (Exception e) {
                         log.error("Failed to send product disable event: {}", e.getMessage());
                 }
@@ -4,6 +4,7 @@ import com.example.productservice.request.ProductColorRequest;
 import com.example.productservice.response.ProductColorResponse;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ProductColorService {
     ProductColorResponse addProductColor(ProductColorRequest productColorRequest);
@@ -12,4 +13,5 @@ public interface ProductColorService {
     void disableProductColor(String productColorId);
     List<ProductColorResponse> getProductColors();
     ProductColorResponse getProductColor(String productColorId);
+    Map<String, ProductColorResponse> getProductColorsByIds(List<String> productColorIds);
 }
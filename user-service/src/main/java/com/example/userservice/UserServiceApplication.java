@@ -6,6 +6,7 @@ import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.TimeZone;
 
@@ -13,6 +14,7 @@ import java.util.TimeZone;
 @EnableDiscoveryClient
 @EnableCaching
 @EnableAsync
+@EnableScheduling
 @EnableFeignClients(basePackages = "com.example.userservice.feign")
 public class UserServiceApplication {
 
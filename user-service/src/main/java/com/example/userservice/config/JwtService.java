@@ -51,6 +51,7 @@ public class JwtService {
         return parseToken(token).getBody().getSubject();
     }
 
+    // Claim userId là account id; id User / Employee nằm trong claim profileId (TokenClaimsProvider)
     public String extractUserId(String token) {
         return parseToken(token).getBody().get("userId", String.class);
     }
@@ -32,6 +32,14 @@ public class KafkaConfig {
                 .build();
     }
 
+    @Bean
+    public NewTopic employeeChangedTopic() {
+        return TopicBuilder.name("employee-changed-topic")
+                .partitions(1)
+                .replicas(1)
+                .build();
+    }
+
     // ----------------- PRODUCER cho Object --------------------
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
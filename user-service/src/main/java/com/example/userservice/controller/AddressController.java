@@ -11,9 +11,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/addresses")
@@ -56,6 +58,17 @@ public class AddressController {
                 .build();
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Get addresses by list of IDs (batch lookup for internal services)")
+    @PreAuthorize("hasRole('SERVICE') or hasRole('ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('STAFF') or hasRole('DELIVERY')")
+    public ApiResponse<Map<Long, AddressResponse>> getAddressesByIds(@RequestBody List<Long> ids) {
+        return ApiResponse.<Map<Long, AddressResponse>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Addresses retrieved successfully")
+                .data(addressService.getAddressesByIds(ids))
+                .build();
+    }
+
     @GetMapping
     @Operation(summary = "Get all addresses")
     public ApiResponse<List<AddressResponse>> getAllAddresses() {
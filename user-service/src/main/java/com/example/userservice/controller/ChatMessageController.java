@@ -2,17 +2,23 @@ package com.example.userservice.controller;
 
 import com.example.userservice.request.ChatMessageRequest;
 import com.example.userservice.response.ApiResponse;
+import com.example.userservice.response.ChatMessageCursorResponse;
 import com.example.userservice.response.ChatMessageResponse;
+import com.example.userservice.response.ChatMessageSyncResponse;
 import com.example.userservice.response.PageResponse;
 import com.example.userservice.service.inteface.ChatMessageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -62,6 +68,43 @@ public class ChatMessageController {
                 .build();
     }
 
+    @GetMapping("/chat/{chatId}/history")
+    @Operation(summary = "Get chat messages with cursor pagination (newest page first, pass nextCursor as before for older)")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER') or hasRole('STAFF')")
+    public ApiResponse<ChatMessageCursorResponse> getChatMessageHistory(
+            @PathVariable String chatId,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.<ChatMessageCursorResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("Messages retrieved successfully")
+                .data(chatMessageService.getChatMessageHistory(chatId, before, size))
+                .build();
+    }
+
+    @GetMapping("/chat/{chatId}/sync")
+    @Operation(summary = "Get new, edited and deleted messages since a sync cursor (supports If-None-Match)")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER') or hasRole('STAFF')")
+    public ApiResponse<ChatMessageSyncResponse> syncChatMessages(
+            @PathVariable String chatId,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int size,
+            WebRequest webRequest,
+            HttpServletResponse response) {
+        ChatMessageSyncResponse sync = chatMessageService.syncChatMessages(
+                chatId, since, size, webRequest.getHeader(HttpHeaders.IF_NONE_MATCH));
+        // Cho phép client giữ bản cũ nhưng luôn hỏi lại bằng If-None-Match
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (webRequest.checkNotModified(sync.getEtag())) {
+            return null;
+        }
+        return ApiResponse.<ChatMessageSyncResponse>builder()
+                .status(HttpStatus.OK.value())
+                .message("Message changes retrieved successfully")
+                .data(sync)
+                .build();
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get message by ID")
     @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER') or hasRole('STAFF')")
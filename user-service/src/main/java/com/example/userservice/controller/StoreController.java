@@ -17,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/stores")
@@ -58,6 +59,16 @@ public class StoreController {
                 .build();
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Get stores by list of IDs (batch lookup for internal services)")
+    public ApiResponse<Map<String, StoreResponse>> getStoresByIds(@RequestBody List<String> ids) {
+        return ApiResponse.<Map<String, StoreResponse>>builder()
+                .status(HttpStatus.OK.value())
+                .message("Stores retrieved successfully")
+                .data(storeService.getStoresByIds(ids))
+                .build();
+    }
+
     @GetMapping
     @Operation(summary = "Get all stores")
     public ApiResponse<List<StoreResponse>> getAllStores() {
@@ -201,9 +212,10 @@ public class StoreController {
     public ApiResponse<List<StoreDistance>> getNearestStores(
             @RequestParam double lat,
             @RequestParam double lon,
-            @RequestParam(defaultValue = "5") int limit) {
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(defaultValue = "false") boolean includeEmployees) {
 
-        List<StoreDistance> nearestStores = storeService.findNearestStores(lat, lon, limit);
+        List<StoreDistance> nearestStores = storeService.findNearestStores(lat, lon, limit, includeEmployees);
 
         return ApiResponse.<List<StoreDistance>>builder()
                 .status(HttpStatus.OK.value())
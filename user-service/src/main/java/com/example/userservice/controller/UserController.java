@@ -15,6 +15,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -57,6 +58,17 @@ public class UserController {
                                 .build();
         }
 
+        @PostMapping("/batch")
+        @Operation(summary = "Get users by list of IDs (batch lookup for internal services)")
+        @PreAuthorize("hasRole('SERVICE') or hasRole('ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('STAFF') or hasRole('DELIVERY')")
+        public ApiResponse<Map<String, UserResponse>> getUsersByIds(@RequestBody List<String> ids) {
+                return ApiResponse.<Map<String, UserResponse>>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Users retrieved successfully")
+                                .data(userService.getUsersByIds(ids))
+                                .build();
+        }
+
         @GetMapping
         @Operation(summary = "Get all users (Admin only)")
         @PreAuthorize("hasRole('ADMIN')")
@@ -214,7 +226,7 @@ public class UserController {
 
         @GetMapping("/count")
         @Operation(summary = "Get total users count")
-        @PreAuthorize("hasRole('ADMIN')")
+        @PreAuthorize("hasRole('ADMIN') or hasRole('SERVICE')")
         public ApiResponse<Long> getTotalUsersCount() {
                 return ApiResponse.<Long>builder()
                                 .status(HttpStatus.OK.value())
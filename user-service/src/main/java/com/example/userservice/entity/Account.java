@@ -2,6 +2,7 @@ package com.example.userservice.entity;
 
 import com.example.userservice.enums.EnumRole;
 import com.example.userservice.enums.EnumStatus;
+import com.example.userservice.listener.EmployeeChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
@@ -12,6 +13,7 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
+@EntityListeners(EmployeeChangeListener.class)
 @Table(name = "accounts", 
        uniqueConstraints = {
            @UniqueConstraint(columnNames = "email")
@@ -59,6 +59,10 @@ public class Chat extends AbstractEntity {
     @Column(name = "staff_chat_ended_at")
     private java.time.LocalDateTime staffChatEndedAt;
 
+    // Bộ đếm thay đổi tin nhắn của chat, chỉ tăng bằng câu lệnh native (ChatChangeSequencer)
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
     public enum ChatType {
         PRIVATE,
         GROUP,
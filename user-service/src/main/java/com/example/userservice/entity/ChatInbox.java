@@ -0,0 +1,76 @@
+package com.example.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Inbox của một participant: bản tóm tắt chat (tin nhắn cuối, số tin chưa đọc, ghim / tắt thông báo)
+ * được cập nhật khi gửi tin nhắn và khi đánh dấu đã đọc, để danh sách chat chỉ cần một query theo index.
+ * id trùng với id của ChatParticipant; ownerId là user id hoặc employee id của participant.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "chat_inbox", indexes = {
+        @Index(name = "idx_chat_inbox_owner_priority", columnList = "owner_id, has_unread, activity_at"),
+        @Index(name = "idx_chat_inbox_chat", columnList = "chat_id")
+})
+public class ChatInbox {
+
+    public static final int PREVIEW_LENGTH = 200;
+
+    @Id
+    private String id;
+
+    @Column(name = "chat_id", nullable = false)
+    private String chatId;
+
+    @Column(name = "owner_id", nullable = false)
+    private String ownerId;
+
+    @Column(name = "last_message_id")
+    private String lastMessageId;
+
+    @Column(name = "last_message_preview", length = PREVIEW_LENGTH)
+    private String lastMessagePreview;
+
+    @Column(name = "last_sender_id")
+    private String lastSenderId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "last_message_at")
+    private Date lastMessageAt;
+
+    @Builder.Default
+    @Column(name = "unread_count", nullable = false)
+    private Long unreadCount = 0L;
+
+    @Builder.Default
+    @Column(name = "has_unread", nullable = false)
+    private Boolean hasUnread = false;
+
+    @Builder.Default
+    @Column(name = "is_pinned", nullable = false)
+    private Boolean isPinned = false;
+
+    @Builder.Default
+    @Column(name = "is_muted", nullable = false)
+    private Boolean isMuted = false;
+
+    // Thời điểm tin nhắn cuối (hoặc lúc tham gia chat nếu chưa có tin nhắn) - khoá sắp xếp của inbox
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "activity_at", nullable = false)
+    private Date activityAt;
+
+    public static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH);
+    }
+}
@@ -5,7 +5,10 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_messages_chat_created", columnList = "chat_id, created_at, id"),
+        @Index(name = "idx_chat_messages_chat_change", columnList = "chat_id, change_seq, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -55,6 +58,10 @@ public class ChatMessage extends AbstractEntity {
     @Column
     private Boolean isDeleted = false;
 
+    // Thứ tự commit của lần ghi cuối trong chat, gán ngay trước commit (ChatChangeSequencer)
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
     public enum MessageType {
         TEXT,
         IMAGE,
@@ -1,6 +1,7 @@
 package com.example.userservice.entity;
 
 import com.example.userservice.enums.EnumStatus;
+import com.example.userservice.listener.ChatParticipantChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "chat_participants")
+@EntityListeners(ChatParticipantChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,6 +1,7 @@
 package com.example.userservice.entity;
 
 import com.example.userservice.enums.EnumStatus;
+import com.example.userservice.listener.EmployeeChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -15,6 +16,7 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 @Table(name = "employees")
+@EntityListeners(EmployeeChangeListener.class)
 public class Employee extends AbstractEntity {
 
     @Id
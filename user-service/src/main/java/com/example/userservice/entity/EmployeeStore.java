@@ -1,5 +1,6 @@
 package com.example.userservice.entity;
 
+import com.example.userservice.listener.EmployeeChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -10,6 +11,7 @@ import lombok.*;
 @NoArgsConstructor
 @Builder
 @Table(name = "employee_stores")
+@EntityListeners(EmployeeChangeListener.class)
 @IdClass(EmployeeStoreId.class)
 public class EmployeeStore extends AbstractEntity {
 
@@ -99,6 +99,8 @@ public enum ErrorCode {
     BLOG_HIERARCHY_DENIED(1269, "Cannot manage blog of peer or superior", HttpStatus.FORBIDDEN),
     BLOG_TOGGLE_STATUS_DENIED(1270, "Cannot toggle blog status", HttpStatus.FORBIDDEN),
 
+    BATCH_SIZE_EXCEEDED(1271, "Too many ids in batch request", HttpStatus.BAD_REQUEST),
+
     ;
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
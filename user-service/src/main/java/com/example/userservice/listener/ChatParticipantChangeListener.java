@@ -0,0 +1,58 @@
+package com.example.userservice.listener;
+
+import com.example.userservice.entity.ChatParticipant;
+import com.example.userservice.enums.EnumStatus;
+import com.example.userservice.websocket.ChatRoutingTable;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cập nhật ChatRoutingTable khi participant được thêm / rời chat / đổi trạng thái, sau khi transaction commit.
+ * Chỉ đọc id (user, employee, chat) nên không kích hoạt lazy load trong lúc flush.
+ */
+@Component
+public class ChatParticipantChangeListener {
+
+    @Lazy
+    @Autowired
+    private ChatRoutingTable chatRoutingTable;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(ChatParticipant participant) {
+        afterCommit(participant, participant.getStatus() == EnumStatus.ACTIVE);
+    }
+
+    @PostRemove
+    public void onRemoved(ChatParticipant participant) {
+        afterCommit(participant, false);
+    }
+
+    private void afterCommit(ChatParticipant participant, boolean active) {
+        if (participant.getChat() == null || participant.getId() == null) {
+            return;
+        }
+        String chatId = participant.getChat().getId();
+        String userId = participant.getUser() != null ? participant.getUser().getId() : null;
+        String employeeId = participant.getEmployee() != null ? participant.getEmployee().getId() : null;
+        // recipientId của nhân viên phụ thuộc account: để null, bảng định tuyến tự nạp lại khi cần
+        ChatRoutingTable.Member member = new ChatRoutingTable.Member(participant.getId(), userId, employeeId, userId);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            chatRoutingTable.apply(chatId, member, active);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                chatRoutingTable.apply(chatId, member, active);
+            }
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.userservice.listener;
+
+import com.example.userservice.entity.Account;
+import com.example.userservice.enums.EnumRole;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Báo employee-changed-topic khi thông tin nhân viên (Employee, Account của nhân viên, EmployeeStore) thay đổi,
+ * để các service cache danh sách nhân viên (vd. roster shipper ở delivery-service) làm mới.
+ * Mỗi transaction chỉ gửi một event, sau khi commit.
+ */
+@Slf4j
+@Component
+public class EmployeeChangeListener {
+
+    public static final String EMPLOYEE_CHANGED_TOPIC = "employee-changed-topic";
+
+    private static final Object TX_KEY = EmployeeChangeListener.class.getName() + ".pending";
+
+    @Lazy
+    @Autowired
+    @Qualifier("stringKafkaTemplate")
+    private KafkaTemplate<String, String> stringKafkaTemplate;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Object entity) {
+        if (entity instanceof Account account && (account.getRole() == null || account.getRole() == EnumRole.CUSTOMER)) {
+            return; // Tài khoản khách hàng không ảnh hưởng danh sách nhân viên
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(TX_KEY)) {
+            return; // Đã đăng ký gửi cho transaction này
+        }
+        TransactionSynchronizationManager.bindResource(TX_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TX_KEY);
+            }
+        });
+    }
+
+    private void publish() {
+        try {
+            stringKafkaTemplate.send(EMPLOYEE_CHANGED_TOPIC, String.valueOf(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("Failed to publish employee change event: {}", e.getMessage());
+        }
+    }
+}
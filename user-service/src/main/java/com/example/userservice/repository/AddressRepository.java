@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,4 +34,8 @@ public interface AddressRepository extends JpaRepository<Address, Long> {
     
     @Query("SELECT a FROM Address a WHERE a.city LIKE %:city% OR a.district LIKE %:district% OR a.ward LIKE %:ward%")
     List<Address> findByLocation(@Param("city") String city, @Param("district") String district, @Param("ward") String ward);
+
+    // Batch lookup: 1 query cho nhiều địa chỉ, fetch luôn user để build response
+    @Query("SELECT a FROM Address a JOIN FETCH a.user WHERE a.id IN :ids")
+    List<Address> findAllByIdInWithUser(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,113 @@
+package com.example.userservice.repository;
+
+import com.example.userservice.entity.ChatInbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface ChatInboxRepository extends JpaRepository<ChatInbox, String> {
+
+    /**
+     * Dựng inbox cho các participation ACTIVE (chat chưa xoá) chưa có dòng chat_inbox, bằng một câu INSERT ... SELECT:
+     * tin nhắn cuối và số tin chưa đọc (sau lastReadAt, trừ tin của chính participant - kể cả tin nhân viên gửi
+     * qua User của account) được tính trong cùng câu lệnh. ON CONFLICT để các instance chạy song song không lỗi.
+     */
+    String INSERT_MISSING_INBOX = """
+            INSERT INTO chat_inbox (id, chat_id, owner_id, last_message_id, last_message_preview, last_sender_id,
+                                    last_message_at, unread_count, has_unread, is_pinned, is_muted, activity_at)
+            SELECT p.id, p.chat_id, COALESCE(p.user_id, p.employee_id),
+                   lm.id, LEFT(lm.content, 200), lm.sender_id, lm.created_at,
+                   un.cnt, un.cnt > 0, COALESCE(p.is_pinned, false), COALESCE(p.is_muted, false),
+                   COALESCE(lm.created_at, p.created_at, c.created_at, now())
+            FROM chat_participants p
+            JOIN chats c ON c.id = p.chat_id AND c.is_deleted = false
+            LEFT JOIN employees e ON e.id = p.employee_id
+            LEFT JOIN users eu ON eu.account_id = e.account_id
+            LEFT JOIN LATERAL (
+                SELECT m.id, m.content, m.sender_id, m.created_at FROM chat_messages m
+                WHERE m.chat_id = p.chat_id AND m.is_deleted = false
+                ORDER BY m.created_at DESC LIMIT 1) lm ON true
+            CROSS JOIN LATERAL (
+                SELECT COUNT(*) AS cnt FROM chat_messages m
+                WHERE m.chat_id = p.chat_id AND m.is_deleted = false
+                  AND (p.last_read_at IS NULL OR m.created_at > p.last_read_at)
+                  AND m.sender_id <> COALESCE(p.user_id, p.employee_id)
+                  AND (eu.id IS NULL OR m.sender_id <> eu.id)) un
+            WHERE p.status = 'ACTIVE' AND (p.user_id IS NOT NULL OR p.employee_id IS NOT NULL)
+              AND NOT EXISTS (SELECT 1 FROM chat_inbox i WHERE i.id = p.id)
+            """;
+
+    @Modifying
+    @Query(value = INSERT_MISSING_INBOX + " ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    int insertAllMissing();
+
+    @Modifying
+    @Query(value = INSERT_MISSING_INBOX + " AND p.chat_id = :chatId ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    int insertMissingForChat(@Param("chatId") String chatId);
+
+    /**
+     * Inbox của user / nhân viên: chat có tin chưa đọc trước, sau đó theo hoạt động gần nhất
+     * (khớp index idx_chat_inbox_owner_priority). Bỏ qua participant đã rời và chat đã xoá.
+     */
+    @Query("SELECT i FROM ChatInbox i WHERE i.ownerId = :ownerId AND EXISTS (SELECT p.id FROM ChatParticipant p " +
+            "WHERE p.id = i.id AND p.status = 'ACTIVE' AND p.chat.isDeleted = false) " +
+            "ORDER BY i.hasUnread DESC, i.activityAt DESC")
+    List<ChatInbox> findInboxByOwnerId(@Param("ownerId") String ownerId, Pageable pageable);
+
+    /**
+     * Ghi tin nhắn mới vào inbox của mọi participant trong chat; inbox của người gửi không tăng số chưa đọc.
+     * Con trỏ tin nhắn cuối chỉ tiến lên, nên hai tin commit lệch thứ tự không làm nó lùi lại.
+     */
+    @Modifying
+    @Query("UPDATE ChatInbox i SET " +
+            "i.lastMessageId = CASE WHEN i.lastMessageAt IS NULL OR i.lastMessageAt <= :sentAt THEN :messageId ELSE i.lastMessageId END, " +
+            "i.lastMessagePreview = CASE WHEN i.lastMessageAt IS NULL OR i.lastMessageAt <= :sentAt THEN :preview ELSE i.lastMessagePreview END, " +
+            "i.lastSenderId = CASE WHEN i.lastMessageAt IS NULL OR i.lastMessageAt <= :sentAt THEN :senderId ELSE i.lastSenderId END, " +
+            "i.activityAt = CASE WHEN i.activityAt <= :sentAt THEN :sentAt ELSE i.activityAt END, " +
+            "i.lastMessageAt = CASE WHEN i.lastMessageAt IS NULL OR i.lastMessageAt <= :sentAt THEN :sentAt ELSE i.lastMessageAt END, " +
+            "i.unreadCount = CASE WHEN i.ownerId IN :senderIds THEN i.unreadCount ELSE i.unreadCount + 1 END, " +
+            "i.hasUnread = CASE WHEN i.ownerId IN :senderIds THEN i.hasUnread ELSE true END " +
+            "WHERE i.chatId = :chatId")
+    int applyMessage(@Param("chatId") String chatId,
+                     @Param("messageId") String messageId,
+                     @Param("preview") String preview,
+                     @Param("senderId") String senderId,
+                     @Param("sentAt") Date sentAt,
+                     @Param("senderIds") Collection<String> senderIds);
+
+    @Modifying
+    @Query("UPDATE ChatInbox i SET i.unreadCount = 0, i.hasUnread = false WHERE i.id = :id")
+    int markRead(@Param("id") String id);
+
+    @Modifying
+    @Query("UPDATE ChatInbox i SET i.isMuted = :muted WHERE i.id = :id")
+    int updateMuted(@Param("id") String id, @Param("muted") boolean muted);
+
+    @Modifying
+    @Query("UPDATE ChatInbox i SET i.isPinned = :pinned WHERE i.id = :id")
+    int updatePinned(@Param("id") String id, @Param("pinned") boolean pinned);
+
+    @Modifying
+    @Query("UPDATE ChatInbox i SET i.lastMessagePreview = :preview WHERE i.lastMessageId = :messageId")
+    int updatePreview(@Param("messageId") String messageId, @Param("preview") String preview);
+
+    /**
+     * Tin nhắn cuối bị xoá: trỏ sang tin nhắn còn lại mới nhất (null nếu không còn).
+     */
+    @Modifying
+    @Query("UPDATE ChatInbox i SET i.lastMessageId = :newMessageId, i.lastMessagePreview = :preview, " +
+            "i.lastSenderId = :senderId, i.lastMessageAt = :sentAt " +
+            "WHERE i.chatId = :chatId AND i.lastMessageId = :oldMessageId")
+    int replaceLastMessage(@Param("chatId") String chatId,
+                           @Param("oldMessageId") String oldMessageId,
+                           @Param("newMessageId") String newMessageId,
+                           @Param("preview") String preview,
+                           @Param("senderId") String senderId,
+                           @Param("sentAt") Date sentAt);
+}
@@ -4,9 +4,11 @@ import com.example.userservice.entity.ChatMessage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,4 +40,34 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, String
 
     @Query("SELECT m FROM ChatMessage m WHERE m.chat.id = :chatId AND m.createdAt > :since AND m.isDeleted = false ORDER BY m.createdAt ASC")
     List<ChatMessage> findNewMessagesSince(@Param("chatId") String chatId, @Param("since") java.time.LocalDateTime since);
+
+    /**
+     * Trang keyset mới nhất của chat, theo (createdAt, id) giảm dần.
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.chat.id = :chatId AND m.isDeleted = false ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessage> findLatestMessages(@Param("chatId") String chatId, Pageable pageable);
+
+    /**
+     * Trang keyset cũ hơn con trỏ (beforeAt, beforeId), theo (createdAt, id) giảm dần.
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.chat.id = :chatId AND m.isDeleted = false " +
+           "AND (m.createdAt < :beforeAt OR (m.createdAt = :beforeAt AND m.id < :beforeId)) ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessage> findMessagesBefore(@Param("chatId") String chatId, @Param("beforeAt") java.util.Date beforeAt,
+                                         @Param("beforeId") String beforeId, Pageable pageable);
+
+    /**
+     * Thay đổi (tạo / sửa / xoá mềm đều gán lại changeSeq) sau con trỏ (sinceSeq, sinceId), theo (changeSeq, id) tăng dần.
+     * Gồm cả tin nhắn đã xoá.
+     */
+    @Query("SELECT m FROM ChatMessage m WHERE m.chat.id = :chatId AND m.changeSeq IS NOT NULL " +
+           "AND (m.changeSeq > :sinceSeq OR (m.changeSeq = :sinceSeq AND m.id > :sinceId)) ORDER BY m.changeSeq ASC, m.id ASC")
+    List<ChatMessage> findMessageChangesSince(@Param("chatId") String chatId, @Param("sinceSeq") long sinceSeq,
+                                              @Param("sinceId") String sinceId, Pageable pageable);
+
+    @Query("SELECT m FROM ChatMessage m WHERE m.chat.id = :chatId AND m.changeSeq IS NOT NULL ORDER BY m.changeSeq DESC, m.id DESC")
+    List<ChatMessage> findLatestChanges(@Param("chatId") String chatId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "UPDATE chat_messages SET change_seq = :seq WHERE id IN (:ids)", nativeQuery = true)
+    int assignChangeSeq(@Param("ids") Collection<String> ids, @Param("seq") long seq);
 }
@@ -14,6 +14,13 @@ public interface ChatParticipantRepository extends JpaRepository<ChatParticipant
     @Query("SELECT p FROM ChatParticipant p WHERE p.chat.id = :chatId AND p.status = 'ACTIVE'")
     List<ChatParticipant> findActiveParticipantsByChatId(@Param("chatId") String chatId);
 
+    /**
+     * Định tuyến của các participant ACTIVE trong chat: [participantId, userId, employeeId, userId của account nhân viên].
+     */
+    @Query("SELECT p.id, u.id, e.id, au.id FROM ChatParticipant p LEFT JOIN p.user u LEFT JOIN p.employee e " +
+            "LEFT JOIN e.account a LEFT JOIN a.user au WHERE p.chat.id = :chatId AND p.status = 'ACTIVE'")
+    List<Object[]> findActiveParticipantRoutesByChatId(@Param("chatId") String chatId);
+
     @Query("SELECT p FROM ChatParticipant p WHERE (p.user.id = :userId OR p.employee.id = :userId) AND p.status = 'ACTIVE'")
     List<ChatParticipant> findActiveParticipationsByUserId(@Param("userId") String userId);
 
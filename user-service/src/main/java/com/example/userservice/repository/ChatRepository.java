@@ -4,6 +4,7 @@ import com.example.userservice.entity.Chat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -44,4 +45,15 @@ public interface ChatRepository extends JpaRepository<Chat, String> {
            "ORDER BY CASE WHEN c.chatMode = 'WAITING_STAFF' THEN 0 ELSE 1 END, " +
            "COALESCE(c.staffRequestedAt, c.updatedAt) ASC")
     List<Chat> findChatsWaitingForStaffOrAssignedToStaff(@Param("staffId") String staffId);
+
+    /**
+     * Tăng bộ đếm thay đổi của chat; khoá dòng chats giữ tới khi transaction kết thúc,
+     * nên các transaction cùng chat nhận số theo đúng thứ tự commit.
+     */
+    @Modifying
+    @Query(value = "UPDATE chats SET change_seq = COALESCE(change_seq, 0) + 1 WHERE id = :chatId", nativeQuery = true)
+    int incrementChangeSeq(@Param("chatId") String chatId);
+
+    @Query(value = "SELECT change_seq FROM chats WHERE id = :chatId", nativeQuery = true)
+    Long findChangeSeq(@Param("chatId") String chatId);
 }
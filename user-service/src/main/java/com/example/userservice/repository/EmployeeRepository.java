@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,6 +42,12 @@ public interface EmployeeRepository extends JpaRepository<Employee, String> {
     @Query("SELECT e FROM Employee e WHERE e.account.role = :role AND e.isDeleted = false")
     List<Employee> findEmployeesByRole(@Param("role") EnumRole role);
 
+    /**
+     * Find employees by IDs and role (account fetched in the same query)
+     */
+    @Query("SELECT e FROM Employee e JOIN FETCH e.account a WHERE e.id IN :ids AND a.role = :role AND e.isDeleted = false")
+    List<Employee> findEmployeesByIdsAndRole(@Param("ids") Collection<String> ids, @Param("role") EnumRole role);
+
     /**
      * Find employees by specific role with pagination
      */
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,6 +39,18 @@ public interface EmployeeStoreRepository extends JpaRepository<EmployeeStore, Em
            "WHERE es.storeId = :storeId AND es.isDeleted = false AND e.isDeleted = false")
     List<EmployeeStore> findByStoreIdAndIsDeletedFalse(@Param("storeId") String storeId);
 
+    @Query("SELECT es FROM EmployeeStore es " +
+           "JOIN FETCH es.employee e " +
+           "JOIN FETCH e.account " +
+           "WHERE es.storeId IN :storeIds AND es.isDeleted = false AND e.isDeleted = false")
+    List<EmployeeStore> findByStoreIdInWithEmployee(@Param("storeIds") Collection<String> storeIds);
+
+    // row: [employeeId, storeId, storeName, storeIsDeleted]
+    @Query("SELECT es.employeeId, es.storeId, s.name, s.isDeleted FROM EmployeeStore es " +
+           "JOIN es.store s " +
+           "WHERE es.employeeId IN :employeeIds AND es.isDeleted = false")
+    List<Object[]> findStoreAssignmentsByEmployeeIds(@Param("employeeIds") Collection<String> employeeIds);
+
     void deleteByEmployeeId(String employeeId);
 }
 
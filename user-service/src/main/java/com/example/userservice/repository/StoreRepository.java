@@ -8,11 +8,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 public interface StoreRepository extends JpaRepository<Store, String> {
     Optional<Store> findByIdAndIsDeletedFalse(String id);
 
+    List<Store> findByIdInAndIsDeletedFalse(Collection<String> ids);
+
     List<Store> findByStatusAndIsDeletedFalse(EnumStatus status);
 
     Page<Store> findByIsDeletedFalse(Pageable pageable);
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,4 +46,11 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     @Query("SELECT COUNT(u) FROM User u WHERE u.isDeleted = false")
     Long countByIsDeletedFalse();
+
+    // Batch lookup: 1 query cho nhiều user (fetch account + addresses để tránh N+1)
+    @Query("SELECT DISTINCT u FROM User u " +
+            "LEFT JOIN FETCH u.account " +
+            "LEFT JOIN FETCH u.addresses " +
+            "WHERE u.id IN :ids AND u.isDeleted = false")
+    List<User> findAllByIdInAndIsDeletedFalse(@Param("ids") Collection<String> ids);
 }
@@ -0,0 +1,19 @@
+package com.example.userservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatMessageCursorResponse {
+    private List<ChatMessageResponse> content; // Cũ → mới
+    private String nextCursor; // Truyền vào before để lấy trang cũ hơn; null khi hết
+    private boolean hasMore;
+    private String syncCursor; // Truyền vào since của API sync để nhận thay đổi sau trang này
+}
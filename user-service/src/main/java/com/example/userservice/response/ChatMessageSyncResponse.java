@@ -0,0 +1,23 @@
+package com.example.userservice.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatMessageSyncResponse {
+    private List<ChatMessageResponse> changes; // Tin nhắn mới / đã sửa / đã xoá (isDeleted = true), theo thứ tự thay đổi
+    private String cursor; // since cho lần sync tiếp theo
+    private boolean hasMore;
+    @JsonIgnore
+    private String etag;
+    @JsonIgnore
+    private boolean notModified; // ETag khớp If-None-Match: changes không được nạp
+}
@@ -12,6 +12,7 @@ import com.example.userservice.response.PageResponse;
 import com.example.userservice.service.inteface.AddressService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -19,7 +20,9 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +33,9 @@ public class AddressServiceImpl implements AddressService {
     private final AddressRepository addressRepository;
     private final UserRepository userRepository;
 
+    @Value("${app.batch.max-ids:200}")
+    private int maxBatchIds;
+
     @Override
     @Transactional
     public AddressResponse createAddress(AddressRequest addressRequest) {
@@ -133,6 +139,19 @@ public class AddressServiceImpl implements AddressService {
         return toAddressResponse(address);
     }
 
+    @Override
+    public Map<Long, AddressResponse> getAddressesByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Map.of();
+        }
+        if (ids.size() > maxBatchIds) {
+            throw new AppException(ErrorCode.BATCH_SIZE_EXCEEDED);
+        }
+        return addressRepository.findAllByIdInWithUser(new HashSet<>(ids))
+                .stream()
+                .collect(Collectors.toMap(Address::getId, this::toAddressResponse, (a, b) -> a));
+    }
+
     @Override
     public List<AddressResponse> getAllAddresses() {
         log.info("Fetching all addresses");
@@ -2,8 +2,6 @@ package com.example.userservice.service;
 
 import com.example.userservice.config.JwtService;
 import com.example.userservice.entity.Account;
-import com.example.userservice.entity.Employee;
-import com.example.userservice.entity.EmployeeStore;
 import com.example.userservice.entity.User;
 import com.example.userservice.enums.EnumRole;
 import com.example.userservice.enums.EnumStatus;
@@ -12,7 +10,6 @@ import com.example.userservice.event.AccountCreatedEvent;
 import com.example.userservice.exception.AppException;
 import com.example.userservice.repository.AccountRepository;
 import com.example.userservice.repository.EmployeeRepository;
-import com.example.userservice.repository.EmployeeStoreRepository;
 import com.example.userservice.repository.UserRepository;
 import com.example.userservice.request.AuthRequest;
 import com.example.userservice.request.RegisterRequest;
@@ -31,7 +28,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -44,8 +40,8 @@ public class AuthServiceImpl implements AuthService {
     private final AccountRepository accountRepository;
     private final AuthenticationManager authenticationManager;
     private final EmployeeRepository employeeRepository;
-    private final EmployeeStoreRepository employeeStoreRepository;
     private final TokenService tokenService;
+    private final TokenClaimsProvider tokenClaimsProvider;
     private final KafkaTemplate<String, AccountCreatedEvent> kafkaTemplate;
     private final WalletService walletService;
 
@@ -179,29 +175,13 @@ public class AuthServiceImpl implements AuthService {
             throw new AppException(ErrorCode.USER_BLOCKED);
         }
 
-        Map<String, Object> claims;
-        String storeId = "";
-
         if (!account.getRole().equals(EnumRole.CUSTOMER) && !account.getRole().equals(EnumRole.ADMIN)) {
-            Employee employee = employeeRepository.findByAccountIdAndIsDeletedFalse(account.getId())
+            employeeRepository.findByAccountIdAndIsDeletedFalse(account.getId())
                     .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND_USER));
-
-            List<EmployeeStore> employeeStores = employeeStoreRepository.findByEmployeeIdAndIsDeletedFalse(employee.getId());
-            storeId = employeeStores.isEmpty() ? "" : employeeStores.get(0).getStoreId();
-
-            claims = Map.of(
-                    "role", account.getRole(),
-                    "accountId", account.getId(),
-                    "storeId", storeId
-            );
-        } else {
-            // Customer login
-            claims = Map.of(
-                    "role", account.getRole(),
-                    "accountId", account.getId()
-            );
         }
 
+        Map<String, Object> claims = tokenClaimsProvider.buildClaims(account);
+
         String accessToken = jwtService.generateToken(claims, account.getEmail());
         String refreshToken = jwtService.generateRefreshToken(claims, account.getEmail());
 
@@ -260,7 +240,7 @@ public class AuthServiceImpl implements AuthService {
                 throw new AppException(ErrorCode.INVALID_TOKEN);
             }
 
-            Map<String, Object> claims = Map.of("role", account.getRole());
+            Map<String, Object> claims = tokenClaimsProvider.buildClaims(account);
             String newAccessToken = jwtService.generateToken(claims, account.getEmail());
             String newRefreshToken = jwtService.generateRefreshToken(claims,account.getEmail());
 
@@ -0,0 +1,70 @@
+package com.example.userservice.service;
+
+import com.example.userservice.entity.ChatMessage;
+import com.example.userservice.repository.ChatMessageRepository;
+import com.example.userservice.repository.ChatRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Gán change_seq cho tin nhắn vừa tạo / sửa / xoá, làm con trỏ cho API sync thay cho updatedAt.
+ * updatedAt được gán lúc save, trước commit: transaction dài (ví dụ chờ AI trả lời) có thể commit sau một thay đổi
+ * mới hơn và bị con trỏ thời gian bỏ qua. change_seq lấy ngay trước commit từ bộ đếm trên dòng chats; khoá dòng
+ * giữ tới khi commit nên trong một chat số lớn hơn luôn commit sau, client không bao giờ bỏ sót thay đổi.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatChangeSequencer {
+
+    private final ChatRepository chatRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public void touched(ChatMessage message) {
+        String chatId = message.getChat().getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTemplate.executeWithoutResult(status -> assign(chatId, List.of(message.getId())));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Set<String>> pending = (Map<String, Set<String>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = register();
+        }
+        pending.computeIfAbsent(chatId, key -> new LinkedHashSet<>()).add(message.getId());
+    }
+
+    private Map<String, Set<String>> register() {
+        // TreeMap: khoá các dòng chats theo thứ tự cố định, tránh deadlock giữa hai transaction cùng ghi nhiều chat
+        Map<String, Set<String>> pending = new TreeMap<>();
+        TransactionSynchronizationManager.bindResource(this, pending);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                chatMessageRepository.flush();
+                pending.forEach(ChatChangeSequencer.this::assign);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ChatChangeSequencer.this);
+            }
+        });
+        return pending;
+    }
+
+    private void assign(String chatId, Collection<String> messageIds) {
+        chatRepository.incrementChangeSeq(chatId);
+        chatMessageRepository.assignChangeSeq(messageIds, chatRepository.findChangeSeq(chatId));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.userservice.service;
+
+import com.example.userservice.entity.Account;
+import com.example.userservice.entity.ChatInbox;
+import com.example.userservice.entity.ChatMessage;
+import com.example.userservice.entity.Employee;
+import com.example.userservice.entity.User;
+import com.example.userservice.repository.ChatInboxRepository;
+import com.example.userservice.repository.ChatMessageRepository;
+import com.example.userservice.repository.ChatParticipantRepository;
+import com.example.userservice.repository.EmployeeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Duy trì bảng chat_inbox (ChatInbox) - bản tóm tắt chat theo từng participant.
+ * - Gửi / sửa / xoá tin nhắn: cập nhật inbox của cả chat bằng một câu UPDATE.
+ * - Đánh dấu đã đọc, ghim, tắt thông báo: cập nhật inbox của participant đó.
+ * - Thêm participant: dựng inbox của chat ngay trong transaction thêm participant.
+ * - Dữ liệu cũ chưa có inbox: backfill một lần khi khởi động bằng một câu INSERT ... SELECT.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatInboxService {
+
+    private final ChatInboxRepository chatInboxRepository;
+    private final ChatParticipantRepository chatParticipantRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final EmployeeRepository employeeRepository;
+
+    /**
+     * Một trang inbox của user / nhân viên (ownerId như getCurrentUserId): chưa đọc trước, rồi theo hoạt động gần nhất.
+     */
+    @Transactional(readOnly = true)
+    public List<ChatInbox> getInbox(String ownerId, int page, int size) {
+        return chatInboxRepository.findInboxByOwnerId(ownerId, PageRequest.of(page, size));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ChatInbox> findByParticipantId(String participantId) {
+        return chatInboxRepository.findById(participantId);
+    }
+
+    /**
+     * Gọi sau khi lưu participant mới (tạo chat, thêm thành viên, gán nhân viên) trong cùng transaction.
+     */
+    @Transactional
+    public void onParticipantsAdded(String chatId) {
+        chatParticipantRepository.flush();
+        chatInboxRepository.insertMissingForChat(chatId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillMissingInboxes() {
+        long start = System.currentTimeMillis();
+        int inserted = chatInboxRepository.insertAllMissing();
+        if (inserted > 0) {
+            log.info("Backfilled {} chat inbox row(s) in {} ms", inserted, System.currentTimeMillis() - start);
+        }
+    }
+
+    @Transactional
+    public void onMessageSaved(ChatMessage message) {
+        User sender = message.getSender();
+        Set<String> senderIds = new HashSet<>();
+        senderIds.add(sender.getId());
+        // Nhân viên gửi tin qua User của account, nhưng participant của họ mang employee id
+        Account account = sender.getAccount();
+        if (account != null) {
+            employeeRepository.findByAccountIdAndIsDeletedFalse(account.getId())
+                    .map(Employee::getId)
+                    .ifPresent(senderIds::add);
+        }
+        Date sentAt = message.getCreatedAt() != null ? message.getCreatedAt() : new Date();
+        chatInboxRepository.applyMessage(message.getChat().getId(), message.getId(),
+                ChatInbox.preview(message.getContent()), sender.getId(), sentAt, senderIds);
+    }
+
+    @Transactional
+    public void onMessageEdited(ChatMessage message) {
+        chatInboxRepository.updatePreview(message.getId(), ChatInbox.preview(message.getContent()));
+    }
+
+    @Transactional
+    public void onMessageDeleted(ChatMessage message) {
+        String chatId = message.getChat().getId();
+        ChatMessage latest = chatMessageRepository.findLastMessageInChat(chatId).orElse(null);
+        chatInboxRepository.replaceLastMessage(chatId, message.getId(),
+                latest != null ? latest.getId() : null,
+                latest != null ? ChatInbox.preview(latest.getContent()) : null,
+                latest != null ? latest.getSender().getId() : null,
+                latest != null ? latest.getCreatedAt() : null);
+    }
+
+    @Transactional
+    public void markRead(String participantId) {
+        chatInboxRepository.markRead(participantId);
+    }
+
+    @Transactional
+    public void setMuted(String participantId, boolean muted) {
+        chatInboxRepository.updateMuted(participantId, muted);
+    }
+
+    @Transactional
+    public void setPinned(String participantId, boolean pinned) {
+        chatInboxRepository.updatePinned(participantId, pinned);
+    }
+}
@@ -13,10 +13,14 @@ import com.example.userservice.repository.UserRepository;
 import com.example.userservice.repository.AccountRepository;
 import com.example.userservice.repository.EmployeeRepository;
 import com.example.userservice.request.ChatMessageRequest;
+import com.example.userservice.response.ChatMessageCursorResponse;
 import com.example.userservice.response.ChatMessageResponse;
+import com.example.userservice.response.ChatMessageSyncResponse;
 import com.example.userservice.response.PageResponse;
 import com.example.userservice.response.WebSocketMessage;
 import com.example.userservice.service.inteface.ChatMessageService;
+import com.example.userservice.util.ChangeCursor;
+import com.example.userservice.util.MessageCursor;
 import com.example.userservice.websocket.ChatWebSocketHandler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
@@ -29,7 +33,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -46,8 +53,12 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     private final AccountRepository accountRepository;
     private final AiServiceClient aiServiceClient;
     private final ChatWebSocketHandler chatWebSocketHandler;
+    private final ChatInboxService chatInboxService;
+    private final ChatChangeSequencer chatChangeSequencer;
 
     private static final String AI_ASSISTANT_EMAIL = "ai-assistant@furnimart.com";
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final int MAX_SYNC_PAGE_SIZE = 200;
 
     public ChatMessageServiceImpl(
             ChatMessageRepository chatMessageRepository,
@@ -57,7 +68,9 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             EmployeeRepository employeeRepository,
             AccountRepository accountRepository,
             AiServiceClient aiServiceClient,
-            @Lazy ChatWebSocketHandler chatWebSocketHandler) {
+            @Lazy ChatWebSocketHandler chatWebSocketHandler,
+            ChatInboxService chatInboxService,
+            ChatChangeSequencer chatChangeSequencer) {
         this.chatMessageRepository = chatMessageRepository;
         this.chatRepository = chatRepository;
         this.chatParticipantRepository = chatParticipantRepository;
@@ -66,6 +79,8 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         this.accountRepository = accountRepository;
         this.aiServiceClient = aiServiceClient;
         this.chatWebSocketHandler = chatWebSocketHandler;
+        this.chatInboxService = chatInboxService;
+        this.chatChangeSequencer = chatChangeSequencer;
     }
 
     @Override
@@ -154,6 +169,8 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                 .build();
 
         ChatMessage savedMessage = chatMessageRepository.save(message);
+        chatChangeSequencer.touched(savedMessage);
+        chatInboxService.onMessageSaved(savedMessage);
         
         // Convert to ChatMessageResponse for WebSocket broadcast
         ChatMessageResponse messageResponse = toChatMessageResponse(savedMessage);
@@ -198,49 +215,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         String currentUserId = getCurrentUserId();
         log.debug("Getting chat messages for chatId: {}, currentUserId: {}", chatId, currentUserId);
         
-        Optional<ChatParticipant> participant = chatParticipantRepository.findActiveParticipantByChatIdAndUserId(chatId, currentUserId);
-        
-        if (participant.isEmpty()) {
-            log.warn("Participant not found for chatId: {}, currentUserId: {}. Trying fallback checks for staff.", chatId, currentUserId);
-            
-            // Fallback check for staff: try to find by Employee ID
-            try {
-                Account account = accountRepository.findByEmailAndIsDeletedFalse(
-                    SecurityContextHolder.getContext().getAuthentication().getName())
-                    .orElse(null);
-                
-                if (account != null && account.getEmployee() != null) {
-                    String employeeId = account.getEmployee().getId();
-                    log.debug("Trying to find participant by employeeId: {}", employeeId);
-                    participant = chatParticipantRepository.findActiveParticipantByChatIdAndEmployeeId(chatId, employeeId);
-                    
-                    if (participant.isEmpty() && account.getRole() == EnumRole.STAFF) {
-                        // Additional fallback: check if staff is assigned to this chat
-                        Chat chat = chatRepository.findById(chatId).orElse(null);
-                        if (chat != null && chat.getAssignedStaffId() != null && 
-                            chat.getAssignedStaffId().equals(employeeId) &&
-                            chat.getChatMode() == Chat.ChatMode.STAFF_CONNECTED) {
-                            log.info("Staff {} is assigned to chat {} but not found as participant. Allowing access via assignedStaffId.", employeeId, chatId);
-                            // Allow access - staff is assigned to this chat
-                        } else {
-                            log.error("Access denied: Staff {} is not a participant and not assigned to chat {}", employeeId, chatId);
-                            throw new AppException(ErrorCode.ACCESS_DENIED);
-                        }
-                    } else if (participant.isEmpty()) {
-                        log.error("Access denied: Participant not found for chatId: {}, currentUserId: {}", chatId, currentUserId);
-                        throw new AppException(ErrorCode.ACCESS_DENIED);
-                    }
-                } else {
-                    log.error("Access denied: Participant not found for chatId: {}, currentUserId: {}", chatId, currentUserId);
-                    throw new AppException(ErrorCode.ACCESS_DENIED);
-                }
-            } catch (AppException e) {
-                throw e;
-            } catch (Exception e) {
-                log.error("Error in fallback check for chatId: {}, currentUserId: {}", chatId, currentUserId, e);
-                throw new AppException(ErrorCode.ACCESS_DENIED);
-            }
-        }
+        checkChatAccess(chatId, currentUserId);
 
         List<ChatMessage> messages = chatMessageRepository.findMessagesByChatId(chatId);
         log.debug("Retrieved {} messages for chatId: {}", messages.size(), chatId);
@@ -249,6 +224,131 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public ChatMessageCursorResponse getChatMessageHistory(String chatId, String before, int size) {
+        String currentUserId = getCurrentUserId();
+        checkChatAccess(chatId, currentUserId);
+
+        int limit = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        MessageCursor cursor = MessageCursor.decode(before);
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<ChatMessage> messages = cursor == null
+                ? chatMessageRepository.findLatestMessages(chatId, pageable)
+                : chatMessageRepository.findMessagesBefore(chatId, cursor.time(), cursor.id(), pageable);
+
+        boolean hasMore = messages.size() > limit;
+        if (hasMore) {
+            messages = messages.subList(0, limit);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            ChatMessage oldest = messages.get(messages.size() - 1);
+            nextCursor = MessageCursor.of(oldest.getCreatedAt(), oldest.getId()).encode();
+        }
+
+        // Query trả về mới → cũ; client hiển thị cũ → mới
+        List<ChatMessageResponse> content = new ArrayList<>(messages.size());
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            content.add(toChatMessageResponse(messages.get(i)));
+        }
+
+        return ChatMessageCursorResponse.builder()
+                .content(content)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                // Trang đầu: điểm bắt đầu cho API sync
+                .syncCursor(cursor == null ? latestChangeCursor(chatId).encode() : null)
+                .build();
+    }
+
+    @Override
+    public ChatMessageSyncResponse syncChatMessages(String chatId, String since, int size, String ifNoneMatch) {
+        String currentUserId = getCurrentUserId();
+        checkChatAccess(chatId, currentUserId);
+
+        int limit = Math.max(1, Math.min(size, MAX_SYNC_PAGE_SIZE));
+        ChangeCursor sinceCursor = ChangeCursor.decode(since);
+
+        List<ChatMessage> changes;
+        ChangeCursor nextCursor;
+        boolean hasMore = false;
+        if (sinceCursor == null) {
+            // Chưa có con trỏ: chỉ trả điểm bắt đầu, lịch sử lấy qua API history
+            changes = List.of();
+            nextCursor = latestChangeCursor(chatId);
+        } else {
+            changes = chatMessageRepository.findMessageChangesSince(
+                    chatId, sinceCursor.seq(), sinceCursor.id(), PageRequest.of(0, limit + 1));
+            hasMore = changes.size() > limit;
+            if (hasMore) {
+                changes = changes.subList(0, limit);
+            }
+            if (changes.isEmpty()) {
+                nextCursor = sinceCursor;
+            } else {
+                ChatMessage last = changes.get(changes.size() - 1);
+                nextCursor = new ChangeCursor(last.getChangeSeq(), last.getId());
+            }
+        }
+
+        String cursor = nextCursor.encode();
+        String etag = "\"" + DigestUtils.md5DigestAsHex(String.join("|", chatId, currentUserId,
+                since != null ? since : "", cursor, String.valueOf(changes.size()), String.valueOf(hasMore))
+                .getBytes(StandardCharsets.UTF_8)) + "\"";
+        if (etagMatches(ifNoneMatch, etag)) {
+            // Client đã có đúng nội dung này: không dựng response
+            return ChatMessageSyncResponse.builder()
+                    .cursor(cursor)
+                    .hasMore(hasMore)
+                    .etag(etag)
+                    .notModified(true)
+                    .build();
+        }
+
+        List<ChatMessageResponse> responses = new ArrayList<>(changes.size());
+        for (ChatMessage message : changes) {
+            ChatMessageResponse response = toChatMessageResponse(message);
+            if (Boolean.TRUE.equals(message.getIsDeleted())) {
+                // Tin nhắn đã xoá chỉ cần id để client gỡ khỏi màn hình
+                response.setContent(null);
+                response.setAttachmentUrl(null);
+                response.setReplyToContent(null);
+            }
+            responses.add(response);
+        }
+
+        return ChatMessageSyncResponse.builder()
+                .changes(responses)
+                .cursor(cursor)
+                .hasMore(hasMore)
+                .etag(etag)
+                .build();
+    }
+
+    private ChangeCursor latestChangeCursor(String chatId) {
+        List<ChatMessage> latest = chatMessageRepository.findLatestChanges(chatId, PageRequest.of(0, 1));
+        if (latest.isEmpty()) {
+            return ChangeCursor.START;
+        }
+        return new ChangeCursor(latest.get(0).getChangeSeq(), latest.get(0).getId());
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if ("*".equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public PageResponse<ChatMessageResponse> getChatMessagesWithPagination(String chatId, int page, int size) {
         // Check if user is a participant
@@ -304,6 +404,8 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         message.setIsEdited(true);
         
         ChatMessage updatedMessage = chatMessageRepository.save(message);
+        chatChangeSequencer.touched(updatedMessage);
+        chatInboxService.onMessageEdited(updatedMessage);
         return toChatMessageResponse(updatedMessage);
     }
 
@@ -322,6 +424,8 @@ public class ChatMessageServiceImpl implements ChatMessageService {
 
         message.setIsDeleted(true);
         chatMessageRepository.save(message);
+        chatChangeSequencer.touched(message);
+        chatInboxService.onMessageDeleted(message);
     }
 
     @Override
@@ -478,6 +582,8 @@ public class ChatMessageServiceImpl implements ChatMessageService {
                 // Create and save AI message
                 ChatMessage aiMessage = createAIMessage(chatId, aiResponseText, chat);
                 ChatMessage savedAIMessage = chatMessageRepository.save(aiMessage);
+                chatChangeSequencer.touched(savedAIMessage);
+                chatInboxService.onMessageSaved(savedAIMessage);
 
                 log.info("AI response saved for chat: {}, message: {}", chatId, savedAIMessage.getId());
 
@@ -577,6 +683,55 @@ public class ChatMessageServiceImpl implements ChatMessageService {
         return AI_ASSISTANT_EMAIL.equals(message.getSender().getAccount().getEmail());
     }
 
+    /**
+     * User phải là participant của chat; nhân viên được chấp nhận theo employee id hoặc khi được gán cho chat.
+     */
+    private void checkChatAccess(String chatId, String currentUserId) {
+        Optional<ChatParticipant> participant = chatParticipantRepository.findActiveParticipantByChatIdAndUserId(chatId, currentUserId);
+        
+        if (participant.isEmpty()) {
+            log.warn("Participant not found for chatId: {}, currentUserId: {}. Trying fallback checks for staff.", chatId, currentUserId);
+            
+            // Fallback check for staff: try to find by Employee ID
+            try {
+                Account account = accountRepository.findByEmailAndIsDeletedFalse(
+                    SecurityContextHolder.getContext().getAuthentication().getName())
+                    .orElse(null);
+                
+                if (account != null && account.getEmployee() != null) {
+                    String employeeId = account.getEmployee().getId();
+                    log.debug("Trying to find participant by employeeId: {}", employeeId);
+                    participant = chatParticipantRepository.findActiveParticipantByChatIdAndEmployeeId(chatId, employeeId);
+                    
+                    if (participant.isEmpty() && account.getRole() == EnumRole.STAFF) {
+                        // Additional fallback: check if staff is assigned to this chat
+                        Chat chat = chatRepository.findById(chatId).orElse(null);
+                        if (chat != null && chat.getAssignedStaffId() != null && 
+                            chat.getAssignedStaffId().equals(employeeId) &&
+                            chat.getChatMode() == Chat.ChatMode.STAFF_CONNECTED) {
+                            log.info("Staff {} is assigned to chat {} but not found as participant. Allowing access via assignedStaffId.", employeeId, chatId);
+                            // Allow access - staff is assigned to this chat
+                        } else {
+                            log.error("Access denied: Staff {} is not a participant and not assigned to chat {}", employeeId, chatId);
+                            throw new AppException(ErrorCode.ACCESS_DENIED);
+                        }
+                    } else if (participant.isEmpty()) {
+                        log.error("Access denied: Participant not found for chatId: {}, currentUserId: {}", chatId, currentUserId);
+                        throw new AppException(ErrorCode.ACCESS_DENIED);
+                    }
+                } else {
+                    log.error("Access denied: Participant not found for chatId: {}, currentUserId: {}", chatId, currentUserId);
+                    throw new AppException(ErrorCode.ACCESS_DENIED);
+                }
+            } catch (AppException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Error in fallback check for chatId: {}, currentUserId: {}", chatId, currentUserId, e);
+                throw new AppException(ErrorCode.ACCESS_DENIED);
+            }
+        }
+    }
+
     /**
      * Helper method to get User entity from either User ID or Employee ID
      * For employees, returns the User associated with their account (or creates one if needed)
@@ -19,6 +19,7 @@ import com.example.userservice.response.PageResponse;
 import com.example.userservice.response.WebSocketMessage;
 import com.example.userservice.service.inteface.ChatService;
 import com.example.userservice.websocket.ChatWebSocketHandler;
+import com.example.userservice.websocket.PresenceRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
@@ -47,6 +48,9 @@ public class ChatServiceImpl implements ChatService {
     private final EmployeeRepository employeeRepository;
     private final AccountRepository accountRepository;
     private final ChatWebSocketHandler chatWebSocketHandler;
+    private final PresenceRegistry presenceRegistry;
+    private final ChatInboxService chatInboxService;
+    private final ChatChangeSequencer chatChangeSequencer;
 
     public ChatServiceImpl(
             ChatRepository chatRepository,
@@ -55,7 +59,10 @@ public class ChatServiceImpl implements ChatService {
             UserRepository userRepository,
             EmployeeRepository employeeRepository,
             AccountRepository accountRepository,
-            @Lazy ChatWebSocketHandler chatWebSocketHandler) {
+            @Lazy ChatWebSocketHandler chatWebSocketHandler,
+            PresenceRegistry presenceRegistry,
+            ChatInboxService chatInboxService,
+            ChatChangeSequencer chatChangeSequencer) {
         this.chatRepository = chatRepository;
         this.chatParticipantRepository = chatParticipantRepository;
         this.chatMessageRepository = chatMessageRepository;
@@ -63,6 +70,9 @@ public class ChatServiceImpl implements ChatService {
         this.employeeRepository = employeeRepository;
         this.accountRepository = accountRepository;
         this.chatWebSocketHandler = chatWebSocketHandler;
+        this.presenceRegistry = presenceRegistry;
+        this.chatInboxService = chatInboxService;
+        this.chatChangeSequencer = chatChangeSequencer;
     }
 
     @Override
@@ -163,6 +173,7 @@ public class ChatServiceImpl implements ChatService {
                 }
             }
         }
+        chatInboxService.onParticipantsAdded(savedChat.getId());
 
         return toChatResponse(savedChat);
     }
@@ -204,6 +215,7 @@ public class ChatServiceImpl implements ChatService {
                 .lastReadAt(LocalDateTime.now())
                 .build();
         chatParticipantRepository.save(creatorParticipant);
+        chatInboxService.onParticipantsAdded(savedChat.getId());
 
         // No need to notify staff immediately - will notify when customer requests staff via requestStaffConnection()
         log.info("Quick chat created for customer {} in AI mode: {}", currentUserId, savedChat.getId());
@@ -234,46 +246,8 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public List<ChatResponse> getLatestChats() {
-        String currentUserId = getCurrentUserId();
-        List<Chat> allChats = chatRepository.findChatsByUserId(currentUserId);
-        
-        // Convert to ChatResponse with unread count for sorting
-        List<ChatResponse> chatResponses = allChats.stream()
-                .map(this::toChatResponse)
-                .collect(Collectors.toList());
-        
-        // Sort: unread first (unreadCount > 0), then by updatedAt descending
-        // Within unread, sort by updatedAt descending
-        // Within read, sort by updatedAt descending
-        chatResponses.sort((c1, c2) -> {
-            boolean c1HasUnread = c1.getUnreadCount() != null && c1.getUnreadCount() > 0;
-            boolean c2HasUnread = c2.getUnreadCount() != null && c2.getUnreadCount() > 0;
-            
-            // If one has unread and the other doesn't, unread comes first
-            if (c1HasUnread && !c2HasUnread) {
-                return -1;
-            }
-            if (!c1HasUnread && c2HasUnread) {
-                return 1;
-            }
-            
-            // Both have unread or both don't - sort by updatedAt descending
-            if (c1.getUpdatedAt() != null && c2.getUpdatedAt() != null) {
-                return c2.getUpdatedAt().compareTo(c1.getUpdatedAt());
-            }
-            if (c1.getUpdatedAt() != null) {
-                return -1;
-            }
-            if (c2.getUpdatedAt() != null) {
-                return 1;
-            }
-            return 0;
-        });
-        
-        // Return top 10
-        return chatResponses.stream()
-                .limit(10)
-                .collect(Collectors.toList());
+        // Top 10: unread first, then latest activity - one indexed query on chat_inbox
+        return getInboxChats(getCurrentUserId(), 10);
     }
 
     @Override
@@ -299,41 +273,40 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public List<ChatResponse> getLatestChatsWithUnreadPriority(int limit) {
-        String currentUserId = getCurrentUserId();
-        List<Chat> allChats = chatRepository.findChatsByUserId(currentUserId);
-        
-        // Convert to ChatResponse (includes unreadCount calculation)
-        List<ChatResponse> chatResponses = allChats.stream()
-                .map(this::toChatResponse)
-                .collect(Collectors.toList());
-        
-        // Sort: unread first (unreadCount > 0), then by updatedAt DESC
-        List<ChatResponse> sortedChats = chatResponses.stream()
-                .sorted((c1, c2) -> {
-                    // Priority: unread first
-                    boolean c1HasUnread = c1.getUnreadCount() != null && c1.getUnreadCount() > 0;
-                    boolean c2HasUnread = c2.getUnreadCount() != null && c2.getUnreadCount() > 0;
-                    
-                    if (c1HasUnread && !c2HasUnread) {
-                        return -1; // c1 comes first
-                    } else if (!c1HasUnread && c2HasUnread) {
-                        return 1; // c2 comes first
-                    } else {
-                        // Both have same unread status, sort by updatedAt DESC
-                        if (c1.getUpdatedAt() != null && c2.getUpdatedAt() != null) {
-                            return c2.getUpdatedAt().compareTo(c1.getUpdatedAt());
-                        } else if (c1.getUpdatedAt() != null) {
-                            return -1;
-                        } else if (c2.getUpdatedAt() != null) {
-                            return 1;
-                        }
-                        return 0;
-                    }
-                })
-                .limit(limit)
-                .collect(Collectors.toList());
-        
-        return sortedChats;
+        if (limit <= 0) {
+            return List.of();
+        }
+        return getInboxChats(getCurrentUserId(), limit);
+    }
+
+    /**
+     * Một trang inbox (unread trước, rồi theo hoạt động gần nhất) kèm chat và tin nhắn cuối, nạp theo lô.
+     */
+    private List<ChatResponse> getInboxChats(String currentUserId, int size) {
+        List<ChatInbox> inboxes = chatInboxService.getInbox(currentUserId, 0, size);
+        if (inboxes.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Chat> chats = chatRepository.findAllById(
+                        inboxes.stream().map(ChatInbox::getChatId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Chat::getId, chat -> chat));
+        Set<String> lastMessageIds = inboxes.stream()
+                .map(ChatInbox::getLastMessageId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, ChatMessage> lastMessages = lastMessageIds.isEmpty() ? Map.of()
+                : chatMessageRepository.findAllById(lastMessageIds).stream()
+                        .collect(Collectors.toMap(ChatMessage::getId, message -> message));
+
+        List<ChatResponse> responses = new ArrayList<>(inboxes.size());
+        for (ChatInbox inbox : inboxes) {
+            Chat chat = chats.get(inbox.getChatId());
+            if (chat != null) {
+                responses.add(toChatResponse(chat, inbox, lastMessages.get(inbox.getLastMessageId())));
+            }
+        }
+        return responses;
     }
 
     @Override
@@ -434,6 +407,7 @@ public class ChatServiceImpl implements ChatService {
         }
 
         chatParticipantRepository.save(chatParticipant);
+        chatInboxService.onParticipantsAdded(chatId);
         return toChatResponse(chat);
     }
 
@@ -525,6 +499,7 @@ public class ChatServiceImpl implements ChatService {
 
         participant.setLastReadAt(LocalDateTime.now());
         chatParticipantRepository.save(participant);
+        chatInboxService.markRead(participant.getId());
     }
 
     @Override
@@ -536,6 +511,7 @@ public class ChatServiceImpl implements ChatService {
 
         participant.setIsMuted(muted);
         chatParticipantRepository.save(participant);
+        chatInboxService.setMuted(participant.getId(), muted);
 
         Chat chat = chatRepository.findById(chatId)
                 .orElseThrow(() -> new AppException(ErrorCode.CHAT_NOT_FOUND));
@@ -551,6 +527,7 @@ public class ChatServiceImpl implements ChatService {
 
         participant.setIsPinned(pinned);
         chatParticipantRepository.save(participant);
+        chatInboxService.setPinned(participant.getId(), pinned);
 
         Chat chat = chatRepository.findById(chatId)
                 .orElseThrow(() -> new AppException(ErrorCode.CHAT_NOT_FOUND));
@@ -583,29 +560,13 @@ public class ChatServiceImpl implements ChatService {
     }
 
     private ChatResponse toChatResponse(Chat chat) {
-        List<ChatParticipantResponse> participants = chat.getParticipants() != null ?
-                chat.getParticipants().stream()
-                        .filter(p -> p.getStatus() == EnumStatus.ACTIVE)
-                        .map(this::toChatParticipantResponse)
-                        .collect(Collectors.toList()) : List.of();
-
-        // Get last message (simplified - you might want to optimize this)
-        ChatMessageResponse lastMessage = null;
-        if (chat.getMessages() != null && !chat.getMessages().isEmpty()) {
-            ChatMessage lastMsg = chat.getMessages().stream()
-                    .filter(m -> m.getStatus() == EnumStatus.ACTIVE && !m.getIsDeleted())
-                    .max((m1, m2) -> m1.getCreatedAt().compareTo(m2.getCreatedAt()))
-                    .orElse(null);
-            if (lastMsg != null) {
-                lastMessage = toChatMessageResponse(lastMsg);
-            }
-        }
-
-        // Get current user participant for unread count, isMuted, and isPinned
+        // Get current user participant for last message, unread count, isMuted, and isPinned
+        ChatMessage lastMsg = null;
         Long unreadCount = 0L;
         Boolean isMuted = false;
         Boolean isPinned = false;
-        
+        boolean fromInbox = false;
+
         try {
             String currentUserId = getCurrentUserId();
             Optional<ChatParticipant> currentParticipant = chatParticipantRepository
@@ -615,9 +576,17 @@ public class ChatServiceImpl implements ChatService {
                 ChatParticipant participant = currentParticipant.get();
                 isMuted = participant.getIsMuted() != null ? participant.getIsMuted() : false;
                 isPinned = participant.getIsPinned() != null ? participant.getIsPinned() : false;
-                
-                // Calculate unread count: messages created after lastReadAt
-                if (participant.getLastReadAt() != null) {
+
+                // Inbox already tracks last message and unread count
+                Optional<ChatInbox> inbox = chatInboxService.findByParticipantId(participant.getId());
+                if (inbox.isPresent()) {
+                    fromInbox = true;
+                    unreadCount = inbox.get().getUnreadCount();
+                    if (inbox.get().getLastMessageId() != null) {
+                        lastMsg = chatMessageRepository.findById(inbox.get().getLastMessageId()).orElse(null);
+                    }
+                } else if (participant.getLastReadAt() != null) {
+                    // Calculate unread count: messages created after lastReadAt
                     List<ChatMessage> unreadMessages = chatMessageRepository
                             .findNewMessagesSince(chat.getId(), participant.getLastReadAt());
                     // Filter out messages sent by current user
@@ -640,6 +609,29 @@ public class ChatServiceImpl implements ChatService {
             log.debug("Unable to get current user participant for chat {}: {}", chat.getId(), e.getMessage());
         }
 
+        if (!fromInbox && chat.getMessages() != null && !chat.getMessages().isEmpty()) {
+            lastMsg = chat.getMessages().stream()
+                    .filter(m -> m.getStatus() == EnumStatus.ACTIVE && !m.getIsDeleted())
+                    .max((m1, m2) -> m1.getCreatedAt().compareTo(m2.getCreatedAt()))
+                    .orElse(null);
+        }
+
+        return buildChatResponse(chat, lastMsg, unreadCount, isMuted, isPinned);
+    }
+
+    private ChatResponse toChatResponse(Chat chat, ChatInbox inbox, ChatMessage lastMsg) {
+        return buildChatResponse(chat, lastMsg, inbox.getUnreadCount(), inbox.getIsMuted(), inbox.getIsPinned());
+    }
+
+    private ChatResponse buildChatResponse(Chat chat, ChatMessage lastMsg, Long unreadCount, Boolean isMuted, Boolean isPinned) {
+        List<ChatParticipantResponse> participants = chat.getParticipants() != null ?
+                chat.getParticipants().stream()
+                        .filter(p -> p.getStatus() == EnumStatus.ACTIVE)
+                        .map(this::toChatParticipantResponse)
+                        .collect(Collectors.toList()) : List.of();
+
+        ChatMessageResponse lastMessage = lastMsg != null ? toChatMessageResponse(lastMsg) : null;
+
         ChatResponse.ChatResponseBuilder builder = ChatResponse.builder()
                 .id(chat.getId())
                 .name(chat.getName())
@@ -865,6 +857,10 @@ public class ChatServiceImpl implements ChatService {
                 
                 ChatMessage savedMessage = chatMessageRepository.save(copiedMessage);
                 messageIdMap.put(message.getId(), savedMessage);
+                chatChangeSequencer.touched(savedMessage);
+                if (!Boolean.TRUE.equals(savedMessage.getIsDeleted())) {
+                    chatInboxService.onMessageSaved(savedMessage);
+                }
             }
             
             // Second pass: update replyTo relationships
@@ -986,36 +982,21 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public List<Employee> getOnlineStaff() {
-        // Option 1: Use WebSocket sessions (if available)
-        Set<String> onlineAccountIds = getOnlineAccountIdsFromWebSocket();
+        // Nhân viên STAFF đang kết nối WebSocket ở bất kỳ instance nào (PresenceRegistry)
+        Set<String> onlineStaffIds = presenceRegistry.getOnlineStaffIds();
 
-        // Option 2: Query from database (fallback - return all active staff)
-        if (onlineAccountIds.isEmpty()) {
+        // Fallback: return all active staff
+        if (onlineStaffIds.isEmpty()) {
             log.warn("No online staff detected via WebSocket. Returning all active staff as fallback.");
             return employeeRepository.findEmployeesByRole(EnumRole.STAFF);
         }
 
-        // Get employees by account IDs
-        List<Employee> onlineStaff = new ArrayList<>();
-        for (String accountId : onlineAccountIds) {
-            employeeRepository.findByAccountIdAndIsDeletedFalse(accountId)
-                    .filter(emp -> emp.getAccount().getRole() == EnumRole.STAFF)
-                    .ifPresent(onlineStaff::add);
-        }
-
-        return onlineStaff;
+        return employeeRepository.findEmployeesByIdsAndRole(onlineStaffIds, EnumRole.STAFF);
     }
 
     @Override
     public boolean isStaffOnline(String staffId) {
-        Employee staff = employeeRepository.findById(staffId).orElse(null);
-        if (staff == null || staff.getAccount() == null) {
-            return false;
-        }
-
-        String accountId = staff.getAccount().getId();
-        Set<String> onlineAccountIds = getOnlineAccountIdsFromWebSocket();
-        return onlineAccountIds.contains(accountId);
+        return presenceRegistry.isStaffOnline(staffId);
     }
 
     @Override
@@ -1078,27 +1059,6 @@ public class ChatServiceImpl implements ChatService {
         return account.getId();
     }
 
-    private Set<String> getOnlineAccountIdsFromWebSocket() {
-        // Get from ChatWebSocketHandler
-        // WebSocket handler tracks user IDs, we need to convert to account IDs
-        try {
-            Set<String> onlineUserIds = chatWebSocketHandler.getOnlineUserIds();
-            Set<String> accountIds = new HashSet<>();
-            
-            // Convert user IDs to account IDs
-            for (String userId : onlineUserIds) {
-                User user = userRepository.findById(userId).orElse(null);
-                if (user != null && user.getAccount() != null) {
-                    accountIds.add(user.getAccount().getId());
-                }
-            }
-            
-            return accountIds;
-        } catch (Exception e) {
-            log.warn("Error getting online account IDs from WebSocket: {}", e.getMessage());
-            return new HashSet<>();
-        }
-    }
 
     private void addStaffToChatParticipants(Chat chat, Employee staff) {
         // Check if staff is already a participant
@@ -1114,6 +1074,7 @@ public class ChatServiceImpl implements ChatService {
                     .lastReadAt(LocalDateTime.now())
                     .build();
             ChatParticipant savedParticipant = chatParticipantRepository.save(staffParticipant);
+            chatInboxService.onParticipantsAdded(chat.getId());
             log.info("Added staff {} (employeeId: {}) as participant to chat {}. Participant ID: {}", 
                     staff.getId(), staff.getId(), chat.getId(), savedParticipant.getId());
             
@@ -23,7 +23,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -35,6 +34,7 @@ public class GoogleOAuth2Service {
     private final UserRepository userRepository;
     private final JwtService jwtService;
     private final TokenService tokenService;
+    private final TokenClaimsProvider tokenClaimsProvider;
     private final ObjectMapper objectMapper;
     private final RestTemplate restTemplate;
     private final WalletService walletService;
@@ -66,13 +66,7 @@ public class GoogleOAuth2Service {
                 }
             }
 
-            List<String> storeIds = List.of();
-
-            Map<String, Object> claims = Map.of(
-                    "role", account.getRole(),
-                    "userId", account.getId(),
-                    "storeId", storeIds
-            );
+            Map<String, Object> claims = tokenClaimsProvider.buildClaims(account);
             
             String accessToken = jwtService.generateToken(claims, account.getEmail());
             String refreshToken = jwtService.generateRefreshToken(claims, account.getEmail());
@@ -0,0 +1,307 @@
+package com.example.userservice.service;
+
+import com.example.userservice.entity.Store;
+import com.example.userservice.repository.StoreRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chỉ mục không gian (k-d tree 3 chiều) trên toạ độ cửa hàng để tìm k cửa hàng gần nhất.
+ * Toạ độ lat/lon được đổi sang điểm trên mặt cầu đơn vị; khoảng cách Euclid giữa hai điểm
+ * tăng cùng chiều với khoảng cách đường tròn lớn nên tìm k-NN trên cây cho kết quả chính xác.
+ * Snapshot là bất biến; được dựng lại sau mỗi lần tạo / sửa / xoá store và định kỳ (cho các instance khác).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StoreGeoIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final StoreRepository storeRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Một kết quả tìm kiếm; distance tính bằng km.
+     */
+    public record Hit(Store store, double distance) {
+    }
+
+    private record Snapshot(Store[] stores, double[] xs, double[] ys, double[] zs, int[] tree) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.store-index.refresh-interval-ms:60000}",
+            initialDelayString = "${app.store-index.refresh-interval-ms:60000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    /**
+     * Dựng lại chỉ mục sau khi transaction hiện tại commit (hoặc ngay nếu không có transaction).
+     */
+    public void rebuildAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuild();
+                }
+            });
+        } else {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Store> stores = new ArrayList<>();
+        for (Store store : storeRepository.findAllWithCoordinates()) {
+            if (!Boolean.TRUE.equals(store.getIsDeleted())) {
+                stores.add(store);
+            }
+        }
+        snapshot = build(stores);
+        log.info("Store geo index rebuilt with {} store(s) in {} ms", stores.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * k cửa hàng gần (lat, lon) nhất, sắp theo khoảng cách tăng dần.
+     */
+    public List<Hit> nearest(double lat, double lon, int k) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            current = snapshot;
+        }
+        int n = current.stores().length;
+        if (k <= 0 || n == 0) {
+            return Collections.emptyList();
+        }
+        k = Math.min(k, n);
+
+        double[] q = toUnitVector(lat, lon);
+        Best best = new Best(k);
+        search(current, q, 0, n, 0, best);
+
+        List<Hit> hits = new ArrayList<>(best.size);
+        for (int i : best.sortedIndices()) {
+            Store store = current.stores()[i];
+            hits.add(new Hit(store, haversine(lat, lon, store.getLatitude(), store.getLongitude())));
+        }
+        return hits;
+    }
+
+    // ----------------- k-d tree --------------------
+
+    private static Snapshot build(List<Store> stores) {
+        int n = stores.size();
+        Store[] array = stores.toArray(new Store[0]);
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] zs = new double[n];
+        int[] tree = new int[n];
+        for (int i = 0; i < n; i++) {
+            double[] v = toUnitVector(array[i].getLatitude(), array[i].getLongitude());
+            xs[i] = v[0];
+            ys[i] = v[1];
+            zs[i] = v[2];
+            tree[i] = i;
+        }
+        Snapshot snapshot = new Snapshot(array, xs, ys, zs, tree);
+        buildRange(snapshot, 0, n, 0);
+        return snapshot;
+    }
+
+    // Cây ngầm định: phần tử giữa [lo, hi) là node, nửa trái / phải là hai nhánh con
+    private static void buildRange(Snapshot s, int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(s, lo, hi - 1, mid, depth % 3);
+        buildRange(s, lo, mid, depth + 1);
+        buildRange(s, mid + 1, hi, depth + 1);
+    }
+
+    // Quickselect: đưa phần tử thứ k (theo trục axis) về đúng vị trí trong tree[lo..hi]
+    private static void select(Snapshot s, int lo, int hi, int k, int axis) {
+        int[] tree = s.tree();
+        while (lo < hi) {
+            double pivot = coord(s, tree[(lo + hi) >>> 1], axis);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coord(s, tree[i], axis) < pivot) i++;
+                while (coord(s, tree[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int tmp = tree[i];
+                    tree[i] = tree[j];
+                    tree[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void search(Snapshot s, double[] q, int lo, int hi, int depth, Best best) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int node = s.tree()[mid];
+
+        double dx = s.xs()[node] - q[0];
+        double dy = s.ys()[node] - q[1];
+        double dz = s.zs()[node] - q[2];
+        best.offer(node, dx * dx + dy * dy + dz * dz);
+
+        int axis = depth % 3;
+        double diff = q[axis] - coord(s, node, axis);
+        boolean leftFirst = diff < 0;
+        if (leftFirst) {
+            search(s, q, lo, mid, depth + 1, best);
+        } else {
+            search(s, q, mid + 1, hi, depth + 1, best);
+        }
+        // Chỉ xuống nhánh còn lại khi mặt phẳng chia còn gần hơn kết quả xa nhất hiện có
+        if (!best.isFull() || diff * diff < best.worst()) {
+            if (leftFirst) {
+                search(s, q, mid + 1, hi, depth + 1, best);
+            } else {
+                search(s, q, lo, mid, depth + 1, best);
+            }
+        }
+    }
+
+    private static double coord(Snapshot s, int i, int axis) {
+        return switch (axis) {
+            case 0 -> s.xs()[i];
+            case 1 -> s.ys()[i];
+            default -> s.zs()[i];
+        };
+    }
+
+    private static double[] toUnitVector(double lat, double lon) {
+        double phi = Math.toRadians(lat);
+        double lambda = Math.toRadians(lon);
+        double cosPhi = Math.cos(phi);
+        return new double[]{cosPhi * Math.cos(lambda), cosPhi * Math.sin(lambda), Math.sin(phi)};
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+
+    /**
+     * Max-heap kích thước k giữ k điểm gần nhất đã gặp (theo bình phương khoảng cách dây cung).
+     */
+    private static final class Best {
+        private final int[] indices;
+        private final double[] distances;
+        private int size;
+
+        Best(int k) {
+            this.indices = new int[k];
+            this.distances = new double[k];
+        }
+
+        boolean isFull() {
+            return size == indices.length;
+        }
+
+        double worst() {
+            return distances[0];
+        }
+
+        void offer(int index, double distance) {
+            if (size < indices.length) {
+                indices[size] = index;
+                distances[size] = distance;
+                siftUp(size++);
+            } else if (distance < distances[0]) {
+                indices[0] = index;
+                distances[0] = distance;
+                siftDown(0);
+            }
+        }
+
+        int[] sortedIndices() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = indices[order[i]];
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (distances[parent] >= distances[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int right = left + 1;
+                int largest = i;
+                if (left < size && distances[left] > distances[largest]) largest = left;
+                if (right < size && distances[right] > distances[largest]) largest = right;
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int index = indices[a];
+            indices[a] = indices[b];
+            indices[b] = index;
+            double distance = distances[a];
+            distances[a] = distances[b];
+            distances[b] = distance;
+        }
+    }
+}
@@ -18,15 +18,14 @@ import com.example.userservice.response.EmployeeStoreResponse;
 import com.example.userservice.service.inteface.StoreService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,6 +36,13 @@ public class StoreServiceImpl implements StoreService {
     private final StoreRepository storeRepository;
     private final EmployeeRepository employeeRepository;
     private final EmployeeStoreRepository employeeStoreRepository;
+    private final StoreGeoIndex storeGeoIndex;
+
+    @Value("${app.batch.max-ids:200}")
+    private int maxBatchIds;
+
+    @Value("${app.store-index.max-limit:100}")
+    private int maxNearestLimit;
 
     @Override
     @Transactional
@@ -57,6 +63,7 @@ public class StoreServiceImpl implements StoreService {
 
         Store savedStore = storeRepository.save(store);
         log.info("Store created with id: {}", savedStore.getId());
+        storeGeoIndex.rebuildAfterCommit();
         
         return mapToStoreResponse(savedStore);
     }
@@ -81,6 +88,7 @@ public class StoreServiceImpl implements StoreService {
 
         Store updatedStore = storeRepository.save(store);
         log.info("Store updated with id: {}", updatedStore.getId());
+        storeGeoIndex.rebuildAfterCommit();
         
         return mapToStoreResponse(updatedStore);
     }
@@ -94,6 +102,67 @@ public class StoreServiceImpl implements StoreService {
         return mapToStoreResponse(store);
     }
 
+    /**
+     * Tra cứu nhiều cửa hàng một lần. Số câu query cố định (store, nhân viên theo store,
+     * phân công của các nhân viên đó) thay vì mapToStoreResponse từng store.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, StoreResponse> getStoresByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Map.of();
+        }
+        if (ids.size() > maxBatchIds) {
+            throw new AppException(ErrorCode.BATCH_SIZE_EXCEEDED);
+        }
+
+        List<Store> stores = storeRepository.findByIdInAndIsDeletedFalse(new HashSet<>(ids));
+        if (stores.isEmpty()) {
+            return Map.of();
+        }
+        return mapStoresWithEmployees(stores);
+    }
+
+    private Map<String, StoreResponse> mapStoresWithEmployees(List<Store> stores) {
+        Set<String> storeIds = stores.stream().map(Store::getId).collect(Collectors.toSet());
+        List<EmployeeStore> employeeStores = employeeStoreRepository.findByStoreIdInWithEmployee(storeIds);
+
+        Set<String> employeeIds = employeeStores.stream()
+                .map(EmployeeStore::getEmployeeId)
+                .collect(Collectors.toSet());
+
+        // Toàn bộ phân công của các nhân viên → storeIds + department (tên store đầu tiên)
+        Map<String, List<String>> storeIdsByEmployee = new HashMap<>();
+        Map<String, String> departmentByEmployee = new HashMap<>();
+        if (!employeeIds.isEmpty()) {
+            for (Object[] row : employeeStoreRepository.findStoreAssignmentsByEmployeeIds(employeeIds)) {
+                String employeeId = (String) row[0];
+                List<String> assigned = storeIdsByEmployee.computeIfAbsent(employeeId, k -> new ArrayList<>());
+                if (assigned.isEmpty() && !Boolean.TRUE.equals(row[3])) {
+                    departmentByEmployee.put(employeeId, (String) row[2]);
+                }
+                assigned.add((String) row[1]);
+            }
+        }
+
+        Map<String, List<UserResponse>> employeesByStore = new HashMap<>();
+        for (EmployeeStore employeeStore : employeeStores) {
+            UserResponse employee = buildEmployeeResponse(
+                    employeeStore.getEmployee(),
+                    storeIdsByEmployee.getOrDefault(employeeStore.getEmployeeId(), List.of()),
+                    departmentByEmployee.get(employeeStore.getEmployeeId()));
+            if (employee != null) {
+                employeesByStore.computeIfAbsent(employeeStore.getStoreId(), k -> new ArrayList<>()).add(employee);
+            }
+        }
+
+        Map<String, StoreResponse> result = new HashMap<>();
+        for (Store store : stores) {
+            result.put(store.getId(), buildStoreResponse(store, employeesByStore.getOrDefault(store.getId(), List.of())));
+        }
+        return result;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<StoreResponse> getAllStores() {
@@ -168,6 +237,7 @@ public class StoreServiceImpl implements StoreService {
         store.setIsDeleted(true);
         storeRepository.save(store);
         log.info("Store soft deleted with id: {}", id);
+        storeGeoIndex.rebuildAfterCommit();
     }
 
     @Override
@@ -353,18 +423,32 @@ public class StoreServiceImpl implements StoreService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<StoreDistance> findNearestStores(double lat, double lon, int limit) {
-        List<Store> stores = storeRepository.findAllWithCoordinates();
+        return findNearestStores(lat, lon, limit, false);
+    }
 
-        return stores.stream()
-                .map(store -> {
-                    double distance = haversine(lat, lon, store.getLatitude(), store.getLongitude());
-                    StoreResponse storeResponse = mapToStoreResponse(store);
-                    return new StoreDistance(storeResponse, distance);
+    /**
+     * Tìm qua StoreGeoIndex nên chỉ map top-k; danh sách nhân viên chỉ load (theo lô) khi được yêu cầu.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<StoreDistance> findNearestStores(double lat, double lon, int limit, boolean includeEmployees) {
+        List<StoreGeoIndex.Hit> hits = storeGeoIndex.nearest(lat, lon, Math.min(limit, maxNearestLimit));
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, StoreResponse> withEmployees = includeEmployees
+                ? mapStoresWithEmployees(hits.stream().map(StoreGeoIndex.Hit::store).toList())
+                : Map.of();
+
+        return hits.stream()
+                .map(hit -> {
+                    StoreResponse storeResponse = includeEmployees
+                            ? withEmployees.get(hit.store().getId())
+                            : buildStoreResponse(hit.store(), null);
+                    return new StoreDistance(storeResponse, hit.distance());
                 })
-                .sorted(Comparator.comparing(StoreDistance::getDistance))
-                .limit(limit)
                 .toList();
     }
 
@@ -374,17 +458,6 @@ public class StoreServiceImpl implements StoreService {
         return storeRepository.countByStatusAndIsDeletedFalse(com.example.userservice.enums.EnumStatus.ACTIVE);
     }
 
-    private double haversine(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat/2) * Math.sin(dLat/2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon/2) * Math.sin(dLon/2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
-        return R * c;
-    }
-
     private StoreResponse mapToStoreResponse(Store store) {
         // Get all employees assigned to this store
         List<EmployeeStore> employeeStores = employeeStoreRepository.findByStoreIdAndIsDeletedFalse(store.getId());
@@ -407,6 +480,10 @@ public class StoreServiceImpl implements StoreService {
                 .filter(employee -> employee != null)  // Filter out null employees
                 .collect(Collectors.toList());
         
+        return buildStoreResponse(store, employees);
+    }
+
+    private StoreResponse buildStoreResponse(Store store, List<UserResponse> employees) {
         return StoreResponse.builder()
                 .id(store.getId())
                 .name(store.getName())
@@ -436,12 +513,6 @@ public class StoreServiceImpl implements StoreService {
                 .map(EmployeeStore::getStoreId)
                 .collect(Collectors.toList());
 
-            // Check if account exists and is not null
-            if (employee.getAccount() == null) {
-                log.warn("Employee {} has null account", employee.getId());
-                return null;
-            }
-
             // Get department from store name (first store if multiple stores assigned)
             // Department represents the workplace/store name
             String department = null;
@@ -457,7 +528,20 @@ public class StoreServiceImpl implements StoreService {
                 }
             }
             // If no stores assigned or admin, department remains null
-            final String finalDepartment = department;
+            return buildEmployeeResponse(employee, storeIds, department);
+        } catch (Exception e) {
+            log.error("Error mapping employee {} to UserResponse: {}", employee.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private UserResponse buildEmployeeResponse(Employee employee, List<String> storeIds, String department) {
+        try {
+            // Check if account exists and is not null
+            if (employee.getAccount() == null) {
+                log.warn("Employee {} has null account", employee.getId());
+                return null;
+            }
 
         return UserResponse.builder()
                 .id(employee.getId())
@@ -469,7 +553,7 @@ public class StoreServiceImpl implements StoreService {
                 .avatar(employee.getAvatar())
                 .cccd(employee.getCccd())
                     .point(null) // Employees don't have points - removed from response
-                    .department(finalDepartment) // Store name where employee works, null if not assigned or admin
+                    .department(department) // Store name where employee works, null if not assigned or admin
                 .role(employee.getAccount().getRole())
                 .status(employee.getStatus())
                 .createdAt(employee.getCreatedAt())
@@ -0,0 +1,65 @@
+package com.example.userservice.service;
+
+import com.example.userservice.entity.Account;
+import com.example.userservice.entity.EmployeeStore;
+import com.example.userservice.enums.EnumRole;
+import com.example.userservice.repository.EmployeeRepository;
+import com.example.userservice.repository.EmployeeStoreRepository;
+import com.example.userservice.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claims đưa vào access token để các service khác dựng Authentication mà không cần gọi lại user-service:
+ * role, accountId, profileId (id của User với CUSTOMER, id của Employee với nhân viên), storeIds.
+ * "userId" luôn là account id như token Google trước đây, để client đang đọc claim này không bị đổi nghĩa;
+ * "storeId" (store đầu tiên) được giữ lại cho các client cũ.
+ * "pv" đánh dấu token mang bộ claims này: token cũ cũng có role, và token pv = 1 đặt id hồ sơ trong userId,
+ * nên các service chỉ tin claims khi có pv >= PRINCIPAL_VERSION (tăng khi ý nghĩa claims thay đổi).
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenClaimsProvider {
+
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_ACCOUNT_ID = "accountId";
+    public static final String CLAIM_USER_ID = "userId";
+    public static final String CLAIM_PROFILE_ID = "profileId";
+    public static final String CLAIM_STORE_ID = "storeId";
+    public static final String CLAIM_STORE_IDS = "storeIds";
+    public static final String CLAIM_PRINCIPAL_VERSION = "pv";
+    public static final int PRINCIPAL_VERSION = 2;
+
+    private final UserRepository userRepository;
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeStoreRepository employeeStoreRepository;
+
+    public Map<String, Object> buildClaims(Account account) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_PRINCIPAL_VERSION, PRINCIPAL_VERSION);
+        claims.put(CLAIM_ROLE, account.getRole());
+        claims.put(CLAIM_ACCOUNT_ID, account.getId());
+        claims.put(CLAIM_USER_ID, account.getId());
+
+        if (EnumRole.CUSTOMER.equals(account.getRole())) {
+            userRepository.findByAccountIdAndIsDeletedFalse(account.getId())
+                    .ifPresent(user -> claims.put(CLAIM_PROFILE_ID, user.getId()));
+            return claims;
+        }
+
+        employeeRepository.findByAccountIdAndIsDeletedFalse(account.getId()).ifPresent(employee -> {
+            List<String> storeIds = employeeStoreRepository.findByEmployeeIdAndIsDeletedFalse(employee.getId())
+                    .stream()
+                    .map(EmployeeStore::getStoreId)
+                    .toList();
+            claims.put(CLAIM_PROFILE_ID, employee.getId());
+            claims.put(CLAIM_STORE_IDS, storeIds);
+            claims.put(CLAIM_STORE_ID, storeIds.isEmpty() ? "" : storeIds.get(0));
+        });
+        return claims;
+    }
+}
@@ -21,6 +21,7 @@ import com.example.userservice.service.inteface.WalletService;
 import com.example.userservice.repository.WalletTransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -31,7 +32,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,6 +50,9 @@ public class UserServiceImpl implements UserService {
     private final WalletService walletService;
     private final WalletTransactionRepository walletTransactionRepository;
 
+    @Value("${app.batch.max-ids:200}")
+    private int maxBatchIds;
+
     @Override
     @Transactional
     public UserResponse createUser(UserRequest userRequest) {
@@ -178,6 +184,19 @@ public class UserServiceImpl implements UserService {
         return toUserResponse(user);
     }
 
+    @Override
+    public Map<String, UserResponse> getUsersByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Map.of();
+        }
+        if (ids.size() > maxBatchIds) {
+            throw new AppException(ErrorCode.BATCH_SIZE_EXCEEDED);
+        }
+        return userRepository.findAllByIdInAndIsDeletedFalse(new HashSet<>(ids))
+                .stream()
+                .collect(Collectors.toMap(User::getId, this::toUserResponse, (a, b) -> a));
+    }
+
     @Override
     public List<UserResponse> getAllUsers() {
         log.info("Fetching all CUSTOMER users");
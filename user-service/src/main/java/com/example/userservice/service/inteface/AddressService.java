@@ -5,6 +5,7 @@ import com.example.userservice.response.AddressResponse;
 import com.example.userservice.response.PageResponse;
 
 import java.util.List;
+import java.util.Map;
 
 public interface AddressService {
 
@@ -14,6 +15,8 @@ public interface AddressService {
 
     AddressResponse getAddressById(Long id);
 
+    Map<Long, AddressResponse> getAddressesByIds(List<Long> ids);
+
     List<AddressResponse> getAllAddresses();
 
     List<AddressResponse> getAddressesByUserId(String userId);
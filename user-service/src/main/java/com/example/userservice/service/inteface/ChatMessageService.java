@@ -1,7 +1,9 @@
 package com.example.userservice.service.inteface;
 
 import com.example.userservice.request.ChatMessageRequest;
+import com.example.userservice.response.ChatMessageCursorResponse;
 import com.example.userservice.response.ChatMessageResponse;
+import com.example.userservice.response.ChatMessageSyncResponse;
 import com.example.userservice.response.PageResponse;
 
 import java.util.List;
@@ -14,6 +16,10 @@ public interface ChatMessageService {
 
     PageResponse<ChatMessageResponse> getChatMessagesWithPagination(String chatId, int page, int size);
 
+    ChatMessageCursorResponse getChatMessageHistory(String chatId, String before, int size);
+
+    ChatMessageSyncResponse syncChatMessages(String chatId, String since, int size, String ifNoneMatch);
+
     ChatMessageResponse getMessageById(String messageId);
 
     ChatMessageResponse editMessage(String messageId, String newContent);
@@ -10,6 +10,7 @@ import com.example.userservice.response.EmployeeStoreResponse;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 
 public interface StoreService {
     
@@ -18,6 +19,8 @@ public interface StoreService {
     StoreResponse updateStore(String id, StoreRequest request);
     
     StoreResponse getStoreById(String id);
+
+    Map<String, StoreResponse> getStoresByIds(List<String> ids);
     
     List<StoreResponse> getAllStores();
     
@@ -45,5 +48,7 @@ public interface StoreService {
 
     List<StoreDistance> findNearestStores(double lat, double lon, int limit);
 
+    List<StoreDistance> findNearestStores(double lat, double lon, int limit, boolean includeEmployees);
+
     Long getActiveStoresCount();
 }
@@ -10,6 +10,7 @@ import com.example.userservice.response.StaffCreateCustomerResponse;
 import com.example.userservice.response.UserResponse;
 
 import java.util.List;
+import java.util.Map;
 
 public interface UserService {
 
@@ -19,6 +20,8 @@ public interface UserService {
 
     UserResponse getUserById(String id);
 
+    Map<String, UserResponse> getUsersByIds(List<String> ids);
+
     List<UserResponse> getAllUsers();
 
     List<UserResponse> getUsersByStatus(String status);
@@ -0,0 +1,46 @@
+package com.example.userservice.util;
+
+import com.example.userservice.enums.ErrorCode;
+import com.example.userservice.exception.AppException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Con trỏ cho API sync tin nhắn: (change_seq, id) của thay đổi cuối client đã nhận, mã hoá base64url.
+ * Tiền tố "s" tách khỏi con trỏ thời gian cũ: con trỏ cũ bị từ chối (INVALID_REQUEST) để client lấy lại từ history.
+ */
+public record ChangeCursor(long seq, String id) {
+
+    public static final ChangeCursor START = new ChangeCursor(0, "");
+
+    private static final String PREFIX = "s";
+
+    public String encode() {
+        String raw = PREFIX + seq + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã con trỏ từ client; null nếu không có, INVALID_REQUEST nếu sai định dạng.
+     */
+    public static ChangeCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (!raw.startsWith(PREFIX) || separator <= PREFIX.length()) {
+                throw new AppException(ErrorCode.INVALID_REQUEST);
+            }
+            long seq = Long.parseLong(raw.substring(PREFIX.length(), separator));
+            if (seq < 0) {
+                throw new AppException(ErrorCode.INVALID_REQUEST);
+            }
+            return new ChangeCursor(seq, raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.userservice.util;
+
+import com.example.userservice.enums.ErrorCode;
+import com.example.userservice.exception.AppException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Con trỏ keyset cho tin nhắn chat: (thời điểm, id), mã hoá base64url để client gửi lại nguyên văn.
+ * Thời điểm giữ độ chính xác micro giây như cột timestamp của PostgreSQL, để so sánh "lớn hơn con trỏ"
+ * không trả lại chính dòng cuối cùng của trang trước.
+ */
+public record MessageCursor(Timestamp time, String id) {
+
+    public static MessageCursor of(Date time, String id) {
+        return new MessageCursor(fromMicros(toMicros(time)), id);
+    }
+
+    public String encode() {
+        String raw = toMicros(time) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã con trỏ từ client; null nếu không có, INVALID_REQUEST nếu sai định dạng.
+     */
+    public static MessageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0) {
+                throw new AppException(ErrorCode.INVALID_REQUEST);
+            }
+            return new MessageCursor(fromMicros(Long.parseLong(raw.substring(0, separator))), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+
+    private static long toMicros(Date date) {
+        if (date instanceof Timestamp timestamp) {
+            return Math.floorDiv(timestamp.getTime(), 1000L) * 1_000_000L + timestamp.getNanos() / 1000;
+        }
+        return date.getTime() * 1000L;
+    }
+
+    private static Timestamp fromMicros(long micros) {
+        Timestamp timestamp = new Timestamp(Math.floorDiv(micros, 1_000_000L) * 1000L);
+        timestamp.setNanos((int) Math.floorMod(micros, 1_000_000L) * 1000);
+        return timestamp;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.userservice.websocket;
+
+import java.util.List;
+
+/**
+ * Message trên ChatBackplane.
+ * - SNAPSHOT: heartbeat của một instance kèm toàn bộ user / nhân viên đang kết nối ở đó.
+ * - ONLINE / OFFLINE: user có session đầu tiên / đóng session cuối cùng ở instance gửi.
+ * - NODE_DOWN: instance gửi đang tắt.
+ * - DELIVER: payload (JSON đã serialize) gửi tới các userIds đang kết nối ở instance nhận.
+ * - BROADCAST_ALL: payload gửi tới mọi session.
+ */
+public record BackplaneMessage(String type, String nodeId, List<String> userIds, List<String> staffIds, String payload) {
+
+    public static final String SNAPSHOT = "SNAPSHOT";
+    public static final String ONLINE = "ONLINE";
+    public static final String OFFLINE = "OFFLINE";
+    public static final String NODE_DOWN = "NODE_DOWN";
+    public static final String DELIVER = "DELIVER";
+    public static final String BROADCAST_ALL = "BROADCAST_ALL";
+}
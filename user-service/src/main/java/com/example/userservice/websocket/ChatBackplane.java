@@ -0,0 +1,19 @@
+package com.example.userservice.websocket;
+
+import java.util.function.Consumer;
+
+/**
+ * Kênh pub/sub giữa các instance user-service, dùng để đồng bộ presence và chuyển tin nhắn WebSocket
+ * tới user đang kết nối ở instance khác.
+ * - redis (mặc định): Redis pub/sub (RedisChatBackplane).
+ * - local: chuyển trong JVM (LocalChatBackplane), cho một instance hoặc test.
+ * Mỗi instance nhận cả message do chính nó gửi; bên nhận tự bỏ qua theo nodeId.
+ */
+public interface ChatBackplane {
+
+    String CHANNEL = "chat:backplane";
+
+    void publish(BackplaneMessage message);
+
+    void subscribe(Consumer<BackplaneMessage> listener);
+}
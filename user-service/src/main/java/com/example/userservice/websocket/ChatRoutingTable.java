@@ -0,0 +1,136 @@
+package com.example.userservice.websocket;
+
+import com.example.userservice.repository.ChatParticipantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bảng định tuyến chat trong bộ nhớ: chatId -> các participant ACTIVE, để broadcast tin nhắn / typing
+ * không phải truy vấn chat_participants mỗi lần.
+ * - Nạp lười từ DB ở lần dùng đầu tiên của mỗi chat (một query projection).
+ * - Cập nhật theo thay đổi participant (ChatParticipantChangeListener, sau commit).
+ * - TTL là lưới an toàn cho thay đổi từ instance khác.
+ * Chỉ dùng để chọn người nhận (fan-out); bản có thể cũ tới TTL nên KHÔNG dùng để kiểm tra quyền vào chat,
+ * quyền luôn kiểm tra trên DB (chat_participants).
+ * Mỗi chat là một Route bất biến; cập nhật thay cả Route nên đọc không cần lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatRoutingTable {
+
+    private final ChatParticipantRepository chatParticipantRepository;
+
+    @Value("${app.chat.routing.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    // Tăng ở mỗi thay đổi; lần nạp nào chạy chồng lên một thay đổi thì không giữ kết quả lại
+    private final AtomicLong changeSeq = new AtomicLong();
+
+    /**
+     * Một participant. recipientId là id dùng để tìm session WebSocket (user id, hoặc với nhân viên:
+     * user id của account nếu có, không thì employee id); null nếu chưa biết.
+     */
+    public record Member(String participantId, String userId, String employeeId, String recipientId) {
+
+        boolean sameParticipant(Member other) {
+            return other != null && Objects.equals(userId, other.userId) && Objects.equals(employeeId, other.employeeId);
+        }
+    }
+
+    private record Route(Map<String, Member> members, List<String> recipients, long loadedAt) {
+
+        static Route of(Map<String, Member> members, long loadedAt) {
+            Set<String> recipients = new LinkedHashSet<>();
+            for (Member member : members.values()) {
+                if (member.recipientId() != null) {
+                    recipients.add(member.recipientId());
+                }
+            }
+            return new Route(Map.copyOf(members), List.copyOf(recipients), loadedAt);
+        }
+    }
+
+    /**
+     * Id (theo session WebSocket) của các participant ACTIVE trong chat.
+     */
+    public List<String> getRecipients(String chatId) {
+        return route(chatId).recipients();
+    }
+
+    /**
+     * Áp dụng thay đổi của một participant sau khi transaction commit.
+     * Chat chưa được nạp thì bỏ qua: lần dùng đầu tiên sẽ nạp bản mới từ DB.
+     */
+    public void apply(String chatId, Member member, boolean active) {
+        changeSeq.incrementAndGet();
+        routes.computeIfPresent(chatId, (id, route) -> {
+            Member existing = route.members().get(member.participantId());
+            if (active) {
+                if (member.sameParticipant(existing)) {
+                    return route; // Chỉ đổi lastReadAt / mute / pin...
+                }
+                if (member.recipientId() == null) {
+                    return null; // Nhân viên mới: cần account để biết recipientId, nạp lại cả chat
+                }
+                Map<String, Member> members = new HashMap<>(route.members());
+                members.put(member.participantId(), member);
+                return Route.of(members, route.loadedAt());
+            }
+            if (existing == null) {
+                return route;
+            }
+            Map<String, Member> members = new HashMap<>(route.members());
+            members.remove(member.participantId());
+            return Route.of(members, route.loadedAt());
+        });
+    }
+
+    public void invalidate(String chatId) {
+        changeSeq.incrementAndGet();
+        routes.remove(chatId);
+    }
+
+    private Route route(String chatId) {
+        Route route = routes.get(chatId);
+        if (route != null && System.currentTimeMillis() - route.loadedAt() <= ttlMs) {
+            return route;
+        }
+        return load(chatId);
+    }
+
+    private Route load(String chatId) {
+        long seq = changeSeq.get();
+        Map<String, Member> members = new HashMap<>();
+        for (Object[] row : chatParticipantRepository.findActiveParticipantRoutesByChatId(chatId)) {
+            String participantId = (String) row[0];
+            String userId = (String) row[1];
+            String employeeId = (String) row[2];
+            String employeeUserId = (String) row[3];
+            String recipientId = userId != null ? userId : employeeUserId != null ? employeeUserId : employeeId;
+            members.put(participantId, new Member(participantId, userId, employeeId, recipientId));
+        }
+        Route route = Route.of(members, System.currentTimeMillis());
+        routes.put(chatId, route);
+        if (changeSeq.get() != seq) {
+            routes.remove(chatId, route); // Có thay đổi trong lúc nạp: dùng cho lần này, lần sau nạp lại
+        }
+        log.debug("Loaded routing for chat {} with {} participant(s)", chatId, members.size());
+        return route;
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.routing.evict-interval-ms:60000}")
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMs;
+        routes.values().removeIf(route -> route.loadedAt() < cutoff);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.userservice.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gửi tin nhắn WebSocket qua hàng đợi riêng của từng session.
+ * - Người gọi chỉ đưa message vào hàng đợi rồi trả về; mỗi session có nhiều nhất một task drain
+ *   trên pool riêng (chat-outbound-*), nên các lần gửi tới cùng session không chạy song song.
+ *   Pool không có hàng đợi: session đang có message chờ chiếm một thread tới khi gửi xong,
+ *   nên client chậm không giữ chỗ của session khác; vượt max-threads thì sweep thử lại sau.
+ * - Giới hạn theo số message (queue-capacity) và số byte đang chờ (buffer-size-limit);
+ *   vượt giới hạn, hoặc một lần gửi kéo dài quá send-time-limit-ms, thì session bị coi là
+ *   client chậm và bị đóng (SESSION_NOT_RELIABLE) thay vì làm chậm các session khác.
+ */
+@Slf4j
+@Component
+public class ChatSessionSender {
+
+    private Executor executor;
+
+    @Value("${app.chat.outbound.max-threads:256}")
+    private int maxThreads;
+
+    @Value("${app.chat.outbound.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.chat.outbound.buffer-size-limit:524288}")
+    private long bufferSizeLimit;
+
+    @Value("${app.chat.outbound.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs;
+
+    private final Map<String, Outbound> outbounds = new ConcurrentHashMap<>();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder rejectedDrains = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(Math.min(8, maxThreads));
+        pool.setMaxPoolSize(maxThreads);
+        pool.setQueueCapacity(0);
+        pool.setKeepAliveSeconds(60);
+        pool.setAllowCoreThreadTimeOut(true);
+        pool.setThreadNamePrefix("chat-outbound-");
+        pool.initialize();
+        executor = pool;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    private final class Outbound {
+        private final WebSocketSession session;
+        private final BlockingQueue<TextMessage> queue = new LinkedBlockingQueue<>(queueCapacity);
+        private final AtomicLong queuedBytes = new AtomicLong();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean evicted = new AtomicBoolean();
+        private volatile long sendingSince; // 0 khi không gửi
+
+        private Outbound(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    public void register(WebSocketSession session) {
+        outbounds.put(session.getId(), new Outbound(session));
+    }
+
+    public void unregister(String sessionId) {
+        Outbound outbound = outbounds.remove(sessionId);
+        if (outbound != null) {
+            outbound.queue.clear();
+        }
+    }
+
+    /**
+     * Đưa message vào hàng đợi của session; false nếu session không còn hoặc vừa bị đóng vì quá tải.
+     * Cùng một TextMessage có thể gửi cho nhiều session (serialize một lần cho mỗi broadcast).
+     */
+    public boolean send(String sessionId, TextMessage message) {
+        Outbound outbound = outbounds.get(sessionId);
+        if (outbound == null || outbound.evicted.get()) {
+            return false;
+        }
+        int length = message.getPayloadLength();
+        if (outbound.queuedBytes.addAndGet(length) > bufferSizeLimit || !outbound.queue.offer(message)) {
+            outbound.queuedBytes.addAndGet(-length);
+            evict(outbound, "outbound buffer full");
+            return false;
+        }
+        schedule(outbound);
+        return true;
+    }
+
+    private void schedule(Outbound outbound) {
+        if (!outbound.draining.compareAndSet(false, true)) {
+            return; // Task drain hiện tại sẽ gửi luôn message này
+        }
+        try {
+            executor.execute(() -> drain(outbound));
+        } catch (RuntimeException e) {
+            // Executor đầy: giữ message trong hàng đợi, lần gửi sau / sweep sẽ thử lại
+            outbound.draining.set(false);
+            rejectedDrains.increment();
+        }
+    }
+
+    private void drain(Outbound outbound) {
+        try {
+            TextMessage message;
+            while ((message = outbound.queue.poll()) != null) {
+                outbound.queuedBytes.addAndGet(-message.getPayloadLength());
+                if (outbound.evicted.get() || !outbound.session.isOpen()) {
+                    outbound.queue.clear();
+                    outbound.queuedBytes.set(0);
+                    return;
+                }
+                outbound.sendingSince = System.currentTimeMillis();
+                try {
+                    outbound.session.sendMessage(message);
+                    sent.increment();
+                } catch (IOException | RuntimeException e) {
+                    sendFailures.increment();
+                    log.debug("Error sending WebSocket message to session {}: {}", outbound.session.getId(), e.getMessage());
+                } finally {
+                    outbound.sendingSince = 0;
+                }
+            }
+        } finally {
+            outbound.draining.set(false);
+            if (!outbound.queue.isEmpty() && !outbound.evicted.get()) {
+                schedule(outbound); // Message đến sau lần poll cuối
+            }
+        }
+    }
+
+    /**
+     * Đóng các session đang kẹt ở một lần gửi quá send-time-limit-ms; chạy lại drain cho hàng đợi bị bỏ dở.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.outbound.sweep-interval-ms:1000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - sendTimeLimitMs;
+        for (Outbound outbound : outbounds.values()) {
+            long sendingSince = outbound.sendingSince;
+            if (sendingSince != 0 && sendingSince < cutoff) {
+                evict(outbound, "send time limit exceeded");
+            } else if (!outbound.queue.isEmpty() && !outbound.draining.get()) {
+                schedule(outbound);
+            }
+        }
+    }
+
+    private void evict(Outbound outbound, String reason) {
+        if (!outbound.evicted.compareAndSet(false, true)) {
+            return;
+        }
+        evictions.increment();
+        outbound.queue.clear();
+        outbound.queuedBytes.set(0);
+        log.warn("Closing slow WebSocket session {}: {}", outbound.session.getId(), reason);
+        // Đóng ngoài thread gọi: close có thể chờ lần ghi đang kẹt
+        Runnable close = () -> {
+            try {
+                outbound.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Error closing WebSocket session {}: {}", outbound.session.getId(), e.getMessage());
+            }
+        };
+        try {
+            executor.execute(close);
+        } catch (RuntimeException e) {
+            close.run();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long queued = 0;
+        for (Outbound outbound : outbounds.values()) {
+            queued += outbound.queue.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", outbounds.size());
+        stats.put("queuedMessages", queued);
+        stats.put("sent", sent.sum());
+        stats.put("sendFailures", sendFailures.sum());
+        stats.put("rejectedDrains", rejectedDrains.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+}
@@ -2,7 +2,6 @@ package com.example.userservice.websocket;
 
 import com.example.userservice.entity.Account;
 import com.example.userservice.entity.ChatMessage;
-import com.example.userservice.entity.ChatParticipant;
 import com.example.userservice.entity.Employee;
 import com.example.userservice.entity.User;
 import com.example.userservice.enums.EnumRole;
@@ -23,16 +22,19 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.lang.NonNull;
+import jakarta.annotation.PostConstruct;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -45,16 +47,27 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ChatWebSocketHandler implements WebSocketHandler {
 
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, String> userSessions = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
     
-    private final ChatParticipantRepository chatParticipantRepository;
+    private final ChatRoutingTable chatRoutingTable;
+    private final PresenceRegistry presenceRegistry;
+    private final ChatBackplane chatBackplane;
+    private final ChatSessionSender chatSessionSender;
     private final UserRepository userRepository;
     private final EmployeeRepository employeeRepository;
     private final AccountRepository accountRepository;
+    private final ChatParticipantRepository chatParticipantRepository;
     private final ChatMessageService chatMessageService;
     private final ChatService chatService;
 
+    @Value("${app.chat.presence.session-timeout-ms:300000}")
+    private long sessionTimeoutMs;
+
+    @PostConstruct
+    void subscribeBackplane() {
+        chatBackplane.subscribe(this::onBackplaneMessage);
+    }
+
     @Override
     public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
         String remoteAddress = session.getRemoteAddress() != null ? session.getRemoteAddress().toString() : "unknown";
@@ -63,10 +76,12 @@ public class ChatWebSocketHandler implements WebSocketHandler {
         
         String userId = extractUserIdFromSession(session);
         if (userId != null) {
+            String staffId = resolveStaffId(userId);
             sessions.put(session.getId(), session);
-            userSessions.put(userId, session.getId());
-            log.info("User {} connected to WebSocket. Total active sessions: {}, Total users: {}", 
-                    userId, sessions.size(), userSessions.size());
+            chatSessionSender.register(session);
+            presenceRegistry.connect(session.getId(), userId, staffId);
+            log.info("User {} connected to WebSocket. Total active sessions: {}, User sessions: {}", 
+                    userId, sessions.size(), presenceRegistry.getLocalSessionIds(userId).size());
             
             sendMessage(session, WebSocketMessage.builder()
                     .type("CONNECTION_ESTABLISHED")
@@ -74,7 +89,9 @@ public class ChatWebSocketHandler implements WebSocketHandler {
                     .timestamp(System.currentTimeMillis())
                     .build());
             
-            notifyStaffAboutWaitingChats(userId);
+            if (staffId != null) {
+                notifyStaffAboutWaitingChats(userId);
+            }
         } else {
             log.warn("No user ID found in WebSocket connection, closing session. URI: {}, Headers: {}", 
                     session.getUri(), session.getHandshakeHeaders());
@@ -95,6 +112,7 @@ public class ChatWebSocketHandler implements WebSocketHandler {
                 log.warn("No user found for session: {}", session.getId());
                 return;
             }
+            presenceRegistry.touch(session.getId());
             
             switch (wsMessage.getType()) {
                 case "MESSAGE":
@@ -294,24 +312,13 @@ public class ChatWebSocketHandler implements WebSocketHandler {
 
     private void broadcastToChatInternal(String chatId, WebSocketMessage message, String excludeUserId) {
         try {
-            var participants = chatParticipantRepository.findActiveParticipantsByChatId(chatId);
-            
-            for (var participant : participants) {
-                String participantUserId = getParticipantId(participant);
-                if (participantUserId == null) {
-                    continue;
-                }
-                
+            List<String> recipients = new ArrayList<>();
+            for (String participantUserId : chatRoutingTable.getRecipients(chatId)) {
                 if (excludeUserId == null || !participantUserId.equals(excludeUserId)) {
-                    String sessionId = userSessions.get(participantUserId);
-                    if (sessionId != null) {
-                        WebSocketSession participantSession = sessions.get(sessionId);
-                        if (participantSession != null && participantSession.isOpen()) {
-                            sendMessage(participantSession, message);
-                        }
-                    }
+                    recipients.add(participantUserId);
                 }
             }
+            deliver(recipients, message);
         } catch (Exception e) {
             log.error("Error broadcasting to chat: {}", chatId, e);
         }
@@ -319,8 +326,6 @@ public class ChatWebSocketHandler implements WebSocketHandler {
 
     private void broadcastTypingToChat(String chatId, String userId, String typingStatus) {
         try {
-            var participants = chatParticipantRepository.findActiveParticipantsByChatId(chatId);
-            
             WebSocketMessage typingMessage = WebSocketMessage.builder()
                     .type("TYPING")
                     .chatId(chatId)
@@ -328,39 +333,84 @@ public class ChatWebSocketHandler implements WebSocketHandler {
                     .content(typingStatus)
                     .timestamp(System.currentTimeMillis())
                     .build();
-            
-            for (var participant : participants) {
-                String participantUserId = getParticipantId(participant);
-                if (participantUserId == null) {
-                    continue;
-                }
-                
+
+            List<String> recipients = new ArrayList<>();
+            for (String participantUserId : chatRoutingTable.getRecipients(chatId)) {
                 if (!participantUserId.equals(userId)) {
-                    String sessionId = userSessions.get(participantUserId);
-                    if (sessionId != null) {
-                        WebSocketSession participantSession = sessions.get(sessionId);
-                        if (participantSession != null && participantSession.isOpen()) {
-                            sendMessage(participantSession, typingMessage);
-                        }
-                    }
+                    recipients.add(participantUserId);
                 }
             }
+            deliver(recipients, typingMessage);
         } catch (Exception e) {
             log.error("Error broadcasting typing indicator", e);
         }
     }
 
+    /**
+     * Gửi tới mọi session của các user: message được serialize một lần, session ở instance này
+     * nhận qua hàng đợi gửi riêng (ChatSessionSender), user đang kết nối ở instance khác
+     * (kể cả khi cũng có session ở đây, ví dụ hai thiết bị) được gom vào một message DELIVER trên backplane.
+     */
+    private void deliver(List<String> userIds, WebSocketMessage message) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            log.error("Error serializing WebSocket message type={}", message.getType(), e);
+            return;
+        }
+
+        TextMessage textMessage = new TextMessage(json);
+        List<String> remoteUserIds = new ArrayList<>();
+        for (String userId : userIds) {
+            Set<String> sessionIds = presenceRegistry.getLocalSessionIds(userId);
+            if (!sessionIds.isEmpty()) {
+                sendToSessions(sessionIds, textMessage);
+            }
+            if (presenceRegistry.isOnlineElsewhere(userId)) {
+                remoteUserIds.add(userId);
+            }
+        }
+        if (!remoteUserIds.isEmpty()) {
+            chatBackplane.publish(new BackplaneMessage(BackplaneMessage.DELIVER, presenceRegistry.getNodeId(),
+                    remoteUserIds, null, json));
+        }
+    }
+
+    private void sendToSessions(Collection<String> sessionIds, TextMessage message) {
+        for (String sessionId : sessionIds) {
+            chatSessionSender.send(sessionId, message);
+        }
+    }
+
+    private void onBackplaneMessage(BackplaneMessage message) {
+        if (presenceRegistry.getNodeId().equals(message.nodeId()) || message.payload() == null) {
+            return;
+        }
+        TextMessage textMessage = new TextMessage(message.payload());
+        if (BackplaneMessage.DELIVER.equals(message.type()) && message.userIds() != null) {
+            for (String userId : message.userIds()) {
+                sendToSessions(presenceRegistry.getLocalSessionIds(userId), textMessage);
+            }
+        } else if (BackplaneMessage.BROADCAST_ALL.equals(message.type())) {
+            sendToSessions(sessions.keySet(), textMessage);
+        }
+    }
+
     private void sendMessage(WebSocketSession session, WebSocketMessage message) {
         try {
             if (session.isOpen()) {
                 String jsonMessage = objectMapper.writeValueAsString(message);
-                session.sendMessage(new TextMessage(jsonMessage));
-                log.debug("WebSocket message sent: type={}, sessionId={}", message.getType(), session.getId());
+                chatSessionSender.send(session.getId(), new TextMessage(jsonMessage));
+                log.debug("WebSocket message queued: type={}, sessionId={}", message.getType(), session.getId());
             } else {
                 log.warn("Attempted to send message to closed WebSocket session: {}", session.getId());
             }
         } catch (IOException e) {
-            log.error("Error sending WebSocket message to session: {}, message type: {}", 
+            log.error("Error serializing WebSocket message to session: {}, message type: {}", 
                     session.getId(), message.getType(), e);
         }
     }
@@ -404,12 +454,7 @@ public class ChatWebSocketHandler implements WebSocketHandler {
     }
 
     private String getUserFromSession(WebSocketSession session) {
-        for (Map.Entry<String, String> entry : userSessions.entrySet()) {
-            if (entry.getValue().equals(session.getId())) {
-                return entry.getKey();
-            }
-        }
-        return null;
+        return presenceRegistry.getUserId(session.getId());
     }
 
     private boolean hasAccessToChat(String userId, String chatId) {
@@ -422,7 +467,7 @@ public class ChatWebSocketHandler implements WebSocketHandler {
                     log.info("Allowing test user access: {} to chat: {}", userId, chatId);
                     return true;
                 }
-                // For real users, check database
+                // For real users, check database (ChatRoutingTable may be stale, it is only used for fan-out)
                 return chatParticipantRepository.findActiveParticipantByChatIdAndUserId(chatId, userId).isPresent();
             }
             return false;
@@ -434,72 +479,105 @@ public class ChatWebSocketHandler implements WebSocketHandler {
     }
 
     private void cleanupSession(WebSocketSession session) {
-        String userId = getUserFromSession(session);
-        if (userId != null) {
-            userSessions.remove(userId);
-        }
+        presenceRegistry.disconnect(session.getId());
+        chatSessionSender.unregister(session.getId());
         sessions.remove(session.getId());
     }
 
-    // Public method to send message to specific user
-    public void sendMessageToUser(String userId, WebSocketMessage message) {
-        String sessionId = userSessions.get(userId);
-        if (sessionId != null) {
+    /**
+     * Đóng các session đã đóng mà chưa được dọn, hoặc không gửi gì (kể cả PING) quá session-timeout-ms.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.presence.sweep-interval-ms:30000}")
+    public void sweepSessions() {
+        for (WebSocketSession session : sessions.values()) {
+            if (!session.isOpen()) {
+                cleanupSession(session);
+            }
+        }
+        for (String sessionId : presenceRegistry.getIdleSessionIds(System.currentTimeMillis() - sessionTimeoutMs)) {
             WebSocketSession session = sessions.get(sessionId);
-            if (session != null && session.isOpen()) {
-                sendMessage(session, message);
+            if (session != null) {
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException e) {
+                    log.debug("Error closing idle session {}: {}", sessionId, e.getMessage());
+                }
+                cleanupSession(session);
+            } else {
+                presenceRegistry.disconnect(sessionId);
             }
         }
     }
 
+    // Public method to send message to specific user
+    public void sendMessageToUser(String userId, WebSocketMessage message) {
+        deliver(List.of(userId), message);
+    }
+
     public void broadcastToAll(WebSocketMessage message) {
-        sessions.values().forEach(session -> {
-            if (session.isOpen()) {
-                sendMessage(session, message);
-            }
-        });
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            log.error("Error serializing WebSocket message type={}", message.getType(), e);
+            return;
+        }
+        sendToSessions(sessions.keySet(), new TextMessage(json));
+        if (presenceRegistry.hasRemoteNodes()) {
+            chatBackplane.publish(new BackplaneMessage(BackplaneMessage.BROADCAST_ALL, presenceRegistry.getNodeId(),
+                    null, null, json));
+        }
     }
 
+    // User đang online trên toàn cụm
     public Set<String> getOnlineUserIds() {
-        return new HashSet<>(userSessions.keySet());
+        return presenceRegistry.getOnlineUserIds();
     }
 
-    private void notifyStaffAboutWaitingChats(String userId) {
+    /**
+     * Employee id nếu user là nhân viên STAFF, ngược lại null.
+     * userId khi kết nối có thể là Employee.id, User.id hoặc Account.id.
+     */
+    private String resolveStaffId(String userId) {
         try {
-            // Check if user is staff - userId could be Employee.id, User.id, or Account.id
-            boolean isStaff = false;
-            
             // First, try to find as Employee (most common for staff)
             // Use findEmployeeById which already filters by isDeleted and includes STAFF role
             Optional<Employee> employeeOpt = employeeRepository.findEmployeeById(userId)
                     .filter(emp -> emp.getAccount() != null 
                             && emp.getAccount().getRole() == EnumRole.STAFF);
-            
             if (employeeOpt.isPresent()) {
-                isStaff = true;
                 log.debug("User {} identified as STAFF (Employee)", userId);
-            } else {
-                // Try to find as User (less common for staff, but possible)
-                Optional<User> userOpt = userRepository.findByIdAndIsDeletedFalse(userId);
-                if (userOpt.isPresent() && userOpt.get().getAccount() != null 
-                        && userOpt.get().getAccount().getRole() == EnumRole.STAFF) {
-                    isStaff = true;
-                    log.debug("User {} identified as STAFF (User)", userId);
-                } else {
-                    // Try to find as Account (if userId is actually accountId)
-                    Optional<Account> accountOpt = accountRepository.findByIdAndIsDeletedFalse(userId);
-                    if (accountOpt.isPresent() && accountOpt.get().getRole() == EnumRole.STAFF) {
-                        isStaff = true;
-                        log.debug("User {} identified as STAFF (Account)", userId);
-                    }
-                }
+                return employeeOpt.get().getId();
             }
-            
-            if (!isStaff) {
-                log.debug("User {} is not a staff member, skipping notification", userId);
-                return;
+
+            // Try to find as User (less common for staff, but possible)
+            Optional<User> userOpt = userRepository.findByIdAndIsDeletedFalse(userId);
+            if (userOpt.isPresent() && userOpt.get().getAccount() != null 
+                    && userOpt.get().getAccount().getRole() == EnumRole.STAFF) {
+                log.debug("User {} identified as STAFF (User)", userId);
+                return staffIdOfAccount(userOpt.get().getAccount().getId());
             }
 
+            // Try to find as Account (if userId is actually accountId)
+            Optional<Account> accountOpt = accountRepository.findByIdAndIsDeletedFalse(userId);
+            if (accountOpt.isPresent() && accountOpt.get().getRole() == EnumRole.STAFF) {
+                log.debug("User {} identified as STAFF (Account)", userId);
+                return staffIdOfAccount(accountOpt.get().getId());
+            }
+        } catch (Exception e) {
+            log.error("Error resolving staff for user {}: {}", userId, e.getMessage(), e);
+        }
+        return null;
+    }
+
+    private String staffIdOfAccount(String accountId) {
+        return employeeRepository.findByAccountIdAndIsDeletedFalse(accountId)
+                .map(Employee::getId)
+                .orElse(null);
+    }
+
+    private void notifyStaffAboutWaitingChats(String userId) {
+        try {
             List<ChatResponse> waitingChats = chatService.getChatsWaitingForStaff();
             
             if (!waitingChats.isEmpty()) {
@@ -523,26 +601,6 @@ public class ChatWebSocketHandler implements WebSocketHandler {
         }
     }
 
-    /**
-     * Helper method to get participant ID from ChatParticipant (User or Employee)
-     */
-    private String getParticipantId(ChatParticipant participant) {
-        if (participant.getUser() != null) {
-            return participant.getUser().getId();
-        } else if (participant.getEmployee() != null) {
-            // For employees, we need to get the User ID from their account
-            // If employee has a User associated with their account, use that ID
-            // Otherwise, use the employee ID (but this might cause issues in WebSocket tracking)
-            Employee employee = participant.getEmployee();
-            if (employee.getAccount() != null && employee.getAccount().getUser() != null) {
-                return employee.getAccount().getUser().getId();
-            }
-            // Fallback to employee ID - WebSocket should track by this
-            return employee.getId();
-        }
-        return null;
-    }
-
     /**
      * Helper method to get User entity from either User ID or Employee ID
      * For employees, returns the User associated with their account (or creates one if needed)
@@ -0,0 +1,36 @@
+package com.example.userservice.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Backplane trong JVM: gọi thẳng các listener trên thread gửi. Dùng khi chỉ chạy một instance và trong test.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.chat.backplane.mode", havingValue = "local")
+public class LocalChatBackplane implements ChatBackplane {
+
+    private final List<Consumer<BackplaneMessage>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(BackplaneMessage message) {
+        for (Consumer<BackplaneMessage> listener : listeners) {
+            try {
+                listener.accept(message);
+            } catch (Exception e) {
+                log.warn("Chat backplane listener failed on {}: {}", message.type(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<BackplaneMessage> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.userservice.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Presence của chat WebSocket trên toàn cụm user-service.
+ * - Local: mỗi user có thể có nhiều session (nhiều tab / thiết bị); mỗi session có thời điểm hoạt động gần nhất.
+ * - Cụm: mỗi instance phát ONLINE / OFFLINE khi user có session đầu tiên / đóng session cuối cùng,
+ *   và định kỳ phát SNAPSHOT (heartbeat) kèm toàn bộ user đang kết nối để bù message bị lỡ.
+ *   Instance không heartbeat quá node-timeout-ms bị coi là đã tắt.
+ * Nhân viên (staffId = employee id) được đánh dấu lúc kết nối nên truy vấn "staff online" không cần DB.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PresenceRegistry {
+
+    private final ChatBackplane chatBackplane;
+
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${app.chat.presence.node-timeout-ms:30000}")
+    private long nodeTimeoutMs;
+
+    private final Map<String, LocalSession> localSessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> localUserSessions = new ConcurrentHashMap<>();
+    private final Map<String, String> localStaff = new ConcurrentHashMap<>(); // userId -> staffId
+    private final Map<String, RemoteNode> remoteNodes = new ConcurrentHashMap<>();
+
+    private static final class LocalSession {
+        private final String userId;
+        private volatile long lastSeen;
+
+        private LocalSession(String userId) {
+            this.userId = userId;
+            this.lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    private static final class RemoteNode {
+        private final Set<String> userIds = ConcurrentHashMap.newKeySet();
+        private final Map<String, String> staff = new ConcurrentHashMap<>(); // userId -> staffId
+        private volatile long lastHeartbeat = System.currentTimeMillis();
+    }
+
+    @PostConstruct
+    void subscribe() {
+        chatBackplane.subscribe(this::onMessage);
+    }
+
+    // ----------------- session local --------------------
+
+    public void connect(String sessionId, String userId, String staffId) {
+        localSessions.put(sessionId, new LocalSession(userId));
+        if (staffId != null) {
+            localStaff.put(userId, staffId);
+        }
+        boolean[] first = {false};
+        localUserSessions.compute(userId, (id, sessionIds) -> {
+            if (sessionIds == null) {
+                sessionIds = ConcurrentHashMap.newKeySet();
+                first[0] = true;
+            }
+            sessionIds.add(sessionId);
+            return sessionIds;
+        });
+        if (first[0]) {
+            publish(BackplaneMessage.ONLINE, List.of(userId), staffId != null ? List.of(staffId) : List.of());
+        }
+    }
+
+    /**
+     * Gỡ session; trả về userId của session (null nếu không biết).
+     */
+    public String disconnect(String sessionId) {
+        LocalSession session = localSessions.remove(sessionId);
+        if (session == null) {
+            return null;
+        }
+        String userId = session.userId;
+        boolean[] last = {false};
+        localUserSessions.computeIfPresent(userId, (id, sessionIds) -> {
+            sessionIds.remove(sessionId);
+            last[0] = sessionIds.isEmpty();
+            return last[0] ? null : sessionIds;
+        });
+        if (last[0]) {
+            localStaff.remove(userId);
+            publish(BackplaneMessage.OFFLINE, List.of(userId), List.of());
+        }
+        return userId;
+    }
+
+    public void touch(String sessionId) {
+        LocalSession session = localSessions.get(sessionId);
+        if (session != null) {
+            session.lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    public String getUserId(String sessionId) {
+        LocalSession session = localSessions.get(sessionId);
+        return session != null ? session.userId : null;
+    }
+
+    public Set<String> getLocalSessionIds(String userId) {
+        Set<String> sessionIds = localUserSessions.get(userId);
+        return sessionIds != null ? sessionIds : Collections.emptySet();
+    }
+
+    /**
+     * Các session local không hoạt động từ trước cutoff.
+     */
+    public List<String> getIdleSessionIds(long cutoff) {
+        List<String> idle = new ArrayList<>();
+        localSessions.forEach((sessionId, session) -> {
+            if (session.lastSeen < cutoff) {
+                idle.add(sessionId);
+            }
+        });
+        return idle;
+    }
+
+    // ----------------- presence toàn cụm --------------------
+
+    public boolean isOnline(String userId) {
+        return localUserSessions.containsKey(userId) || isOnlineElsewhere(userId);
+    }
+
+    public boolean isOnlineElsewhere(String userId) {
+        for (RemoteNode node : remoteNodes.values()) {
+            if (node.userIds.contains(userId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasRemoteNodes() {
+        return !remoteNodes.isEmpty();
+    }
+
+    public Set<String> getOnlineUserIds() {
+        Set<String> userIds = new HashSet<>(localUserSessions.keySet());
+        remoteNodes.values().forEach(node -> userIds.addAll(node.userIds));
+        return userIds;
+    }
+
+    public Set<String> getOnlineStaffIds() {
+        Set<String> staffIds = new HashSet<>(localStaff.values());
+        remoteNodes.values().forEach(node -> staffIds.addAll(node.staff.values()));
+        return staffIds;
+    }
+
+    public boolean isStaffOnline(String staffId) {
+        if (localStaff.containsValue(staffId)) {
+            return true;
+        }
+        for (RemoteNode node : remoteNodes.values()) {
+            if (node.staff.containsValue(staffId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.presence.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        List<String> userIds = new ArrayList<>(localUserSessions.keySet());
+        List<String> staffIds = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            staffIds.add(localStaff.get(userId)); // Cùng thứ tự với userIds, null nếu không phải nhân viên
+        }
+        publish(BackplaneMessage.SNAPSHOT, userIds, staffIds);
+
+        long cutoff = System.currentTimeMillis() - nodeTimeoutMs;
+        remoteNodes.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue().lastHeartbeat < cutoff;
+            if (expired) {
+                log.warn("Chat node {} missed heartbeats, dropping its {} user(s)", entry.getKey(), entry.getValue().userIds.size());
+            }
+            return expired;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publish(BackplaneMessage.NODE_DOWN, List.of(), List.of());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("localSessions", localSessions.size());
+        stats.put("localUsers", localUserSessions.size());
+        stats.put("remoteNodes", remoteNodes.size());
+        stats.put("onlineUsers", getOnlineUserIds().size());
+        stats.put("onlineStaff", getOnlineStaffIds().size());
+        return stats;
+    }
+
+    private void publish(String type, List<String> userIds, List<String> staffIds) {
+        chatBackplane.publish(new BackplaneMessage(type, nodeId, userIds, staffIds, null));
+    }
+
+    private void onMessage(BackplaneMessage message) {
+        if (nodeId.equals(message.nodeId())) {
+            return;
+        }
+        switch (message.type()) {
+            case BackplaneMessage.SNAPSHOT -> {
+                RemoteNode node = new RemoteNode();
+                List<String> userIds = message.userIds() != null ? message.userIds() : List.of();
+                List<String> staffIds = message.staffIds() != null ? message.staffIds() : List.of();
+                for (int i = 0; i < userIds.size(); i++) {
+                    node.userIds.add(userIds.get(i));
+                    String staffId = i < staffIds.size() ? staffIds.get(i) : null;
+                    if (staffId != null) {
+                        node.staff.put(userIds.get(i), staffId);
+                    }
+                }
+                if (remoteNodes.put(message.nodeId(), node) == null) {
+                    log.info("Chat node {} joined with {} user(s)", message.nodeId(), userIds.size());
+                }
+            }
+            case BackplaneMessage.ONLINE -> {
+                RemoteNode node = remoteNodes.computeIfAbsent(message.nodeId(), id -> new RemoteNode());
+                String userId = message.userIds().get(0);
+                node.userIds.add(userId);
+                if (message.staffIds() != null && !message.staffIds().isEmpty()) {
+                    node.staff.put(userId, message.staffIds().get(0));
+                }
+                node.lastHeartbeat = System.currentTimeMillis();
+            }
+            case BackplaneMessage.OFFLINE -> {
+                RemoteNode node = remoteNodes.get(message.nodeId());
+                if (node != null) {
+                    String userId = message.userIds().get(0);
+                    node.userIds.remove(userId);
+                    node.staff.remove(userId);
+                }
+            }
+            case BackplaneMessage.NODE_DOWN -> remoteNodes.remove(message.nodeId());
+            default -> {
+                // DELIVER / BROADCAST_ALL do ChatWebSocketHandler xử lý
+            }
+        }
+    }
+}
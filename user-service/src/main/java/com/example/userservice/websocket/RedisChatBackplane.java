@@ -0,0 +1,49 @@
+package com.example.userservice.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Backplane qua Redis pub/sub (kênh chat:backplane). Message được serialize JSON;
+ * listener chạy trên thread của RedisMessageListenerContainer.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.chat.backplane.mode", havingValue = "redis", matchIfMissing = true)
+public class RedisChatBackplane implements ChatBackplane {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer chatBackplaneListenerContainer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public void publish(BackplaneMessage message) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.warn("Failed to publish {} to chat backplane: {}", message.type(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<BackplaneMessage> listener) {
+        chatBackplaneListenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                String json = new String(message.getBody(), StandardCharsets.UTF_8);
+                listener.accept(objectMapper.readValue(json, BackplaneMessage.class));
+            } catch (Exception e) {
+                log.warn("Failed to handle chat backplane message: {}", e.getMessage());
+            }
+        }, new ChannelTopic(CHANNEL));
+    }
+}
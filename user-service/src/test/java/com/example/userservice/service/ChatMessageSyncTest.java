@@ -0,0 +1,143 @@
+package com.example.userservice.service;
+
+import com.example.userservice.entity.Account;
+import com.example.userservice.entity.Chat;
+import com.example.userservice.entity.ChatMessage;
+import com.example.userservice.entity.ChatParticipant;
+import com.example.userservice.entity.User;
+import com.example.userservice.enums.EnumRole;
+import com.example.userservice.enums.EnumStatus;
+import com.example.userservice.feign.AiServiceClient;
+import com.example.userservice.repository.AccountRepository;
+import com.example.userservice.repository.ChatMessageRepository;
+import com.example.userservice.repository.ChatParticipantRepository;
+import com.example.userservice.repository.ChatRepository;
+import com.example.userservice.repository.EmployeeRepository;
+import com.example.userservice.repository.UserRepository;
+import com.example.userservice.response.ChatMessageResponse;
+import com.example.userservice.response.ChatMessageSyncResponse;
+import com.example.userservice.util.ChangeCursor;
+import com.example.userservice.websocket.ChatWebSocketHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * API sync: lần gọi lại với ETag vừa nhận trả notModified (controller trả 304) mà không dựng danh sách thay đổi;
+ * con trỏ trả về là (change_seq, id) của thay đổi cuối trong trang.
+ */
+@DisplayName("ChatMessageService sync Tests")
+class ChatMessageSyncTest {
+
+    private static final String CHAT_ID = "chat-1";
+    private static final String EMAIL = "customer@furnimart.com";
+
+    private ChatMessageRepository chatMessageRepository;
+    private ChatMessageServiceImpl chatMessageService;
+    private List<ChatMessage> changes;
+
+    @BeforeEach
+    void setUp() {
+        chatMessageRepository = mock(ChatMessageRepository.class);
+        ChatParticipantRepository chatParticipantRepository = mock(ChatParticipantRepository.class);
+        AccountRepository accountRepository = mock(AccountRepository.class);
+
+        User customer = User.builder().id("user-1").fullName("Customer").build();
+        Account account = Account.builder().id("account-1").email(EMAIL).role(EnumRole.CUSTOMER)
+                .status(EnumStatus.ACTIVE).user(customer).build();
+        customer.setAccount(account);
+        when(accountRepository.findByEmailAndIsDeletedFalse(EMAIL)).thenReturn(Optional.of(account));
+        when(chatParticipantRepository.findActiveParticipantByChatIdAndUserId(CHAT_ID, "user-1"))
+                .thenReturn(Optional.of(new ChatParticipant()));
+
+        Chat chat = Chat.builder().id(CHAT_ID).build();
+        changes = List.of(message(chat, customer, "msg-1", 7L), message(chat, customer, "msg-2", 9L));
+        when(chatMessageRepository.findMessageChangesSince(eq(CHAT_ID), anyLong(), anyString(), any(Pageable.class)))
+                .thenAnswer(invocation -> changes);
+
+        chatMessageService = new ChatMessageServiceImpl(chatMessageRepository, mock(ChatRepository.class),
+                chatParticipantRepository, mock(UserRepository.class), mock(EmployeeRepository.class),
+                accountRepository, mock(AiServiceClient.class), mock(ChatWebSocketHandler.class),
+                mock(ChatInboxService.class), mock(ChatChangeSequencer.class));
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                EMAIL, null, List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Returns changes with a cursor at the last change")
+    void returnsChangesAndCursor() {
+        String since = new ChangeCursor(5L, "msg-0").encode();
+
+        ChatMessageSyncResponse response = chatMessageService.syncChatMessages(CHAT_ID, since, 100, null);
+
+        assertFalse(response.isNotModified());
+        assertEquals(List.of("msg-1", "msg-2"), response.getChanges().stream().map(ChatMessageResponse::getId).toList());
+        assertEquals(new ChangeCursor(9L, "msg-2"), ChangeCursor.decode(response.getCursor()));
+        assertNotNull(response.getEtag());
+        verify(chatMessageRepository).findMessageChangesSince(eq(CHAT_ID), eq(5L), eq("msg-0"), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Matching If-None-Match returns notModified without building changes")
+    void matchingEtagIsNotModified() {
+        String since = new ChangeCursor(5L, "msg-0").encode();
+        ChatMessageSyncResponse first = chatMessageService.syncChatMessages(CHAT_ID, since, 100, null);
+
+        ChatMessageSyncResponse second = chatMessageService.syncChatMessages(CHAT_ID, since, 100, first.getEtag());
+
+        assertTrue(second.isNotModified());
+        assertNull(second.getChanges());
+        assertEquals(first.getEtag(), second.getEtag());
+        assertEquals(first.getCursor(), second.getCursor());
+
+        // Weak validator và danh sách nhiều ETag cũng khớp
+        assertTrue(chatMessageService.syncChatMessages(CHAT_ID, since, 100, "\"other\", W/" + first.getEtag()).isNotModified());
+    }
+
+    @Test
+    @DisplayName("New changes produce a different ETag")
+    void newChangesChangeEtag() {
+        String since = new ChangeCursor(5L, "msg-0").encode();
+        ChatMessageSyncResponse first = chatMessageService.syncChatMessages(CHAT_ID, since, 100, null);
+
+        changes = List.of(changes.get(0), changes.get(1), message(changes.get(0).getChat(), changes.get(0).getSender(), "msg-3", 10L));
+        ChatMessageSyncResponse second = chatMessageService.syncChatMessages(CHAT_ID, since, 100, first.getEtag());
+
+        assertFalse(second.isNotModified());
+        assertNotEquals(first.getEtag(), second.getEtag());
+        assertEquals(3, second.getChanges().size());
+    }
+
+    private static ChatMessage message(Chat chat, User sender, String id, long changeSeq) {
+        return ChatMessage.builder()
+                .id(id)
+                .content("content " + id)
+                .type(ChatMessage.MessageType.TEXT)
+                .status(EnumStatus.ACTIVE)
+                .chat(chat)
+                .sender(sender)
+                .changeSeq(changeSeq)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.userservice.service;
+
+import com.example.userservice.entity.Store;
+import com.example.userservice.repository.StoreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * k-NN trên k-d tree phải trả đúng các cửa hàng (và đúng thứ tự) như duyệt toàn bộ theo haversine,
+ * kể cả quanh kinh tuyến 180° và hai cực. Chỉ kiểm tra kết quả; so sánh thời gian chưa làm (chưa có benchmark harness).
+ */
+@DisplayName("StoreGeoIndex Tests")
+class StoreGeoIndexTest {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final Random random = new Random(42);
+    private final List<Store> stores = new ArrayList<>();
+    private StoreRepository storeRepository;
+    private StoreGeoIndex storeGeoIndex;
+
+    @BeforeEach
+    void setUp() {
+        storeRepository = mock(StoreRepository.class);
+        when(storeRepository.findAllWithCoordinates()).thenAnswer(invocation -> List.copyOf(stores));
+        storeGeoIndex = new StoreGeoIndex(storeRepository);
+    }
+
+    @Test
+    @DisplayName("Nearest stores match a brute-force haversine scan")
+    void matchesBruteForce() {
+        for (int i = 0; i < 2000; i++) {
+            stores.add(store("s-" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        // Cụm dày quanh TP.HCM: nhiều điểm sát nhau
+        for (int i = 0; i < 500; i++) {
+            stores.add(store("hcm-" + i, 10.7 + random.nextDouble() * 0.2, 106.6 + random.nextDouble() * 0.2));
+        }
+        storeGeoIndex.rebuild();
+
+        List<double[]> queries = new ArrayList<>();
+        queries.add(new double[]{10.78, 106.70});
+        queries.add(new double[]{0, 179.99});
+        queries.add(new double[]{0, -179.99});
+        queries.add(new double[]{89.9, 0});
+        queries.add(new double[]{-89.9, 45});
+        for (int i = 0; i < 200; i++) {
+            queries.add(new double[]{random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180});
+        }
+
+        for (double[] q : queries) {
+            for (int k : new int[]{1, 5, 20}) {
+                List<StoreGeoIndex.Hit> hits = storeGeoIndex.nearest(q[0], q[1], k);
+                List<String> expected = bruteForce(q[0], q[1], k);
+
+                assertEquals(expected, hits.stream().map(hit -> hit.store().getId()).toList(),
+                        "k=" + k + " at (" + q[0] + ", " + q[1] + ")");
+                for (StoreGeoIndex.Hit hit : hits) {
+                    assertEquals(haversine(q[0], q[1], hit.store().getLatitude(), hit.store().getLongitude()),
+                            hit.distance(), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("k larger than the index returns every store, sorted")
+    void kLargerThanIndex() {
+        stores.add(store("far", 21.03, 105.85));
+        stores.add(store("near", 10.77, 106.70));
+        stores.add(store("mid", 16.05, 108.20));
+        storeGeoIndex.rebuild();
+
+        List<StoreGeoIndex.Hit> hits = storeGeoIndex.nearest(10.78, 106.70, 10);
+
+        assertEquals(List.of("near", "mid", "far"), hits.stream().map(hit -> hit.store().getId()).toList());
+    }
+
+    @Test
+    @DisplayName("Deleted stores are left out and empty indexes return nothing")
+    void skipsDeletedAndHandlesEmpty() {
+        assertTrue(storeGeoIndex.nearest(10.78, 106.70, 3).isEmpty());
+
+        Store deleted = store("deleted", 10.78, 106.70);
+        deleted.setIsDeleted(true);
+        stores.add(deleted);
+        stores.add(store("kept", 11.0, 107.0));
+        storeGeoIndex.rebuild();
+
+        List<StoreGeoIndex.Hit> hits = storeGeoIndex.nearest(10.78, 106.70, 3);
+        assertEquals(List.of("kept"), hits.stream().map(hit -> hit.store().getId()).toList());
+        assertTrue(storeGeoIndex.nearest(10.78, 106.70, 0).isEmpty());
+    }
+
+    private List<String> bruteForce(double lat, double lon, int k) {
+        return stores.stream()
+                .filter(store -> !Boolean.TRUE.equals(store.getIsDeleted()))
+                .sorted(Comparator.comparingDouble(store -> haversine(lat, lon, store.getLatitude(), store.getLongitude())))
+                .limit(k)
+                .map(Store::getId)
+                .toList();
+    }
+
+    private static Store store(String id, double lat, double lon) {
+        return Store.builder().id(id).name(id).latitude(lat).longitude(lon).build();
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.userservice.util;
+
+import com.example.userservice.enums.ErrorCode;
+import com.example.userservice.exception.AppException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Con trỏ history và con trỏ sync: mã hoá rồi giải mã phải trả lại đúng giá trị (kể cả micro giây),
+ * chuỗi sai định dạng bị từ chối bằng INVALID_REQUEST.
+ */
+@DisplayName("Chat cursor Tests")
+class MessageCursorTest {
+
+    @Test
+    @DisplayName("History cursor round-trips with microsecond precision")
+    void historyCursorRoundTripsMicros() {
+        Timestamp time = Timestamp.valueOf("2024-05-01 10:15:30.123456");
+
+        MessageCursor decoded = MessageCursor.decode(MessageCursor.of(time, "msg-1").encode());
+
+        assertEquals(time, decoded.time());
+        assertEquals(123_456_000, decoded.time().getNanos());
+        assertEquals("msg-1", decoded.id());
+    }
+
+    @Test
+    @DisplayName("History cursor from a plain Date keeps milliseconds")
+    void historyCursorRoundTripsDate() {
+        Date time = new Date(1_714_558_530_123L);
+
+        MessageCursor decoded = MessageCursor.decode(MessageCursor.of(time, "msg-2").encode());
+
+        assertEquals(time.getTime(), decoded.time().getTime());
+        assertEquals("msg-2", decoded.id());
+    }
+
+    @Test
+    @DisplayName("History cursor before the epoch round-trips")
+    void historyCursorRoundTripsBeforeEpoch() {
+        Timestamp time = Timestamp.valueOf("1969-12-31 23:59:59.999999");
+
+        assertEquals(time, MessageCursor.decode(MessageCursor.of(time, "msg-3").encode()).time());
+    }
+
+    @Test
+    @DisplayName("Missing history cursor decodes to null")
+    void historyCursorMissing() {
+        assertNull(MessageCursor.decode(null));
+        assertNull(MessageCursor.decode(" "));
+    }
+
+    @Test
+    @DisplayName("Malformed history cursor is rejected")
+    void historyCursorMalformed() {
+        assertInvalid(() -> MessageCursor.decode("not base64!"));
+        assertInvalid(() -> MessageCursor.decode(encode("no-separator")));
+        assertInvalid(() -> MessageCursor.decode(encode("abc:msg-1")));
+    }
+
+    @Test
+    @DisplayName("Sync cursor round-trips sequence and id")
+    void changeCursorRoundTrips() {
+        ChangeCursor cursor = new ChangeCursor(42L, "msg-1");
+
+        assertEquals(cursor, ChangeCursor.decode(cursor.encode()));
+        assertEquals(ChangeCursor.START, ChangeCursor.decode(ChangeCursor.START.encode()));
+        assertNull(ChangeCursor.decode(null));
+    }
+
+    @Test
+    @DisplayName("Time-based and malformed sync cursors are rejected")
+    void changeCursorRejectsOldAndMalformed() {
+        String timeCursor = MessageCursor.of(new Date(), "msg-1").encode();
+
+        assertInvalid(() -> ChangeCursor.decode(timeCursor));
+        assertInvalid(() -> ChangeCursor.decode(encode("s-1:msg-1")));
+        assertInvalid(() -> ChangeCursor.decode(encode("s:msg-1")));
+        assertInvalid(() -> ChangeCursor.decode("not base64!"));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertInvalid(Executable decode) {
+        AppException error = assertThrows(AppException.class, decode);
+        assertEquals(ErrorCode.INVALID_REQUEST, error.getErrorCode());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.userservice.websocket;
+
+import com.example.userservice.repository.ChatParticipantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Bảng định tuyến: nạp lười một lần, áp dụng thay đổi participant tại chỗ, và nạp lại khi bị invalidate / hết TTL.
+ */
+@DisplayName("ChatRoutingTable Tests")
+class ChatRoutingTableTest {
+
+    private static final String CHAT_ID = "chat-1";
+
+    private ChatParticipantRepository chatParticipantRepository;
+    private ChatRoutingTable chatRoutingTable;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        chatParticipantRepository = mock(ChatParticipantRepository.class);
+        when(chatParticipantRepository.findActiveParticipantRoutesByChatId(CHAT_ID)).thenAnswer(invocation -> List.copyOf(rows));
+        chatRoutingTable = new ChatRoutingTable(chatParticipantRepository);
+        ReflectionTestUtils.setField(chatRoutingTable, "ttlMs", 300_000L);
+
+        // [participantId, userId, employeeId, user id của account nhân viên]
+        rows.add(new Object[]{"p-1", "user-1", null, null});
+        rows.add(new Object[]{"p-2", null, "emp-1", "user-emp-1"});
+        rows.add(new Object[]{"p-3", null, "emp-2", null});
+    }
+
+    @Test
+    @DisplayName("Loads recipients once and resolves staff to their account user id")
+    void loadsOnceAndCaches() {
+        assertEquals(Set.of("user-1", "user-emp-1", "emp-2"), recipients());
+        assertEquals(Set.of("user-1", "user-emp-1", "emp-2"), recipients());
+
+        verify(chatParticipantRepository, times(1)).findActiveParticipantRoutesByChatId(CHAT_ID);
+    }
+
+    @Test
+    @DisplayName("Applies joins and leaves without reloading")
+    void appliesParticipantChangesInPlace() {
+        recipients();
+
+        chatRoutingTable.apply(CHAT_ID, new ChatRoutingTable.Member("p-4", "user-2", null, "user-2"), true);
+        chatRoutingTable.apply(CHAT_ID, new ChatRoutingTable.Member("p-1", "user-1", null, "user-1"), false);
+
+        assertEquals(Set.of("user-2", "user-emp-1", "emp-2"), recipients());
+        verify(chatParticipantRepository, times(1)).findActiveParticipantRoutesByChatId(CHAT_ID);
+    }
+
+    @Test
+    @DisplayName("A joining employee without a known recipient id forces a reload")
+    void unknownRecipientReloads() {
+        recipients();
+        rows.add(new Object[]{"p-5", null, "emp-3", "user-emp-3"});
+
+        chatRoutingTable.apply(CHAT_ID, new ChatRoutingTable.Member("p-5", null, "emp-3", null), true);
+
+        assertTrue(recipients().contains("user-emp-3"));
+        verify(chatParticipantRepository, times(2)).findActiveParticipantRoutesByChatId(CHAT_ID);
+    }
+
+    @Test
+    @DisplayName("Changes to chats that were never loaded are ignored until first use")
+    void ignoresChangesForUnloadedChats() {
+        chatRoutingTable.apply(CHAT_ID, new ChatRoutingTable.Member("p-4", "user-2", null, "user-2"), true);
+
+        verifyNoInteractions(chatParticipantRepository);
+        assertFalse(recipients().contains("user-2"));
+    }
+
+    @Test
+    @DisplayName("Invalidate drops the cached route so the next read sees the database")
+    void invalidateReloads() {
+        recipients();
+        rows.remove(0);
+
+        chatRoutingTable.invalidate(CHAT_ID);
+
+        assertEquals(Set.of("user-emp-1", "emp-2"), recipients());
+        verify(chatParticipantRepository, times(2)).findActiveParticipantRoutesByChatId(CHAT_ID);
+    }
+
+    @Test
+    @DisplayName("Expired routes are reloaded and evicted")
+    void expiredRoutesReload() {
+        ReflectionTestUtils.setField(chatRoutingTable, "ttlMs", -1L);
+        recipients();
+        recipients();
+        verify(chatParticipantRepository, times(2)).findActiveParticipantRoutesByChatId(CHAT_ID);
+
+        chatRoutingTable.evictExpired();
+        @SuppressWarnings("unchecked")
+        Map<String, ?> routes = (Map<String, ?>) ReflectionTestUtils.getField(chatRoutingTable, "routes");
+        assertTrue(routes.isEmpty());
+    }
+
+    private Set<String> recipients() {
+        return new HashSet<>(chatRoutingTable.getRecipients(CHAT_ID));
+    }
+}
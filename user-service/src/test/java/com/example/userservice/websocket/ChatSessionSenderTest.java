@@ -0,0 +1,178 @@
+package com.example.userservice.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Hàng đợi gửi theo session: client chậm không được làm chậm client nhanh,
+ * và bị đóng khi vượt giới hạn hàng đợi / thời gian gửi.
+ */
+@DisplayName("ChatSessionSender Tests")
+class ChatSessionSenderTest {
+
+    private ChatSessionSender sender;
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        sender = new ChatSessionSender();
+        ReflectionTestUtils.setField(sender, "maxThreads", 64);
+        ReflectionTestUtils.setField(sender, "queueCapacity", 8);
+        ReflectionTestUtils.setField(sender, "bufferSizeLimit", 1024L * 1024);
+        ReflectionTestUtils.setField(sender, "sendTimeLimitMs", 200L);
+        sender.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSlow.countDown();
+        sender.shutdown();
+    }
+
+    @Test
+    @DisplayName("Fast consumers receive a broadcast promptly while slow consumers are stuck")
+    void fastConsumersUnaffectedBySlowConsumers() throws Exception {
+        List<WebSocketSession> slow = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            slow.add(slowSession("slow-" + i));
+        }
+        int fastCount = 50;
+        CountDownLatch fastDelivered = new CountDownLatch(fastCount);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long[] sentAt = new long[1];
+        List<String> fastIds = new ArrayList<>();
+        for (int i = 0; i < fastCount; i++) {
+            WebSocketSession session = session("fast-" + i);
+            doAnswer(invocation -> {
+                latencies.add(System.nanoTime() - sentAt[0]);
+                fastDelivered.countDown();
+                return null;
+            }).when(session).sendMessage(any());
+            sender.register(session);
+            fastIds.add(session.getId());
+        }
+        slow.forEach(sender::register);
+
+        TextMessage message = new TextMessage("{\"type\":\"MESSAGE\"}");
+        sentAt[0] = System.nanoTime();
+        // Slow sessions first, so a synchronous sender would block before reaching fast ones
+        long enqueueStart = System.nanoTime();
+        for (WebSocketSession session : slow) {
+            assertTrue(sender.send(session.getId(), message));
+        }
+        for (String id : fastIds) {
+            assertTrue(sender.send(id, message));
+        }
+        long enqueueMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueueStart);
+
+        assertTrue(enqueueMs < 250, "Enqueue must not wait for slow consumers, took " + enqueueMs + " ms");
+        assertTrue(fastDelivered.await(1, TimeUnit.SECONDS), "Fast consumers must receive the broadcast");
+        long maxLatencyMs = TimeUnit.NANOSECONDS.toMillis(Collections.max(latencies));
+        assertTrue(maxLatencyMs < 500, "Fast consumer latency was " + maxLatencyMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Slow consumer is closed when its queue overflows")
+    void slowConsumerEvictedOnQueueOverflow() throws Exception {
+        WebSocketSession slow = slowSession("slow");
+        sender.register(slow);
+
+        TextMessage message = new TextMessage("x");
+        boolean rejected = false;
+        for (int i = 0; i < 20 && !rejected; i++) {
+            rejected = !sender.send("slow", message);
+        }
+
+        assertTrue(rejected, "Queue overflow must be rejected");
+        verify(slow, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(sender.send("slow", message), "Evicted session must not accept more messages");
+    }
+
+    @Test
+    @DisplayName("Slow consumer is closed when a send exceeds the send time limit")
+    void slowConsumerEvictedOnSendTimeLimit() throws Exception {
+        WebSocketSession slow = slowSession("slow");
+        sender.register(slow);
+
+        assertTrue(sender.send("slow", new TextMessage("x")));
+        Thread.sleep(300);
+        sender.sweep();
+
+        verify(slow, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    @DisplayName("Messages to one session are sent in order and never concurrently")
+    void sendsToOneSessionAreSerialized() throws Exception {
+        WebSocketSession session = session("s");
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(1);
+            received.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            inFlight.decrementAndGet();
+            return null;
+        }).when(session).sendMessage(any());
+        sender.register(session);
+
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int producer = t;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < 2; i++) {
+                    sender.send("s", new TextMessage(producer + ":" + i));
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        verify(session, timeout(1000).times(8)).sendMessage(any());
+        long deadline = System.currentTimeMillis() + 1000;
+        while (received.size() < 8 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(8, received.size());
+        assertEquals(1, maxInFlight.get());
+        for (int t = 0; t < 4; t++) {
+            assertTrue(received.indexOf(t + ":0") < received.indexOf(t + ":1"));
+        }
+    }
+
+    private WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private WebSocketSession slowSession(String id) throws Exception {
+        WebSocketSession session = session(id);
+        doAnswer(invocation -> {
+            releaseSlow.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+}
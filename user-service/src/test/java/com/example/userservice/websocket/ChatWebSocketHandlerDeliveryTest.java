@@ -0,0 +1,108 @@
+package com.example.userservice.websocket;
+
+import com.example.userservice.repository.AccountRepository;
+import com.example.userservice.repository.ChatParticipantRepository;
+import com.example.userservice.repository.EmployeeRepository;
+import com.example.userservice.repository.UserRepository;
+import com.example.userservice.response.WebSocketMessage;
+import com.example.userservice.service.inteface.ChatMessageService;
+import com.example.userservice.service.inteface.ChatService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Hai instance dùng chung LocalChatBackplane: tin gửi tới một user phải tới mọi session của user đó,
+ * kể cả khi user có session ở cả instance gửi lẫn instance khác.
+ */
+@DisplayName("ChatWebSocketHandler cross-node delivery Tests")
+class ChatWebSocketHandlerDeliveryTest {
+
+    private Node nodeA;
+    private Node nodeB;
+
+    private static final class Node {
+        private final PresenceRegistry presenceRegistry;
+        private final ChatSessionSender chatSessionSender = mock(ChatSessionSender.class);
+        private final ChatWebSocketHandler handler;
+
+        private Node(ChatBackplane backplane) {
+            presenceRegistry = new PresenceRegistry(backplane);
+            presenceRegistry.subscribe();
+            handler = new ChatWebSocketHandler(mock(ChatRoutingTable.class), presenceRegistry, backplane,
+                    chatSessionSender, mock(UserRepository.class), mock(EmployeeRepository.class),
+                    mock(AccountRepository.class), mock(ChatParticipantRepository.class),
+                    mock(ChatMessageService.class), mock(ChatService.class));
+            handler.subscribeBackplane();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        LocalChatBackplane backplane = new LocalChatBackplane();
+        nodeA = new Node(backplane);
+        nodeB = new Node(backplane);
+    }
+
+    @Test
+    @DisplayName("User connected on both nodes receives the message on both")
+    void deliversToLocalAndRemoteSessionsOfSameUser() {
+        nodeA.presenceRegistry.connect("a-1", "user-1", null);
+        nodeB.presenceRegistry.connect("b-1", "user-1", null);
+
+        nodeA.handler.sendMessageToUser("user-1", message());
+
+        verify(nodeA.chatSessionSender).send(eq("a-1"), any(TextMessage.class));
+        verify(nodeB.chatSessionSender).send(eq("b-1"), any(TextMessage.class));
+    }
+
+    @Test
+    @DisplayName("User connected only on another node receives the message through the backplane")
+    void deliversToRemoteOnlyUser() {
+        nodeB.presenceRegistry.connect("b-1", "user-1", null);
+
+        nodeA.handler.sendMessageToUser("user-1", message());
+
+        verify(nodeA.chatSessionSender, never()).send(anyString(), any(TextMessage.class));
+        verify(nodeB.chatSessionSender).send(eq("b-1"), any(TextMessage.class));
+    }
+
+    @Test
+    @DisplayName("User connected only locally is not delivered twice")
+    void localOnlyUserStaysLocal() {
+        nodeA.presenceRegistry.connect("a-1", "user-1", null);
+        nodeA.presenceRegistry.connect("a-2", "user-1", null);
+
+        nodeA.handler.sendMessageToUser("user-1", message());
+
+        verify(nodeA.chatSessionSender).send(eq("a-1"), any(TextMessage.class));
+        verify(nodeA.chatSessionSender).send(eq("a-2"), any(TextMessage.class));
+        verify(nodeB.chatSessionSender, never()).send(anyString(), any(TextMessage.class));
+    }
+
+    @Test
+    @DisplayName("Remote session is no longer targeted after the user goes offline there")
+    void stopsDeliveringAfterRemoteDisconnect() {
+        nodeA.presenceRegistry.connect("a-1", "user-1", null);
+        nodeB.presenceRegistry.connect("b-1", "user-1", null);
+        nodeB.presenceRegistry.disconnect("b-1");
+
+        nodeA.handler.sendMessageToUser("user-1", message());
+
+        verify(nodeA.chatSessionSender).send(eq("a-1"), any(TextMessage.class));
+        verify(nodeB.chatSessionSender, never()).send(anyString(), any(TextMessage.class));
+    }
+
+    private static WebSocketMessage message() {
+        return WebSocketMessage.builder()
+                .type("MESSAGE")
+                .content("hello")
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+}